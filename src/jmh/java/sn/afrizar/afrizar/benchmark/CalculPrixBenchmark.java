@@ -0,0 +1,62 @@
+package sn.afrizar.afrizar.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sn.afrizar.afrizar.dto.DemandePrixDto;
+import sn.afrizar.afrizar.dto.DetailPrixDto;
+import sn.afrizar.afrizar.model.Vendeur;
+import sn.afrizar.afrizar.service.CalculPrixService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul du prix final (commission standard, commission négociée, calcul groupé)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalculPrixBenchmark {
+
+    private CalculPrixService calculPrixService;
+    private BigDecimal prixVendeur;
+    private List<DemandePrixDto> demandesPanier;
+
+    @Setup
+    public void preparer() {
+        List<Vendeur> vendeurs = DonneesBenchmark.vendeurs();
+        calculPrixService = DonneesBenchmark.calculPrixService(vendeurs);
+        prixVendeur = BigDecimal.valueOf(25_000);
+
+        demandesPanier = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            demandesPanier.add(new DemandePrixDto(BigDecimal.valueOf(5_000 + i * 3_500L), (long) (i % DonneesBenchmark.NOMBRE_VENDEURS) + 1));
+        }
+        // Remplir le cache des profils vendeurs
+        calculPrixService.calculerPrixFinaux(demandesPanier);
+    }
+
+    @Benchmark
+    public DetailPrixDto calculerPrixFinalStandard() {
+        return calculPrixService.calculerPrixFinal(prixVendeur);
+    }
+
+    @Benchmark
+    public DetailPrixDto calculerPrixFinalVendeur() {
+        return calculPrixService.calculerPrixFinal(prixVendeur, 1L);
+    }
+
+    @Benchmark
+    public DetailPrixDto calculerPrixFinalVendeurCommissionNegociee() {
+        return calculPrixService.calculerPrixFinal(prixVendeur, 3L);
+    }
+
+    @Benchmark
+    public List<DetailPrixDto> calculerPrixFinauxPanier20Articles() {
+        return calculPrixService.calculerPrixFinaux(demandesPanier);
+    }
+}
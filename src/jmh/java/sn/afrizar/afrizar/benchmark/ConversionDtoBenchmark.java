@@ -0,0 +1,153 @@
+package sn.afrizar.afrizar.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sn.afrizar.afrizar.controller.PublicProduitController;
+import sn.afrizar.afrizar.dto.PanierDto;
+import sn.afrizar.afrizar.dto.ProduitDto;
+import sn.afrizar.afrizar.model.*;
+import sn.afrizar.afrizar.repository.*;
+import sn.afrizar.afrizar.service.impl.CompteurEngagementServiceImpl;
+import sn.afrizar.afrizar.service.impl.PanierServiceImpl;
+import sn.afrizar.afrizar.service.impl.ProduitServiceImpl;
+import sn.afrizar.afrizar.service.impl.ReservationStockServiceImpl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions entité → DTO des listes de produits, du panier et du catalogue public
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionDtoBenchmark {
+
+    private ProduitServiceImpl produitService;
+    private PanierServiceImpl panierService;
+    private PublicProduitController publicProduitController;
+
+    private MethodHandle convertirProduitVersDto;
+    private MethodHandle creerAgregatPanier;
+    private MethodHandle convertirAgregatVersDto;
+    private MethodHandle convertirEnPublicProduit;
+
+    private Produit produit;
+
+    @Setup
+    public void preparer() throws ReflectiveOperationException {
+        List<Vendeur> vendeurs = DonneesBenchmark.vendeurs();
+        Categorie categorie = DonneesBenchmark.categorie();
+        produit = DonneesBenchmark.produit(1L, vendeurs.get(0), categorie);
+
+        ProduitRepository produitRepository = DepotsEnMemoire.pour(ProduitRepository.class).construire();
+        produitService = new ProduitServiceImpl(produitRepository, DonneesBenchmark.vendeurRepository(vendeurs),
+                DepotsEnMemoire.pour(CategorieRepository.class).construire(),
+                new CompteurEngagementServiceImpl(null, null),
+                new ReservationStockServiceImpl(null, null, null, null, null));
+        panierService = new PanierServiceImpl(
+                DepotsEnMemoire.pour(PanierRepository.class).construire(),
+                DepotsEnMemoire.pour(PanierItemRepository.class).construire(),
+                DepotsEnMemoire.pour(ClientRepository.class).construire(),
+                produitRepository,
+                DonneesBenchmark.calculPrixService(vendeurs),
+                null,
+                null);
+        publicProduitController = new PublicProduitController(produitRepository);
+
+        // Méthodes privées : accès direct pour mesurer la conversion seule
+        convertirProduitVersDto = MethodHandles.privateLookupIn(ProduitServiceImpl.class, MethodHandles.lookup())
+                .findVirtual(ProduitServiceImpl.class, "convertirEntityVersDto", MethodType.methodType(ProduitDto.class, Produit.class));
+        MethodHandles.Lookup lookupPanier = MethodHandles.privateLookupIn(PanierServiceImpl.class, MethodHandles.lookup());
+        Class<?> agregatPanier = lookupPanier.findClass("sn.afrizar.afrizar.service.impl.AgregatPanier");
+        creerAgregatPanier = lookupPanier
+                .findVirtual(PanierServiceImpl.class, "creerAgregat", MethodType.methodType(agregatPanier, Panier.class, Map.class))
+                .asType(MethodType.methodType(Object.class, PanierServiceImpl.class, Panier.class, Map.class));
+        convertirAgregatVersDto = lookupPanier
+                .findVirtual(PanierServiceImpl.class, "convertirAgregatVersDto", MethodType.methodType(PanierDto.class, agregatPanier))
+                .asType(MethodType.methodType(PanierDto.class, PanierServiceImpl.class, Object.class));
+        convertirEnPublicProduit = MethodHandles.privateLookupIn(PublicProduitController.class, MethodHandles.lookup())
+                .findVirtual(PublicProduitController.class, "convertirEnPublicProduit", MethodType.methodType(Map.class, Produit.class));
+    }
+
+    /**
+     * Panier du client, paramétré par son nombre d'articles
+     */
+    @State(Scope.Benchmark)
+    public static class PanierClient {
+
+        @Param({"1", "20"})
+        private int nombreArticles;
+
+        private Panier panier;
+        private Map<Long, Produit> produits;
+
+        // Agrégat en cache (lignes déjà tarifées), créé au premier passage
+        private Object agregat;
+
+        @Setup
+        public void preparer() {
+            List<Vendeur> vendeurs = DonneesBenchmark.vendeurs();
+            Categorie categorie = DonneesBenchmark.categorie();
+
+            Client client = new Client();
+            client.setId(1L);
+            client.setNom("Diop");
+            client.setPrenom("Awa");
+
+            produits = new HashMap<>();
+            panier = new Panier();
+            panier.setId(1L);
+            panier.setClient(client);
+            for (int i = 0; i < nombreArticles; i++) {
+                Produit produitPanier = DonneesBenchmark.produit(i + 1L, vendeurs.get(i % vendeurs.size()), categorie);
+                PanierItem item = new PanierItem();
+                item.setId(i + 1L);
+                item.setPanier(panier);
+                item.setProduit(produitPanier);
+                item.setQuantite(1 + i % 3);
+                item.setPrixUnitaire(produitPanier.getPrix());
+                panier.getItems().add(item);
+                produits.put(produitPanier.getId(), produitPanier);
+            }
+        }
+    }
+
+    @Benchmark
+    public ProduitDto produitServiceConvertirEntityVersDto() throws Throwable {
+        return (ProduitDto) convertirProduitVersDto.invokeExact(produitService, produit);
+    }
+
+    /**
+     * Absence du cache : construction et tarification de l'agrégat puis conversion
+     */
+    @Benchmark
+    public PanierDto panierServiceChargerEtConvertirAgregat(PanierClient panierClient) throws Throwable {
+        Object agregat = creerAgregatPanier.invokeExact(panierService, panierClient.panier, panierClient.produits);
+        return (PanierDto) convertirAgregatVersDto.invokeExact(panierService, agregat);
+    }
+
+    /**
+     * Panier en cache : conversion des lignes déjà tarifées, sans calcul de prix
+     */
+    @Benchmark
+    public PanierDto panierServiceConvertirAgregatEnCache(PanierClient panierClient) throws Throwable {
+        if (panierClient.agregat == null) {
+            panierClient.agregat = creerAgregatPanier.invokeExact(panierService, panierClient.panier, panierClient.produits);
+        }
+        return (PanierDto) convertirAgregatVersDto.invokeExact(panierService, panierClient.agregat);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> publicProduitControllerConvertirEnPublicProduit() throws Throwable {
+        return (Map<String, Object>) convertirEnPublicProduit.invokeExact(publicProduitController, produit);
+    }
+}
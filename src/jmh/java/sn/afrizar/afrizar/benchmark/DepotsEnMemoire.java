@@ -0,0 +1,57 @@
+package sn.afrizar.afrizar.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Fabrique de repositories en mémoire pour les benchmarks : seules les méthodes déclarées
+ * sont implémentées, tout autre appel échoue pour signaler un accès base inattendu.
+ */
+final class DepotsEnMemoire {
+
+    private DepotsEnMemoire() {
+    }
+
+    static <T> Depot<T> pour(Class<T> typeRepository) {
+        return new Depot<>(typeRepository);
+    }
+
+    static final class Depot<T> {
+
+        private final Class<T> typeRepository;
+        private final Map<String, Function<Object[], Object>> methodes = new HashMap<>();
+
+        private Depot(Class<T> typeRepository) {
+            this.typeRepository = typeRepository;
+        }
+
+        Depot<T> avec(String nomMethode, Function<Object[], Object> implementation) {
+            methodes.put(nomMethode, implementation);
+            return this;
+        }
+
+        T construire() {
+            Object depot = Proxy.newProxyInstance(typeRepository.getClassLoader(), new Class<?>[]{typeRepository},
+                    (proxy, methode, arguments) -> {
+                        switch (methode.getName()) {
+                            case "toString":
+                                return "DepotEnMemoire[" + typeRepository.getSimpleName() + "]";
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == arguments[0];
+                            default:
+                                Function<Object[], Object> implementation = methodes.get(methode.getName());
+                                if (implementation == null) {
+                                    throw new UnsupportedOperationException(
+                                            typeRepository.getSimpleName() + "." + methode.getName() + " non disponible en mémoire");
+                                }
+                                return implementation.apply(arguments);
+                        }
+                    });
+            return typeRepository.cast(depot);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package sn.afrizar.afrizar.benchmark;
+
+import sn.afrizar.afrizar.dto.ProfilTarifaireVendeurDto;
+import sn.afrizar.afrizar.model.*;
+import sn.afrizar.afrizar.repository.CommissionRepository;
+import sn.afrizar.afrizar.repository.ConfigurationLivraisonRepository;
+import sn.afrizar.afrizar.repository.VendeurRepository;
+import sn.afrizar.afrizar.service.impl.CalculPrixServiceImpl;
+import sn.afrizar.afrizar.service.impl.CommissionServiceImpl;
+import sn.afrizar.afrizar.service.impl.ConfigurationLivraisonServiceImpl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Jeu de données et services câblés sur des repositories en mémoire, partagés par les benchmarks
+ */
+final class DonneesBenchmark {
+
+    static final int NOMBRE_VENDEURS = 10;
+
+    private DonneesBenchmark() {
+    }
+
+    static List<Commission> tranchesParDefaut() {
+        List<Commission> tranches = new ArrayList<>();
+        tranches.add(new Commission(1L, BigDecimal.ZERO, BigDecimal.valueOf(9999.99), BigDecimal.valueOf(10.00), "Moins de 10 000 FCFA (+10%)", true, 1));
+        tranches.add(new Commission(2L, BigDecimal.valueOf(10000), BigDecimal.valueOf(30000), BigDecimal.valueOf(8.00), "De 10 000 à 30 000 FCFA (+8%)", true, 2));
+        tranches.add(new Commission(3L, BigDecimal.valueOf(30001), BigDecimal.valueOf(50000), BigDecimal.valueOf(6.00), "De 30 001 à 50 000 FCFA (+6%)", true, 3));
+        tranches.add(new Commission(4L, BigDecimal.valueOf(50001), null, BigDecimal.valueOf(5.00), "Plus de 50 000 FCFA - Haut de gamme (+5%)", true, 4));
+        return tranches;
+    }
+
+    static List<Vendeur> vendeurs() {
+        List<Vendeur> vendeurs = new ArrayList<>();
+        for (long i = 1; i <= NOMBRE_VENDEURS; i++) {
+            Vendeur vendeur = new Vendeur();
+            vendeur.setId(i);
+            vendeur.setNom("Vendeur" + i);
+            vendeur.setPrenom("Test");
+            vendeur.setEmail("vendeur" + i + "@afrizar.sn");
+            vendeur.setNomBoutique("Boutique " + i);
+            vendeur.setActif(true);
+            vendeur.setVerifie(true);
+            // Un vendeur sur trois a une commission négociée
+            if (i % 3 == 0) {
+                vendeur.setTauxCommissionPersonnalise(BigDecimal.valueOf(7.50));
+            }
+            vendeurs.add(vendeur);
+        }
+        return vendeurs;
+    }
+
+    static Produit produit(long id, Vendeur vendeur, Categorie categorie) {
+        Produit produit = new Produit();
+        produit.setId(id);
+        produit.setNom("Boubou brodé " + id);
+        produit.setDescription("Boubou en bazin riche brodé à la main");
+        produit.setPrix(BigDecimal.valueOf(5_000 + (id * 3_750) % 80_000));
+        produit.setStock(25);
+        produit.setPoids(BigDecimal.valueOf(1.2));
+        produit.setPhotos(List.of("/uploads/produits/" + id + "-1.jpg", "/uploads/produits/" + id + "-2.jpg"));
+        produit.setTaillesDisponibles(List.of(Produit.Taille.M, Produit.Taille.L));
+        produit.setStatut(Produit.StatutProduit.ACTIF);
+        produit.setVendeur(vendeur);
+        produit.setCategorie(categorie);
+        return produit;
+    }
+
+    static Categorie categorie() {
+        Categorie categorie = new Categorie();
+        categorie.setId(1L);
+        categorie.setNom("Boubous");
+        return categorie;
+    }
+
+    static CommissionServiceImpl commissionService() {
+        List<Commission> tranches = tranchesParDefaut();
+        CommissionRepository commissionRepository = DepotsEnMemoire.pour(CommissionRepository.class)
+                .avec("findByActiveTrueOrderByOrdre", arguments -> tranches)
+                .construire();
+        return new CommissionServiceImpl(commissionRepository);
+    }
+
+    static VendeurRepository vendeurRepository(List<Vendeur> vendeurs) {
+        Map<Long, Vendeur> parId = vendeurs.stream().collect(Collectors.toMap(Vendeur::getId, Function.identity()));
+        Function<Vendeur, ProfilTarifaireVendeurDto> profil = vendeur ->
+                new ProfilTarifaireVendeurDto(vendeur.getId(), vendeur.getTauxCommissionPersonnalise(), vendeur.getNomBoutique());
+        return DepotsEnMemoire.pour(VendeurRepository.class)
+                .avec("findById", arguments -> Optional.ofNullable(parId.get((Long) arguments[0])))
+                .avec("findProfilTarifaire", arguments -> Optional.ofNullable(parId.get((Long) arguments[0])).map(profil))
+                .avec("findProfilsTarifaires", arguments -> ((Collection<?>) arguments[0]).stream()
+                        .map(parId::get)
+                        .filter(vendeur -> vendeur != null)
+                        .map(profil)
+                        .collect(Collectors.toList()))
+                .construire();
+    }
+
+    static CalculPrixServiceImpl calculPrixService(List<Vendeur> vendeurs) {
+        return new CalculPrixServiceImpl(commissionService(), vendeurRepository(vendeurs));
+    }
+
+    static ConfigurationLivraisonServiceImpl configurationLivraisonService() {
+        List<ConfigurationLivraison> configurations = List.of(
+                configuration("SENEGAL", Livraison.TypeLivraison.STANDARD, 1_000, 500),
+                configuration("SENEGAL", Livraison.TypeLivraison.EXPRESS, 2_000, 1_000),
+                configuration("GENERAL", Livraison.TypeLivraison.STANDARD, 5_000, 2_000),
+                configuration("GENERAL", Livraison.TypeLivraison.EXPRESS, 10_000, 3_000));
+        ConfigurationLivraisonRepository repository = DepotsEnMemoire.pour(ConfigurationLivraisonRepository.class)
+                .avec("findByActifTrue", arguments -> configurations)
+                .construire();
+        return new ConfigurationLivraisonServiceImpl(repository);
+    }
+
+    private static ConfigurationLivraison configuration(String pays, Livraison.TypeLivraison type, long tarifBase, long tarifParKg) {
+        return ConfigurationLivraison.builder()
+                .pays(pays)
+                .type(type)
+                .tarifBase(BigDecimal.valueOf(tarifBase))
+                .tarifParKg(BigDecimal.valueOf(tarifParKg))
+                .minimumFacturation(BigDecimal.valueOf(1_500))
+                .reductionGrosColis(BigDecimal.valueOf(10))
+                .delaiJours(7)
+                .actif(true)
+                .build();
+    }
+}
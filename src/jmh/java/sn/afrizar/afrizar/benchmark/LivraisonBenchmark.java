@@ -0,0 +1,64 @@
+package sn.afrizar.afrizar.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+import sn.afrizar.afrizar.model.Livraison;
+import sn.afrizar.afrizar.repository.CommandeRepository;
+import sn.afrizar.afrizar.repository.LivraisonRepository;
+import sn.afrizar.afrizar.service.ConfigurationLivraisonService;
+import sn.afrizar.afrizar.service.impl.GenerateurNumeroServiceImpl;
+import sn.afrizar.afrizar.service.impl.LivraisonServiceImpl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul des frais de livraison : configuration admin (pays spécifique et repli GENERAL) et tarifs de secours
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LivraisonBenchmark {
+
+    private ConfigurationLivraisonService configurationLivraisonService;
+    private LivraisonServiceImpl livraisonService;
+    private MethodHandle calculerCoutLivraisonFallback;
+    private BigDecimal poids;
+
+    @Setup
+    public void preparer() throws ReflectiveOperationException {
+        configurationLivraisonService = DonneesBenchmark.configurationLivraisonService();
+        livraisonService = new LivraisonServiceImpl(
+                DepotsEnMemoire.pour(LivraisonRepository.class).construire(),
+                DepotsEnMemoire.pour(CommandeRepository.class).construire(),
+                configurationLivraisonService,
+                new GenerateurNumeroServiceImpl(0, new StandardEnvironment()));
+        poids = BigDecimal.valueOf(2.5);
+
+        // Méthode privée : accès direct pour mesurer le calcul de secours seul
+        calculerCoutLivraisonFallback = MethodHandles.privateLookupIn(LivraisonServiceImpl.class, MethodHandles.lookup())
+                .findVirtual(LivraisonServiceImpl.class, "calculerCoutLivraisonFallback", MethodType.methodType(
+                        BigDecimal.class, BigDecimal.class, String.class, String.class, Livraison.TypeLivraison.class));
+    }
+
+    @Benchmark
+    public BigDecimal obtenirTarifLivraisonPaysConfigure() {
+        return configurationLivraisonService.obtenirTarifLivraison("SENEGAL", Livraison.TypeLivraison.STANDARD, poids);
+    }
+
+    @Benchmark
+    public BigDecimal obtenirTarifLivraisonRepliGeneral() {
+        return configurationLivraisonService.obtenirTarifLivraison("FRANCE", Livraison.TypeLivraison.EXPRESS, poids);
+    }
+
+    @Benchmark
+    public BigDecimal calculerCoutLivraisonFallback() throws Throwable {
+        return (BigDecimal) calculerCoutLivraisonFallback.invokeExact(livraisonService, poids, "FRANCE", "Paris", Livraison.TypeLivraison.STANDARD);
+    }
+}
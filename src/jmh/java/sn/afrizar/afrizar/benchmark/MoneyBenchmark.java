@@ -0,0 +1,91 @@
+package sn.afrizar.afrizar.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import sn.afrizar.afrizar.model.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare l'arithmétique BigDecimal (ancien calcul) et Money (long en centimes)
+ * sur les calculs du chemin critique : commission d'une ligne, total d'un panier, frais de livraison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    // Nombre d'articles du panier simulé
+    @Param({"1", "20"})
+    private int nombreArticles;
+
+    private BigDecimal[] prix;
+    private int[] quantites;
+    private BigDecimal pourcentage;
+    private BigDecimal tarifBase;
+    private BigDecimal tarifParKg;
+    private BigDecimal poids;
+
+    private long[] prixCentimes;
+    private long pointsDeBase;
+
+    @Setup
+    public void preparer() {
+        Random random = new Random(42);
+        prix = new BigDecimal[nombreArticles];
+        quantites = new int[nombreArticles];
+        prixCentimes = new long[nombreArticles];
+        for (int i = 0; i < nombreArticles; i++) {
+            prix[i] = BigDecimal.valueOf(1_000 + random.nextInt(90_000));
+            quantites[i] = 1 + random.nextInt(3);
+            prixCentimes[i] = Money.de(prix[i]).centimes();
+        }
+        pourcentage = BigDecimal.valueOf(8.00);
+        pointsDeBase = Money.pointsDeBase(pourcentage);
+        tarifBase = BigDecimal.valueOf(5000);
+        tarifParKg = BigDecimal.valueOf(2000);
+        poids = BigDecimal.valueOf(2.75);
+    }
+
+    @Benchmark
+    public BigDecimal totalPanierBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < nombreArticles; i++) {
+            BigDecimal commission = prix[i].multiply(pourcentage).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+            BigDecimal prixFinal = prix[i].add(commission);
+            total = total.add(prixFinal.multiply(BigDecimal.valueOf(quantites[i])));
+        }
+        return total.add(tarifBase.add(poids.multiply(tarifParKg)));
+    }
+
+    @Benchmark
+    public BigDecimal totalPanierMoney() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < nombreArticles; i++) {
+            Money prixVendeur = Money.deCentimes(prixCentimes[i]);
+            Money prixFinal = prixVendeur.plus(prixVendeur.pourcentage(pointsDeBase));
+            total = total.plus(prixFinal.fois(quantites[i]));
+        }
+        Money frais = Money.de(tarifBase).plus(Money.de(tarifParKg).foisMilliemes(Money.milliemes(poids)));
+        return total.plus(frais).versBigDecimal();
+    }
+
+    @Benchmark
+    public BigDecimal totalPanierMoneyDepuisBigDecimal() {
+        // Cas réel : conversion depuis les BigDecimal des entités à chaque appel
+        Money total = Money.ZERO;
+        long taux = Money.pointsDeBase(pourcentage);
+        for (int i = 0; i < nombreArticles; i++) {
+            Money prixVendeur = Money.de(prix[i]);
+            Money prixFinal = prixVendeur.plus(prixVendeur.pourcentage(taux));
+            total = total.plus(prixFinal.fois(quantites[i]));
+        }
+        Money frais = Money.de(tarifBase).plus(Money.de(tarifParKg).foisMilliemes(Money.milliemes(poids)));
+        return total.plus(frais).versBigDecimal();
+    }
+}
@@ -2,8 +2,10 @@ package sn.afrizar.afrizar;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AfrizarApplication {
 
 	public static void main(String[] args) {
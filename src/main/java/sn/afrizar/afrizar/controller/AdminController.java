@@ -11,6 +11,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -20,12 +21,19 @@ import sn.afrizar.afrizar.dto.UtilisateurDto;
 import sn.afrizar.afrizar.dto.VendeurDto;
 import sn.afrizar.afrizar.model.Produit;
 import sn.afrizar.afrizar.model.Utilisateur;
+import sn.afrizar.afrizar.service.AgregatVentesService;
 import sn.afrizar.afrizar.service.AuthService;
+import sn.afrizar.afrizar.service.CalculPrixService;
+import sn.afrizar.afrizar.service.CompteurEngagementService;
+import sn.afrizar.afrizar.service.EvenementOutboxService;
+import sn.afrizar.afrizar.service.PanierService;
 import sn.afrizar.afrizar.service.ProduitService;
+import sn.afrizar.afrizar.service.ReservationStockService;
 import sn.afrizar.afrizar.service.VendeurService;
 import sn.afrizar.afrizar.service.ClientService;
 import sn.afrizar.afrizar.repository.UtilisateurRepository;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +51,12 @@ public class AdminController {
     private final ClientService clientService;
     private final UtilisateurRepository utilisateurRepository;
     private final AuthService authService;
+    private final CalculPrixService calculPrixService;
+    private final CompteurEngagementService compteurEngagementService;
+    private final EvenementOutboxService evenementOutboxService;
+    private final ReservationStockService reservationStockService;
+    private final AgregatVentesService agregatVentesService;
+    private final PanierService panierService;
     
     // ===================== GESTION DES PRODUITS =====================
     
@@ -343,6 +357,9 @@ public class AdminController {
         
         utilisateur.setActif(false);
         utilisateurRepository.save(utilisateur);
+        if (utilisateur.getRole() == Utilisateur.Role.VENDEUR) {
+            calculPrixService.invaliderProfilVendeur(id);
+        }
         
         return ResponseEntity.ok(Map.of("message", "Utilisateur désactivé avec succès"));
     }
@@ -415,9 +432,110 @@ public class AdminController {
             "inactifs", totalUtilisateurs - utilisateursActifs
         ));
         
+        // Commandes et chiffre d'affaires (agrégats journaliers)
+        stats.put("commandes", agregatVentesService.obtenirTableauDeBord());
+        
         return ResponseEntity.ok(stats);
     }
     
+    @GetMapping("/statistiques/cache-vendeurs")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Obtenir les statistiques du cache des profils vendeurs", 
+               description = "Taille, succès et échecs du cache utilisé pour le calcul des prix")
+    @ApiResponse(responseCode = "200", description = "Statistiques du cache")
+    public ResponseEntity<Map<String, Object>> obtenirStatistiquesCacheVendeurs() {
+        return ResponseEntity.ok(calculPrixService.obtenirStatistiquesCacheVendeurs());
+    }
+    
+    @GetMapping("/statistiques/compteurs-engagement")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Obtenir l'état des compteurs d'engagement", 
+               description = "Vues, likes, commentaires et partages en attente d'écriture en base")
+    @ApiResponse(responseCode = "200", description = "Statistiques des compteurs")
+    public ResponseEntity<Map<String, Object>> obtenirStatistiquesCompteursEngagement() {
+        return ResponseEntity.ok(compteurEngagementService.obtenirStatistiques());
+    }
+    
+    @GetMapping("/statistiques/outbox")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Obtenir l'état de l'outbox des traitements post-commande", 
+               description = "Événements par statut, file et threads du dispatcheur")
+    @ApiResponse(responseCode = "200", description = "Statistiques de l'outbox")
+    public ResponseEntity<Map<String, Object>> obtenirStatistiquesOutbox() {
+        return ResponseEntity.ok(evenementOutboxService.obtenirStatistiques());
+    }
+    
+    @GetMapping("/statistiques/reservations-stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Obtenir l'état des réservations de stock", 
+               description = "Quantités retenues par les checkouts en cours, réservations créées, refusées et expirées")
+    @ApiResponse(responseCode = "200", description = "Statistiques des réservations")
+    public ResponseEntity<Map<String, Object>> obtenirStatistiquesReservationsStock() {
+        return ResponseEntity.ok(reservationStockService.obtenirStatistiques());
+    }
+    
+    @GetMapping("/statistiques/paniers")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Obtenir l'état du cache des paniers", 
+               description = "Taille, succès et évictions du cache, paniers en attente d'écriture en base")
+    @ApiResponse(responseCode = "200", description = "Statistiques des paniers")
+    public ResponseEntity<Map<String, Object>> obtenirStatistiquesPaniers() {
+        return ResponseEntity.ok(panierService.obtenirStatistiques());
+    }
+    
+    @GetMapping("/statistiques/agregats-ventes")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Obtenir l'état des agrégats de ventes", 
+               description = "Agrégats créés, corrections de la réconciliation et date de la dernière réconciliation")
+    @ApiResponse(responseCode = "200", description = "Statistiques des agrégats")
+    public ResponseEntity<Map<String, Object>> obtenirStatistiquesAgregatsVentes() {
+        return ResponseEntity.ok(agregatVentesService.obtenirStatistiques());
+    }
+    
+    @PostMapping("/statistiques/agregats-ventes/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recalculer les agrégats de ventes d'une période", 
+               description = "Recalcule depuis les commandes les agrégats de chaque jour de la période")
+    @ApiResponse(responseCode = "200", description = "Agrégats recalculés")
+    public ResponseEntity<Map<String, Object>> reconcilierAgregatsVentes(
+            @Parameter(description = "Premier jour (ISO format)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @Parameter(description = "Dernier jour (ISO format)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        Map<String, Object> resultat = new HashMap<>();
+        resultat.put("agregatsCorriges", agregatVentesService.reconcilier(debut, fin));
+        return ResponseEntity.ok(resultat);
+    }
+    
+    @PostMapping("/statistiques/compteurs-engagement/flush")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Écrire immédiatement les compteurs d'engagement en base")
+    @ApiResponse(responseCode = "200", description = "Compteurs écrits")
+    public ResponseEntity<Map<String, Object>> viderCompteursEngagement() {
+        Map<String, Object> resultat = new HashMap<>();
+        resultat.put("lignesMisesAJour", compteurEngagementService.vider());
+        return ResponseEntity.ok(resultat);
+    }
+    
+    @PostMapping("/statistiques/paniers/flush")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Écrire immédiatement les paniers modifiés en base")
+    @ApiResponse(responseCode = "200", description = "Paniers écrits")
+    public ResponseEntity<Map<String, Object>> ecrirePaniersEnAttente() {
+        Map<String, Object> resultat = new HashMap<>();
+        resultat.put("paniersEcrits", panierService.ecrireModificationsEnAttente());
+        return ResponseEntity.ok(resultat);
+    }
+    
+    @PostMapping("/statistiques/paniers/purge")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Purger immédiatement les paniers abandonnés", 
+               description = "Supprime par lots les paniers sans modification depuis la durée configurée")
+    @ApiResponse(responseCode = "200", description = "Paniers supprimés")
+    public ResponseEntity<Map<String, Object>> purgerPaniersAbandonnes() {
+        Map<String, Object> resultat = new HashMap<>();
+        resultat.put("paniersPurges", panierService.purgerPaniersAbandonnes());
+        return ResponseEntity.ok(resultat);
+    }
+    
     // ===================== MÉTHODES UTILITAIRES =====================
     
     private UtilisateurDto convertirVersDto(Utilisateur utilisateur) {
@@ -4,10 +4,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import sn.afrizar.afrizar.dto.DemandePrixDto;
 import sn.afrizar.afrizar.dto.DetailPrixDto;
 import sn.afrizar.afrizar.model.Livraison;
 import sn.afrizar.afrizar.service.CalculPrixService;
@@ -32,6 +34,9 @@ public class CalculController {
     private final LivraisonService livraisonService;
     private final ConfigurationLivraisonService configurationLivraisonService;
     
+    // Nombre maximal de prix calculés par appel groupé
+    private static final int TAILLE_MAX_BATCH_PRIX = 500;
+    
     @GetMapping("/prix")
     @Operation(summary = "Calculer le prix final avec commission", description = "Calcule le prix final d'un produit avec détail transparent des commissions")
     @ApiResponse(responseCode = "200", description = "Prix calculé avec détail transparent")
@@ -51,6 +56,21 @@ public class CalculController {
         return ResponseEntity.ok(detail);
     }
     
+    @PostMapping("/prix/batch")
+    @Operation(summary = "Calculer le prix final de plusieurs produits", description = "Calcule en un seul appel le prix final (avec commission) d'une liste de couples prix vendeur / vendeur")
+    @ApiResponse(responseCode = "200", description = "Prix calculés, dans l'ordre de la demande")
+    @ApiResponse(responseCode = "400", description = "Demande vide ou trop volumineuse")
+    public ResponseEntity<List<DetailPrixDto>> calculerPrixFinaux(@Valid @RequestBody List<@Valid DemandePrixDto> demandes) {
+        
+        log.info("Calcul groupé du prix final pour {} produit(s)", demandes.size());
+        
+        if (demandes.isEmpty() || demandes.size() > TAILLE_MAX_BATCH_PRIX) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return ResponseEntity.ok(calculPrixService.calculerPrixFinaux(demandes));
+    }
+    
     @GetMapping("/prix/exemples")
     @Operation(summary = "Obtenir des exemples de calculs de prix", description = "Génère des exemples de calculs selon les différentes tranches de commission")
     @ApiResponse(responseCode = "200", description = "Exemples de calculs générés")
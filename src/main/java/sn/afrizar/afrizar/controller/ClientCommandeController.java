@@ -17,6 +17,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import sn.afrizar.afrizar.dto.CommandeDto;
 import sn.afrizar.afrizar.dto.CreateCommandeDto;
+import sn.afrizar.afrizar.dto.PageCurseurDto;
 import sn.afrizar.afrizar.model.Client;
 import sn.afrizar.afrizar.model.Utilisateur;
 import sn.afrizar.afrizar.service.CommandeService;
@@ -65,6 +66,26 @@ public class ClientCommandeController {
         return ResponseEntity.ok(commandes);
     }
     
+    @GetMapping("/mes-commandes/curseur")
+    @PreAuthorize("hasAnyRole('CLIENT', 'ADMIN')")
+    @Operation(summary = "Mes commandes par curseur", description = "Historique du client connecté, page suivante via curseurSuivant")
+    public ResponseEntity<PageCurseurDto<CommandeDto>> obtenirMesCommandesParCurseur(
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "10") int taille,
+            @RequestParam(defaultValue = "false") boolean avecTotal,
+            Authentication authentication) {
+        
+        Long clientId = getClientId(authentication);
+        log.info("Récupération des commandes par curseur - Client ID: {}", clientId);
+        
+        try {
+            return ResponseEntity.ok(commandeService.obtenirCommandesParClientParCurseur(clientId, curseur, taille, avecTotal));
+        } catch (IllegalArgumentException e) {
+            log.warn("Curseur de pagination rejeté: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('CLIENT', 'ADMIN')")
     @Operation(summary = "Détails d'une commande", description = "Récupère les détails d'une commande spécifique")
@@ -15,9 +15,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import sn.afrizar.afrizar.dto.CommandeDto;
+import sn.afrizar.afrizar.dto.CommandeVendeurDto;
 import sn.afrizar.afrizar.dto.CreateCommandeDto;
+import sn.afrizar.afrizar.dto.PageCurseurDto;
 import sn.afrizar.afrizar.model.Commande;
 import sn.afrizar.afrizar.service.CommandeService;
+import sn.afrizar.afrizar.service.CommandeVendeurService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -31,6 +34,7 @@ import java.util.List;
 public class CommandeController {
     
     private final CommandeService commandeService;
+    private final CommandeVendeurService commandeVendeurService;
     
     @PostMapping
     @Operation(summary = "Créer une nouvelle commande", description = "Crée une nouvelle commande avec calcul automatique des totaux")
@@ -100,6 +104,58 @@ public class CommandeController {
         return ResponseEntity.ok(commandes);
     }
     
+    @GetMapping("/client/{clientId}/curseur")
+    @Operation(summary = "Obtenir les commandes d'un client par curseur", 
+               description = "Historique trié du plus récent au plus ancien ; passer curseurSuivant pour la page suivante")
+    @ApiResponse(responseCode = "200", description = "Commandes du client récupérées")
+    @ApiResponse(responseCode = "400", description = "Curseur invalide")
+    public ResponseEntity<PageCurseurDto<CommandeDto>> obtenirCommandesParClientParCurseur(
+            @Parameter(description = "ID du client") @PathVariable Long clientId,
+            @Parameter(description = "Curseur renvoyé par la page précédente") @RequestParam(required = false) String curseur,
+            @Parameter(description = "Taille de la page (max 100)") @RequestParam(defaultValue = "10") int taille,
+            @Parameter(description = "Calculer le nombre total de commandes") @RequestParam(defaultValue = "false") boolean avecTotal) {
+        
+        try {
+            return ResponseEntity.ok(commandeService.obtenirCommandesParClientParCurseur(clientId, curseur, taille, avecTotal));
+        } catch (IllegalArgumentException e) {
+            log.warn("Curseur de pagination rejeté: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/vendeur/{vendeurId}/curseur")
+    @Operation(summary = "Obtenir les commandes d'un vendeur par curseur", 
+               description = "Commandes contenant des produits du vendeur, chacune une seule fois, du plus récent au plus ancien")
+    @ApiResponse(responseCode = "200", description = "Commandes du vendeur récupérées")
+    @ApiResponse(responseCode = "400", description = "Curseur invalide")
+    public ResponseEntity<PageCurseurDto<CommandeDto>> obtenirCommandesParVendeurParCurseur(
+            @Parameter(description = "ID du vendeur") @PathVariable Long vendeurId,
+            @Parameter(description = "Curseur renvoyé par la page précédente") @RequestParam(required = false) String curseur,
+            @Parameter(description = "Taille de la page (max 100)") @RequestParam(defaultValue = "10") int taille,
+            @Parameter(description = "Calculer le nombre total de commandes") @RequestParam(defaultValue = "false") boolean avecTotal) {
+        
+        try {
+            return ResponseEntity.ok(commandeService.obtenirCommandesParVendeurParCurseur(vendeurId, curseur, taille, avecTotal));
+        } catch (IllegalArgumentException e) {
+            log.warn("Curseur de pagination rejeté: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/vendeur/{vendeurId}/ventes")
+    @Operation(summary = "Obtenir les ventes d'un vendeur", 
+               description = "Commandes du vendeur avec le sous-total et la commission de ses seuls articles")
+    @ApiResponse(responseCode = "200", description = "Ventes du vendeur récupérées")
+    public ResponseEntity<Page<CommandeVendeurDto>> obtenirVentesVendeur(
+            @Parameter(description = "ID du vendeur") @PathVariable Long vendeurId,
+            @Parameter(description = "Filtrer par statut") @RequestParam(required = false) Commande.StatutCommande statut,
+            @Parameter(description = "Numéro de page") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Taille de la page") @RequestParam(defaultValue = "10") int size) {
+        
+        Pageable pageable = PageRequest.of(page, size);
+        return ResponseEntity.ok(commandeVendeurService.obtenirCommandesVendeur(vendeurId, statut, pageable));
+    }
+    
     @GetMapping("/statut/{statut}")
     @Operation(summary = "Obtenir les commandes par statut", description = "Récupère toutes les commandes ayant un statut spécifique")
     @ApiResponse(responseCode = "200", description = "Commandes du statut récupérées")
@@ -12,9 +12,12 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import sn.afrizar.afrizar.dto.AjouterAuPanierDto;
 import sn.afrizar.afrizar.dto.PanierDto;
+import sn.afrizar.afrizar.dto.ReservationPanierDto;
+import sn.afrizar.afrizar.dto.SynchronisationPanierDto;
 import sn.afrizar.afrizar.model.Client;
 import sn.afrizar.afrizar.model.Utilisateur;
 import sn.afrizar.afrizar.service.PanierService;
+import sn.afrizar.afrizar.service.ReservationStockService;
 
 import java.util.Map;
 
@@ -27,6 +30,7 @@ import java.util.Map;
 public class PanierController {
     
     private final PanierService panierService;
+    private final ReservationStockService reservationStockService;
     
     @GetMapping
     @PreAuthorize("hasRole('CLIENT')")
@@ -98,13 +102,35 @@ public class PanierController {
     
     @PostMapping("/synchroniser")
     @PreAuthorize("hasRole('CLIENT')")
-    @Operation(summary = "Synchroniser le panier", description = "Synchronise le panier (prix, stock)")
-    public ResponseEntity<PanierDto> synchroniserPanier(Authentication authentication) {
+    @Operation(summary = "Synchroniser le panier", description = "Synchronise le panier (prix, stock) et renvoie les changements appliqués")
+    public ResponseEntity<SynchronisationPanierDto> synchroniserPanier(Authentication authentication) {
         Long clientId = getClientId(authentication);
         log.info("Synchronisation du panier - Client: {}", clientId);
         
-        PanierDto panier = panierService.synchroniserPanier(clientId);
-        return ResponseEntity.ok(panier);
+        SynchronisationPanierDto synchronisation = panierService.synchroniserPanier(clientId);
+        return ResponseEntity.ok(synchronisation);
+    }
+    
+    @PostMapping("/reservation")
+    @PreAuthorize("hasRole('CLIENT')")
+    @Operation(summary = "Réserver le stock du panier", description = "Retient le stock du panier pendant le checkout (renouvelle la réservation existante)")
+    public ResponseEntity<ReservationPanierDto> reserverPanier(Authentication authentication) {
+        Long clientId = getClientId(authentication);
+        log.info("Réservation du stock du panier - Client: {}", clientId);
+        
+        ReservationPanierDto reservation = reservationStockService.reserverPanier(clientId);
+        return ResponseEntity.ok(reservation);
+    }
+    
+    @DeleteMapping("/reservation")
+    @PreAuthorize("hasRole('CLIENT')")
+    @Operation(summary = "Libérer la réservation", description = "Rend le stock retenu pour le checkout abandonné")
+    public ResponseEntity<Map<String, String>> libererReservation(Authentication authentication) {
+        Long clientId = getClientId(authentication);
+        log.info("Libération de la réservation du panier - Client: {}", clientId);
+        
+        reservationStockService.libererReservations(clientId);
+        return ResponseEntity.ok(Map.of("message", "Réservation libérée"));
     }
     
     @GetMapping("/nombre-articles")
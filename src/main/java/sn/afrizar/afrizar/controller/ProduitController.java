@@ -48,11 +48,12 @@ public class ProduitController {
     public ResponseEntity<ProduitDto> obtenirProduit(
             @Parameter(description = "ID du produit") @PathVariable Long id) {
         
-        // Incrémenter le nombre de vues
-        produitService.incrementerVues(id);
-        
+        // Incrémenter le nombre de vues (produit existant uniquement)
         return produitService.obtenirProduitParId(id)
-                .map(produit -> ResponseEntity.ok(produit))
+                .map(produit -> {
+                    produitService.incrementerVues(id);
+                    return ResponseEntity.ok(produit);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
     
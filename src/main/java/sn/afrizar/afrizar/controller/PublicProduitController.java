@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import sn.afrizar.afrizar.dto.ProduitDto;
 import sn.afrizar.afrizar.model.Produit;
 import sn.afrizar.afrizar.repository.ProduitRepository;
+import sn.afrizar.afrizar.repository.ProduitSpecifications;
 import sn.afrizar.afrizar.model.Vendeur;
 
 import java.math.BigDecimal;
@@ -48,8 +49,8 @@ public class PublicProduitController {
         String searchTerm = (search != null && !search.isEmpty()) ? search : null;
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Produit> produitsPage = produitRepository.findProduitsAvecFiltres(
-            searchTerm, categorieId, null, prixMin, prixMax, null, pageable);
+        Page<Produit> produitsPage = produitRepository.findAll(
+            ProduitSpecifications.actifsAvecFiltres(searchTerm, categorieId, null, prixMin, prixMax, null), pageable);
         
         // Convertir les produits en format public
         List<Map<String, Object>> produitsPublics = produitsPage.getContent().stream()
@@ -6,16 +6,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import sn.afrizar.afrizar.model.AgregatVentesJour;
 import sn.afrizar.afrizar.model.Commande;
 import sn.afrizar.afrizar.model.Livraison;
 import sn.afrizar.afrizar.model.Paiement;
 import sn.afrizar.afrizar.service.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -26,6 +30,8 @@ import java.util.Map;
 public class StatistiquesController {
     
     private final CommandeService commandeService;
+    private final CommandeVendeurService commandeVendeurService;
+    private final AgregatVentesService agregatVentesService;
     private final ClientService clientService;
     private final VendeurService vendeurService;
     private final ProduitService produitService;
@@ -40,19 +46,8 @@ public class StatistiquesController {
         Map<String, Object> statistiques = new HashMap<>();
         
         try {
-            // Statistiques des commandes
-            statistiques.put("nombreCommandesTotal", commandeService.getNombreCommandesParStatut(null));
-            statistiques.put("nombreCommandesEnAttente", commandeService.getNombreCommandesParStatut(Commande.StatutCommande.EN_ATTENTE));
-            statistiques.put("nombreCommandesConfirmees", commandeService.getNombreCommandesParStatut(Commande.StatutCommande.CONFIRMEE));
-            statistiques.put("nombreCommandesLivrees", commandeService.getNombreCommandesParStatut(Commande.StatutCommande.LIVREE));
-            
-            // Statistiques financières
-            statistiques.put("chiffreAffairesTotal", commandeService.getTotalChiffreAffaires());
-            statistiques.put("panierMoyen", commandeService.getMoyennePanier());
-            
-            // Chiffre d'affaires des 30 derniers jours
-            LocalDateTime il30Jours = LocalDateTime.now().minusDays(30);
-            statistiques.put("chiffreAffaires30Jours", commandeService.getChiffreAffairesDepuis(il30Jours));
+            // Commandes et chiffre d'affaires : lus sur les agrégats journaliers, pas sur la table des commandes
+            statistiques.putAll(agregatVentesService.obtenirTableauDeBord());
             
             // Statistiques des utilisateurs
             statistiques.put("nombreVendeursVerifies", vendeurService.getNombreVendeursVerifies());
@@ -70,6 +65,28 @@ public class StatistiquesController {
         }
     }
     
+    @GetMapping("/ventes/journalieres")
+    @Operation(summary = "Ventes par jour", description = "Nombre de commandes, d'articles et chiffre d'affaires de chaque jour de la période")
+    @ApiResponse(responseCode = "200", description = "Ventes journalières récupérées")
+    public ResponseEntity<List<Map<String, Object>>> obtenirVentesJournalieres(
+            @Parameter(description = "Premier jour (ISO format)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @Parameter(description = "Dernier jour (ISO format)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        
+        return ResponseEntity.ok(agregatVentesService.obtenirVentesJournalieres(debut, fin));
+    }
+    
+    @GetMapping("/ventes/classement")
+    @Operation(summary = "Classement des ventes", description = "Vendeurs ou catégories classés par chiffre d'affaires sur la période")
+    @ApiResponse(responseCode = "200", description = "Classement récupéré")
+    public ResponseEntity<List<Map<String, Object>>> obtenirClassementVentes(
+            @Parameter(description = "VENDEUR ou CATEGORIE") @RequestParam AgregatVentesJour.Dimension dimension,
+            @Parameter(description = "Premier jour (ISO format)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @Parameter(description = "Dernier jour (ISO format)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @Parameter(description = "Nombre d'entrées") @RequestParam(defaultValue = "10") int limite) {
+        
+        return ResponseEntity.ok(agregatVentesService.obtenirClassement(dimension, debut, fin, limite));
+    }
+    
     @GetMapping("/commandes/periode")
     @Operation(summary = "Statistiques des commandes par période", description = "Récupère les statistiques des commandes pour une période donnée")
     @ApiResponse(responseCode = "200", description = "Statistiques de période récupérées")
@@ -82,23 +99,8 @@ public class StatistiquesController {
         Map<String, Object> statistiques = new HashMap<>();
         
         try {
-            // Nombre de commandes dans la période
-            var commandesPeriode = commandeService.obtenirCommandesParPeriode(debut, fin);
-            statistiques.put("nombreCommandes", commandesPeriode.size());
-            
-            // Chiffre d'affaires de la période
-            BigDecimal caPeriode = commandesPeriode.stream()
-                    .map(cmd -> cmd.getMontantTotal())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            statistiques.put("chiffreAffaires", caPeriode);
-            
-            // Panier moyen de la période
-            if (!commandesPeriode.isEmpty()) {
-                BigDecimal panierMoyen = caPeriode.divide(BigDecimal.valueOf(commandesPeriode.size()), 2, BigDecimal.ROUND_HALF_UP);
-                statistiques.put("panierMoyen", panierMoyen);
-            } else {
-                statistiques.put("panierMoyen", BigDecimal.ZERO);
-            }
+            // Nombre de commandes, chiffre d'affaires et panier moyen agrégés en base
+            statistiques.putAll(commandeService.obtenirStatistiquesPeriode(debut, fin));
             
             return ResponseEntity.ok(statistiques);
             
@@ -128,15 +130,8 @@ public class StatistiquesController {
             // Nombre de produits
             statistiques.put("nombreProduits", vendeurService.getNombreProduitsVendeur(vendeurId));
             
-            // Commandes du vendeur
-            var commandesVendeur = commandeService.obtenirCommandesParVendeur(vendeurId);
-            statistiques.put("nombreCommandes", commandesVendeur.size());
-            
-            // Chiffre d'affaires du vendeur
-            BigDecimal caVendeur = commandesVendeur.stream()
-                    .map(cmd -> cmd.getMontantTotal())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            statistiques.put("chiffreAffaires", caVendeur);
+            // Commandes, chiffre d'affaires (articles du vendeur uniquement) et commissions : projection vendeur
+            statistiques.putAll(commandeVendeurService.obtenirStatistiquesVendeur(vendeurId));
             
             return ResponseEntity.ok(statistiques);
             
@@ -167,25 +162,8 @@ public class StatistiquesController {
             var client = clientOpt.get();
             statistiques.put("pointsFidelite", client.getPointsFidelite());
             
-            // Nombre de commandes du client
-            statistiques.put("nombreCommandes", commandeService.getNombreCommandesParClient(clientId));
-            
-            // Commandes du client
-            var commandesClient = commandeService.obtenirCommandesParClient(clientId);
-            
-            // Montant total dépensé
-            BigDecimal montantTotal = commandesClient.stream()
-                    .map(cmd -> cmd.getMontantTotal())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            statistiques.put("montantTotalDepense", montantTotal);
-            
-            // Panier moyen du client
-            if (!commandesClient.isEmpty()) {
-                BigDecimal panierMoyen = montantTotal.divide(BigDecimal.valueOf(commandesClient.size()), 2, BigDecimal.ROUND_HALF_UP);
-                statistiques.put("panierMoyen", panierMoyen);
-            } else {
-                statistiques.put("panierMoyen", BigDecimal.ZERO);
-            }
+            // Nombre de commandes, montant total dépensé et panier moyen agrégés en base
+            statistiques.putAll(commandeService.obtenirStatistiquesClient(clientId));
             
             return ResponseEntity.ok(statistiques);
             
@@ -210,32 +188,8 @@ public class StatistiquesController {
                 return ResponseEntity.notFound().build();
             }
             
-            Map<String, Object> statistiques = new HashMap<>();
-            
-            // Nombre de produits dans la catégorie
-            statistiques.put("nombreProduits", categorieService.getNombreProduitsParCategorie(categorieId));
-            
-            // Produits de la catégorie
-            var produitsCategorie = produitService.obtenirProduitsParCategorie(categorieId);
-            
-            // Prix moyen des produits de la catégorie
-            if (!produitsCategorie.isEmpty()) {
-                BigDecimal prixMoyen = produitsCategorie.stream()
-                        .map(p -> p.getPrix())
-                        .reduce(BigDecimal.ZERO, BigDecimal::add)
-                        .divide(BigDecimal.valueOf(produitsCategorie.size()), 2, BigDecimal.ROUND_HALF_UP);
-                statistiques.put("prixMoyen", prixMoyen);
-            } else {
-                statistiques.put("prixMoyen", BigDecimal.ZERO);
-            }
-            
-            // Stock total de la catégorie
-            Integer stockTotal = produitsCategorie.stream()
-                    .mapToInt(p -> p.getStock() != null ? p.getStock() : 0)
-                    .sum();
-            statistiques.put("stockTotal", stockTotal);
-            
-            return ResponseEntity.ok(statistiques);
+            // Nombre de produits, prix moyen et stock total agrégés en base
+            return ResponseEntity.ok(produitService.obtenirStatistiquesCategorie(categorieId));
             
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des statistiques de la catégorie {}: {}", categorieId, e.getMessage());
@@ -0,0 +1,27 @@
+package sn.afrizar.afrizar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import sn.afrizar.afrizar.model.Commande;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Commande vue par un vendeur : montants limités à ses propres articles
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandeVendeurDto {
+    
+    private Long commandeId;
+    private String numeroCommande;
+    private Long clientId;
+    private BigDecimal sousTotal;
+    private BigDecimal commission;
+    private Integer nombreArticles;
+    private Commande.StatutCommande statut;
+    private LocalDateTime dateCommande;
+}
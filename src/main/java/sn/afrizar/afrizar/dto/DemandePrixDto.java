@@ -0,0 +1,23 @@
+package sn.afrizar.afrizar.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Élément d'une demande de calcul de prix groupée
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DemandePrixDto {
+    
+    @NotNull(message = "Le prix vendeur est obligatoire")
+    private BigDecimal prixVendeur;
+    
+    // Optionnel : sans vendeur, la grille standard s'applique
+    private Long vendeurId;
+}
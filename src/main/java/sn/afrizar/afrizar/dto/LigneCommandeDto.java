@@ -17,6 +17,8 @@ public class LigneCommandeDto {
     private Long produitId;
     private String nomProduit;
     private String photoProduit;
+    private Long vendeurId;
+    private String nomBoutique;
     private Integer quantite;
     private BigDecimal prixUnitaire;
     private Produit.Taille taille;
@@ -0,0 +1,27 @@
+package sn.afrizar.afrizar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page d'une pagination par curseur : la page suivante s'obtient en renvoyant curseurSuivant
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCurseurDto<T> {
+    
+    private List<T> elements = new ArrayList<>();
+    
+    // Jeton opaque de la page suivante (null sur la dernière page)
+    private String curseurSuivant;
+    
+    private boolean pageSuivante;
+    
+    // Nombre total d'éléments, calculé uniquement sur demande (null sinon)
+    private Long total;
+}
@@ -20,6 +20,8 @@ public class ProduitDto {
     private List<String> photos;
     private BigDecimal prix;
     private Integer stock;
+    // Stock moins les quantités réservées par les checkouts en cours
+    private Integer quantiteDisponible;
     private Integer delaiProduction;
     private BigDecimal poids;
     private List<Produit.Taille> taillesDisponibles;
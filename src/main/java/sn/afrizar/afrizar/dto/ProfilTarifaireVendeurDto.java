@@ -0,0 +1,23 @@
+package sn.afrizar.afrizar.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Informations d'un vendeur nécessaires au calcul des prix (mises en cache)
+ */
+@Value
+public class ProfilTarifaireVendeurDto {
+    
+    Long vendeurId;
+    
+    // Taux négocié (null ou 0 = grille standard)
+    BigDecimal tauxCommissionPersonnalise;
+    
+    String nomBoutique;
+    
+    public boolean aCommissionPersonnalisee() {
+        return tauxCommissionPersonnalise != null && tauxCommissionPersonnalise.compareTo(BigDecimal.ZERO) > 0;
+    }
+}
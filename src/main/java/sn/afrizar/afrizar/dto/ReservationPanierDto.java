@@ -0,0 +1,26 @@
+package sn.afrizar.afrizar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stock retenu pour le panier d'un client pendant le checkout
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationPanierDto {
+    
+    private Long clientId;
+    
+    // Quantité retenue par produit (ID produit -> quantité)
+    private Map<Long, Integer> quantitesReservees = new HashMap<>();
+    
+    // Au-delà de cette date, le stock est rendu aux autres clients
+    private LocalDateTime dateExpiration;
+}
@@ -0,0 +1,49 @@
+package sn.afrizar.afrizar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Résultat de la synchronisation du panier : panier à jour et changements appliqués
+ * (prix modifiés, quantités ramenées au stock, articles retirés)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SynchronisationPanierDto {
+
+    private PanierDto panier;
+
+    // Vide si le panier était déjà à jour
+    private List<Changement> changements = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Changement {
+
+        private Long itemId;
+        private Long produitId;
+        private String produitNom;
+        private TypeChangement type;
+
+        // Renseignés pour PRIX_MODIFIE
+        private BigDecimal ancienPrix;
+        private BigDecimal nouveauPrix;
+
+        // Renseignés pour QUANTITE_AJUSTEE et ARTICLE_RETIRE
+        private Integer ancienneQuantite;
+        private Integer nouvelleQuantite;
+    }
+
+    public enum TypeChangement {
+        PRIX_MODIFIE,       // Le vendeur a changé le prix du produit
+        QUANTITE_AJUSTEE,   // Quantité ramenée au stock disponible
+        ARTICLE_RETIRE      // Produit épuisé ou supprimé
+    }
+}
@@ -44,13 +44,14 @@ public class Actualite {
     @Column(name = "tag")
     private java.util.List<String> tags;
     
-    @Column(name = "nombre_likes")
+    // Compteurs écrits uniquement par CompteurEngagementService (UPDATE n = n + delta)
+    @Column(name = "nombre_likes", updatable = false)
     private Long nombreLikes = 0L;
     
-    @Column(name = "nombre_commentaires")
+    @Column(name = "nombre_commentaires", updatable = false)
     private Long nombreCommentaires = 0L;
     
-    @Column(name = "nombre_partages")
+    @Column(name = "nombre_partages", updatable = false)
     private Long nombrePartages = 0L;
     
     @Column(name = "est_visible")
@@ -0,0 +1,67 @@
+package sn.afrizar.afrizar.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Agrégat journalier des ventes : nombre de commandes, d'articles et montant par jour de commande,
+ * statut de commande et dimension (global, vendeur ou catégorie).
+ *
+ * Maintenu par incréments dans la transaction de la commande (création et changement de statut)
+ * et recalculé périodiquement par la réconciliation. Les tableaux de bord lisent ces lignes
+ * (quelques-unes par jour) au lieu d'agréger la table des commandes.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "agregats_ventes_jour")
+public class AgregatVentesJour {
+
+    @EmbeddedId
+    private Cle id;
+
+    @Column(name = "nombre_commandes", nullable = false)
+    private Long nombreCommandes = 0L;
+
+    @Column(name = "nombre_articles", nullable = false)
+    private Long nombreArticles = 0L;
+
+    // Montant total des commandes (GLOBAL) ou sous-total des lignes du vendeur / de la catégorie
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal montant = BigDecimal.ZERO;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cle implements Serializable {
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false, length = 20)
+        private Dimension dimension;
+
+        @Column(nullable = false)
+        private LocalDate jour;
+
+        // ID du vendeur ou de la catégorie ; 0 pour GLOBAL et pour les produits sans catégorie
+        @Column(nullable = false)
+        private Long cle;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false, length = 20)
+        private Commande.StatutCommande statut;
+    }
+
+    public enum Dimension {
+        GLOBAL,
+        VENDEUR,
+        CATEGORIE
+    }
+}
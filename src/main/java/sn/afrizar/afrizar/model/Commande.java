@@ -9,7 +9,10 @@ import lombok.ToString;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 @Entity
 @Data
@@ -17,10 +20,19 @@ import java.util.List;
 @AllArgsConstructor
 @ToString(exclude = {"client", "paiement", "livraison", "lignesCommande"})
 @Table(name = "commandes")
+// Détail complet d'une commande chargé en une requête (les OneToOne inverses ne sont jamais paresseux sans graphe)
+@NamedEntityGraph(name = "Commande.detail", attributeNodes = {
+        @NamedAttributeNode("client"),
+        @NamedAttributeNode("paiement"),
+        @NamedAttributeNode("livraison"),
+        @NamedAttributeNode("lignesCommande")
+})
 public class Commande {
     
+    // Séquence allouée par blocs de 50 (optimiseur pooled) : permet le batch JDBC des insertions
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "commandes_seq")
+    @SequenceGenerator(name = "commandes_seq", sequenceName = "commandes_seq", allocationSize = 50)
     private Long id;
     
     // Numéro de commande unique
@@ -85,6 +97,15 @@ public class Commande {
     @OneToMany(mappedBy = "commande", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<LigneCommande> lignesCommande;
     
+    // Statuts comptés dans le chiffre d'affaires (commandes confirmées, non annulées ni retournées)
+    public static final Set<StatutCommande> STATUTS_CHIFFRE_AFFAIRES = EnumSet.of(
+            StatutCommande.CONFIRMEE,
+            StatutCommande.EN_PREPARATION,
+            StatutCommande.PRETE,
+            StatutCommande.EXPEDIEE,
+            StatutCommande.EN_LIVRAISON,
+            StatutCommande.LIVREE);
+    
     // Enum pour les statuts de commande
     public enum StatutCommande {
         EN_ATTENTE,          // En attente de validation
@@ -108,8 +129,8 @@ public class Commande {
     @PrePersist
     public void prePersist() {
         if (numeroCommande == null) {
-            // Génération automatique du numéro de commande
-            numeroCommande = "CMD-" + System.currentTimeMillis();
+            // Filet de sécurité : le numéro est normalement attribué par GenerateurNumeroService
+            numeroCommande = "CMD-" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
         }
     }
 }
\ No newline at end of file
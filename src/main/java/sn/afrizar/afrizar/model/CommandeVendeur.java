@@ -0,0 +1,59 @@
+package sn.afrizar.afrizar.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projection d'une commande pour un vendeur : une ligne par (vendeur, commande) avec le sous-total
+ * des seuls articles du vendeur. Écrite dans la transaction de la commande et mise à jour à chaque
+ * changement de statut, elle sert les listes et le chiffre d'affaires vendeur sans jointure.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "commandes_vendeurs")
+public class CommandeVendeur {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "commandes_vendeurs_seq")
+    @SequenceGenerator(name = "commandes_vendeurs_seq", sequenceName = "commandes_vendeurs_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "vendeur_id", nullable = false)
+    private Long vendeurId;
+
+    @Column(name = "commande_id", nullable = false)
+    private Long commandeId;
+
+    @Column(name = "numero_commande", nullable = false)
+    private String numeroCommande;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    // Somme des lignes du vendeur (hors articles des autres vendeurs et hors frais de livraison)
+    @Column(name = "sous_total", precision = 12, scale = 2, nullable = false)
+    private BigDecimal sousTotal = BigDecimal.ZERO;
+
+    @Column(precision = 12, scale = 2, nullable = false)
+    private BigDecimal commission = BigDecimal.ZERO;
+
+    @Column(name = "nombre_articles", nullable = false)
+    private Integer nombreArticles = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Commande.StatutCommande statut;
+
+    @Column(name = "date_commande", nullable = false)
+    private LocalDateTime dateCommande;
+
+    @Column(name = "date_modification")
+    private LocalDateTime dateModification;
+}
@@ -56,7 +56,14 @@ public class Commission {
         if (!correspondAuMontant(prix)) {
             return BigDecimal.ZERO;
         }
-        return prix.multiply(pourcentage).divide(BigDecimal.valueOf(100));
+        return calculerCommission(Money.de(prix)).versBigDecimal();
+    }
+    
+    /**
+     * Commission sur un montant déjà converti, arrondie au centime (HALF_UP), sans contrôle de tranche
+     */
+    public Money calculerCommission(Money prix) {
+        return prix.pourcentage(Money.pointsDeBase(pourcentage));
     }
 }
 
@@ -0,0 +1,77 @@
+package sn.afrizar.afrizar.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement de l'outbox transactionnelle : écrit dans la même transaction que la commande,
+ * puis traité de façon asynchrone (et rejoué en cas d'échec) par DispatcheurOutbox.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "evenements_outbox")
+public class EvenementOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evenements_outbox_seq")
+    @SequenceGenerator(name = "evenements_outbox_seq", sequenceName = "evenements_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private TypeEvenement type;
+
+    // Identifiant de l'agrégat concerné (la commande)
+    @Column(name = "agregat_id", nullable = false)
+    private Long agregatId;
+
+    // Données complémentaires sérialisées en JSON (ex: adresse de livraison)
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatutEvenement statut = StatutEvenement.EN_ATTENTE;
+
+    @Column(nullable = false)
+    private Integer tentatives = 0;
+
+    @Column(name = "prochaine_tentative", nullable = false)
+    private LocalDateTime prochaineTentative = LocalDateTime.now();
+
+    // Date de réservation par un dispatcheur (statut EN_COURS)
+    @Column(name = "date_reservation")
+    private LocalDateTime dateReservation;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation = LocalDateTime.now();
+
+    @Column(name = "date_traitement")
+    private LocalDateTime dateTraitement;
+
+    @Column(name = "derniere_erreur", length = 1000)
+    private String derniereErreur;
+
+    // Verrou optimiste : un événement réservé à nouveau après expiration ne peut pas être validé deux fois
+    @Version
+    private Long version;
+
+    public enum TypeEvenement {
+        CREATION_PAIEMENT,
+        CREATION_LIVRAISON,
+        ATTRIBUTION_POINTS_FIDELITE
+    }
+
+    public enum StatutEvenement {
+        EN_ATTENTE,
+        EN_COURS,
+        TRAITE,
+        ECHEC
+    }
+}
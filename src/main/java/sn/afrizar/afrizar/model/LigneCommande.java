@@ -17,7 +17,8 @@ import java.math.BigDecimal;
 public class LigneCommande {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lignes_commande_seq")
+    @SequenceGenerator(name = "lignes_commande_seq", sequenceName = "lignes_commande_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -55,6 +56,46 @@ public class LigneCommande {
     @Column(length = 500)
     private String notes;
     
+    // Instantané du produit au moment de l'achat : l'historique ne dépend plus des modifications
+    // du produit et se lit sans charger produits, vendeurs ni photos
+    @Column(name = "nom_produit", updatable = false)
+    private String nomProduit;
+    
+    @Column(name = "photo_produit", length = 500, updatable = false)
+    private String photoProduit;
+    
+    @Column(name = "vendeur_id", updatable = false)
+    private Long vendeurId;
+    
+    @Column(name = "nom_boutique", updatable = false)
+    private String nomBoutique;
+    
+    // Poids unitaire en kg
+    @Column(name = "poids_unitaire", precision = 8, scale = 3, updatable = false)
+    private BigDecimal poidsUnitaire;
+    
+    /**
+     * Associe le produit à la ligne et fige ses informations d'affichage et de livraison
+     */
+    public void capturerProduit(Produit produit) {
+        this.produit = produit;
+        this.nomProduit = produit.getNom();
+        this.photoProduit = produit.getPhotos() != null && !produit.getPhotos().isEmpty() ? produit.getPhotos().get(0) : null;
+        this.poidsUnitaire = produit.getPoids();
+        if (produit.getVendeur() != null) {
+            this.vendeurId = produit.getVendeur().getId();
+            this.nomBoutique = produit.getVendeur().getNomBoutique();
+        }
+    }
+    
+    /**
+     * Poids de la ligne (0,5 kg par article si le poids du produit n'était pas renseigné)
+     */
+    public BigDecimal calculerPoids() {
+        BigDecimal poids = poidsUnitaire != null ? poidsUnitaire : BigDecimal.valueOf(0.5);
+        return poids.multiply(BigDecimal.valueOf(quantite));
+    }
+    
     @PrePersist
     @PreUpdate
     public void calculerSousTotal() {
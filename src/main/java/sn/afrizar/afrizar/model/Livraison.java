@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class Livraison {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livraisons_seq")
+    @SequenceGenerator(name = "livraisons_seq", sequenceName = "livraisons_seq", allocationSize = 50)
     private Long id;
     
     @OneToOne
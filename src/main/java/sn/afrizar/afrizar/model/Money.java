@@ -0,0 +1,152 @@
+package sn.afrizar.afrizar.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Montant en FCFA stocké dans un long, utilisé pour les calculs de prix, commissions,
+ * frais de livraison et totaux.
+ *
+ * L'unité interne est le centime (1/100 FCFA), soit l'échelle des colonnes DECIMAL(…, 2) :
+ * la conversion vers BigDecimal ne se fait qu'aux frontières JPA / DTO.
+ * Toute opération qui produit une fraction de centime est arrondie en HALF_UP.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int ECHELLE = 2;
+    private static final long CENTIMES_PAR_FCFA = 100;
+
+    // Taux exprimés en points de base : 10,00 % = 1000
+    private static final long POINTS_DE_BASE_PAR_UNITE = 10_000;
+
+    // Quantités fractionnaires (poids) exprimées en millièmes : 0,5 kg = 500
+    private static final long MILLIEMES_PAR_UNITE = 1_000;
+
+    private final long centimes;
+
+    private Money(long centimes) {
+        this.centimes = centimes;
+    }
+
+    public static Money deCentimes(long centimes) {
+        return centimes == 0 ? ZERO : new Money(centimes);
+    }
+
+    public static Money deFcfa(long fcfa) {
+        return deCentimes(Math.multiplyExact(fcfa, CENTIMES_PAR_FCFA));
+    }
+
+    /**
+     * Conversion depuis un BigDecimal (null = 0), arrondi au centime en HALF_UP
+     */
+    public static Money de(BigDecimal montant) {
+        if (montant == null) {
+            return ZERO;
+        }
+        return deCentimes(montant.setScale(ECHELLE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Convertit un pourcentage (ex: 8.00) en points de base (800), arrondi en HALF_UP
+     */
+    public static long pointsDeBase(BigDecimal pourcentage) {
+        if (pourcentage == null) {
+            return 0;
+        }
+        return pourcentage.setScale(ECHELLE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convertit une quantité fractionnaire (ex: poids 1.25 kg) en millièmes (1250), arrondi en HALF_UP
+     */
+    public static long milliemes(BigDecimal quantite) {
+        if (quantite == null) {
+            return 0;
+        }
+        return quantite.setScale(3, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public Money plus(Money autre) {
+        return deCentimes(Math.addExact(centimes, autre.centimes));
+    }
+
+    public Money moins(Money autre) {
+        return deCentimes(Math.subtractExact(centimes, autre.centimes));
+    }
+
+    public Money fois(long quantite) {
+        return deCentimes(Math.multiplyExact(centimes, quantite));
+    }
+
+    /**
+     * Multiplie par une quantité exprimée en millièmes (ex: tarif au kg × poids)
+     */
+    public Money foisMilliemes(long milliemes) {
+        return deCentimes(diviserArrondi(Math.multiplyExact(centimes, milliemes), MILLIEMES_PAR_UNITE));
+    }
+
+    /**
+     * Applique un taux exprimé en points de base (ex: commission de 8 % → 800)
+     */
+    public Money pourcentage(long pointsDeBase) {
+        return deCentimes(diviserArrondi(Math.multiplyExact(centimes, pointsDeBase), POINTS_DE_BASE_PAR_UNITE));
+    }
+
+    public Money max(Money autre) {
+        return centimes >= autre.centimes ? this : autre;
+    }
+
+    public boolean estNul() {
+        return centimes == 0;
+    }
+
+    public boolean estInferieurA(Money autre) {
+        return centimes < autre.centimes;
+    }
+
+    public long centimes() {
+        return centimes;
+    }
+
+    /**
+     * Conversion vers BigDecimal (échelle 2) pour les entités et les DTO
+     */
+    public BigDecimal versBigDecimal() {
+        return BigDecimal.valueOf(centimes, ECHELLE);
+    }
+
+    /**
+     * Division entière arrondie en HALF_UP (la moitié s'éloigne de zéro, comme RoundingMode.HALF_UP)
+     */
+    static long diviserArrondi(long dividende, long diviseur) {
+        // Quotient tronqué puis reste comparé à la moitié : aucun calcul intermédiaire ne peut déborder
+        long quotient = dividende / diviseur;
+        long reste = Math.abs(dividende % diviseur);
+        if (reste >= diviseur - reste) {
+            quotient += Long.signum(dividende);
+        }
+        return quotient;
+    }
+
+    @Override
+    public int compareTo(Money autre) {
+        return Long.compare(centimes, autre.centimes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money autre && centimes == autre.centimes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centimes);
+    }
+
+    @Override
+    public String toString() {
+        return versBigDecimal().toPlainString() + " FCFA";
+    }
+}
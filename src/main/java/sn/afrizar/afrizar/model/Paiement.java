@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class Paiement {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "paiements_seq")
+    @SequenceGenerator(name = "paiements_seq", sequenceName = "paiements_seq", allocationSize = 50)
     private Long id;
     
     @Column(precision = 10, scale = 2, nullable = false)
@@ -31,7 +32,7 @@ public class Paiement {
     private MethodePaiement methode;
     
     // Nouveau: Référence vers le mode de paiement configurable
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "mode_paiement_id")
     private ModePaiement modePaiement;
     
@@ -39,29 +39,44 @@ public class Panier {
     @Column(nullable = false)
     private boolean actif = true;
     
+    // Somme des quantités des items, tenue à jour à chaque modification (badge du panier)
+    @Column(name = "nombre_articles", nullable = false)
+    private int nombreArticles = 0;
+    
+    // Incrémentée à chaque écriture : garde des écritures différées des paniers en mémoire
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     // Méthodes utilitaires
     
     public void ajouterItem(PanierItem item) {
         items.add(item);
         item.setPanier(this);
+        this.nombreArticles += item.getQuantite();
         this.dateModification = LocalDateTime.now();
     }
     
     public void retirerItem(PanierItem item) {
-        items.remove(item);
+        if (items.remove(item)) {
+            this.nombreArticles -= item.getQuantite();
+        }
         item.setPanier(null);
         this.dateModification = LocalDateTime.now();
     }
     
     public void vider() {
         items.clear();
+        this.nombreArticles = 0;
         this.dateModification = LocalDateTime.now();
     }
     
     public BigDecimal getMontantTotal() {
-        return items.stream()
-                .map(PanierItem::getSousTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Money total = Money.ZERO;
+        for (PanierItem item : items) {
+            total = total.plus(Money.de(item.getSousTotal()));
+        }
+        return total.versBigDecimal();
     }
     
     public int getNombreTotalArticles() {
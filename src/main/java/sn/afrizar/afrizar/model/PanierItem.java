@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class PanierItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "panier_items_seq")
+    @SequenceGenerator(name = "panier_items_seq", sequenceName = "panier_items_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -54,7 +55,7 @@ public class PanierItem {
         if (prixUnitaire == null || quantite == null) {
             return BigDecimal.ZERO;
         }
-        return prixUnitaire.multiply(BigDecimal.valueOf(quantite));
+        return Money.de(prixUnitaire).fois(quantite).versBigDecimal();
     }
     
     public void incrementerQuantite(int increment) {
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -86,21 +87,37 @@ public class Produit {
     @Enumerated(EnumType.STRING)
     private Disponibilite disponibilite = Disponibilite.EN_STOCK;
     
-    // Nombre de vues
+    // Nombre de vues (écrit uniquement par CompteurEngagementService, UPDATE n = n + delta)
+    @Column(updatable = false)
     private Long nombreVues = 0L;
     
     // Note moyenne et nombre d'évaluations
-    @Column(precision = 2, scale = 1)
+    // Écrits uniquement par ProduitRepository.ajouterEvaluation : somme exacte et nombre mis à jour en SQL
+    @Column(precision = 2, scale = 1, updatable = false)
     private BigDecimal noteMoyenne = BigDecimal.ZERO;
     
+    @Column(updatable = false)
     private Integer nombreEvaluations = 0;
     
+    @Column(name = "somme_notes", precision = 14, scale = 2, updatable = false)
+    private BigDecimal sommeNotes = BigDecimal.ZERO;
+    
     @Column(name = "date_creation")
     private LocalDateTime dateCreation = LocalDateTime.now();
     
     @Column(name = "date_modification")
     private LocalDateTime dateModification;
     
+    /**
+     * Note moyenne dérivée de la somme exacte des notes, arrondie à une décimale
+     */
+    public BigDecimal calculerNoteMoyenne() {
+        if (sommeNotes == null || nombreEvaluations == null || nombreEvaluations == 0) {
+            return noteMoyenne != null ? noteMoyenne : BigDecimal.ZERO;
+        }
+        return sommeNotes.divide(BigDecimal.valueOf(nombreEvaluations), 1, RoundingMode.HALF_UP);
+    }
+    
     // Relations
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "vendeur_id", nullable = false)
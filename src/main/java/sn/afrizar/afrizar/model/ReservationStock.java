@@ -0,0 +1,55 @@
+package sn.afrizar.afrizar.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réservation temporaire de stock prise au début du checkout : la quantité est retenue pour le client
+ * jusqu'à la création de la commande (CONFIRMEE) ou jusqu'à son expiration (libérée par le balayeur).
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "reservations_stock")
+public class ReservationStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservations_stock_seq")
+    @SequenceGenerator(name = "reservations_stock_seq", sequenceName = "reservations_stock_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "produit_id", nullable = false)
+    private Long produitId;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    @Column(nullable = false)
+    private Integer quantite;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatutReservation statut = StatutReservation.ACTIVE;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation = LocalDateTime.now();
+
+    @Column(name = "date_expiration", nullable = false)
+    private LocalDateTime dateExpiration;
+
+    // Commande ayant consommé la réservation (statut CONFIRMEE)
+    @Column(name = "commande_id")
+    private Long commandeId;
+
+    public enum StatutReservation {
+        ACTIVE,
+        CONFIRMEE,
+        LIBEREE,
+        EXPIREE
+    }
+}
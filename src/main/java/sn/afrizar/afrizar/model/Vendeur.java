@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 
 @Entity
@@ -27,11 +28,16 @@ public class Vendeur extends Utilisateur {
     private String adresseBoutique;
     
     // Rating de 0 à 5
-    @Column(precision = 2, scale = 1)
+    // Écrits uniquement par VendeurRepository.ajouterEvaluation : somme exacte et nombre mis à jour en SQL
+    @Column(precision = 2, scale = 1, updatable = false)
     private BigDecimal rating = BigDecimal.ZERO;
     
+    @Column(updatable = false)
     private Integer nombreEvaluations = 0;
     
+    @Column(name = "somme_notes", precision = 14, scale = 2, updatable = false)
+    private BigDecimal sommeNotes = BigDecimal.ZERO;
+    
     // Commission personnalisée pour ce vendeur (optionnel)
     @Column(precision = 5, scale = 2)
     private BigDecimal tauxCommissionPersonnalise;
@@ -50,4 +56,14 @@ public class Vendeur extends Utilisateur {
     
     @OneToMany(mappedBy = "vendeur", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Produit> produits;
+    
+    /**
+     * Rating dérivé de la somme exacte des notes, arrondi à une décimale
+     */
+    public BigDecimal calculerRating() {
+        if (sommeNotes == null || nombreEvaluations == null || nombreEvaluations == 0) {
+            return rating != null ? rating : BigDecimal.ZERO;
+        }
+        return sommeNotes.divide(BigDecimal.valueOf(nombreEvaluations), 1, RoundingMode.HALF_UP);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package sn.afrizar.afrizar.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.afrizar.afrizar.model.AgregatVentesJour;
+import sn.afrizar.afrizar.model.Commande;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AgregatVentesJourRepository extends JpaRepository<AgregatVentesJour, AgregatVentesJour.Cle> {
+    
+    // ===== MISE À JOUR INCRÉMENTALE =====
+    
+    // Incrément atomique (valeurs négatives pour un retrait), l'agrégat absent étant créé par la même instruction
+    // (INSERT ... ON CONFLICT DO UPDATE sous PostgreSQL) : pas de lecture préalable ni de transaction séparée
+    @Modifying
+    @Query("INSERT INTO AgregatVentesJour (id.dimension, id.jour, id.cle, id.statut, nombreCommandes, nombreArticles, montant) " +
+           "VALUES (:dimension, :jour, :cle, :statut, :commandes, :articles, :montant) " +
+           "ON CONFLICT (id) DO UPDATE SET nombreCommandes = nombreCommandes + excluded.nombreCommandes, " +
+           "nombreArticles = nombreArticles + excluded.nombreArticles, montant = montant + excluded.montant")
+    int incrementer(@Param("dimension") AgregatVentesJour.Dimension dimension,
+                    @Param("jour") LocalDate jour,
+                    @Param("cle") Long cle,
+                    @Param("statut") Commande.StatutCommande statut,
+                    @Param("commandes") long commandes,
+                    @Param("articles") long articles,
+                    @Param("montant") BigDecimal montant);
+    
+    // Valeurs recalculées par la réconciliation (jour verrouillé), écrites qu'elles existent ou non
+    @Modifying
+    @Query("INSERT INTO AgregatVentesJour (id.dimension, id.jour, id.cle, id.statut, nombreCommandes, nombreArticles, montant) " +
+           "VALUES (:dimension, :jour, :cle, :statut, :commandes, :articles, :montant) " +
+           "ON CONFLICT (id) DO UPDATE SET nombreCommandes = excluded.nombreCommandes, " +
+           "nombreArticles = excluded.nombreArticles, montant = excluded.montant")
+    int remplacer(@Param("dimension") AgregatVentesJour.Dimension dimension,
+                  @Param("jour") LocalDate jour,
+                  @Param("cle") Long cle,
+                  @Param("statut") Commande.StatutCommande statut,
+                  @Param("commandes") long commandes,
+                  @Param("articles") long articles,
+                  @Param("montant") BigDecimal montant);
+    
+    // Agrégats d'un jour lus et verrouillés pour la réconciliation
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM AgregatVentesJour a WHERE a.id.jour = :jour")
+    List<AgregatVentesJour> findByJourPourReconciliation(@Param("jour") LocalDate jour);
+    
+    // ===== LECTURES DES TABLEAUX DE BORD =====
+    
+    // Nombre de commandes et montant par statut, tous jours confondus ou depuis une date
+    @Query("SELECT a.id.statut, SUM(a.nombreCommandes), SUM(a.montant) FROM AgregatVentesJour a " +
+           "WHERE a.id.dimension = sn.afrizar.afrizar.model.AgregatVentesJour.Dimension.GLOBAL GROUP BY a.id.statut")
+    List<Object[]> sommerParStatut();
+    
+    @Query("SELECT a.id.statut, SUM(a.nombreCommandes), SUM(a.montant) FROM AgregatVentesJour a " +
+           "WHERE a.id.dimension = sn.afrizar.afrizar.model.AgregatVentesJour.Dimension.GLOBAL " +
+           "AND a.id.jour >= :depuis GROUP BY a.id.statut")
+    List<Object[]> sommerParStatutDepuis(@Param("depuis") LocalDate depuis);
+    
+    // Série journalière des commandes et du montant sur une période
+    @Query("SELECT a.id.jour, SUM(a.nombreCommandes), SUM(a.nombreArticles), SUM(a.montant) FROM AgregatVentesJour a " +
+           "WHERE a.id.dimension = sn.afrizar.afrizar.model.AgregatVentesJour.Dimension.GLOBAL " +
+           "AND a.id.jour BETWEEN :debut AND :fin AND a.id.statut IN :statuts " +
+           "GROUP BY a.id.jour ORDER BY a.id.jour")
+    List<Object[]> sommerParJour(@Param("debut") LocalDate debut,
+                                 @Param("fin") LocalDate fin,
+                                 @Param("statuts") Collection<Commande.StatutCommande> statuts);
+    
+    // Classement des vendeurs ou des catégories par montant sur une période
+    @Query("SELECT a.id.cle, SUM(a.nombreCommandes), SUM(a.nombreArticles), SUM(a.montant) FROM AgregatVentesJour a " +
+           "WHERE a.id.dimension = :dimension AND a.id.jour BETWEEN :debut AND :fin AND a.id.statut IN :statuts " +
+           "GROUP BY a.id.cle ORDER BY SUM(a.montant) DESC")
+    List<Object[]> sommerParCle(@Param("dimension") AgregatVentesJour.Dimension dimension,
+                                @Param("debut") LocalDate debut,
+                                @Param("fin") LocalDate fin,
+                                @Param("statuts") Collection<Commande.StatutCommande> statuts,
+                                Pageable pageable);
+}
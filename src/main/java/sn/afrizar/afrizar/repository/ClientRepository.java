@@ -1,6 +1,7 @@
 package sn.afrizar.afrizar.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -31,4 +32,15 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     
     @Query("SELECT AVG(c.pointsFidelite) FROM Client c WHERE c.actif = true")
     Double getMoyennePointsFidelite();
+    
+    // Mises à jour atomiques des points de fidélité (crédit asynchrone et débit au checkout concurrents)
+    @Modifying
+    @Query("UPDATE Client c SET c.pointsFidelite = COALESCE(c.pointsFidelite, 0) + :points WHERE c.id = :clientId")
+    int ajouterPointsFidelite(@Param("clientId") Long clientId, @Param("points") int points);
+    
+    // Débit conditionnel : 0 ligne modifiée si le solde courant ne couvre pas les points demandés
+    @Modifying
+    @Query("UPDATE Client c SET c.pointsFidelite = c.pointsFidelite - :points " +
+           "WHERE c.id = :clientId AND c.pointsFidelite >= :points")
+    int retirerPointsFidelite(@Param("clientId") Long clientId, @Param("points") int points);
 }
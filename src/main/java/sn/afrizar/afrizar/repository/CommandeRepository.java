@@ -2,7 +2,9 @@ package sn.afrizar.afrizar.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,10 +16,19 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CommandeRepository extends JpaRepository<Commande, Long> {
+public interface CommandeRepository extends JpaRepository<Commande, Long>, JpaSpecificationExecutor<Commande> {
     
     Optional<Commande> findByNumeroCommande(String numeroCommande);
     
+    // Détail complet (client, paiement, livraison, lignes) en une seule requête
+    @EntityGraph("Commande.detail")
+    @Query("SELECT c FROM Commande c WHERE c.id = :id")
+    Optional<Commande> findDetailById(@Param("id") Long id);
+    
+    @EntityGraph("Commande.detail")
+    @Query("SELECT c FROM Commande c WHERE c.numeroCommande = :numeroCommande")
+    Optional<Commande> findDetailByNumeroCommande(@Param("numeroCommande") String numeroCommande);
+    
     List<Commande> findByClientId(Long clientId);
     
     Page<Commande> findByClientIdOrderByDateCreationDesc(Long clientId, Pageable pageable);
@@ -32,12 +43,54 @@ public interface CommandeRepository extends JpaRepository<Commande, Long> {
         @Param("fin") LocalDateTime fin
     );
     
-    @Query("SELECT c FROM Commande c JOIN c.lignesCommande lc WHERE lc.produit.vendeur.id = :vendeurId")
+    // Lue depuis la projection commandes_vendeurs (une ligne par commande du vendeur, index vendeur/date) :
+    // ni parcours des lignes de commande ni dédoublonnage
+    @Query("SELECT c FROM CommandeVendeur cv JOIN Commande c ON c.id = cv.commandeId JOIN FETCH c.client " +
+           "WHERE cv.vendeurId = :vendeurId ORDER BY cv.dateCommande DESC, cv.id DESC")
     List<Commande> findCommandesByVendeur(@Param("vendeurId") Long vendeurId);
     
-    @Query("SELECT c FROM Commande c JOIN c.lignesCommande lc WHERE lc.produit.vendeur.id = :vendeurId ORDER BY c.dateCreation DESC")
+    @Query(value = "SELECT c FROM CommandeVendeur cv JOIN Commande c ON c.id = cv.commandeId JOIN FETCH c.client " +
+                   "WHERE cv.vendeurId = :vendeurId ORDER BY cv.dateCommande DESC, cv.id DESC",
+           countQuery = "SELECT COUNT(cv) FROM CommandeVendeur cv WHERE cv.vendeurId = :vendeurId")
     Page<Commande> findCommandesByVendeurOrderByDateDesc(@Param("vendeurId") Long vendeurId, Pageable pageable);
     
+    // ===== PAGINATION PAR CURSEUR (dateCreation, id) =====
+    // Parcours de l'index dans l'ordre, sans OFFSET ni COUNT ; client, paiement et livraison sont chargés
+    // dans la même requête (les OneToOne inverses déclencheraient sinon deux requêtes par commande)
+    
+    @Query("SELECT c FROM Commande c JOIN FETCH c.client LEFT JOIN FETCH c.paiement LEFT JOIN FETCH c.livraison " +
+           "WHERE c.client.id = :clientId " +
+           "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Commande> findPremieresCommandesClient(@Param("clientId") Long clientId, Pageable pageable);
+    
+    @Query("SELECT c FROM Commande c JOIN FETCH c.client LEFT JOIN FETCH c.paiement LEFT JOIN FETCH c.livraison " +
+           "WHERE c.client.id = :clientId " +
+           "AND (c.dateCreation < :dateCreation OR (c.dateCreation = :dateCreation AND c.id < :id)) " +
+           "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Commande> findCommandesClientApres(@Param("clientId") Long clientId,
+                                            @Param("dateCreation") LocalDateTime dateCreation,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
+    @Query("SELECT c FROM Commande c JOIN FETCH c.client LEFT JOIN FETCH c.paiement LEFT JOIN FETCH c.livraison " +
+           "WHERE EXISTS (SELECT lc.id FROM LigneCommande lc WHERE lc.commande = c AND lc.vendeurId = :vendeurId) " +
+           "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Commande> findPremieresCommandesVendeur(@Param("vendeurId") Long vendeurId, Pageable pageable);
+    
+    @Query("SELECT c FROM Commande c JOIN FETCH c.client LEFT JOIN FETCH c.paiement LEFT JOIN FETCH c.livraison " +
+           "WHERE EXISTS (SELECT lc.id FROM LigneCommande lc WHERE lc.commande = c AND lc.vendeurId = :vendeurId) " +
+           "AND (c.dateCreation < :dateCreation OR (c.dateCreation = :dateCreation AND c.id < :id)) " +
+           "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Commande> findCommandesVendeurApres(@Param("vendeurId") Long vendeurId,
+                                             @Param("dateCreation") LocalDateTime dateCreation,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+    
+    long countByClientId(Long clientId);
+    
+    @Query("SELECT COUNT(cv) FROM CommandeVendeur cv WHERE cv.vendeurId = :vendeurId")
+    long countCommandesByVendeur(@Param("vendeurId") Long vendeurId);
+    
     // Statistiques pour dashboard
     @Query("SELECT COUNT(c) FROM Commande c WHERE c.statut = :statut")
     Long countByStatut(@Param("statut") Commande.StatutCommande statut);
@@ -51,29 +104,23 @@ public interface CommandeRepository extends JpaRepository<Commande, Long> {
     @Query("SELECT COUNT(c) FROM Commande c WHERE c.client.id = :clientId")
     Long countCommandesByClient(@Param("clientId") Long clientId);
     
+    // Nombre de commandes et montant cumulé, agrégés en base (une seule ligne)
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.montantTotal), 0) FROM Commande c WHERE c.dateCreation BETWEEN :debut AND :fin")
+    List<Object[]> sommerMontantsParPeriode(@Param("debut") LocalDateTime debut, @Param("fin") LocalDateTime fin);
+    
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.montantTotal), 0) FROM Commande c WHERE c.client.id = :clientId")
+    List<Object[]> sommerMontantsParClient(@Param("clientId") Long clientId);
+    
     @Query("SELECT AVG(c.montantTotal) FROM Commande c WHERE c.statut IN ('CONFIRMEE', 'EN_PREPARATION', 'PRETE', 'EXPEDIEE', 'EN_LIVRAISON', 'LIVREE')")
     BigDecimal getMoyennePanier();
     
+    // Recalcul des agrégats de ventes d'une journée
+    @Query("SELECT c.statut, COUNT(c), SUM(c.montantTotal) FROM Commande c " +
+           "WHERE c.dateCreation >= :debut AND c.dateCreation < :fin GROUP BY c.statut")
+    List<Object[]> sommerParStatutEntre(@Param("debut") LocalDateTime debut, @Param("fin") LocalDateTime fin);
+    
     // Commandes en retard
     @Query("SELECT c FROM Commande c WHERE c.dateLivraisonEstimee < CURRENT_DATE AND c.statut NOT IN ('LIVREE', 'ANNULEE', 'RETOURNEE')")
     List<Commande> findCommandesEnRetard();
-    
-    // Recherche avancée
-    @Query("SELECT c FROM Commande c WHERE " +
-           "(:clientId IS NULL OR c.client.id = :clientId) AND " +
-           "(:statut IS NULL OR c.statut = :statut) AND " +
-           "(:montantMin IS NULL OR c.montantTotal >= :montantMin) AND " +
-           "(:montantMax IS NULL OR c.montantTotal <= :montantMax) AND " +
-           "(:dateDebut IS NULL OR c.dateCreation >= :dateDebut) AND " +
-           "(:dateFin IS NULL OR c.dateCreation <= :dateFin)")
-    Page<Commande> findCommandesAvecFiltres(
-        @Param("clientId") Long clientId,
-        @Param("statut") Commande.StatutCommande statut,
-        @Param("montantMin") BigDecimal montantMin,
-        @Param("montantMax") BigDecimal montantMax,
-        @Param("dateDebut") LocalDateTime dateDebut,
-        @Param("dateFin") LocalDateTime dateFin,
-        Pageable pageable
-    );
 }
 
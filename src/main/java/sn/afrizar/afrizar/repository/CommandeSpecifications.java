@@ -0,0 +1,51 @@
+package sn.afrizar.afrizar.repository;
+
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import sn.afrizar.afrizar.model.Commande;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Critères de recherche avancée des commandes : seuls les filtres renseignés produisent un prédicat.
+ */
+public final class CommandeSpecifications {
+
+    private CommandeSpecifications() {
+    }
+
+    /**
+     * Commandes filtrées par client, statut, montant total et période de création (bornes incluses)
+     */
+    public static Specification<Commande> avecFiltres(Long clientId, Commande.StatutCommande statut,
+                                                      BigDecimal montantMin, BigDecimal montantMax,
+                                                      LocalDateTime dateDebut, LocalDateTime dateFin) {
+        return (root, query, cb) -> {
+            List<Predicate> predicats = new ArrayList<>();
+
+            if (clientId != null) {
+                predicats.add(cb.equal(root.get("client").get("id"), clientId));
+            }
+            if (statut != null) {
+                predicats.add(cb.equal(root.get("statut"), statut));
+            }
+            if (montantMin != null) {
+                predicats.add(cb.greaterThanOrEqualTo(root.get("montantTotal"), montantMin));
+            }
+            if (montantMax != null) {
+                predicats.add(cb.lessThanOrEqualTo(root.get("montantTotal"), montantMax));
+            }
+            if (dateDebut != null) {
+                predicats.add(cb.greaterThanOrEqualTo(root.get("dateCreation"), dateDebut));
+            }
+            if (dateFin != null) {
+                predicats.add(cb.lessThanOrEqualTo(root.get("dateCreation"), dateFin));
+            }
+            // Sans filtre, aucune clause WHERE
+            return predicats.isEmpty() ? null : cb.and(predicats.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package sn.afrizar.afrizar.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.afrizar.afrizar.model.Commande;
+import sn.afrizar.afrizar.model.CommandeVendeur;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CommandeVendeurRepository extends JpaRepository<CommandeVendeur, Long> {
+    
+    Page<CommandeVendeur> findByVendeurIdOrderByDateCommandeDescIdDesc(Long vendeurId, Pageable pageable);
+    
+    Page<CommandeVendeur> findByVendeurIdAndStatutOrderByDateCommandeDescIdDesc(Long vendeurId, Commande.StatutCommande statut, Pageable pageable);
+    
+    List<CommandeVendeur> findByCommandeId(Long commandeId);
+    
+    // Le statut de la commande est recopié sur toutes ses projections vendeur
+    @Modifying
+    @Query("UPDATE CommandeVendeur cv SET cv.statut = :statut, cv.dateModification = :maintenant " +
+           "WHERE cv.commandeId = :commandeId")
+    int mettreAJourStatut(@Param("commandeId") Long commandeId,
+                          @Param("statut") Commande.StatutCommande statut,
+                          @Param("maintenant") LocalDateTime maintenant);
+    
+    // Nombre de commandes, sous-total et commission par statut pour un vendeur (lecture de l'index vendeur seul)
+    @Query("SELECT cv.statut, COUNT(cv), SUM(cv.sousTotal), SUM(cv.commission) FROM CommandeVendeur cv " +
+           "WHERE cv.vendeurId = :vendeurId GROUP BY cv.statut")
+    List<Object[]> agregerParStatut(@Param("vendeurId") Long vendeurId);
+
+}
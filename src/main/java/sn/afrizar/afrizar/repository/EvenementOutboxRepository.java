@@ -0,0 +1,41 @@
+package sn.afrizar.afrizar.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.afrizar.afrizar.model.EvenementOutbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EvenementOutboxRepository extends JpaRepository<EvenementOutbox, Long> {
+    
+    // Événements prêts à traiter, verrouillés en FOR UPDATE SKIP LOCKED (timeout -2) :
+    // plusieurs instances peuvent réserver des lots en parallèle sans se bloquer ni se chevaucher
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EvenementOutbox e " +
+           "WHERE e.statut = sn.afrizar.afrizar.model.EvenementOutbox.StatutEvenement.EN_ATTENTE " +
+           "AND e.prochaineTentative <= :maintenant ORDER BY e.id")
+    List<EvenementOutbox> findEvenementsPrets(@Param("maintenant") LocalDateTime maintenant, Pageable pageable);
+    
+    // Remet en attente les événements réservés par une instance arrêtée avant la fin du traitement
+    @Modifying
+    @Query("UPDATE EvenementOutbox e SET e.statut = sn.afrizar.afrizar.model.EvenementOutbox.StatutEvenement.EN_ATTENTE, " +
+           "e.dateReservation = NULL " +
+           "WHERE e.statut = sn.afrizar.afrizar.model.EvenementOutbox.StatutEvenement.EN_COURS " +
+           "AND e.dateReservation < :limite")
+    int libererReservationsExpirees(@Param("limite") LocalDateTime limite);
+    
+    long countByStatut(EvenementOutbox.StatutEvenement statut);
+    
+    List<EvenementOutbox> findByAgregatIdOrderById(Long agregatId);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.afrizar.afrizar.model.LigneCommande;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -15,16 +16,37 @@ public interface LigneCommandeRepository extends JpaRepository<LigneCommande, Lo
     
     List<LigneCommande> findByProduitId(Long produitId);
     
-    @Query("SELECT lc FROM LigneCommande lc WHERE lc.produit.vendeur.id = :vendeurId")
+    @Query("SELECT lc FROM LigneCommande lc WHERE lc.vendeurId = :vendeurId")
     List<LigneCommande> findByVendeur(@Param("vendeurId") Long vendeurId);
     
     @Query("SELECT SUM(lc.quantite) FROM LigneCommande lc WHERE lc.produit.id = :produitId")
     Long getTotalQuantiteVendueParProduit(@Param("produitId") Long produitId);
     
     @Query("SELECT lc.produit.id, SUM(lc.quantite) FROM LigneCommande lc " +
-           "WHERE lc.produit.vendeur.id = :vendeurId " +
+           "WHERE lc.vendeurId = :vendeurId " +
            "GROUP BY lc.produit.id " +
            "ORDER BY SUM(lc.quantite) DESC")
     List<Object[]> getProduitsLesPlusVendusParVendeur(@Param("vendeurId") Long vendeurId);
+    
+    // Quantité et sous-total d'une commande par (vendeur, catégorie) pour les agrégats de ventes
+    @Query("SELECT lc.vendeurId, cat.id, SUM(lc.quantite), SUM(lc.sousTotal) FROM LigneCommande lc " +
+           "JOIN lc.produit p LEFT JOIN p.categorie cat " +
+           "WHERE lc.commande.id = :commandeId GROUP BY lc.vendeurId, cat.id")
+    List<Object[]> sommerParVendeurEtCategorie(@Param("commandeId") Long commandeId);
+    
+    // ===== RECALCUL DES AGRÉGATS DE VENTES D'UNE JOURNÉE =====
+    
+    @Query("SELECT c.statut, SUM(lc.quantite) FROM LigneCommande lc JOIN lc.commande c " +
+           "WHERE c.dateCreation >= :debut AND c.dateCreation < :fin GROUP BY c.statut")
+    List<Object[]> sommerArticlesParStatutEntre(@Param("debut") LocalDateTime debut, @Param("fin") LocalDateTime fin);
+    
+    @Query("SELECT c.statut, lc.vendeurId, COUNT(DISTINCT c.id), SUM(lc.quantite), SUM(lc.sousTotal) " +
+           "FROM LigneCommande lc JOIN lc.commande c " +
+           "WHERE c.dateCreation >= :debut AND c.dateCreation < :fin GROUP BY c.statut, lc.vendeurId")
+    List<Object[]> sommerParStatutEtVendeurEntre(@Param("debut") LocalDateTime debut, @Param("fin") LocalDateTime fin);
+    
+    @Query("SELECT c.statut, cat.id, COUNT(DISTINCT c.id), SUM(lc.quantite), SUM(lc.sousTotal) " +
+           "FROM LigneCommande lc JOIN lc.commande c JOIN lc.produit p LEFT JOIN p.categorie cat " +
+           "WHERE c.dateCreation >= :debut AND c.dateCreation < :fin GROUP BY c.statut, cat.id")
+    List<Object[]> sommerParStatutEtCategorieEntre(@Param("debut") LocalDateTime debut, @Param("fin") LocalDateTime fin);
 }
-
@@ -1,6 +1,7 @@
 package sn.afrizar.afrizar.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,6 +21,16 @@ public interface PanierRepository extends JpaRepository<Panier, Long> {
     // Vérifier si un client a un panier actif
     boolean existsByClientIdAndActifTrue(Long clientId);
     
+    // Nombre d'articles du panier actif (colonne tenue à jour, sans charger les items)
+    @Query("SELECT p.nombreArticles FROM Panier p WHERE p.client.id = :clientId AND p.actif = true")
+    Optional<Integer> findNombreArticlesByClientId(@Param("clientId") Long clientId);
+    
+    // Articles ajoutés par l'insertion d'un nouvel item, si le panier est toujours à la version attendue
+    @Modifying
+    @Query("UPDATE Panier p SET p.nombreArticles = p.nombreArticles + :quantite, p.version = p.version + 1 " +
+           "WHERE p.id = :panierId AND p.version = :version")
+    int ajouterArticles(@Param("panierId") Long panierId, @Param("version") long version, @Param("quantite") int quantite);
+    
     // Compter le nombre d'articles dans le panier d'un client
     @Query("SELECT COUNT(pi) FROM Panier p JOIN p.items pi WHERE p.client.id = :clientId AND p.actif = true")
     Long countItemsByClientId(@Param("clientId") Long clientId);
@@ -1,18 +1,23 @@
 package sn.afrizar.afrizar.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.afrizar.afrizar.model.Produit;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProduitRepository extends JpaRepository<Produit, Long> {
+public interface ProduitRepository extends JpaRepository<Produit, Long>, JpaSpecificationExecutor<Produit> {
     
     // Recherche par vendeur
     List<Produit> findByVendeurId(Long vendeurId);
@@ -34,24 +39,38 @@ public interface ProduitRepository extends JpaRepository<Produit, Long> {
     @Query("SELECT p FROM Produit p WHERE LOWER(p.nom) LIKE LOWER(CONCAT('%', :nom, '%'))")
     List<Produit> findByNomContainingIgnoreCase(@Param("nom") String nom);
     
-    // Recherche avec pagination et filtres
-    @Query("SELECT p FROM Produit p WHERE " +
-           "(:nom IS NULL OR LOWER(p.nom) LIKE LOWER(CONCAT('%', :nom, '%'))) AND " +
-           "(:categorieId IS NULL OR p.categorie.id = :categorieId) AND " +
-           "(:vendeurId IS NULL OR p.vendeur.id = :vendeurId) AND " +
-           "(:prixMin IS NULL OR p.prix >= :prixMin) AND " +
-           "(:prixMax IS NULL OR p.prix <= :prixMax) AND " +
-           "(:qualite IS NULL OR p.qualite = :qualite) AND " +
-           "p.statut = 'ACTIF'")
-    Page<Produit> findProduitsAvecFiltres(
-        @Param("nom") String nom,
-        @Param("categorieId") Long categorieId,
-        @Param("vendeurId") Long vendeurId,
-        @Param("prixMin") BigDecimal prixMin,
-        @Param("prixMax") BigDecimal prixMax,
-        @Param("qualite") Produit.Qualite qualite,
-        Pageable pageable
-    );
+    
+    // Chargement groupé de produits avec leur vendeur et leurs photos (une seule requête)
+    @Query("SELECT DISTINCT p FROM Produit p JOIN FETCH p.vendeur LEFT JOIN FETCH p.photos WHERE p.id IN :ids")
+    List<Produit> findAllByIdInAvecVendeur(@Param("ids") Collection<Long> ids);
+    
+    // Verrou des produits réservés au checkout, dans l'ordre des ID pour éviter les interblocages
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Produit p WHERE p.id IN :ids ORDER BY p.id")
+    List<Produit> findAllByIdInPourReservation(@Param("ids") Collection<Long> ids);
+    
+    // Décrément conditionnel du stock : la mise à jour n'a lieu que si le stock couvre la quantité,
+    // la disponibilité est recalculée dans la même instruction (0 ligne modifiée = stock insuffisant)
+    @Modifying
+    @Query("UPDATE Produit p SET p.stock = p.stock - :quantite, " +
+           "p.disponibilite = CASE " +
+           "WHEN p.stock - :quantite > 0 THEN p.disponibilite " +
+           "WHEN p.delaiProduction > 0 THEN sn.afrizar.afrizar.model.Produit.Disponibilite.SUR_COMMANDE " +
+           "ELSE sn.afrizar.afrizar.model.Produit.Disponibilite.RUPTURE_STOCK END, " +
+           "p.dateModification = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :produitId AND p.stock >= :quantite")
+    int decrementerStock(@Param("produitId") Long produitId, @Param("quantite") Integer quantite);
+    
+    // Réincrément du stock (annulation de commande), la rupture redevient disponible dans la même instruction
+    @Modifying
+    @Query("UPDATE Produit p SET p.stock = COALESCE(p.stock, 0) + :quantite, " +
+           "p.disponibilite = CASE " +
+           "WHEN p.disponibilite = sn.afrizar.afrizar.model.Produit.Disponibilite.RUPTURE_STOCK " +
+           "AND COALESCE(p.stock, 0) + :quantite > 0 THEN sn.afrizar.afrizar.model.Produit.Disponibilite.EN_STOCK " +
+           "ELSE p.disponibilite END, " +
+           "p.dateModification = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :produitId")
+    int incrementerStock(@Param("produitId") Long produitId, @Param("quantite") Integer quantite);
     
     // Produits en stock
     @Query("SELECT p FROM Produit p WHERE p.stock > 0 AND p.statut = 'ACTIF'")
@@ -80,6 +99,12 @@ public interface ProduitRepository extends JpaRepository<Produit, Long> {
     @Query("SELECT AVG(p.prix) FROM Produit p WHERE p.statut = 'ACTIF'")
     BigDecimal getMoyennePrix();
     
+    // Nombre de produits, somme des prix, stock total et nombre de produits actifs d'une catégorie (une seule ligne)
+    @Query("SELECT COUNT(p), SUM(p.prix), COALESCE(SUM(p.stock), 0), " +
+           "COALESCE(SUM(CASE WHEN p.statut = 'ACTIF' THEN 1 ELSE 0 END), 0) " +
+           "FROM Produit p WHERE p.categorie.id = :categorieId")
+    List<Object[]> calculerStatistiquesCategorie(@Param("categorieId") Long categorieId);
+    
     @Query("SELECT SUM(p.stock) FROM Produit p WHERE p.vendeur.id = :vendeurId AND p.statut = 'ACTIF'")
     Long getTotalStockByVendeur(@Param("vendeurId") Long vendeurId);
     
@@ -102,5 +127,15 @@ public interface ProduitRepository extends JpaRepository<Produit, Long> {
     
     @Query("SELECT c.nom, COUNT(p) FROM Produit p LEFT JOIN p.categorie c WHERE p.statut = 'ACTIF' GROUP BY c.nom")
     List<Object[]> countProduitsByCategorie();
+    
+    // Ajout atomique d'une évaluation : somme exacte et nombre incrémentés en SQL, moyenne dérivée
+    // (les lignes antérieures sans somme_notes repartent de note_moyenne × nombre_evaluations)
+    @Modifying
+    @Query("UPDATE Produit p SET " +
+           "p.sommeNotes = COALESCE(p.sommeNotes, COALESCE(p.noteMoyenne, 0) * COALESCE(p.nombreEvaluations, 0)) + :note, " +
+           "p.nombreEvaluations = COALESCE(p.nombreEvaluations, 0) + 1, " +
+           "p.noteMoyenne = (COALESCE(p.sommeNotes, COALESCE(p.noteMoyenne, 0) * COALESCE(p.nombreEvaluations, 0)) + :note) " +
+           "/ (COALESCE(p.nombreEvaluations, 0) + 1) " +
+           "WHERE p.id = :produitId")
+    int ajouterEvaluation(@Param("produitId") Long produitId, @Param("note") BigDecimal note);
 }
-
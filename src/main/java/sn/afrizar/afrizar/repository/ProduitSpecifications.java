@@ -0,0 +1,60 @@
+package sn.afrizar.afrizar.repository;
+
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import sn.afrizar.afrizar.model.Produit;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Critères de recherche des produits : seuls les filtres renseignés produisent un prédicat,
+ * chaque combinaison de filtres obtient ainsi sa propre requête et peut s'appuyer sur les index composites.
+ */
+public final class ProduitSpecifications {
+
+    private ProduitSpecifications() {
+    }
+
+    /**
+     * Produits actifs filtrés par nom (contient, insensible à la casse), catégorie, vendeur, prix et qualité
+     */
+    public static Specification<Produit> actifsAvecFiltres(String nom, Long categorieId, Long vendeurId,
+                                                           BigDecimal prixMin, BigDecimal prixMax,
+                                                           Produit.Qualite qualite) {
+        return (root, query, cb) -> {
+            List<Predicate> predicats = new ArrayList<>();
+            predicats.add(cb.equal(root.get("statut"), Produit.StatutProduit.ACTIF));
+
+            if (nom != null && !nom.isBlank()) {
+                predicats.add(cb.like(cb.lower(root.get("nom")), motifContient(nom), '\\'));
+            }
+            if (categorieId != null) {
+                predicats.add(cb.equal(root.get("categorie").get("id"), categorieId));
+            }
+            if (vendeurId != null) {
+                predicats.add(cb.equal(root.get("vendeur").get("id"), vendeurId));
+            }
+            if (prixMin != null) {
+                predicats.add(cb.greaterThanOrEqualTo(root.get("prix"), prixMin));
+            }
+            if (prixMax != null) {
+                predicats.add(cb.lessThanOrEqualTo(root.get("prix"), prixMax));
+            }
+            if (qualite != null) {
+                predicats.add(cb.equal(root.get("qualite"), qualite));
+            }
+            return cb.and(predicats.toArray(new Predicate[0]));
+        };
+    }
+
+    // Motif LIKE en minuscules, les jokers saisis par l'utilisateur sont recherchés littéralement
+    private static String motifContient(String texte) {
+        String echappe = texte.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + echappe + "%";
+    }
+}
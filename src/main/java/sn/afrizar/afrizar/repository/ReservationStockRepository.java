@@ -0,0 +1,47 @@
+package sn.afrizar.afrizar.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import sn.afrizar.afrizar.model.ReservationStock;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReservationStockRepository extends JpaRepository<ReservationStock, Long> {
+    
+    List<ReservationStock> findByClientIdAndStatut(Long clientId, ReservationStock.StatutReservation statut);
+    
+    // Quantités retenues par les autres clients sur les produits donnés (réservations non expirées)
+    @Query("SELECT r.produitId, SUM(r.quantite) FROM ReservationStock r " +
+           "WHERE r.statut = sn.afrizar.afrizar.model.ReservationStock.StatutReservation.ACTIVE " +
+           "AND r.dateExpiration > :maintenant AND r.produitId IN :produitIds AND r.clientId <> :clientId " +
+           "GROUP BY r.produitId")
+    List<Object[]> sommerReservationsActivesAutresClients(@Param("produitIds") Collection<Long> produitIds,
+                                                         @Param("clientId") Long clientId,
+                                                         @Param("maintenant") LocalDateTime maintenant);
+    
+    // Quantités retenues par produit, pour reconstruire l'index en mémoire
+    @Query("SELECT r.produitId, SUM(r.quantite) FROM ReservationStock r " +
+           "WHERE r.statut = sn.afrizar.afrizar.model.ReservationStock.StatutReservation.ACTIVE " +
+           "AND r.dateExpiration > :maintenant GROUP BY r.produitId")
+    List<Object[]> sommerReservationsActives(@Param("maintenant") LocalDateTime maintenant);
+    
+    // Réservations expirées encore actives, verrouillées en SKIP LOCKED : plusieurs instances peuvent balayer en parallèle
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM ReservationStock r " +
+           "WHERE r.statut = sn.afrizar.afrizar.model.ReservationStock.StatutReservation.ACTIVE " +
+           "AND r.dateExpiration <= :maintenant ORDER BY r.id")
+    List<ReservationStock> findReservationsExpirees(@Param("maintenant") LocalDateTime maintenant, Pageable pageable);
+    
+    long countByStatut(ReservationStock.StatutReservation statut);
+}
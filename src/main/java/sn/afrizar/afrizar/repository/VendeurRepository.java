@@ -3,12 +3,15 @@ package sn.afrizar.afrizar.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import sn.afrizar.afrizar.dto.ProfilTarifaireVendeurDto;
 import sn.afrizar.afrizar.model.Vendeur;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +20,15 @@ public interface VendeurRepository extends JpaRepository<Vendeur, Long> {
     
     Optional<Vendeur> findByEmail(String email);
     
+    // Profil tarifaire seul (taux négocié, nom de boutique) sans charger l'entité complète
+    @Query("SELECT new sn.afrizar.afrizar.dto.ProfilTarifaireVendeurDto(v.id, v.tauxCommissionPersonnalise, v.nomBoutique) " +
+           "FROM Vendeur v WHERE v.id = :vendeurId")
+    Optional<ProfilTarifaireVendeurDto> findProfilTarifaire(@Param("vendeurId") Long vendeurId);
+    
+    @Query("SELECT new sn.afrizar.afrizar.dto.ProfilTarifaireVendeurDto(v.id, v.tauxCommissionPersonnalise, v.nomBoutique) " +
+           "FROM Vendeur v WHERE v.id IN :vendeurIds")
+    List<ProfilTarifaireVendeurDto> findProfilsTarifaires(@Param("vendeurIds") Collection<Long> vendeurIds);
+    
     boolean existsByEmail(String email);
     
     List<Vendeur> findByVerifie(boolean verifie);
@@ -46,4 +58,15 @@ public interface VendeurRepository extends JpaRepository<Vendeur, Long> {
     
     @Query("SELECT v FROM Vendeur v WHERE SIZE(v.produits) >= :nombreProduits")
     List<Vendeur> findVendeursAvecPlusieursProduitsOrderByNomBoutique(@Param("nombreProduits") int nombreProduits);
+    
+    // Ajout atomique d'une évaluation : somme exacte et nombre incrémentés en SQL, rating dérivé
+    // (les lignes antérieures sans somme_notes repartent de rating × nombre_evaluations)
+    @Modifying
+    @Query("UPDATE Vendeur v SET " +
+           "v.sommeNotes = COALESCE(v.sommeNotes, COALESCE(v.rating, 0) * COALESCE(v.nombreEvaluations, 0)) + :note, " +
+           "v.nombreEvaluations = COALESCE(v.nombreEvaluations, 0) + 1, " +
+           "v.rating = (COALESCE(v.sommeNotes, COALESCE(v.rating, 0) * COALESCE(v.nombreEvaluations, 0)) + :note) " +
+           "/ (COALESCE(v.nombreEvaluations, 0) + 1) " +
+           "WHERE v.id = :vendeurId")
+    int ajouterEvaluation(@Param("vendeurId") Long vendeurId, @Param("note") BigDecimal note);
 }
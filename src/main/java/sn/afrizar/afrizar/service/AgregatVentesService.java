@@ -0,0 +1,49 @@
+package sn.afrizar.afrizar.service;
+
+import sn.afrizar.afrizar.model.AgregatVentesJour;
+import sn.afrizar.afrizar.model.Commande;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agrégats journaliers des ventes (global, par vendeur et par catégorie) lus par les tableaux de bord
+ */
+public interface AgregatVentesService {
+    
+    /**
+     * Ajouter une nouvelle commande aux agrégats de son jour (dans la transaction de la commande)
+     */
+    void enregistrerCommande(Commande commande);
+    
+    /**
+     * Déplacer les montants d'une commande de son ancien statut vers le nouveau
+     */
+    void changerStatut(Commande commande, Commande.StatutCommande ancienStatut, Commande.StatutCommande nouveauStatut);
+    
+    /**
+     * Recalculer depuis les commandes les agrégats des jours de la période (une transaction par jour)
+     * @return nombre d'agrégats corrigés
+     */
+    int reconcilier(LocalDate debut, LocalDate fin);
+    
+    /**
+     * Réconciliation planifiée des derniers jours
+     */
+    int reconcilierJoursRecents();
+    
+    /**
+     * Commandes par statut, chiffre d'affaires total et sur 30 jours, panier moyen
+     */
+    Map<String, Object> obtenirTableauDeBord();
+    
+    List<Map<String, Object>> obtenirVentesJournalieres(LocalDate debut, LocalDate fin);
+    
+    /**
+     * Vendeurs ou catégories classés par chiffre d'affaires sur la période
+     */
+    List<Map<String, Object>> obtenirClassement(AgregatVentesJour.Dimension dimension, LocalDate debut, LocalDate fin, int limite);
+    
+    Map<String, Object> obtenirStatistiques();
+}
@@ -1,8 +1,11 @@
 package sn.afrizar.afrizar.service;
 
+import sn.afrizar.afrizar.dto.DemandePrixDto;
 import sn.afrizar.afrizar.dto.DetailPrixDto;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service pour le calcul transparent des prix avec commissions
@@ -17,6 +20,14 @@ public interface CalculPrixService {
      */
     DetailPrixDto calculerPrixFinal(BigDecimal prixVendeur, Long vendeurId);
     
+    /**
+     * Calcule en une passe le prix final de plusieurs couples (prix vendeur, vendeur).
+     * Les profils vendeurs sont chargés en une seule fois et les couples identiques ne sont calculés qu'une fois.
+     * @param demandes Couples (prixVendeur, vendeurId), vendeurId optionnel
+     * @return Détails de prix, dans le même ordre que les demandes
+     */
+    List<DetailPrixDto> calculerPrixFinaux(List<DemandePrixDto> demandes);
+    
     /**
      * Calcule le prix final avec commission standard (sans vendeur spécifique)
      * @param prixVendeur Prix de base
@@ -36,5 +47,16 @@ public interface CalculPrixService {
      * @return true si commission personnalisée, false sinon
      */
     boolean aCommissionPersonnalisee(Long vendeurId);
+    
+    /**
+     * Retire le profil tarifaire d'un vendeur du cache (à appeler après toute modification du vendeur)
+     * @param vendeurId ID du vendeur
+     */
+    void invaliderProfilVendeur(Long vendeurId);
+    
+    /**
+     * Statistiques du cache des profils vendeurs (taille, succès, échecs)
+     */
+    Map<String, Object> obtenirStatistiquesCacheVendeurs();
 }
 
@@ -4,11 +4,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import sn.afrizar.afrizar.dto.CommandeDto;
 import sn.afrizar.afrizar.dto.CreateCommandeDto;
+import sn.afrizar.afrizar.dto.PageCurseurDto;
 import sn.afrizar.afrizar.model.Commande;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CommandeService {
@@ -31,6 +33,11 @@ public interface CommandeService {
     
     Page<CommandeDto> obtenirCommandesParVendeurAvecPagination(Long vendeurId, Pageable pageable);
     
+    // Pagination par curseur (dateCreation, id) : curseur null pour la première page, total calculé seulement si demandé
+    PageCurseurDto<CommandeDto> obtenirCommandesParClientParCurseur(Long clientId, String curseur, int taille, boolean avecTotal);
+    
+    PageCurseurDto<CommandeDto> obtenirCommandesParVendeurParCurseur(Long vendeurId, String curseur, int taille, boolean avecTotal);
+    
     List<CommandeDto> obtenirCommandesParStatut(Commande.StatutCommande statut);
     
     CommandeDto changerStatutCommande(Long commandeId, Commande.StatutCommande nouveauStatut);
@@ -64,6 +71,11 @@ public interface CommandeService {
     
     BigDecimal calculerFraisLivraison(Long commandeId);
     
+    // Traitements post-commande (exécutés de façon asynchrone par l'outbox)
+    void creerPaiementInitial(Long commandeId);
+    
+    void attribuerPointsFidelite(Long commandeId);
+    
     // Statistiques
     Long getNombreCommandesParStatut(Commande.StatutCommande statut);
     
@@ -74,5 +86,15 @@ public interface CommandeService {
     BigDecimal getMoyennePanier();
     
     Long getNombreCommandesParClient(Long clientId);
+    
+    /**
+     * Nombre de commandes, chiffre d'affaires et panier moyen de la période, calculés en base
+     */
+    Map<String, Object> obtenirStatistiquesPeriode(LocalDateTime debut, LocalDateTime fin);
+    
+    /**
+     * Nombre de commandes, montant total dépensé et panier moyen du client, calculés en base
+     */
+    Map<String, Object> obtenirStatistiquesClient(Long clientId);
 }
 
@@ -0,0 +1,31 @@
+package sn.afrizar.afrizar.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import sn.afrizar.afrizar.dto.CommandeVendeurDto;
+import sn.afrizar.afrizar.model.Commande;
+
+import java.util.Map;
+
+/**
+ * Projection des commandes par vendeur, maintenue à l'écriture
+ */
+public interface CommandeVendeurService {
+    
+    /**
+     * Créer les projections vendeur d'une nouvelle commande (dans la transaction de la commande)
+     */
+    void enregistrerCommande(Commande commande);
+    
+    /**
+     * Recopier le nouveau statut de la commande sur ses projections vendeur
+     */
+    void mettreAJourStatut(Long commandeId, Commande.StatutCommande statut);
+    
+    Page<CommandeVendeurDto> obtenirCommandesVendeur(Long vendeurId, Commande.StatutCommande statut, Pageable pageable);
+    
+    /**
+     * Nombre de commandes, chiffre d'affaires et commissions du vendeur, par statut et au total
+     */
+    Map<String, Object> obtenirStatistiquesVendeur(Long vendeurId);
+}
@@ -0,0 +1,38 @@
+package sn.afrizar.afrizar.service;
+
+import java.util.Map;
+
+/**
+ * Compteurs d'engagement (vues produit, likes / commentaires / partages d'actualité)
+ * accumulés en mémoire puis écrits en base par lots (write-behind)
+ */
+public interface CompteurEngagementService {
+
+    enum Compteur {
+        VUES_PRODUIT,
+        LIKES_ACTUALITE,
+        COMMENTAIRES_ACTUALITE,
+        PARTAGES_ACTUALITE
+    }
+
+    /**
+     * Enregistre un incrément sans accès à la base
+     */
+    void incrementer(Compteur compteur, Long id);
+
+    /**
+     * Incréments pas encore écrits en base pour une entité (à ajouter à la valeur persistée)
+     */
+    long obtenirEnAttente(Compteur compteur, Long id);
+
+    /**
+     * Écrit immédiatement en base tous les incréments en attente
+     * @return Nombre de lignes mises à jour
+     */
+    int vider();
+
+    /**
+     * Statistiques : incréments en attente par compteur, nombre de flushs, échecs
+     */
+    Map<String, Object> obtenirStatistiques();
+}
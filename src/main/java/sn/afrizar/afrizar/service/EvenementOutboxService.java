@@ -0,0 +1,23 @@
+package sn.afrizar.afrizar.service;
+
+import sn.afrizar.afrizar.model.EvenementOutbox;
+
+import java.util.Map;
+
+/**
+ * Outbox transactionnelle des traitements post-commande
+ */
+public interface EvenementOutboxService {
+    
+    /**
+     * Enregistre un événement dans la transaction courante (obligatoire) : il n'est visible
+     * par le dispatcheur qu'après le commit de la commande
+     * @param donnees Données complémentaires sérialisées en JSON (optionnel)
+     */
+    void publier(EvenementOutbox.TypeEvenement type, Long agregatId, Object donnees);
+    
+    /**
+     * Nombre d'événements par statut et état du dispatcheur
+     */
+    Map<String, Object> obtenirStatistiques();
+}
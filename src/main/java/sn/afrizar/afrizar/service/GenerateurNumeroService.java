@@ -0,0 +1,22 @@
+package sn.afrizar.afrizar.service;
+
+/**
+ * Génération des numéros de commande et de suivi, uniques entre plusieurs instances de l'application
+ */
+public interface GenerateurNumeroService {
+
+    /**
+     * Identifiant 63 bits croissant : horodatage (ms) + numéro de nœud + séquence dans la milliseconde
+     */
+    long prochainIdentifiant();
+
+    /**
+     * Numéro de commande lisible, ex: CMD-0NB4ZK3QH001A
+     */
+    String genererNumeroCommande();
+
+    /**
+     * Numéro de suivi de livraison lisible, ex: AFRIZAR-0NB4ZK3QH001B
+     */
+    String genererNumeroSuivi();
+}
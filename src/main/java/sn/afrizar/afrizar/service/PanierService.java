@@ -2,7 +2,14 @@ package sn.afrizar.afrizar.service;
 
 import sn.afrizar.afrizar.dto.AjouterAuPanierDto;
 import sn.afrizar.afrizar.dto.PanierDto;
+import sn.afrizar.afrizar.dto.SynchronisationPanierDto;
 
+import java.util.Map;
+
+/**
+ * Panier des clients, servi depuis un cache mémoire par client ; les modifications sont
+ * écrites en base en différé (write-behind), la base restant la référence en cas d'absence du cache
+ */
 public interface PanierService {
     
     /**
@@ -31,14 +38,39 @@ public interface PanierService {
     void viderPanier(Long clientId);
     
     /**
-     * Synchroniser le panier (vérifier stock, prix)
+     * Synchroniser le panier (vérifier stock, prix) : renvoie le panier à jour et la liste des
+     * changements appliqués (prix modifié, quantité ajustée, article retiré)
      */
-    PanierDto synchroniserPanier(Long clientId);
+    SynchronisationPanierDto synchroniserPanier(Long clientId);
     
     /**
-     * Obtenir le nombre d'articles dans le panier
+     * Obtenir le nombre d'articles dans le panier (badge) : lu dans le panier en mémoire
+     * ou dans la colonne tenue à jour, sans charger les items ni créer de panier
      */
     int obtenirNombreArticles(Long clientId);
+    
+    /**
+     * Écrit dans la transaction de l'appelant les modifications en attente du panier d'un client
+     * (à appeler avant toute lecture du panier en base, ex: checkout)
+     */
+    void persisterPanier(Long clientId);
+    
+    /**
+     * Écrit immédiatement en base les modifications en attente de tous les paniers
+     * @return Nombre de paniers écrits
+     */
+    int ecrireModificationsEnAttente();
+    
+    /**
+     * Supprime par lots les paniers inactifs depuis plus longtemps que la durée configurée
+     * @return Nombre de paniers supprimés
+     */
+    int purgerPaniersAbandonnes();
+    
+    /**
+     * Statistiques : cache des paniers, paniers en attente d'écriture, écritures et échecs, purges
+     */
+    Map<String, Object> obtenirStatistiques();
 }
 
 
@@ -55,7 +55,7 @@ public interface ProduitService {
     
     List<ProduitDto> obtenirProduitsParTaille(Produit.Taille taille);
     
-    ProduitDto incrementerVues(Long produitId);
+    void incrementerVues(Long produitId);
     
     ProduitDto ajouterEvaluation(Long produitId, BigDecimal note);
     
@@ -69,6 +69,11 @@ public interface ProduitService {
     
     BigDecimal getMoyennePrix();
     
+    /**
+     * Nombre de produits actifs, prix moyen et stock total des produits d'une catégorie, calculés en base
+     */
+    Map<String, Object> obtenirStatistiquesCategorie(Long categorieId);
+    
     // Méthodes d'administration
     Page<ProduitDto> obtenirProduitsEnAttente(Pageable pageable);
     
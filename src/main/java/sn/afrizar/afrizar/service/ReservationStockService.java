@@ -0,0 +1,60 @@
+package sn.afrizar.afrizar.service;
+
+import sn.afrizar.afrizar.dto.ReservationPanierDto;
+import sn.afrizar.afrizar.model.PanierItem;
+import sn.afrizar.afrizar.model.Produit;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Réservations de stock du checkout : la quantité du panier est retenue pendant une durée limitée,
+ * confirmée à la création de la commande ou libérée à expiration.
+ */
+public interface ReservationStockService {
+    
+    /**
+     * Réserver (ou renouveler) le stock du panier actif du client
+     */
+    ReservationPanierDto reserverPanier(Long clientId);
+    
+    /**
+     * Réserver (ou renouveler) le stock des articles donnés ; échoue si un produit n'a plus assez
+     * de stock disponible à la vente. Doit être appelé dans une transaction.
+     */
+    ReservationPanierDto reserverArticles(Long clientId, Collection<PanierItem> items);
+    
+    /**
+     * Vérifier, sans réserver, que le stock diminué des réservations actives des autres clients couvre
+     * les quantités demandées (produit -> quantité) ; les produits restent verrouillés jusqu'au commit.
+     * Doit être appelé dans une transaction.
+     */
+    void verifierDisponibilite(Long clientId, Map<Long, Integer> demandes);
+    
+    /**
+     * Marquer les réservations actives du client comme consommées par la commande
+     */
+    void confirmerReservations(Long clientId, Long commandeId);
+    
+    /**
+     * Libérer les réservations actives du client (checkout abandonné)
+     */
+    void libererReservations(Long clientId);
+    
+    /**
+     * Quantité actuellement retenue pour un produit (index en mémoire, sans requête)
+     */
+    int obtenirQuantiteReservee(Long produitId);
+    
+    /**
+     * Disponible à la vente = stock - réservations actives (index en mémoire, sans requête)
+     */
+    int calculerQuantiteDisponible(Produit produit);
+    
+    /**
+     * Expirer les réservations échues et resynchroniser l'index en mémoire
+     */
+    int expirerReservations();
+    
+    Map<String, Object> obtenirStatistiques();
+}
@@ -12,6 +12,7 @@ import sn.afrizar.afrizar.dto.CreateActualiteDto;
 import sn.afrizar.afrizar.model.Actualite;
 import sn.afrizar.afrizar.repository.ActualiteRepository;
 import sn.afrizar.afrizar.service.ActualiteService;
+import sn.afrizar.afrizar.service.CompteurEngagementService;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -25,6 +26,7 @@ import java.util.stream.Collectors;
 public class ActualiteServiceImpl implements ActualiteService {
     
     private final ActualiteRepository actualiteRepository;
+    private final CompteurEngagementService compteurEngagementService;
     
     @Override
     public ActualiteDto creerActualite(CreateActualiteDto createActualiteDto) {
@@ -185,45 +187,45 @@ public class ActualiteServiceImpl implements ActualiteService {
     }
     
     @Override
+    @Transactional(readOnly = true)
     public ActualiteDto incrementerLikes(Long id) {
         log.info("Incrémentation des likes pour l'actualité {}", id);
         
         Actualite actualite = actualiteRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Actualité non trouvée avec ID: " + id));
         
-        actualite.setNombreLikes(actualite.getNombreLikes() + 1);
-        
-        Actualite actualiteSauvee = actualiteRepository.save(actualite);
+        // Écrit en base par lots, le DTO inclut les incréments en attente
+        compteurEngagementService.incrementer(CompteurEngagementService.Compteur.LIKES_ACTUALITE, id);
         
-        return convertirEntityVersDto(actualiteSauvee);
+        return convertirEntityVersDto(actualite);
     }
     
     @Override
+    @Transactional(readOnly = true)
     public ActualiteDto incrementerCommentaires(Long id) {
         log.info("Incrémentation des commentaires pour l'actualité {}", id);
         
         Actualite actualite = actualiteRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Actualité non trouvée avec ID: " + id));
         
-        actualite.setNombreCommentaires(actualite.getNombreCommentaires() + 1);
-        
-        Actualite actualiteSauvee = actualiteRepository.save(actualite);
+        // Écrit en base par lots, le DTO inclut les incréments en attente
+        compteurEngagementService.incrementer(CompteurEngagementService.Compteur.COMMENTAIRES_ACTUALITE, id);
         
-        return convertirEntityVersDto(actualiteSauvee);
+        return convertirEntityVersDto(actualite);
     }
     
     @Override
+    @Transactional(readOnly = true)
     public ActualiteDto incrementerPartages(Long id) {
         log.info("Incrémentation des partages pour l'actualité {}", id);
         
         Actualite actualite = actualiteRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Actualité non trouvée avec ID: " + id));
         
-        actualite.setNombrePartages(actualite.getNombrePartages() + 1);
-        
-        Actualite actualiteSauvee = actualiteRepository.save(actualite);
+        // Écrit en base par lots, le DTO inclut les incréments en attente
+        compteurEngagementService.incrementer(CompteurEngagementService.Compteur.PARTAGES_ACTUALITE, id);
         
-        return convertirEntityVersDto(actualiteSauvee);
+        return convertirEntityVersDto(actualite);
     }
     
     @Override
@@ -256,9 +258,9 @@ public class ActualiteServiceImpl implements ActualiteService {
         dto.setDatePublication(actualite.getDatePublication());
         dto.setCategorie(actualite.getCategorie());
         dto.setTags(actualite.getTags());
-        dto.setNombreLikes(actualite.getNombreLikes());
-        dto.setNombreCommentaires(actualite.getNombreCommentaires());
-        dto.setNombrePartages(actualite.getNombrePartages());
+        dto.setNombreLikes(avecEnAttente(actualite.getNombreLikes(), CompteurEngagementService.Compteur.LIKES_ACTUALITE, actualite.getId()));
+        dto.setNombreCommentaires(avecEnAttente(actualite.getNombreCommentaires(), CompteurEngagementService.Compteur.COMMENTAIRES_ACTUALITE, actualite.getId()));
+        dto.setNombrePartages(avecEnAttente(actualite.getNombrePartages(), CompteurEngagementService.Compteur.PARTAGES_ACTUALITE, actualite.getId()));
         dto.setEstVisible(actualite.getEstVisible());
         dto.setEstTendance(actualite.getEstTendance());
         dto.setDateCreation(actualite.getDateCreation());
@@ -266,6 +268,10 @@ public class ActualiteServiceImpl implements ActualiteService {
         return dto;
     }
     
+    private Long avecEnAttente(Long valeurPersistee, CompteurEngagementService.Compteur compteur, Long id) {
+        return (valeurPersistee != null ? valeurPersistee : 0L) + compteurEngagementService.obtenirEnAttente(compteur, id);
+    }
+    
     private Actualite convertirCreateDtoVersEntity(CreateActualiteDto dto) {
         Actualite actualite = new Actualite();
         actualite.setTitre(dto.getTitre());
@@ -0,0 +1,227 @@
+package sn.afrizar.afrizar.service.impl;
+
+import sn.afrizar.afrizar.model.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Panier d'un client tenu en mémoire : lignes déjà tarifées (prix final avec commission),
+ * montant total et nombre d'articles (tenu à jour à chaque modification de quantité).
+ *
+ * Les modifications pas encore écrites en base sont suivies ligne par ligne (quantité et prix
+ * persistés, items retirés) : une écriture ne contient que l'état final des lignes modifiées,
+ * quel que soit le nombre de modifications intermédiaires. Toutes les méthodes sont appelées
+ * sous le verrou de l'agrégat.
+ *
+ * La version est celle de la ligne paniers sur laquelle l'agrégat est fondé : chaque écriture
+ * exige cette version en base et l'incrémente. Les écritures en base d'un même panier sont
+ * sérialisées par verrouEcriture, toujours pris avant le verrou de l'agrégat.
+ */
+final class AgregatPanier {
+
+    final Long clientId;
+    final Long panierId;
+    final String clientNom;
+    final LocalDateTime dateCreation;
+    LocalDateTime dateModification;
+
+    // Version de la ligne paniers connue de l'agrégat (dernière lue ou écrite)
+    long version;
+
+    final ReentrantLock verrouEcriture = new ReentrantLock();
+
+    // Lignes par ID d'item, dans l'ordre d'ajout
+    final Map<Long, Ligne> lignes = new LinkedHashMap<>();
+
+    private int nombreArticles;
+
+    // Items retirés en mémoire, à supprimer en base
+    final Set<Long> retraits = new HashSet<>();
+
+    // Date de modification pas encore écrite en base
+    private LocalDateTime dateModificationAEcrire;
+
+    // Retiré du cache : l'appelant doit obtenir l'agrégat à nouveau
+    boolean detache;
+
+    AgregatPanier(Long clientId, Long panierId, String clientNom, LocalDateTime dateCreation, LocalDateTime dateModification,
+                  long version) {
+        this.clientId = clientId;
+        this.panierId = panierId;
+        this.clientNom = clientNom;
+        this.dateCreation = dateCreation;
+        this.dateModification = dateModification;
+        this.version = version;
+    }
+
+    /**
+     * Ligne de même produit et mêmes options (taille, couleur), null si absente
+     */
+    Ligne trouverLigne(Long produitId, String taille, String couleur) {
+        for (Ligne ligne : lignes.values()) {
+            if (ligne.produitId.equals(produitId) && Objects.equals(ligne.taille, taille)
+                    && Objects.equals(ligne.couleur, couleur)) {
+                return ligne;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ligne lue en base, déjà persistée
+     */
+    void chargerLigne(Ligne ligne) {
+        lignes.put(ligne.itemId, ligne);
+        nombreArticles += ligne.quantite;
+    }
+
+    void ajouterLigne(Ligne ligne) {
+        chargerLigne(ligne);
+        marquerModifie();
+    }
+
+    void modifierQuantite(Ligne ligne, int quantite) {
+        nombreArticles += quantite - ligne.quantite;
+        ligne.quantite = quantite;
+        marquerModifie();
+    }
+
+    void retirerLigne(Long itemId) {
+        Ligne ligne = lignes.remove(itemId);
+        if (ligne != null) {
+            nombreArticles -= ligne.quantite;
+            retraits.add(itemId);
+            marquerModifie();
+        }
+    }
+
+    void marquerModifie() {
+        dateModification = LocalDateTime.now();
+        dateModificationAEcrire = dateModification;
+    }
+
+    int getNombreTotalArticles() {
+        return nombreArticles;
+    }
+
+    BigDecimal getMontantTotal() {
+        Money total = Money.ZERO;
+        for (Ligne ligne : lignes.values()) {
+            total = total.plus(ligne.getSousTotal());
+        }
+        return total.versBigDecimal();
+    }
+
+    boolean aEcrire() {
+        if (dateModificationAEcrire != null || !retraits.isEmpty()) {
+            return true;
+        }
+        for (Ligne ligne : lignes.values()) {
+            if (ligne.estModifiee()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * État à écrire en base : lignes modifiées, items retirés, date de modification, nombre d'articles
+     * et version attendue en base
+     */
+    Ecriture preparerEcriture() {
+        List<EcritureLigne> lignesModifiees = new ArrayList<>();
+        for (Ligne ligne : lignes.values()) {
+            if (ligne.estModifiee()) {
+                lignesModifiees.add(new EcritureLigne(ligne.itemId, ligne.quantite, ligne.prixUnitaire));
+            }
+        }
+        return new Ecriture(panierId, version,
+                dateModificationAEcrire != null ? dateModificationAEcrire : dateModification,
+                nombreArticles, lignesModifiees, Set.copyOf(retraits));
+    }
+
+    /**
+     * Écriture validée en base : seules les valeurs écrites sont considérées comme persistées,
+     * les modifications faites pendant l'écriture restent à écrire
+     */
+    void confirmerEcriture(Ecriture ecriture) {
+        for (EcritureLigne ecrite : ecriture.lignes()) {
+            Ligne ligne = lignes.get(ecrite.itemId());
+            if (ligne != null) {
+                ligne.quantitePersistee = ecrite.quantite();
+                ligne.prixPersiste = ecrite.prixUnitaire();
+            }
+        }
+        retraits.removeAll(ecriture.retraits());
+        if (Objects.equals(dateModificationAEcrire, ecriture.dateModification())) {
+            dateModificationAEcrire = null;
+        }
+        version = ecriture.version() + 1;
+    }
+
+    record Ecriture(Long panierId, long version, LocalDateTime dateModification, int nombreArticles,
+                    List<EcritureLigne> lignes, Set<Long> retraits) {
+    }
+
+    record EcritureLigne(Long itemId, int quantite, BigDecimal prixUnitaire) {
+    }
+
+    /**
+     * Ligne du panier avec les informations produit et vendeur affichées et son prix final
+     */
+    static final class Ligne {
+
+        final Long itemId;
+        final Long produitId;
+        final String taille;
+        final String couleur;
+        final String optionsPersonnalisation;
+        final LocalDateTime dateAjout;
+
+        String produitNom;
+        String produitDescription;
+        List<String> produitPhotos;
+        String vendeurNom;
+        String nomBoutique;
+        Integer stockDisponible;
+
+        int quantite;
+        // Prix vendeur (persisté) et prix final avec commission (affiché)
+        BigDecimal prixUnitaire;
+        BigDecimal prixFinal;
+
+        int quantitePersistee;
+        BigDecimal prixPersiste;
+
+        Ligne(Long itemId, Long produitId, String taille, String couleur, String optionsPersonnalisation,
+              LocalDateTime dateAjout, int quantite, BigDecimal prixUnitaire) {
+            this.itemId = itemId;
+            this.produitId = produitId;
+            this.taille = taille;
+            this.couleur = couleur;
+            this.optionsPersonnalisation = optionsPersonnalisation;
+            this.dateAjout = dateAjout;
+            this.quantite = quantite;
+            this.prixUnitaire = prixUnitaire;
+            this.quantitePersistee = quantite;
+            this.prixPersiste = prixUnitaire;
+        }
+
+        Money getSousTotal() {
+            return Money.de(prixFinal).fois(quantite);
+        }
+
+        boolean estModifiee() {
+            return quantite != quantitePersistee || prixUnitaire.compareTo(prixPersiste) != 0;
+        }
+    }
+}
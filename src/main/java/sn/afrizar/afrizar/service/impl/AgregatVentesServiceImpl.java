@@ -0,0 +1,369 @@
+package sn.afrizar.afrizar.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.afrizar.afrizar.model.AgregatVentesJour;
+import sn.afrizar.afrizar.model.Commande;
+import sn.afrizar.afrizar.model.LigneCommande;
+import sn.afrizar.afrizar.repository.AgregatVentesJourRepository;
+import sn.afrizar.afrizar.repository.CommandeRepository;
+import sn.afrizar.afrizar.repository.LigneCommandeRepository;
+import sn.afrizar.afrizar.service.AgregatVentesService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrégats journaliers des ventes.
+ *
+ * Chaque commande contribue à une ligne GLOBAL, une ligne par vendeur et une ligne par catégorie de son
+ * jour de création, sous son statut courant. Les contributions sont appliquées dans la transaction de la
+ * commande par une seule instruction d'upsert incrémental (création de l'agrégat absent comprise), sans
+ * connexion supplémentaire. Les mises à jour sont appliquées dans un ordre fixe (dimension, clé, statut)
+ * pour éviter les interblocages entre commandes.
+ *
+ * Les lignes GLOBAL d'un jour servent de verrou du jour : toute mise à jour incrémentale commence par l'une
+ * d'elles (GLOBAL est la première dimension de l'ordre fixe). La réconciliation verrouille d'abord les lignes
+ * GLOBAL de tous les statuts du jour, en créant celles qui manquent : elle attend la fin des transactions qui
+ * ont déjà écrit ce jour, et celles qui suivent attendent la sienne. Le recalcul depuis les commandes voit donc
+ * toutes les contributions déjà appliquées, et les valeurs recalculées peuvent être écrites en valeur absolue.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class AgregatVentesServiceImpl implements AgregatVentesService {
+
+    private static final long CLE_GLOBALE = 0L;
+
+    private final AgregatVentesJourRepository agregatVentesJourRepository;
+    private final CommandeRepository commandeRepository;
+    private final LigneCommandeRepository ligneCommandeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.agregats-ventes.jours-reconciliation:7}")
+    private int joursReconciliation;
+
+    private final AtomicLong mouvementsAppliques = new AtomicLong();
+    private final AtomicLong agregatsCorriges = new AtomicLong();
+    private volatile LocalDateTime dateDerniereReconciliation;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrerCommande(Commande commande) {
+        // Lignes en mémoire : le produit vient d'être chargé, seule l'ID de sa catégorie est lue
+        List<Object[]> lignes = new ArrayList<>();
+        for (LigneCommande ligne : commande.getLignesCommande()) {
+            Long categorieId = ligne.getProduit().getCategorie() != null ? ligne.getProduit().getCategorie().getId() : null;
+            lignes.add(new Object[]{ligne.getVendeurId(), categorieId, ligne.getQuantite(), ligne.getSousTotal()});
+        }
+
+        List<Mouvement> mouvements = new ArrayList<>();
+        for (Contribution contribution : calculerContributions(commande, lignes)) {
+            mouvements.add(new Mouvement(contribution, commande.getStatut(), 1));
+        }
+        appliquer(commande.getDateCreation().toLocalDate(), mouvements);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void changerStatut(Commande commande, Commande.StatutCommande ancienStatut, Commande.StatutCommande nouveauStatut) {
+        if (ancienStatut == nouveauStatut) {
+            return;
+        }
+
+        List<Mouvement> mouvements = new ArrayList<>();
+        for (Contribution contribution : calculerContributions(commande,
+                ligneCommandeRepository.sommerParVendeurEtCategorie(commande.getId()))) {
+            mouvements.add(new Mouvement(contribution, ancienStatut, -1));
+            mouvements.add(new Mouvement(contribution, nouveauStatut, 1));
+        }
+        appliquer(commande.getDateCreation().toLocalDate(), mouvements);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reconcilier(LocalDate debut, LocalDate fin) {
+        log.info("Réconciliation des agrégats de ventes du {} au {}", debut, fin);
+
+        int corrections = 0;
+        for (LocalDate jour = debut; !jour.isAfter(fin); jour = jour.plusDays(1)) {
+            LocalDate jourCourant = jour;
+            Integer corrigesJour = transactionTemplate.execute(statut -> recalculerJour(jourCourant));
+            corrections += corrigesJour != null ? corrigesJour : 0;
+        }
+
+        agregatsCorriges.addAndGet(corrections);
+        dateDerniereReconciliation = LocalDateTime.now();
+        if (corrections > 0) {
+            log.warn("{} agrégat(s) de ventes corrigé(s) par la réconciliation", corrections);
+        }
+        return corrections;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(cron = "${app.agregats-ventes.cron-reconciliation:0 30 3 * * *}")
+    public int reconcilierJoursRecents() {
+        LocalDate aujourdhui = LocalDate.now();
+        return reconcilier(aujourdhui.minusDays(joursReconciliation - 1L), aujourdhui);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenirTableauDeBord() {
+        Map<Commande.StatutCommande, Object[]> parStatut = indexerParStatut(agregatVentesJourRepository.sommerParStatut());
+        Map<Commande.StatutCommande, Object[]> parStatut30Jours = indexerParStatut(
+                agregatVentesJourRepository.sommerParStatutDepuis(LocalDate.now().minusDays(30)));
+
+        long nombreCommandesTotal = 0;
+        long nombreCommandesVendues = 0;
+        Map<String, Long> commandesParStatut = new HashMap<>();
+        for (Map.Entry<Commande.StatutCommande, Object[]> entree : parStatut.entrySet()) {
+            long nombre = nombre(entree.getValue()[1]);
+            nombreCommandesTotal += nombre;
+            commandesParStatut.put(entree.getKey().name(), nombre);
+            if (Commande.STATUTS_CHIFFRE_AFFAIRES.contains(entree.getKey())) {
+                nombreCommandesVendues += nombre;
+            }
+        }
+        BigDecimal chiffreAffaires = sommerChiffreAffaires(parStatut);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nombreCommandesTotal", nombreCommandesTotal);
+        stats.put("nombreCommandesEnAttente", commandesParStatut.getOrDefault(Commande.StatutCommande.EN_ATTENTE.name(), 0L));
+        stats.put("nombreCommandesConfirmees", commandesParStatut.getOrDefault(Commande.StatutCommande.CONFIRMEE.name(), 0L));
+        stats.put("nombreCommandesLivrees", commandesParStatut.getOrDefault(Commande.StatutCommande.LIVREE.name(), 0L));
+        stats.put("commandesParStatut", commandesParStatut);
+        stats.put("chiffreAffairesTotal", chiffreAffaires);
+        stats.put("panierMoyen", nombreCommandesVendues > 0
+                ? chiffreAffaires.divide(BigDecimal.valueOf(nombreCommandesVendues), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        stats.put("chiffreAffaires30Jours", sommerChiffreAffaires(parStatut30Jours));
+        return stats;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenirVentesJournalieres(LocalDate debut, LocalDate fin) {
+        List<Map<String, Object>> ventes = new ArrayList<>();
+        for (Object[] ligne : agregatVentesJourRepository.sommerParJour(debut, fin, Commande.STATUTS_CHIFFRE_AFFAIRES)) {
+            Map<String, Object> jour = new HashMap<>();
+            jour.put("jour", ligne[0]);
+            jour.put("nombreCommandes", nombre(ligne[1]));
+            jour.put("nombreArticles", nombre(ligne[2]));
+            jour.put("chiffreAffaires", montant(ligne[3]));
+            ventes.add(jour);
+        }
+        return ventes;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenirClassement(AgregatVentesJour.Dimension dimension, LocalDate debut, LocalDate fin, int limite) {
+        List<Map<String, Object>> classement = new ArrayList<>();
+        for (Object[] ligne : agregatVentesJourRepository.sommerParCle(dimension, debut, fin,
+                Commande.STATUTS_CHIFFRE_AFFAIRES, PageRequest.of(0, Math.max(limite, 1)))) {
+            Map<String, Object> entree = new HashMap<>();
+            entree.put("id", ligne[0]);
+            entree.put("nombreCommandes", nombre(ligne[1]));
+            entree.put("nombreArticles", nombre(ligne[2]));
+            entree.put("chiffreAffaires", montant(ligne[3]));
+            classement.add(entree);
+        }
+        return classement;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> obtenirStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("mouvementsAppliques", mouvementsAppliques.get());
+        stats.put("agregatsCorriges", agregatsCorriges.get());
+        stats.put("joursReconciliation", joursReconciliation);
+        stats.put("dateDerniereReconciliation", dateDerniereReconciliation);
+        return stats;
+    }
+
+    // ===== MÉTHODES PRIVÉES =====
+
+    /**
+     * Contributions d'une commande à partir de ses lignes [vendeurId, categorieId, quantite, sousTotal]
+     */
+    private List<Contribution> calculerContributions(Commande commande, List<Object[]> lignes) {
+        Map<Long, Contribution> parVendeur = new TreeMap<>();
+        Map<Long, Contribution> parCategorie = new TreeMap<>();
+        long articles = 0;
+        for (Object[] ligne : lignes) {
+            long vendeurId = nombre(ligne[0]);
+            long categorieId = nombre(ligne[1]);
+            long quantite = nombre(ligne[2]);
+            BigDecimal sousTotal = montant(ligne[3]);
+            articles += quantite;
+            parVendeur.merge(vendeurId, new Contribution(AgregatVentesJour.Dimension.VENDEUR, vendeurId, quantite, sousTotal), Contribution::cumuler);
+            parCategorie.merge(categorieId, new Contribution(AgregatVentesJour.Dimension.CATEGORIE, categorieId, quantite, sousTotal), Contribution::cumuler);
+        }
+
+        List<Contribution> contributions = new ArrayList<>();
+        contributions.add(new Contribution(AgregatVentesJour.Dimension.GLOBAL, CLE_GLOBALE, articles, montant(commande.getMontantTotal())));
+        contributions.addAll(parVendeur.values());
+        contributions.addAll(parCategorie.values());
+        return contributions;
+    }
+
+    private void appliquer(LocalDate jour, List<Mouvement> mouvements) {
+        mouvements.sort(Comparator.comparing((Mouvement m) -> m.contribution().dimension())
+                .thenComparingLong(m -> m.contribution().cle())
+                .thenComparing(Mouvement::statut));
+
+        for (Mouvement mouvement : mouvements) {
+            agregatVentesJourRepository.incrementer(mouvement.contribution().dimension(), jour, mouvement.contribution().cle(),
+                    mouvement.statut(), mouvement.signe(), mouvement.articles(), mouvement.montant());
+        }
+        mouvementsAppliques.addAndGet(mouvements.size());
+    }
+
+    private int recalculerJour(LocalDate jour) {
+        // Verrou du jour, dans l'ordre des mises à jour incrémentales (statuts croissants)
+        for (Commande.StatutCommande statut : Commande.StatutCommande.values()) {
+            agregatVentesJourRepository.incrementer(AgregatVentesJour.Dimension.GLOBAL, jour, CLE_GLOBALE, statut,
+                    0, 0, BigDecimal.ZERO);
+        }
+
+        Map<AgregatVentesJour.Cle, AgregatVentesJour> existants = new HashMap<>();
+        for (AgregatVentesJour agregat : agregatVentesJourRepository.findByJourPourReconciliation(jour)) {
+            existants.put(agregat.getId(), agregat);
+        }
+
+        int corrections = 0;
+        for (AgregatVentesJour calcule : calculerJour(jour).values()) {
+            AgregatVentesJour existant = existants.remove(calcule.getId());
+            if (existant == null) {
+                // Aucune commande ne peut avoir créé cet agrégat depuis la lecture : le jour est verrouillé
+                AgregatVentesJour.Cle cle = calcule.getId();
+                agregatVentesJourRepository.remplacer(cle.getDimension(), jour, cle.getCle(), cle.getStatut(),
+                        calcule.getNombreCommandes(), calcule.getNombreArticles(), calcule.getMontant());
+                corrections++;
+            } else if (!existant.getNombreCommandes().equals(calcule.getNombreCommandes())
+                    || !existant.getNombreArticles().equals(calcule.getNombreArticles())
+                    || existant.getMontant().compareTo(calcule.getMontant()) != 0) {
+                existant.setNombreCommandes(calcule.getNombreCommandes());
+                existant.setNombreArticles(calcule.getNombreArticles());
+                existant.setMontant(calcule.getMontant());
+                corrections++;
+            }
+        }
+
+        // Agrégats sans commande correspondante (ou vidés par des changements de statut)
+        for (AgregatVentesJour orphelin : existants.values()) {
+            if (orphelin.getNombreCommandes() != 0 || orphelin.getNombreArticles() != 0 || orphelin.getMontant().signum() != 0) {
+                corrections++;
+            }
+            agregatVentesJourRepository.delete(orphelin);
+        }
+        return corrections;
+    }
+
+    /**
+     * Agrégats d'un jour recalculés par requêtes d'agrégation sur les commandes et leurs lignes
+     */
+    private Map<AgregatVentesJour.Cle, AgregatVentesJour> calculerJour(LocalDate jour) {
+        LocalDateTime debut = jour.atStartOfDay();
+        LocalDateTime fin = jour.plusDays(1).atStartOfDay();
+        Map<AgregatVentesJour.Cle, AgregatVentesJour> agregats = new HashMap<>();
+
+        for (Object[] ligne : commandeRepository.sommerParStatutEntre(debut, fin)) {
+            AgregatVentesJour agregat = agregat(agregats, AgregatVentesJour.Dimension.GLOBAL, jour, CLE_GLOBALE, ligne[0]);
+            agregat.setNombreCommandes(nombre(ligne[1]));
+            agregat.setMontant(montant(ligne[2]));
+        }
+        for (Object[] ligne : ligneCommandeRepository.sommerArticlesParStatutEntre(debut, fin)) {
+            agregat(agregats, AgregatVentesJour.Dimension.GLOBAL, jour, CLE_GLOBALE, ligne[0]).setNombreArticles(nombre(ligne[1]));
+        }
+        remplir(agregats, AgregatVentesJour.Dimension.VENDEUR, jour, ligneCommandeRepository.sommerParStatutEtVendeurEntre(debut, fin));
+        remplir(agregats, AgregatVentesJour.Dimension.CATEGORIE, jour, ligneCommandeRepository.sommerParStatutEtCategorieEntre(debut, fin));
+        return agregats;
+    }
+
+    // Lignes [statut, cle, nombreCommandes, nombreArticles, montant]
+    private void remplir(Map<AgregatVentesJour.Cle, AgregatVentesJour> agregats, AgregatVentesJour.Dimension dimension,
+                         LocalDate jour, List<Object[]> lignes) {
+        for (Object[] ligne : lignes) {
+            AgregatVentesJour agregat = agregat(agregats, dimension, jour, nombre(ligne[1]), ligne[0]);
+            agregat.setNombreCommandes(nombre(ligne[2]));
+            agregat.setNombreArticles(nombre(ligne[3]));
+            agregat.setMontant(montant(ligne[4]));
+        }
+    }
+
+    private static AgregatVentesJour agregat(Map<AgregatVentesJour.Cle, AgregatVentesJour> agregats,
+                                             AgregatVentesJour.Dimension dimension, LocalDate jour, long cle, Object statut) {
+        AgregatVentesJour.Cle id = new AgregatVentesJour.Cle(dimension, jour, cle, (Commande.StatutCommande) statut);
+        return agregats.computeIfAbsent(id, c -> new AgregatVentesJour(c, 0L, 0L, BigDecimal.ZERO));
+    }
+
+    private static Map<Commande.StatutCommande, Object[]> indexerParStatut(List<Object[]> lignes) {
+        Map<Commande.StatutCommande, Object[]> parStatut = new EnumMap<>(Commande.StatutCommande.class);
+        for (Object[] ligne : lignes) {
+            parStatut.put((Commande.StatutCommande) ligne[0], ligne);
+        }
+        return parStatut;
+    }
+
+    private static BigDecimal sommerChiffreAffaires(Map<Commande.StatutCommande, Object[]> parStatut) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Commande.StatutCommande statut : Commande.STATUTS_CHIFFRE_AFFAIRES) {
+            Object[] ligne = parStatut.get(statut);
+            if (ligne != null) {
+                total = total.add(montant(ligne[2]));
+            }
+        }
+        return total;
+    }
+
+    private static long nombre(Object valeur) {
+        return valeur != null ? ((Number) valeur).longValue() : 0L;
+    }
+
+    private static BigDecimal montant(Object valeur) {
+        return valeur != null ? (BigDecimal) valeur : BigDecimal.ZERO;
+    }
+
+    /**
+     * Apport d'une commande à un agrégat (une commande compte une fois par vendeur et par catégorie)
+     */
+    private record Contribution(AgregatVentesJour.Dimension dimension, long cle, long articles, BigDecimal montant) {
+
+        Contribution cumuler(Contribution autre) {
+            return new Contribution(dimension, cle, articles + autre.articles, montant.add(autre.montant));
+        }
+    }
+
+    private record Mouvement(Contribution contribution, Commande.StatutCommande statut, int signe) {
+
+        long articles() {
+            return signe * contribution.articles();
+        }
+
+        BigDecimal montant() {
+            return signe < 0 ? contribution.montant().negate() : contribution.montant();
+        }
+    }
+}
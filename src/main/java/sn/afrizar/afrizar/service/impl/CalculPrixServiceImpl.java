@@ -1,19 +1,34 @@
 package sn.afrizar.afrizar.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sn.afrizar.afrizar.dto.DemandePrixDto;
 import sn.afrizar.afrizar.dto.DetailPrixDto;
+import sn.afrizar.afrizar.dto.ProfilTarifaireVendeurDto;
 import sn.afrizar.afrizar.model.Commission;
-import sn.afrizar.afrizar.model.Vendeur;
+import sn.afrizar.afrizar.model.Money;
 import sn.afrizar.afrizar.repository.VendeurRepository;
 import sn.afrizar.afrizar.service.CalculPrixService;
 import sn.afrizar.afrizar.service.CommissionService;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -24,44 +39,86 @@ public class CalculPrixServiceImpl implements CalculPrixService {
     private final CommissionService commissionService;
     private final VendeurRepository vendeurRepository;
     
+    private static final int TAILLE_MAX_CACHE_VENDEURS = 5000;
+    
+    // Cache des profils tarifaires par vendeur (taux négocié, nom de boutique)
+    private final Cache<Long, ProfilTarifaireVendeurDto> profilsVendeurs = Caffeine.newBuilder()
+            .maximumSize(TAILLE_MAX_CACHE_VENDEURS)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .recordStats()
+            .build();
+    
     @Override
     public DetailPrixDto calculerPrixFinal(BigDecimal prixVendeur, Long vendeurId) {
         log.debug("Calcul du prix final pour vendeur {} avec prix de base {}", vendeurId, prixVendeur);
         
+        // Récupérer le profil tarifaire du vendeur (depuis le cache)
+        ProfilTarifaireVendeurDto profil = obtenirProfilVendeur(vendeurId);
+        
+        return profil != null
+                ? calculerDetailPrix(prixVendeur, profil.getTauxCommissionPersonnalise(), profil.getNomBoutique())
+                : calculerPrixFinal(prixVendeur);
+    }
+    
+    @Override
+    public List<DetailPrixDto> calculerPrixFinaux(List<DemandePrixDto> demandes) {
+        log.debug("Calcul groupé du prix final pour {} demande(s)", demandes.size());
+        
+        // Charger en une fois les profils de tous les vendeurs concernés
+        Set<Long> vendeurIds = demandes.stream()
+                .map(DemandePrixDto::getVendeurId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, ProfilTarifaireVendeurDto> profils = vendeurIds.isEmpty()
+                ? Map.of()
+                : profilsVendeurs.getAll(vendeurIds, this::chargerProfilsVendeurs);
+        
+        // Un seul calcul par couple (prix, vendeur) distinct
+        Map<DemandePrixDto, DetailPrixDto> calculs = new HashMap<>();
+        List<DetailPrixDto> details = new ArrayList<>(demandes.size());
+        for (DemandePrixDto demande : demandes) {
+            DetailPrixDto calcul = calculs.computeIfAbsent(demande, d -> {
+                ProfilTarifaireVendeurDto profil = d.getVendeurId() != null ? profils.get(d.getVendeurId()) : null;
+                return profil != null
+                        ? calculerDetailPrix(d.getPrixVendeur(), profil.getTauxCommissionPersonnalise(), profil.getNomBoutique())
+                        : calculerPrixFinal(d.getPrixVendeur());
+            });
+            // Copie : chaque appelant reçoit son propre DTO
+            details.add(new DetailPrixDto(calcul.getPrixVendeur(), calcul.getPourcentageCommission(),
+                    calcul.getMontantCommission(), calcul.getPrixFinal(), calcul.getDescriptionTranche(),
+                    calcul.isCommissionPersonnalisee(), calcul.getNomVendeur()));
+        }
+        
+        return details;
+    }
+    
+    private DetailPrixDto calculerDetailPrix(BigDecimal prixVendeur, BigDecimal tauxCommissionPersonnalise, String nomBoutique) {
         DetailPrixDto detail = new DetailPrixDto();
         detail.setPrixVendeur(prixVendeur);
+        detail.setNomVendeur(nomBoutique);
         
-        // Récupérer les infos du vendeur
-        Optional<Vendeur> vendeurOpt = vendeurRepository.findById(vendeurId);
-        if (vendeurOpt.isPresent()) {
-            Vendeur vendeur = vendeurOpt.get();
-            detail.setNomVendeur(vendeur.getNomBoutique());
+        Money prix = Money.de(prixVendeur);
+        Money montantCommission;
+        
+        // Vérifier si le vendeur a une commission personnalisée
+        if (tauxCommissionPersonnalise != null && 
+            tauxCommissionPersonnalise.compareTo(BigDecimal.ZERO) > 0) {
+            
+            // Commission personnalisée (arrondie au centime, HALF_UP)
+            montantCommission = prix.pourcentage(Money.pointsDeBase(tauxCommissionPersonnalise));
+            detail.setPourcentageCommission(tauxCommissionPersonnalise);
+            detail.setMontantCommission(montantCommission.versBigDecimal());
+            detail.setCommissionPersonnalisee(true);
+            detail.setDescriptionTranche("Commission négociée");
             
-            // Vérifier si le vendeur a une commission personnalisée
-            if (vendeur.getTauxCommissionPersonnalise() != null && 
-                vendeur.getTauxCommissionPersonnalise().compareTo(BigDecimal.ZERO) > 0) {
-                
-                // Commission personnalisée
-                detail.setPourcentageCommission(vendeur.getTauxCommissionPersonnalise());
-                detail.setMontantCommission(
-                    prixVendeur.multiply(vendeur.getTauxCommissionPersonnalise())
-                              .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP)
-                );
-                detail.setCommissionPersonnalisee(true);
-                detail.setDescriptionTranche("Commission négociée");
-                
-                log.debug("Commission personnalisée appliquée: {}%", detail.getPourcentageCommission());
-            } else {
-                // Commission standard
-                calculerCommissionStandard(prixVendeur, detail);
-            }
+            log.debug("Commission personnalisée appliquée: {}%", detail.getPourcentageCommission());
         } else {
-            // Vendeur non trouvé, utiliser commission standard
-            calculerCommissionStandard(prixVendeur, detail);
+            // Commission standard
+            montantCommission = calculerCommissionStandard(prix, detail);
         }
         
         // Calculer le prix final
-        detail.setPrixFinal(detail.getPrixVendeur().add(detail.getMontantCommission()));
+        detail.setPrixFinal(prix.plus(montantCommission).versBigDecimal());
         
         log.debug("Prix final calculé: {} FCFA (prix: {} + commission: {})", 
                  detail.getPrixFinal(), detail.getPrixVendeur(), detail.getMontantCommission());
@@ -76,26 +133,29 @@ public class CalculPrixServiceImpl implements CalculPrixService {
         DetailPrixDto detail = new DetailPrixDto();
         detail.setPrixVendeur(prixVendeur);
         
-        calculerCommissionStandard(prixVendeur, detail);
+        Money prix = Money.de(prixVendeur);
+        Money montantCommission = calculerCommissionStandard(prix, detail);
         
         // Calculer le prix final
-        detail.setPrixFinal(detail.getPrixVendeur().add(detail.getMontantCommission()));
+        detail.setPrixFinal(prix.plus(montantCommission).versBigDecimal());
         
         return detail;
     }
     
-    private void calculerCommissionStandard(BigDecimal prixVendeur, DetailPrixDto detail) {
-        Optional<Commission> commissionOpt = commissionService.trouverCommissionApplicable(prixVendeur);
+    private Money calculerCommissionStandard(Money prixVendeur, DetailPrixDto detail) {
+        Optional<Commission> commissionOpt = commissionService.trouverCommissionApplicable(detail.getPrixVendeur());
         
         if (commissionOpt.isPresent()) {
             Commission commission = commissionOpt.get();
+            Money montantCommission = commission.calculerCommission(prixVendeur);
             detail.setPourcentageCommission(commission.getPourcentage());
-            detail.setMontantCommission(commission.calculerCommission(prixVendeur));
+            detail.setMontantCommission(montantCommission.versBigDecimal());
             detail.setDescriptionTranche(commission.getDescription());
             detail.setCommissionPersonnalisee(false);
             
             log.debug("Commission standard appliquée: {}% ({})", 
                      commission.getPourcentage(), commission.getDescription());
+            return montantCommission;
         } else {
             // Aucune commission trouvée, utiliser 0%
             detail.setPourcentageCommission(BigDecimal.ZERO);
@@ -104,6 +164,7 @@ public class CalculPrixServiceImpl implements CalculPrixService {
             detail.setCommissionPersonnalisee(false);
             
             log.warn("Aucune tranche de commission trouvée pour le prix: {}", prixVendeur);
+            return Money.ZERO;
         }
     }
     
@@ -137,10 +198,56 @@ public class CalculPrixServiceImpl implements CalculPrixService {
     
     @Override
     public boolean aCommissionPersonnalisee(Long vendeurId) {
-        return vendeurRepository.findById(vendeurId)
-                .map(vendeur -> vendeur.getTauxCommissionPersonnalise() != null && 
-                               vendeur.getTauxCommissionPersonnalise().compareTo(BigDecimal.ZERO) > 0)
-                .orElse(false);
+        ProfilTarifaireVendeurDto profil = obtenirProfilVendeur(vendeurId);
+        return profil != null && profil.aCommissionPersonnalisee();
+    }
+    
+    // ==================== CACHE DES PROFILS VENDEURS ====================
+    
+    @Override
+    public void invaliderProfilVendeur(Long vendeurId) {
+        profilsVendeurs.invalidate(vendeurId);
+        
+        // Invalider à nouveau après validation : une lecture concurrente a pu recharger l'ancienne valeur
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    profilsVendeurs.invalidate(vendeurId);
+                }
+            });
+        }
+        log.debug("Profil tarifaire du vendeur {} retiré du cache", vendeurId);
+    }
+    
+    @Override
+    public Map<String, Object> obtenirStatistiquesCacheVendeurs() {
+        CacheStats stats = profilsVendeurs.stats();
+        
+        Map<String, Object> statistiques = new HashMap<>();
+        statistiques.put("taille", profilsVendeurs.estimatedSize());
+        statistiques.put("tailleMaximale", TAILLE_MAX_CACHE_VENDEURS);
+        statistiques.put("succes", stats.hitCount());
+        statistiques.put("echecs", stats.missCount());
+        statistiques.put("tauxSucces", stats.hitRate());
+        statistiques.put("evictions", stats.evictionCount());
+        return statistiques;
+    }
+    
+    private Map<Long, ProfilTarifaireVendeurDto> chargerProfilsVendeurs(Set<? extends Long> vendeurIds) {
+        return vendeurRepository.findProfilsTarifaires(new ArrayList<>(vendeurIds))
+                .stream()
+                .collect(Collectors.toMap(ProfilTarifaireVendeurDto::getVendeurId, Function.identity()));
+    }
+    
+    /**
+     * Profil tarifaire d'un vendeur, chargé en base seulement en cas d'absence du cache (null si inconnu)
+     */
+    private ProfilTarifaireVendeurDto obtenirProfilVendeur(Long vendeurId) {
+        if (vendeurId == null) {
+            return null;
+        }
+        return profilsVendeurs.get(vendeurId, id -> vendeurRepository.findProfilTarifaire(id).orElse(null));
     }
 }
 
@@ -3,6 +3,7 @@ package sn.afrizar.afrizar.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,8 +16,12 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -25,15 +30,21 @@ import java.util.stream.Collectors;
 @Transactional
 public class CommandeServiceImpl implements CommandeService {
     
+    private static final int TAILLE_MAX_PAGE = 100;
+    
     private final CommandeRepository commandeRepository;
     private final ClientRepository clientRepository;
     private final ProduitRepository produitRepository;
-    private final LigneCommandeRepository ligneCommandeRepository;
     private final PaiementRepository paiementRepository;
     private final LivraisonService livraisonService;
     private final CalculPrixService calculPrixService;
     private final PanierRepository panierRepository;
     private final PanierService panierService;
+    private final GenerateurNumeroService generateurNumeroService;
+    private final EvenementOutboxService evenementOutboxService;
+    private final ReservationStockService reservationStockService;
+    private final CommandeVendeurService commandeVendeurService;
+    private final AgregatVentesService agregatVentesService;
     
     @Override
     public CommandeDto creerCommande(CreateCommandeDto createCommandeDto) {
@@ -45,6 +56,7 @@ public class CommandeServiceImpl implements CommandeService {
         
         // 2. Créer la commande
         Commande commande = new Commande();
+        commande.setNumeroCommande(generateurNumeroService.genererNumeroCommande());
         commande.setClient(client);
         commande.setType(createCommandeDto.getType());
         commande.setDateLivraisonSouhaitee(createCommandeDto.getDateLivraisonSouhaitee());
@@ -54,13 +66,20 @@ public class CommandeServiceImpl implements CommandeService {
         
         // 3. Valider et créer les lignes de commande
         List<LigneCommande> lignesCommande = new ArrayList<>();
-        BigDecimal montantHT = BigDecimal.ZERO;
-        BigDecimal montantCommissionTotal = BigDecimal.ZERO;
+        Money montantHT = Money.ZERO;
+        Money montantCommissionTotal = Money.ZERO;
+        
+        // Verrouiller les produits et tenir compte des réservations actives des autres clients,
+        // comme au checkout : les unités retenues dans un panier ne peuvent pas être vendues ici
+        verifierDisponibilite(client.getId(), createCommandeDto.getLignesCommande());
+        
+        // Charger tous les produits (avec vendeurs) en une seule requête
+        Map<Long, Produit> produits = chargerProduits(createCommandeDto.getLignesCommande());
+        List<DetailPrixDto> detailsPrix = calculerPrixLignes(createCommandeDto.getLignesCommande(), produits);
         
-        for (CreateLigneCommandeDto ligneDto : createCommandeDto.getLignesCommande()) {
-            // Récupérer le produit
-            Produit produit = produitRepository.findById(ligneDto.getProduitId())
-                    .orElseThrow(() -> new RuntimeException("Produit non trouvé avec ID: " + ligneDto.getProduitId()));
+        for (int i = 0; i < createCommandeDto.getLignesCommande().size(); i++) {
+            CreateLigneCommandeDto ligneDto = createCommandeDto.getLignesCommande().get(i);
+            Produit produit = produits.get(ligneDto.getProduitId());
             
             // Vérifier le stock
             if (!verifierStock(produit, ligneDto.getQuantite())) {
@@ -71,7 +90,7 @@ public class CommandeServiceImpl implements CommandeService {
             // Créer la ligne de commande
             LigneCommande ligne = new LigneCommande();
             ligne.setCommande(commande);
-            ligne.setProduit(produit);
+            ligne.capturerProduit(produit);
             ligne.setQuantite(ligneDto.getQuantite());
             ligne.setPrixUnitaire(produit.getPrix());
             ligne.setTaille(ligneDto.getTaille() != null ? ligneDto.getTaille().name() : null);
@@ -79,25 +98,25 @@ public class CommandeServiceImpl implements CommandeService {
             ligne.setNotes(ligneDto.getNotes());
             
             // Calculer le sous-total
-            BigDecimal sousTotal = produit.getPrix().multiply(BigDecimal.valueOf(ligneDto.getQuantite()));
-            ligne.setSousTotal(sousTotal);
+            Money sousTotal = Money.de(produit.getPrix()).fois(ligneDto.getQuantite());
+            ligne.setSousTotal(sousTotal.versBigDecimal());
             
-            // Calculer la commission pour cette ligne
-            DetailPrixDto detailPrix = calculPrixService.calculerPrixFinal(sousTotal, produit.getVendeur().getId());
+            // Commission de cette ligne (calculée pour toutes les lignes en une passe)
+            DetailPrixDto detailPrix = detailsPrix.get(i);
             ligne.setCommission(detailPrix.getMontantCommission());
             
             lignesCommande.add(ligne);
             
-            montantHT = montantHT.add(sousTotal);
-            montantCommissionTotal = montantCommissionTotal.add(detailPrix.getMontantCommission());
+            montantHT = montantHT.plus(sousTotal);
+            montantCommissionTotal = montantCommissionTotal.plus(Money.de(detailPrix.getMontantCommission()));
             
             // Décrémenter le stock
             decremeneterStock(produit, ligneDto.getQuantite());
         }
         
         commande.setLignesCommande(lignesCommande);
-        commande.setMontantHT(montantHT);
-        commande.setMontantCommission(montantCommissionTotal);
+        commande.setMontantHT(montantHT.versBigDecimal());
+        commande.setMontantCommission(montantCommissionTotal.versBigDecimal());
         
         // 4. Calculer les frais de livraison si les infos de livraison sont fournies
         BigDecimal fraisLivraison = BigDecimal.ZERO;
@@ -117,24 +136,28 @@ public class CommandeServiceImpl implements CommandeService {
         
         // 6. Calculer le montant total
         BigDecimal montantTotal = montantHT
-                .add(montantCommissionTotal)
-                .add(fraisLivraison)
-                .subtract(reduction);
+                .plus(montantCommissionTotal)
+                .plus(Money.de(fraisLivraison))
+                .moins(Money.de(reduction))
+                .versBigDecimal();
         commande.setMontantTotal(montantTotal);
         
         // 7. Sauvegarder la commande
         Commande commandeSauvegardee = commandeRepository.save(commande);
+        commandeVendeurService.enregistrerCommande(commandeSauvegardee);
         
-        // 8. Créer le paiement initial
-        creerPaiementInitial(commandeSauvegardee);
-        
-        // 9. Créer la livraison si les infos sont fournies
+        // 8. Paiement initial, livraison et points de fidélité (1% du montant) : écrits dans l'outbox
+        // avec la commande, puis exécutés de façon asynchrone et rejoués en cas d'échec
+        Long commandeId = commandeSauvegardee.getId();
+        evenementOutboxService.publier(EvenementOutbox.TypeEvenement.CREATION_PAIEMENT, commandeId, null);
         if (createCommandeDto.getLivraison() != null) {
-            livraisonService.creerLivraison(createCommandeDto.getLivraison(), commandeSauvegardee.getId());
+            evenementOutboxService.publier(EvenementOutbox.TypeEvenement.CREATION_LIVRAISON, commandeId,
+                    createCommandeDto.getLivraison());
         }
+        evenementOutboxService.publier(EvenementOutbox.TypeEvenement.ATTRIBUTION_POINTS_FIDELITE, commandeId, null);
         
-        // 10. Attribuer des points de fidélité (1% du montant)
-        attribuerPointsFidelite(client, montantTotal);
+        // 9. Agrégats de ventes en dernier : leurs lignes restent verrouillées le moins longtemps possible
+        agregatVentesService.enregistrerCommande(commandeSauvegardee);
         
         log.info("Commande créée avec succès: {} - Montant total: {} FCFA", 
                 commandeSauvegardee.getNumeroCommande(), montantTotal);
@@ -143,17 +166,19 @@ public class CommandeServiceImpl implements CommandeService {
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Optional<CommandeDto> obtenirCommandeParId(Long id) {
         log.info("Récupération de la commande avec ID: {}", id);
-        return commandeRepository.findById(id)
-                .map(this::convertirEntityVersDto);
+        return commandeRepository.findDetailById(id)
+                .map(this::convertirEntityVersDtoComplet);
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Optional<CommandeDto> obtenirCommandeParNumero(String numeroCommande) {
         log.info("Récupération de la commande avec numéro: {}", numeroCommande);
-        return commandeRepository.findByNumeroCommande(numeroCommande)
-                .map(this::convertirEntityVersDto);
+        return commandeRepository.findDetailByNumeroCommande(numeroCommande)
+                .map(this::convertirEntityVersDtoComplet);
     }
     
     @Override
@@ -192,10 +217,50 @@ public class CommandeServiceImpl implements CommandeService {
     @Override
     public Page<CommandeDto> obtenirCommandesParVendeurAvecPagination(Long vendeurId, Pageable pageable) {
         log.info("Récupération des commandes paginées pour le vendeur ID: {}", vendeurId);
-        return commandeRepository.findCommandesByVendeurOrderByDateDesc(vendeurId, pageable)
+        // L'ordre est celui de la projection (date de commande puis ID, décroissants) : le tri demandé est ignoré
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return commandeRepository.findCommandesByVendeurOrderByDateDesc(vendeurId, page)
                 .map(this::convertirEntityVersDto);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public PageCurseurDto<CommandeDto> obtenirCommandesParClientParCurseur(Long clientId, String curseur, int taille, boolean avecTotal) {
+        log.info("Récupération des commandes par curseur pour le client ID: {}", clientId);
+        int tailleBornee = bornerTaillePage(taille);
+        Pageable limite = PageRequest.of(0, tailleBornee + 1);
+        
+        List<Commande> commandes;
+        if (curseur == null || curseur.isBlank()) {
+            commandes = commandeRepository.findPremieresCommandesClient(clientId, limite);
+        } else {
+            CurseurCommande position = CurseurCommande.decoder(curseur);
+            commandes = commandeRepository.findCommandesClientApres(clientId, position.dateCreation(), position.id(), limite);
+        }
+        
+        return construirePageCurseur(commandes, tailleBornee,
+                avecTotal ? commandeRepository.countByClientId(clientId) : null);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public PageCurseurDto<CommandeDto> obtenirCommandesParVendeurParCurseur(Long vendeurId, String curseur, int taille, boolean avecTotal) {
+        log.info("Récupération des commandes par curseur pour le vendeur ID: {}", vendeurId);
+        int tailleBornee = bornerTaillePage(taille);
+        Pageable limite = PageRequest.of(0, tailleBornee + 1);
+        
+        List<Commande> commandes;
+        if (curseur == null || curseur.isBlank()) {
+            commandes = commandeRepository.findPremieresCommandesVendeur(vendeurId, limite);
+        } else {
+            CurseurCommande position = CurseurCommande.decoder(curseur);
+            commandes = commandeRepository.findCommandesVendeurApres(vendeurId, position.dateCreation(), position.id(), limite);
+        }
+        
+        return construirePageCurseur(commandes, tailleBornee,
+                avecTotal ? commandeRepository.countCommandesByVendeur(vendeurId) : null);
+    }
+    
     @Override
     public List<CommandeDto> obtenirCommandesParStatut(Commande.StatutCommande statut) {
         log.info("Récupération des commandes avec statut: {}", statut);
@@ -211,8 +276,11 @@ public class CommandeServiceImpl implements CommandeService {
         Commande commande = commandeRepository.findById(commandeId)
                 .orElseThrow(() -> new RuntimeException("Commande non trouvée avec ID: " + commandeId));
         
+        Commande.StatutCommande ancienStatut = commande.getStatut();
         commande.setStatut(nouveauStatut);
         Commande commandeMiseAJour = commandeRepository.save(commande);
+        commandeVendeurService.mettreAJourStatut(commandeId, nouveauStatut);
+        agregatVentesService.changerStatut(commandeMiseAJour, ancienStatut, nouveauStatut);
         return convertirEntityVersDto(commandeMiseAJour);
     }
     
@@ -245,7 +313,8 @@ public class CommandeServiceImpl implements CommandeService {
             LocalDateTime dateFin,
             Pageable pageable) {
         log.info("Recherche de commandes avec filtres");
-        return commandeRepository.findCommandesAvecFiltres(clientId, statut, montantMin, montantMax, dateDebut, dateFin, pageable)
+        return commandeRepository.findAll(
+                        CommandeSpecifications.avecFiltres(clientId, statut, montantMin, montantMax, dateDebut, dateFin), pageable)
                 .map(this::convertirEntityVersDto);
     }
     
@@ -268,6 +337,7 @@ public class CommandeServiceImpl implements CommandeService {
     }
     
     @Override
+    @Transactional(readOnly = true)
     public CommandeDto calculerTotauxCommande(CreateCommandeDto createCommandeDto) {
         log.info("Calcul des totaux pour la commande (prévisualisation)");
         
@@ -276,21 +346,25 @@ public class CommandeServiceImpl implements CommandeService {
                 .orElseThrow(() -> new RuntimeException("Client non trouvé avec ID: " + createCommandeDto.getClientId()));
         
         // Calculer les montants sans sauvegarder
-        BigDecimal montantHT = BigDecimal.ZERO;
-        BigDecimal montantCommissionTotal = BigDecimal.ZERO;
+        Money montantHT = Money.ZERO;
+        Money montantCommissionTotal = Money.ZERO;
         List<LigneCommandeDto> lignesDtos = new ArrayList<>();
         
-        for (CreateLigneCommandeDto ligneDto : createCommandeDto.getLignesCommande()) {
-            Produit produit = produitRepository.findById(ligneDto.getProduitId())
-                    .orElseThrow(() -> new RuntimeException("Produit non trouvé avec ID: " + ligneDto.getProduitId()));
+        // Charger tous les produits (avec vendeurs) en une seule requête
+        Map<Long, Produit> produits = chargerProduits(createCommandeDto.getLignesCommande());
+        List<DetailPrixDto> detailsPrix = calculerPrixLignes(createCommandeDto.getLignesCommande(), produits);
+        
+        for (int i = 0; i < createCommandeDto.getLignesCommande().size(); i++) {
+            CreateLigneCommandeDto ligneDto = createCommandeDto.getLignesCommande().get(i);
+            Produit produit = produits.get(ligneDto.getProduitId());
             
             // Vérifier le stock
             if (!verifierStock(produit, ligneDto.getQuantite())) {
                 throw new RuntimeException("Stock insuffisant pour le produit: " + produit.getNom());
             }
             
-            BigDecimal sousTotal = produit.getPrix().multiply(BigDecimal.valueOf(ligneDto.getQuantite()));
-            DetailPrixDto detailPrix = calculPrixService.calculerPrixFinal(sousTotal, produit.getVendeur().getId());
+            Money sousTotal = Money.de(produit.getPrix()).fois(ligneDto.getQuantite());
+            DetailPrixDto detailPrix = detailsPrix.get(i);
             
             LigneCommandeDto ligneCommandeDto = new LigneCommandeDto();
             ligneCommandeDto.setProduitId(produit.getId());
@@ -299,12 +373,12 @@ public class CommandeServiceImpl implements CommandeService {
             ligneCommandeDto.setPrixUnitaire(produit.getPrix());
             ligneCommandeDto.setTaille(ligneDto.getTaille());
             ligneCommandeDto.setPersonnalisation(ligneDto.getPersonnalisation());
-            ligneCommandeDto.setSousTotal(sousTotal);
+            ligneCommandeDto.setSousTotal(sousTotal.versBigDecimal());
             ligneCommandeDto.setCommission(detailPrix.getMontantCommission());
             lignesDtos.add(ligneCommandeDto);
             
-            montantHT = montantHT.add(sousTotal);
-            montantCommissionTotal = montantCommissionTotal.add(detailPrix.getMontantCommission());
+            montantHT = montantHT.plus(sousTotal);
+            montantCommissionTotal = montantCommissionTotal.plus(Money.de(detailPrix.getMontantCommission()));
         }
         
         // Calculer les frais de livraison
@@ -313,7 +387,7 @@ public class CommandeServiceImpl implements CommandeService {
             // Calculer le poids total
             BigDecimal poidsTotal = BigDecimal.ZERO;
             for (CreateLigneCommandeDto ligneDto : createCommandeDto.getLignesCommande()) {
-                Produit produit = produitRepository.findById(ligneDto.getProduitId()).orElseThrow();
+                Produit produit = produits.get(ligneDto.getProduitId());
                 BigDecimal poidsProduit = produit.getPoids() != null ? produit.getPoids() : BigDecimal.valueOf(0.5);
                 poidsTotal = poidsTotal.add(poidsProduit.multiply(BigDecimal.valueOf(ligneDto.getQuantite())));
             }
@@ -334,15 +408,16 @@ public class CommandeServiceImpl implements CommandeService {
         
         // Calculer le montant total
         BigDecimal montantTotal = montantHT
-                .add(montantCommissionTotal)
-                .add(fraisLivraison)
-                .subtract(reduction);
+                .plus(montantCommissionTotal)
+                .plus(Money.de(fraisLivraison))
+                .moins(Money.de(reduction))
+                .versBigDecimal();
         
         // Créer le DTO de réponse
         CommandeDto commandeDto = new CommandeDto();
         commandeDto.setType(createCommandeDto.getType());
-        commandeDto.setMontantHT(montantHT);
-        commandeDto.setMontantCommission(montantCommissionTotal);
+        commandeDto.setMontantHT(montantHT.versBigDecimal());
+        commandeDto.setMontantCommission(montantCommissionTotal.versBigDecimal());
         commandeDto.setFraisLivraison(fraisLivraison);
         commandeDto.setReduction(reduction);
         commandeDto.setMontantTotal(montantTotal);
@@ -406,8 +481,110 @@ public class CommandeServiceImpl implements CommandeService {
         return commandeRepository.getMoyennePanier();
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenirStatistiquesPeriode(LocalDateTime debut, LocalDateTime fin) {
+        log.info("Calcul des statistiques des commandes du {} au {}", debut, fin);
+        Object[] sommes = commandeRepository.sommerMontantsParPeriode(debut, fin).get(0);
+        return construireStatistiquesMontants(sommes, "chiffreAffaires");
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenirStatistiquesClient(Long clientId) {
+        log.info("Calcul des statistiques des commandes du client {}", clientId);
+        Object[] sommes = commandeRepository.sommerMontantsParClient(clientId).get(0);
+        return construireStatistiquesMontants(sommes, "montantTotalDepense");
+    }
+    
     // ==================== MÉTHODES AUXILIAIRES ====================
     
+    /**
+     * Nombre de commandes, montant cumulé et panier moyen à partir d'une ligne [COUNT, SUM] agrégée en base
+     */
+    private Map<String, Object> construireStatistiquesMontants(Object[] sommes, String cleMontant) {
+        long nombreCommandes = ((Number) sommes[0]).longValue();
+        BigDecimal montant = (BigDecimal) sommes[1];
+        
+        Map<String, Object> statistiques = new HashMap<>();
+        statistiques.put("nombreCommandes", nombreCommandes);
+        statistiques.put(cleMontant, montant);
+        statistiques.put("panierMoyen", nombreCommandes > 0
+                ? montant.divide(BigDecimal.valueOf(nombreCommandes), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        return statistiques;
+    }
+    
+    /**
+     * Calcule le prix avec commission de chaque ligne (sous-total) en un seul appel groupé
+     */
+    private List<DetailPrixDto> calculerPrixLignes(List<CreateLigneCommandeDto> lignes, Map<Long, Produit> produits) {
+        return calculPrixService.calculerPrixFinaux(lignes.stream()
+                .map(ligne -> {
+                    Produit produit = produits.get(ligne.getProduitId());
+                    return new DemandePrixDto(
+                            Money.de(produit.getPrix()).fois(ligne.getQuantite()).versBigDecimal(),
+                            produit.getVendeur().getId());
+                })
+                .collect(Collectors.toList()));
+    }
+    
+    /**
+     * Charge en une seule requête tous les produits référencés par les lignes (avec vendeur et photos)
+     */
+    /**
+     * Quantités demandées par produit (un produit peut figurer sur plusieurs lignes), vérifiées sous verrou
+     * contre le stock et les réservations des autres clients
+     */
+    private void verifierDisponibilite(Long clientId, List<CreateLigneCommandeDto> lignes) {
+        Map<Long, Integer> demandes = new HashMap<>();
+        for (CreateLigneCommandeDto ligneDto : lignes) {
+            demandes.merge(ligneDto.getProduitId(), ligneDto.getQuantite(), Integer::sum);
+        }
+        reservationStockService.verifierDisponibilite(clientId, demandes);
+    }
+    
+    private Map<Long, Produit> chargerProduits(List<CreateLigneCommandeDto> lignes) {
+        Set<Long> produitIds = lignes.stream()
+                .map(CreateLigneCommandeDto::getProduitId)
+                .collect(Collectors.toSet());
+        
+        Map<Long, Produit> produits = produitRepository.findAllByIdInAvecVendeur(produitIds)
+                .stream()
+                .collect(Collectors.toMap(Produit::getId, Function.identity()));
+        
+        for (Long produitId : produitIds) {
+            if (!produits.containsKey(produitId)) {
+                throw new RuntimeException("Produit non trouvé avec ID: " + produitId);
+            }
+        }
+        
+        return produits;
+    }
+    
+    /**
+     * Une ligne de plus que la taille demandée est lue : sa présence indique qu'il existe une page suivante
+     */
+    private PageCurseurDto<CommandeDto> construirePageCurseur(List<Commande> commandes, int taille, Long total) {
+        PageCurseurDto<CommandeDto> page = new PageCurseurDto<>();
+        boolean pageSuivante = commandes.size() > taille;
+        List<Commande> elements = pageSuivante ? commandes.subList(0, taille) : commandes;
+        
+        page.setElements(elements.stream()
+                .map(this::convertirEntityVersDto)
+                .collect(Collectors.toList()));
+        page.setPageSuivante(pageSuivante);
+        if (pageSuivante) {
+            page.setCurseurSuivant(CurseurCommande.apres(elements.get(elements.size() - 1)).encoder());
+        }
+        page.setTotal(total);
+        return page;
+    }
+    
+    private int bornerTaillePage(int taille) {
+        return Math.max(1, Math.min(taille, TAILLE_MAX_PAGE));
+    }
+    
     /**
      * Vérifie si le stock est suffisant pour la quantité demandée
      */
@@ -422,7 +599,9 @@ public class CommandeServiceImpl implements CommandeService {
     }
     
     /**
-     * Décrémente le stock d'un produit
+     * Décrémente le stock d'un produit de façon atomique.
+     * La vérification et la décrémentation se font dans une seule instruction UPDATE conditionnelle :
+     * deux commandes concurrentes sur le même produit ne peuvent pas survendre.
      */
     private void decremeneterStock(Produit produit, Integer quantite) {
         // Si le produit est sur commande, ne pas décrémenter le stock
@@ -430,38 +609,22 @@ public class CommandeServiceImpl implements CommandeService {
             return;
         }
         
-        Integer stockActuel = produit.getStock() != null ? produit.getStock() : 0;
-        Integer nouveauStock = stockActuel - quantite;
-        
-        produit.setStock(nouveauStock);
-        
-        // Mettre à jour la disponibilité si le stock est à zéro
-        if (nouveauStock <= 0) {
-            produit.setDisponibilite(Produit.Disponibilite.RUPTURE_STOCK);
+        int lignesModifiees = produitRepository.decrementerStock(produit.getId(), quantite);
+        if (lignesModifiees == 0) {
+            // Le stock a été consommé entre la vérification et la décrémentation
+            throw new RuntimeException("Stock insuffisant pour le produit: " + produit.getNom() + 
+                                     " (demandé: " + quantite + ")");
         }
         
-        produitRepository.save(produit);
-        log.debug("Stock décrémenté pour le produit {}: {} -> {}", 
-                 produit.getNom(), stockActuel, nouveauStock);
+        log.debug("Stock décrémenté pour le produit {}: -{}", produit.getNom(), quantite);
     }
     
     /**
      * Restaure le stock d'un produit (en cas d'annulation de commande)
      */
     private void restaurerStock(Produit produit, Integer quantite) {
-        Integer stockActuel = produit.getStock() != null ? produit.getStock() : 0;
-        Integer nouveauStock = stockActuel + quantite;
-        
-        produit.setStock(nouveauStock);
-        
-        // Mettre à jour la disponibilité
-        if (nouveauStock > 0 && produit.getDisponibilite() == Produit.Disponibilite.RUPTURE_STOCK) {
-            produit.setDisponibilite(Produit.Disponibilite.EN_STOCK);
-        }
-        
-        produitRepository.save(produit);
-        log.debug("Stock restauré pour le produit {}: {} -> {}", 
-                 produit.getNom(), stockActuel, nouveauStock);
+        produitRepository.incrementerStock(produit.getId(), quantite);
+        log.debug("Stock restauré pour le produit ID {}: +{}", produit.getId(), quantite);
     }
     
     /**
@@ -470,11 +633,7 @@ public class CommandeServiceImpl implements CommandeService {
     private BigDecimal calculerFraisLivraisonPourCommande(Commande commande, CreateLivraisonDto livraisonDto) {
         // Calculer le poids total des produits
         BigDecimal poidsTotal = commande.getLignesCommande().stream()
-                .map(ligne -> {
-                    BigDecimal poidsProduit = ligne.getProduit().getPoids() != null ? 
-                        ligne.getProduit().getPoids() : BigDecimal.valueOf(0.5);
-                    return poidsProduit.multiply(BigDecimal.valueOf(ligne.getQuantite()));
-                })
+                .map(LigneCommande::calculerPoids)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         
         return livraisonService.calculerCoutLivraison(
@@ -512,43 +671,51 @@ public class CommandeServiceImpl implements CommandeService {
             return;
         }
         
-        Integer pointsActuels = client.getPointsFidelite() != null ? client.getPointsFidelite() : 0;
-        Integer nouveauxPoints = pointsActuels - pointsUtilises;
-        
-        client.setPointsFidelite(Math.max(0, nouveauxPoints));
-        clientRepository.save(client);
+        // Débit atomique et conditionnel : le solde lu avec le client peut être périmé (checkouts concurrents,
+        // crédit des commandes précédentes appliqué en parallèle)
+        if (clientRepository.retirerPointsFidelite(client.getId(), pointsUtilises) == 0) {
+            throw new RuntimeException("Points de fidélité insuffisants. Demandé: " + pointsUtilises);
+        }
         
-        log.info("Points de fidélité utilisés pour le client {}: {} points (reste: {})", 
-                client.getEmail(), pointsUtilises, nouveauxPoints);
+        log.info("Points de fidélité utilisés pour le client {}: {} points", client.getEmail(), pointsUtilises);
     }
     
     /**
-     * Attribue des points de fidélité à un client
+     * Attribue des points de fidélité au client d'une commande (traitement de l'outbox)
      * Règle: 1% du montant de la commande
      */
-    private void attribuerPointsFidelite(Client client, BigDecimal montantCommande) {
+    @Override
+    public void attribuerPointsFidelite(Long commandeId) {
+        Commande commande = commandeRepository.findById(commandeId)
+                .orElseThrow(() -> new RuntimeException("Commande non trouvée avec ID: " + commandeId));
+        
         // Calculer 1% du montant (arrondi à l'unité inférieure)
-        int pointsAAttribuer = montantCommande
+        int pointsAAttribuer = commande.getMontantTotal()
                 .multiply(BigDecimal.valueOf(0.01))
                 .setScale(0, RoundingMode.DOWN)
                 .intValue();
         
         if (pointsAAttribuer > 0) {
-            Integer pointsActuels = client.getPointsFidelite() != null ? client.getPointsFidelite() : 0;
-            Integer nouveauxPoints = pointsActuels + pointsAAttribuer;
+            clientRepository.ajouterPointsFidelite(commande.getClient().getId(), pointsAAttribuer);
             
-            client.setPointsFidelite(nouveauxPoints);
-            clientRepository.save(client);
-            
-            log.info("Points de fidélité attribués au client {}: +{} points (total: {})", 
-                    client.getEmail(), pointsAAttribuer, nouveauxPoints);
+            log.info("Points de fidélité attribués au client {} pour la commande {}: +{} points", 
+                    commande.getClient().getId(), commande.getNumeroCommande(), pointsAAttribuer);
         }
     }
     
     /**
-     * Crée un paiement initial pour une commande
+     * Crée le paiement initial d'une commande (traitement de l'outbox, sans effet s'il existe déjà)
      */
-    private void creerPaiementInitial(Commande commande) {
+    @Override
+    public void creerPaiementInitial(Long commandeId) {
+        if (paiementRepository.findByCommandeId(commandeId).isPresent()) {
+            log.debug("Paiement initial déjà créé pour la commande ID: {}", commandeId);
+            return;
+        }
+        
+        Commande commande = commandeRepository.findById(commandeId)
+                .orElseThrow(() -> new RuntimeException("Commande non trouvée avec ID: " + commandeId));
+        
         Paiement paiement = new Paiement();
         paiement.setCommande(commande);
         paiement.setMontant(commande.getMontantTotal());
@@ -577,17 +744,17 @@ public class CommandeServiceImpl implements CommandeService {
             restaurerStock(ligne.getProduit(), ligne.getQuantite());
         }
         
-        // Restaurer les points de fidélité utilisés
+        // Restaurer les points de fidélité utilisés (crédit atomique, comme l'attribution par l'outbox)
         if (commande.getPointsFideliteUtilises() != null && commande.getPointsFideliteUtilises() > 0) {
-            Client client = commande.getClient();
-            Integer pointsActuels = client.getPointsFidelite() != null ? client.getPointsFidelite() : 0;
-            client.setPointsFidelite(pointsActuels + commande.getPointsFideliteUtilises());
-            clientRepository.save(client);
+            clientRepository.ajouterPointsFidelite(commande.getClient().getId(), commande.getPointsFideliteUtilises());
         }
         
+        Commande.StatutCommande ancienStatut = commande.getStatut();
         commande.setStatut(Commande.StatutCommande.ANNULEE);
         commande.setNotes(motif);
         Commande commandeMiseAJour = commandeRepository.save(commande);
+        commandeVendeurService.mettreAJourStatut(commandeId, Commande.StatutCommande.ANNULEE);
+        agregatVentesService.changerStatut(commandeMiseAJour, ancienStatut, Commande.StatutCommande.ANNULEE);
         
         log.info("Commande {} annulée avec succès, stock restauré", commande.getNumeroCommande());
         
@@ -659,13 +826,12 @@ public class CommandeServiceImpl implements CommandeService {
         LigneCommandeDto dto = new LigneCommandeDto();
         dto.setId(ligne.getId());
         dto.setCommandeId(ligne.getCommande().getId());
+        // Identifiant lu sur le proxy, informations produit lues sur l'instantané de la ligne
         dto.setProduitId(ligne.getProduit().getId());
-        dto.setNomProduit(ligne.getProduit().getNom());
-        
-        // Récupérer la première photo si disponible
-        if (ligne.getProduit().getPhotos() != null && !ligne.getProduit().getPhotos().isEmpty()) {
-            dto.setPhotoProduit(ligne.getProduit().getPhotos().get(0));
-        }
+        dto.setNomProduit(ligne.getNomProduit());
+        dto.setPhotoProduit(ligne.getPhotoProduit());
+        dto.setVendeurId(ligne.getVendeurId());
+        dto.setNomBoutique(ligne.getNomBoutique());
         
         dto.setQuantite(ligne.getQuantite());
         dto.setPrixUnitaire(ligne.getPrixUnitaire());
@@ -731,7 +897,8 @@ public class CommandeServiceImpl implements CommandeService {
     public CommandeDto creerCommandeDepuisPanier(Long clientId, CreateCommandeDto createCommandeDto) {
         log.info("Création d'une commande depuis le panier - Client ID: {}", clientId);
         
-        // 1. Récupérer le panier du client
+        // 1. Récupérer le panier du client (modifications encore en mémoire écrites d'abord)
+        panierService.persisterPanier(clientId);
         Panier panier = panierRepository.findByClientIdAndActifTrue(clientId)
                 .orElseThrow(() -> new RuntimeException("Panier vide ou non trouvé"));
         
@@ -745,6 +912,7 @@ public class CommandeServiceImpl implements CommandeService {
         
         // 3. Créer la commande
         Commande commande = new Commande();
+        commande.setNumeroCommande(generateurNumeroService.genererNumeroCommande());
         commande.setClient(client);
         commande.setType(createCommandeDto.getType() != null ? createCommandeDto.getType() : Commande.TypeCommande.IMMEDIATE);
         commande.setDateLivraisonSouhaitee(createCommandeDto.getDateLivraisonSouhaitee());
@@ -752,12 +920,28 @@ public class CommandeServiceImpl implements CommandeService {
         commande.setStatut(Commande.StatutCommande.EN_ATTENTE);
         commande.setPointsFideliteUtilises(createCommandeDto.getPointsFideliteUtilises() != null ? createCommandeDto.getPointsFideliteUtilises() : 0);
         
-        // 4. Créer les lignes de commande à partir des items du panier
-        List<LigneCommande> lignesCommande = new ArrayList<>();
-        BigDecimal montantHT = BigDecimal.ZERO;
-        BigDecimal montantCommissionTotal = BigDecimal.ZERO;
+        // 4. Réserver (ou renouveler) le stock du panier : si un autre client détient les dernières unités,
+        // l'échec a lieu ici, avant tout calcul ; les produits sont verrouillés jusqu'au commit
+        reservationStockService.reserverArticles(clientId, panier.getItems());
         
-        for (PanierItem panierItem : panier.getItems()) {
+        // 5. Créer les lignes de commande à partir des items du panier
+        List<LigneCommande> lignesCommande = new ArrayList<>();
+        Money montantHT = Money.ZERO;
+        Money montantCommissionTotal = Money.ZERO;
+        
+        // Charger tous les produits du panier (avec vendeurs) en une requête : les proxys des items sont initialisés
+        produitRepository.findAllByIdInAvecVendeur(panier.getItems().stream()
+                .map(item -> item.getProduit().getId())
+                .collect(Collectors.toSet()));
+        
+        // Commissions de toutes les lignes en une passe
+        List<PanierItem> items = new ArrayList<>(panier.getItems());
+        List<DetailPrixDto> detailsPrix = calculPrixService.calculerPrixFinaux(items.stream()
+                .map(item -> new DemandePrixDto(item.getSousTotal(), item.getProduit().getVendeur().getId()))
+                .collect(Collectors.toList()));
+        
+        for (int i = 0; i < items.size(); i++) {
+            PanierItem panierItem = items.get(i);
             Produit produit = panierItem.getProduit();
             
             // Vérifier le stock
@@ -769,34 +953,34 @@ public class CommandeServiceImpl implements CommandeService {
             // Créer la ligne de commande
             LigneCommande ligne = new LigneCommande();
             ligne.setCommande(commande);
-            ligne.setProduit(produit);
+            ligne.capturerProduit(produit);
             ligne.setQuantite(panierItem.getQuantite());
             ligne.setPrixUnitaire(panierItem.getPrixUnitaire());
             ligne.setTaille(panierItem.getTaille());
             ligne.setPersonnalisation(panierItem.getOptionsPersonnalisation());
             
             // Calculer le sous-total
-            BigDecimal sousTotal = panierItem.getSousTotal();
-            ligne.setSousTotal(sousTotal);
+            Money sousTotal = Money.de(panierItem.getSousTotal());
+            ligne.setSousTotal(sousTotal.versBigDecimal());
             
-            // Calculer la commission pour cette ligne
-            DetailPrixDto detailPrix = calculPrixService.calculerPrixFinal(sousTotal, produit.getVendeur().getId());
+            // Commission de cette ligne (calculée pour toutes les lignes en une passe)
+            DetailPrixDto detailPrix = detailsPrix.get(i);
             ligne.setCommission(detailPrix.getMontantCommission());
             
             lignesCommande.add(ligne);
             
-            montantHT = montantHT.add(sousTotal);
-            montantCommissionTotal = montantCommissionTotal.add(detailPrix.getMontantCommission());
+            montantHT = montantHT.plus(sousTotal);
+            montantCommissionTotal = montantCommissionTotal.plus(Money.de(detailPrix.getMontantCommission()));
             
             // Décrémenter le stock
             decremeneterStock(produit, panierItem.getQuantite());
         }
         
         commande.setLignesCommande(lignesCommande);
-        commande.setMontantHT(montantHT);
-        commande.setMontantCommission(montantCommissionTotal);
+        commande.setMontantHT(montantHT.versBigDecimal());
+        commande.setMontantCommission(montantCommissionTotal.versBigDecimal());
         
-        // 5. Calculer les frais de livraison
+        // 6. Calculer les frais de livraison
         BigDecimal fraisLivraison = BigDecimal.ZERO;
         if (createCommandeDto.getLivraison() != null) {
             try {
@@ -812,24 +996,26 @@ public class CommandeServiceImpl implements CommandeService {
         }
         commande.setFraisLivraison(fraisLivraison);
         
-        // 6. Calculer le montant total
-        BigDecimal montantTotal = montantHT.add(fraisLivraison).subtract(
-                BigDecimal.valueOf(createCommandeDto.getPointsFideliteUtilises() != null ? createCommandeDto.getPointsFideliteUtilises() : 0)
-        );
+        // 7. Calculer le montant total
+        BigDecimal montantTotal = montantHT
+                .plus(Money.de(fraisLivraison))
+                .moins(Money.deFcfa(createCommandeDto.getPointsFideliteUtilises() != null ? createCommandeDto.getPointsFideliteUtilises() : 0))
+                .versBigDecimal();
         commande.setMontantTotal(montantTotal);
         
-        // 7. Sauvegarder la commande
+        // 8. Sauvegarder la commande (les lignes suivent par cascade, insérées en un seul batch au flush)
         Commande commandeSauvegardee = commandeRepository.save(commande);
+        commandeVendeurService.enregistrerCommande(commandeSauvegardee);
         
-        // 8. Sauvegarder les lignes de commande
-        for (LigneCommande ligne : lignesCommande) {
-            ligne.setCommande(commandeSauvegardee);
-            ligneCommandeRepository.save(ligne);
-        }
+        // 9. La réservation est consommée par la commande
+        reservationStockService.confirmerReservations(clientId, commandeSauvegardee.getId());
         
-        // 9. Vider le panier
+        // 10. Vider le panier
         panierService.viderPanier(clientId);
         
+        // 11. Agrégats de ventes en dernier : leurs lignes restent verrouillées le moins longtemps possible
+        agregatVentesService.enregistrerCommande(commandeSauvegardee);
+        
         log.info("Commande créée avec succès - Numéro: {}", commandeSauvegardee.getNumeroCommande());
         
         return convertirCommandeVersDto(commandeSauvegardee);
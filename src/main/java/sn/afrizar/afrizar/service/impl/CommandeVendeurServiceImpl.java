@@ -0,0 +1,114 @@
+package sn.afrizar.afrizar.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sn.afrizar.afrizar.dto.CommandeVendeurDto;
+import sn.afrizar.afrizar.model.Commande;
+import sn.afrizar.afrizar.model.CommandeVendeur;
+import sn.afrizar.afrizar.model.LigneCommande;
+import sn.afrizar.afrizar.repository.CommandeVendeurRepository;
+import sn.afrizar.afrizar.service.CommandeVendeurService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class CommandeVendeurServiceImpl implements CommandeVendeurService {
+    
+    private final CommandeVendeurRepository commandeVendeurRepository;
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrerCommande(Commande commande) {
+        Map<Long, CommandeVendeur> parVendeur = new LinkedHashMap<>();
+        for (LigneCommande ligne : commande.getLignesCommande()) {
+            CommandeVendeur projection = parVendeur.computeIfAbsent(ligne.getVendeurId(), vendeurId -> {
+                CommandeVendeur nouvelle = new CommandeVendeur();
+                nouvelle.setVendeurId(vendeurId);
+                nouvelle.setCommandeId(commande.getId());
+                nouvelle.setNumeroCommande(commande.getNumeroCommande());
+                nouvelle.setClientId(commande.getClient().getId());
+                nouvelle.setStatut(commande.getStatut());
+                nouvelle.setDateCommande(commande.getDateCreation());
+                return nouvelle;
+            });
+            projection.setSousTotal(projection.getSousTotal().add(valeur(ligne.getSousTotal())));
+            projection.setCommission(projection.getCommission().add(valeur(ligne.getCommission())));
+            projection.setNombreArticles(projection.getNombreArticles() + ligne.getQuantite());
+        }
+        
+        commandeVendeurRepository.saveAll(parVendeur.values());
+        log.debug("Commande {} projetée pour {} vendeur(s)", commande.getNumeroCommande(), parVendeur.size());
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void mettreAJourStatut(Long commandeId, Commande.StatutCommande statut) {
+        commandeVendeurRepository.mettreAJourStatut(commandeId, statut, LocalDateTime.now());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CommandeVendeurDto> obtenirCommandesVendeur(Long vendeurId, Commande.StatutCommande statut, Pageable pageable) {
+        Page<CommandeVendeur> page = statut != null
+                ? commandeVendeurRepository.findByVendeurIdAndStatutOrderByDateCommandeDescIdDesc(vendeurId, statut, pageable)
+                : commandeVendeurRepository.findByVendeurIdOrderByDateCommandeDescIdDesc(vendeurId, pageable);
+        return page.map(this::convertirEntityVersDto);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenirStatistiquesVendeur(Long vendeurId) {
+        long nombreCommandes = 0;
+        BigDecimal chiffreAffaires = BigDecimal.ZERO;
+        BigDecimal commissions = BigDecimal.ZERO;
+        Map<String, Long> commandesParStatut = new HashMap<>();
+        
+        for (Object[] ligne : commandeVendeurRepository.agregerParStatut(vendeurId)) {
+            Commande.StatutCommande statut = (Commande.StatutCommande) ligne[0];
+            long nombre = ((Number) ligne[1]).longValue();
+            nombreCommandes += nombre;
+            commandesParStatut.put(statut.name(), nombre);
+            if (Commande.STATUTS_CHIFFRE_AFFAIRES.contains(statut)) {
+                chiffreAffaires = chiffreAffaires.add(valeur((BigDecimal) ligne[2]));
+                commissions = commissions.add(valeur((BigDecimal) ligne[3]));
+            }
+        }
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nombreCommandes", nombreCommandes);
+        stats.put("commandesParStatut", commandesParStatut);
+        stats.put("chiffreAffaires", chiffreAffaires);
+        stats.put("commissions", commissions);
+        return stats;
+    }
+    
+    // ===== MÉTHODES PRIVÉES =====
+    
+    private CommandeVendeurDto convertirEntityVersDto(CommandeVendeur projection) {
+        return new CommandeVendeurDto(
+                projection.getCommandeId(),
+                projection.getNumeroCommande(),
+                projection.getClientId(),
+                projection.getSousTotal(),
+                projection.getCommission(),
+                projection.getNombreArticles(),
+                projection.getStatut(),
+                projection.getDateCommande());
+    }
+    
+    private static BigDecimal valeur(BigDecimal montant) {
+        return montant != null ? montant : BigDecimal.ZERO;
+    }
+}
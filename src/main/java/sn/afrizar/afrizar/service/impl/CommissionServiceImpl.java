@@ -2,7 +2,9 @@ package sn.afrizar.afrizar.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import sn.afrizar.afrizar.model.Commission;
 import sn.afrizar.afrizar.repository.CommissionRepository;
@@ -22,6 +24,10 @@ public class CommissionServiceImpl implements CommissionService {
     
     private final CommissionRepository commissionRepository;
     
+    // Grille en mémoire des tranches actives, remplacée en bloc après chaque modification
+    // et rechargée périodiquement (modifications faites sur une autre instance)
+    private final GrilleEnMemoire<GrilleCommissions> grille = new GrilleEnMemoire<>(this::chargerGrille);
+    
     @Override
     public Commission creerCommission(Commission commission) {
         log.info("Création d'une nouvelle tranche de commission: {} - {}%", 
@@ -36,6 +42,8 @@ public class CommissionServiceImpl implements CommissionService {
         commission.setActive(true);
         Commission commissionSauvegardee = commissionRepository.save(commission);
         
+        grille.rechargerApresCommit();
+        
         log.info("Tranche de commission créée avec succès avec ID: {}", commissionSauvegardee.getId());
         return commissionSauvegardee;
     }
@@ -67,6 +75,8 @@ public class CommissionServiceImpl implements CommissionService {
         
         Commission commissionMiseAJour = commissionRepository.save(commissionExistante);
         
+        grille.rechargerApresCommit();
+        
         log.info("Tranche de commission mise à jour avec succès");
         return commissionMiseAJour;
     }
@@ -80,6 +90,7 @@ public class CommissionServiceImpl implements CommissionService {
         }
         
         commissionRepository.deleteById(id);
+        grille.rechargerApresCommit();
         log.info("Tranche de commission supprimée avec succès");
     }
     
@@ -93,6 +104,8 @@ public class CommissionServiceImpl implements CommissionService {
         commission.setActive(true);
         Commission commissionActivee = commissionRepository.save(commission);
         
+        grille.rechargerApresCommit();
+        
         log.info("Tranche de commission activée avec succès");
         return commissionActivee;
     }
@@ -107,12 +120,14 @@ public class CommissionServiceImpl implements CommissionService {
         commission.setActive(false);
         Commission commissionDesactivee = commissionRepository.save(commission);
         
+        grille.rechargerApresCommit();
+        
         log.info("Tranche de commission désactivée avec succès");
         return commissionDesactivee;
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BigDecimal calculerCommission(BigDecimal montant) {
         log.debug("Calcul de la commission pour le montant: {}", montant);
         
@@ -129,9 +144,9 @@ public class CommissionServiceImpl implements CommissionService {
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Commission> trouverCommissionApplicable(BigDecimal montant) {
-        return commissionRepository.findCommissionApplicable(montant);
+        return grille.obtenir().trouver(montant);
     }
     
     @Override
@@ -200,6 +215,8 @@ public class CommissionServiceImpl implements CommissionService {
         tranche4.setActive(true);
         commissionRepository.save(tranche4);
         
+        grille.rechargerApresCommit();
+        
         log.info("Tranches de commission par défaut créées avec succès");
     }
     
@@ -266,4 +283,23 @@ public class CommissionServiceImpl implements CommissionService {
         
         return statistiques;
     }
+    
+    // ==================== GRILLE EN MÉMOIRE ====================
+    
+    /**
+     * Rechargement périodique : borne la durée pendant laquelle une modification faite sur une autre
+     * instance n'est pas appliquée ici
+     */
+    @Scheduled(initialDelayString = "${app.commissions.intervalle-rechargement-ms:60000}",
+               fixedDelayString = "${app.commissions.intervalle-rechargement-ms:60000}")
+    @Transactional(readOnly = true)
+    public void rechargerGrillePeriodiquement() {
+        grille.recharger();
+    }
+    
+    private GrilleCommissions chargerGrille() {
+        GrilleCommissions nouvelleGrille = GrilleCommissions.construire(commissionRepository.findByActiveTrueOrderByOrdre());
+        log.debug("Grille des commissions rechargée: {} tranche(s) active(s)", nouvelleGrille.nombreTranches());
+        return nouvelleGrille;
+    }
 }
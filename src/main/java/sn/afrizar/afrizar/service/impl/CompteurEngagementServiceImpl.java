@@ -0,0 +1,218 @@
+package sn.afrizar.afrizar.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.afrizar.afrizar.service.CompteurEngagementService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs d'engagement en write-behind.
+ *
+ * Chaque incrément est ajouté à un LongAdder par (compteur, id) sans toucher la base.
+ * Un flush périodique écrit les deltas agrégés en un seul lot JDBC
+ * (UPDATE ... SET n = n + ? WHERE id = ?) par compteur, dans une transaction courte.
+ * Le délai entre deux flushs est borné, et un flush anticipé a lieu dès que le nombre
+ * d'incréments en attente dépasse un seuil.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CompteurEngagementServiceImpl implements CompteurEngagementService {
+
+    private static final long INTERVALLE_MIN_MS = 1_000;
+    private static final long INTERVALLE_MAX_MS = 60_000;
+
+    private static final Map<Compteur, String> REQUETES = new EnumMap<>(Map.of(
+            Compteur.VUES_PRODUIT,
+            "UPDATE produits SET nombre_vues = COALESCE(nombre_vues, 0) + ? WHERE id = ?",
+            Compteur.LIKES_ACTUALITE,
+            "UPDATE actualites SET nombre_likes = COALESCE(nombre_likes, 0) + ? WHERE id = ?",
+            Compteur.COMMENTAIRES_ACTUALITE,
+            "UPDATE actualites SET nombre_commentaires = COALESCE(nombre_commentaires, 0) + ? WHERE id = ?",
+            Compteur.PARTAGES_ACTUALITE,
+            "UPDATE actualites SET nombre_partages = COALESCE(nombre_partages, 0) + ? WHERE id = ?"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.compteurs.intervalle-flush-ms:5000}")
+    private long intervalleFlushMs;
+
+    @Value("${app.compteurs.seuil-flush:10000}")
+    private long seuilFlush;
+
+    // Un LongAdder par ID, dans une table remplacée à chaque flush : seuls les IDs incrémentés
+    // depuis l'avant-dernier flush restent en mémoire.
+    private final Map<Compteur, Tables> enAttente = creerCompteurs();
+
+    private final LongAdder totalEnAttente = new LongAdder();
+    private final AtomicLong nombreFlushs = new AtomicLong();
+    private final AtomicLong nombreEchecs = new AtomicLong();
+    private final AtomicLong incrementsEcrits = new AtomicLong();
+    private volatile long dernierFlushMs = System.currentTimeMillis();
+    private volatile LocalDateTime dateDernierFlush;
+
+    @PostConstruct
+    void verifierConfiguration() {
+        long intervalleBorne = Math.max(INTERVALLE_MIN_MS, Math.min(INTERVALLE_MAX_MS, intervalleFlushMs));
+        if (intervalleBorne != intervalleFlushMs) {
+            log.warn("Intervalle de flush des compteurs {} ms hors bornes, ramené à {} ms", intervalleFlushMs, intervalleBorne);
+            intervalleFlushMs = intervalleBorne;
+        }
+        log.info("Compteurs d'engagement : flush toutes les {} ms ou dès {} incréments en attente", intervalleFlushMs, seuilFlush);
+    }
+
+    @Override
+    public void incrementer(Compteur compteur, Long id) {
+        if (id == null) {
+            return;
+        }
+        enAttente.get(compteur).courante.get().computeIfAbsent(id, cle -> new LongAdder()).increment();
+        totalEnAttente.increment();
+    }
+
+    @Override
+    public long obtenirEnAttente(Compteur compteur, Long id) {
+        if (id == null) {
+            return 0;
+        }
+        Tables tables = enAttente.get(compteur);
+        return somme(tables.courante.get().get(id)) + somme(tables.retiree.get(id));
+    }
+
+    /**
+     * Vérifié chaque seconde : flush si l'intervalle est écoulé ou si le seuil est atteint
+     */
+    @Scheduled(fixedDelay = INTERVALLE_MIN_MS)
+    public void verifierFlush() {
+        long enAttenteTotal = totalEnAttente.sum();
+        if (enAttenteTotal == 0) {
+            dernierFlushMs = System.currentTimeMillis();
+            return;
+        }
+        if (enAttenteTotal >= seuilFlush || System.currentTimeMillis() - dernierFlushMs >= intervalleFlushMs) {
+            vider();
+        }
+    }
+
+    @Override
+    public synchronized int vider() {
+        int lignesMisesAJour = 0;
+        for (Compteur compteur : Compteur.values()) {
+            lignesMisesAJour += viderCompteur(compteur);
+        }
+        dernierFlushMs = System.currentTimeMillis();
+        dateDernierFlush = LocalDateTime.now();
+        nombreFlushs.incrementAndGet();
+        return lignesMisesAJour;
+    }
+
+    @PreDestroy
+    public void viderAvantArret() {
+        log.info("Arrêt : écriture des compteurs d'engagement en attente ({} incréments)", totalEnAttente.sum());
+        vider();
+    }
+
+    @Override
+    public Map<String, Object> obtenirStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<String, Long> parCompteur = new HashMap<>();
+        enAttente.forEach((compteur, tables) -> parCompteur.put(compteur.name(),
+                somme(tables.courante.get()) + somme(tables.retiree)));
+
+        stats.put("enAttente", parCompteur);
+        stats.put("totalEnAttente", totalEnAttente.sum());
+        stats.put("intervalleFlushMs", intervalleFlushMs);
+        stats.put("seuilFlush", seuilFlush);
+        stats.put("nombreFlushs", nombreFlushs.get());
+        stats.put("nombreEchecs", nombreEchecs.get());
+        stats.put("incrementsEcrits", incrementsEcrits.get());
+        stats.put("dateDernierFlush", dateDernierFlush);
+        return stats;
+    }
+
+    // ===== MÉTHODES PRIVÉES =====
+
+    private int viderCompteur(Compteur compteur) {
+        // Les nouveaux incréments vont dans une table vide. Un incrément qui a lu l'ancienne table avant
+        // le remplacement peut s'y appliquer après sa lecture : elle est relue au flush suivant, puis abandonnée.
+        Tables tables = enAttente.get(compteur);
+        ConcurrentHashMap<Long, LongAdder> retiree = tables.retiree;
+        ConcurrentHashMap<Long, LongAdder> videe = tables.courante.getAndSet(new ConcurrentHashMap<>());
+        tables.retiree = videe;
+
+        Map<Long, Long> deltas = new HashMap<>();
+        drainer(retiree, deltas);
+        drainer(videe, deltas);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> lots = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> lots.add(new Object[]{delta, id}));
+
+        long totalDeltas = deltas.values().stream().mapToLong(Long::longValue).sum();
+        try {
+            transactionTemplate.executeWithoutResult(statut -> jdbcTemplate.batchUpdate(REQUETES.get(compteur), lots));
+            totalEnAttente.add(-totalDeltas);
+            incrementsEcrits.addAndGet(totalDeltas);
+            log.debug("Flush {} : {} lignes, {} incréments", compteur, lots.size(), totalDeltas);
+            return lots.size();
+        } catch (RuntimeException e) {
+            // Les deltas sont remis en attente pour le prochain flush, cumulés aux incréments arrivés entre-temps
+            deltas.forEach((id, delta) -> tables.courante.get().computeIfAbsent(id, cle -> new LongAdder()).add(delta));
+            nombreEchecs.incrementAndGet();
+            log.error("Erreur lors du flush des compteurs {} ({} incréments remis en attente)", compteur, totalDeltas, e);
+            return 0;
+        }
+    }
+
+    private static void drainer(ConcurrentHashMap<Long, LongAdder> table, Map<Long, Long> deltas) {
+        table.forEach((id, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                deltas.merge(id, delta, Long::sum);
+            }
+        });
+    }
+
+    private static long somme(LongAdder adder) {
+        return adder != null ? adder.sum() : 0;
+    }
+
+    private static long somme(ConcurrentHashMap<Long, LongAdder> table) {
+        return table.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private static Map<Compteur, Tables> creerCompteurs() {
+        Map<Compteur, Tables> compteurs = new EnumMap<>(Compteur.class);
+        for (Compteur compteur : Compteur.values()) {
+            compteurs.put(compteur, new Tables());
+        }
+        return compteurs;
+    }
+
+    /**
+     * Table des incréments en cours et table remplacée au dernier flush (remplacée sous le verrou de vider)
+     */
+    private static final class Tables {
+        final AtomicReference<ConcurrentHashMap<Long, LongAdder>> courante = new AtomicReference<>(new ConcurrentHashMap<>());
+        volatile ConcurrentHashMap<Long, LongAdder> retiree = new ConcurrentHashMap<>();
+    }
+}
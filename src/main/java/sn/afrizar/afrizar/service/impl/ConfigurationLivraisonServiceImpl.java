@@ -2,17 +2,19 @@ package sn.afrizar.afrizar.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import sn.afrizar.afrizar.dto.ConfigurationLivraisonDto;
 import sn.afrizar.afrizar.model.ConfigurationLivraison;
 import sn.afrizar.afrizar.model.Livraison;
+import sn.afrizar.afrizar.model.Money;
 import sn.afrizar.afrizar.repository.ConfigurationLivraisonRepository;
 import sn.afrizar.afrizar.service.ConfigurationLivraisonService;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,6 +25,10 @@ public class ConfigurationLivraisonServiceImpl implements ConfigurationLivraison
     
     private final ConfigurationLivraisonRepository configurationLivraisonRepository;
     
+    // Matrice en mémoire des tarifs actifs, remplacée en bloc après chaque modification
+    // et rechargée périodiquement (modifications faites sur une autre instance)
+    private final GrilleEnMemoire<GrilleTarifsLivraison> grille = new GrilleEnMemoire<>(this::chargerGrille);
+    
     @Override
     public ConfigurationLivraisonDto creerConfiguration(ConfigurationLivraisonDto dto, String emailAdmin) {
         log.info("Création d'une nouvelle configuration de livraison: {} - {} par {}", 
@@ -53,6 +59,8 @@ public class ConfigurationLivraisonServiceImpl implements ConfigurationLivraison
         
         ConfigurationLivraison configurationSauvegardee = configurationLivraisonRepository.save(configuration);
         
+        grille.rechargerApresCommit();
+        
         log.info("Configuration de livraison créée avec succès: ID {}", configurationSauvegardee.getId());
         
         return convertirEntityVersDto(configurationSauvegardee);
@@ -83,6 +91,8 @@ public class ConfigurationLivraisonServiceImpl implements ConfigurationLivraison
         
         ConfigurationLivraison configurationMiseAJour = configurationLivraisonRepository.save(configuration);
         
+        grille.rechargerApresCommit();
+        
         log.info("Configuration de livraison mise à jour avec succès: ID {}", id);
         
         return convertirEntityVersDto(configurationMiseAJour);
@@ -144,6 +154,8 @@ public class ConfigurationLivraisonServiceImpl implements ConfigurationLivraison
         
         ConfigurationLivraison configurationMiseAJour = configurationLivraisonRepository.save(configuration);
         
+        grille.rechargerApresCommit();
+        
         log.info("Statut de la configuration ID {} changé à: {}", id, configurationMiseAJour.getActif());
         
         return convertirEntityVersDto(configurationMiseAJour);
@@ -158,71 +170,49 @@ public class ConfigurationLivraisonServiceImpl implements ConfigurationLivraison
         }
         
         configurationLivraisonRepository.deleteById(id);
+        grille.rechargerApresCommit();
         
         log.info("Configuration de livraison supprimée avec succès: ID {}", id);
     }
     
+    /**
+     * Lu dans la matrice en mémoire : ni requête ni transaction par devis
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BigDecimal obtenirTarifLivraison(String pays, Livraison.TypeLivraison type, BigDecimal poids) {
         log.debug("Calcul du tarif de livraison: pays={}, type={}, poids={} kg", pays, type, poids);
         
-        // Chercher une configuration spécifique pour ce pays et ce type
-        Optional<ConfigurationLivraison> configuration = configurationLivraisonRepository
-                .findByPaysAndTypeAndActifTrue(pays, type);
-        
-        // Si pas de configuration spécifique, chercher une configuration générale
-        if (configuration.isEmpty()) {
-            configuration = configurationLivraisonRepository
-                    .findByPaysAndTypeAndActifTrue("GENERAL", type);
-        }
+        // Configuration du pays, sinon configuration générale
+        GrilleTarifsLivraison.Tarif tarif = grille.obtenir().trouver(pays, type);
         
-        if (configuration.isEmpty()) {
+        if (tarif == null) {
             log.warn("Aucune configuration trouvée pour {} {}, utilisation des tarifs par défaut", pays, type);
-            return calculerTarifParDefaut(pays, type, poids);
+            return calculerTarifParDefaut(pays, type, poids).versBigDecimal();
         }
         
-        ConfigurationLivraison config = configuration.get();
-        BigDecimal tarifBase = config.getTarifBase();
-        BigDecimal tarifParKg = config.getTarifParKg();
-        
-        // Calcul: tarif de base + (poids × tarif par kg)
-        BigDecimal coutBase = tarifBase.add(poids.multiply(tarifParKg));
-        
-        // Appliquer les ajustements
-        BigDecimal coutFinal = appliquerAjustements(config, coutBase, poids);
+        // Tarif de base + (poids × tarif par kg), ajustements et minimum de facturation
+        Money coutFinal = tarif.calculer(Money.milliemes(poids));
         
-        // Appliquer le minimum de facturation
-        if (config.getMinimumFacturation() != null && coutFinal.compareTo(config.getMinimumFacturation()) < 0) {
-            coutFinal = config.getMinimumFacturation();
-        }
-        
-        log.debug("Tarif de livraison calculé: {} FCFA (base: {} FCFA)", coutFinal, coutBase);
+        log.debug("Tarif de livraison calculé: {}", coutFinal);
         
-        return coutFinal;
+        return coutFinal.versBigDecimal();
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Integer obtenirDelaiLivraison(String pays, Livraison.TypeLivraison type) {
         log.debug("Calcul du délai de livraison: pays={}, type={}", pays, type);
         
-        // Chercher une configuration spécifique pour ce pays et ce type
-        Optional<ConfigurationLivraison> configuration = configurationLivraisonRepository
-                .findByPaysAndTypeAndActifTrue(pays, type);
+        // Configuration du pays, sinon configuration générale
+        GrilleTarifsLivraison.Tarif tarif = grille.obtenir().trouver(pays, type);
         
-        // Si pas de configuration spécifique, chercher une configuration générale
-        if (configuration.isEmpty()) {
-            configuration = configurationLivraisonRepository
-                    .findByPaysAndTypeAndActifTrue("GENERAL", type);
-        }
-        
-        if (configuration.isEmpty()) {
+        if (tarif == null) {
             log.warn("Aucune configuration trouvée pour {} {}, utilisation du délai par défaut", pays, type);
             return obtenirDelaiParDefaut(pays, type);
         }
         
-        return configuration.get().getDelaiJours();
+        return tarif.delaiJours();
     }
     
     @Override
@@ -251,6 +241,8 @@ public class ConfigurationLivraisonServiceImpl implements ConfigurationLivraison
         creerConfigurationParDefaut("GENERAL", Livraison.TypeLivraison.ECONOMIQUE, 
                 BigDecimal.valueOf(3000), BigDecimal.valueOf(1500), 21);
         
+        grille.rechargerApresCommit();
+        
         log.info("Configurations de livraison par défaut créées avec succès");
     }
     
@@ -275,40 +267,27 @@ public class ConfigurationLivraisonServiceImpl implements ConfigurationLivraison
         configurationLivraisonRepository.save(configuration);
     }
     
-    private BigDecimal appliquerAjustements(ConfigurationLivraison config, BigDecimal coutBase, BigDecimal poids) {
-        BigDecimal coutAjuste = coutBase;
-        
-        // Réduction pour gros colis (> 5 kg)
-        if (config.getReductionGrosColis() != null && poids.compareTo(BigDecimal.valueOf(5)) > 0) {
-            BigDecimal reduction = coutBase.multiply(config.getReductionGrosColis()).divide(BigDecimal.valueOf(100));
-            coutAjuste = coutAjuste.subtract(reduction);
-            log.debug("Réduction gros colis appliquée: {} FCFA", reduction);
-        }
-        
-        return coutAjuste;
-    }
-    
-    private BigDecimal calculerTarifParDefaut(String pays, Livraison.TypeLivraison type, BigDecimal poids) {
-        // Tarifs par défaut si aucune configuration n'est trouvée
-        BigDecimal tarifBase, tarifParKg;
+    private Money calculerTarifParDefaut(String pays, Livraison.TypeLivraison type, BigDecimal poids) {
+        // Tarifs par défaut si aucune configuration n'est trouvée (en FCFA)
+        long tarifBase, tarifParKg;
         
         if ("SENEGAL".equalsIgnoreCase(pays)) {
             switch (type) {
-                case EXPRESS -> { tarifBase = BigDecimal.valueOf(2000); tarifParKg = BigDecimal.valueOf(1000); }
-                case STANDARD -> { tarifBase = BigDecimal.valueOf(1000); tarifParKg = BigDecimal.valueOf(500); }
-                case ECONOMIQUE -> { tarifBase = BigDecimal.valueOf(500); tarifParKg = BigDecimal.valueOf(300); }
-                default -> { tarifBase = BigDecimal.valueOf(1000); tarifParKg = BigDecimal.valueOf(500); }
+                case EXPRESS -> { tarifBase = 2000; tarifParKg = 1000; }
+                case STANDARD -> { tarifBase = 1000; tarifParKg = 500; }
+                case ECONOMIQUE -> { tarifBase = 500; tarifParKg = 300; }
+                default -> { tarifBase = 1000; tarifParKg = 500; }
             }
         } else {
             switch (type) {
-                case EXPRESS -> { tarifBase = BigDecimal.valueOf(10000); tarifParKg = BigDecimal.valueOf(3000); }
-                case STANDARD -> { tarifBase = BigDecimal.valueOf(5000); tarifParKg = BigDecimal.valueOf(2000); }
-                case ECONOMIQUE -> { tarifBase = BigDecimal.valueOf(3000); tarifParKg = BigDecimal.valueOf(1500); }
-                default -> { tarifBase = BigDecimal.valueOf(5000); tarifParKg = BigDecimal.valueOf(2000); }
+                case EXPRESS -> { tarifBase = 10000; tarifParKg = 3000; }
+                case STANDARD -> { tarifBase = 5000; tarifParKg = 2000; }
+                case ECONOMIQUE -> { tarifBase = 3000; tarifParKg = 1500; }
+                default -> { tarifBase = 5000; tarifParKg = 2000; }
             }
         }
         
-        return tarifBase.add(poids.multiply(tarifParKg));
+        return Money.deFcfa(tarifBase).plus(Money.deFcfa(tarifParKg).foisMilliemes(Money.milliemes(poids)));
     }
     
     private Integer obtenirDelaiParDefaut(String pays, Livraison.TypeLivraison type) {
@@ -329,6 +308,23 @@ public class ConfigurationLivraisonServiceImpl implements ConfigurationLivraison
         }
     }
     
+    /**
+     * Rechargement périodique : borne la durée pendant laquelle une modification faite sur une autre
+     * instance n'est pas appliquée ici
+     */
+    @Scheduled(initialDelayString = "${app.livraison.intervalle-rechargement-ms:60000}",
+               fixedDelayString = "${app.livraison.intervalle-rechargement-ms:60000}")
+    @Transactional(readOnly = true)
+    public void rechargerGrillePeriodiquement() {
+        grille.recharger();
+    }
+    
+    private GrilleTarifsLivraison chargerGrille() {
+        GrilleTarifsLivraison nouvelleGrille = GrilleTarifsLivraison.construire(configurationLivraisonRepository.findByActifTrue());
+        log.debug("Matrice des tarifs de livraison rechargée: {} configuration(s) active(s)", nouvelleGrille.nombreConfigurations());
+        return nouvelleGrille;
+    }
+    
     private ConfigurationLivraisonDto convertirEntityVersDto(ConfigurationLivraison configuration) {
         return ConfigurationLivraisonDto.builder()
                 .id(configuration.getId())
@@ -0,0 +1,36 @@
+package sn.afrizar.afrizar.service.impl;
+
+import sn.afrizar.afrizar.model.Commande;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position dans une liste de commandes triée par (dateCreation, id) décroissants,
+ * échangée avec le client sous forme de jeton opaque (base64 URL)
+ */
+record CurseurCommande(LocalDateTime dateCreation, Long id) {
+
+    private static final String SEPARATEUR = "|";
+
+    static CurseurCommande apres(Commande commande) {
+        return new CurseurCommande(commande.getDateCreation(), commande.getId());
+    }
+
+    String encoder() {
+        String valeur = dateCreation + SEPARATEUR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valeur.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CurseurCommande decoder(String jeton) {
+        try {
+            String valeur = new String(Base64.getUrlDecoder().decode(jeton), StandardCharsets.UTF_8);
+            int separateur = valeur.lastIndexOf(SEPARATEUR);
+            return new CurseurCommande(LocalDateTime.parse(valeur.substring(0, separateur)),
+                    Long.parseLong(valeur.substring(separateur + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide: " + jeton, e);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package sn.afrizar.afrizar.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.afrizar.afrizar.dto.CreateLivraisonDto;
+import sn.afrizar.afrizar.model.EvenementOutbox;
+import sn.afrizar.afrizar.repository.EvenementOutboxRepository;
+import sn.afrizar.afrizar.service.CommandeService;
+import sn.afrizar.afrizar.service.LivraisonService;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatcheur de l'outbox : réserve périodiquement un lot d'événements prêts (FOR UPDATE SKIP LOCKED)
+ * et les exécute sur un pool de threads borné.
+ *
+ * Chaque événement est traité dans sa propre transaction, qui le marque aussi TRAITE : l'effet
+ * et l'acquittement sont validés ensemble. En cas d'échec, l'événement est remis en attente avec
+ * un délai exponentiel (plafonné, avec gigue) jusqu'au nombre maximal de tentatives, puis passe en ECHEC.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DispatcheurOutbox {
+
+    private static final int LONGUEUR_MAX_ERREUR = 1000;
+
+    private final EvenementOutboxRepository evenementOutboxRepository;
+    private final CommandeService commandeService;
+    private final LivraisonService livraisonService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.outbox.threads:4}")
+    private int nombreThreads;
+
+    @Value("${app.outbox.taille-file:200}")
+    private int tailleFile;
+
+    @Value("${app.outbox.taille-lot:50}")
+    private int tailleLot;
+
+    @Value("${app.outbox.tentatives-max:8}")
+    private int tentativesMax;
+
+    @Value("${app.outbox.delai-initial-ms:2000}")
+    private long delaiInitialMs;
+
+    @Value("${app.outbox.delai-max-ms:600000}")
+    private long delaiMaxMs;
+
+    @Value("${app.outbox.expiration-reservation-minutes:5}")
+    private long expirationReservationMinutes;
+
+    private ThreadPoolExecutor executeur;
+
+    private final AtomicLong evenementsTraites = new AtomicLong();
+    private final AtomicLong evenementsEnEchec = new AtomicLong();
+    private final AtomicLong tentativesEchouees = new AtomicLong();
+
+    @PostConstruct
+    void demarrer() {
+        AtomicInteger numeroThread = new AtomicInteger();
+        executeur = new ThreadPoolExecutor(nombreThreads, nombreThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(tailleFile),
+                tache -> {
+                    Thread thread = new Thread(tache, "outbox-" + numeroThread.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("Dispatcheur outbox démarré : {} threads, file de {} événements", nombreThreads, tailleFile);
+    }
+
+    @PreDestroy
+    void arreter() throws InterruptedException {
+        executeur.shutdown();
+        if (!executeur.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Les événements non terminés restent EN_COURS et seront repris après expiration de la réservation
+            log.warn("Arrêt du dispatcheur outbox : {} événements non terminés", executeur.getActiveCount());
+            executeur.shutdownNow();
+        }
+    }
+
+    /**
+     * Réserve autant d'événements que la file du pool peut en accepter et les soumet aux threads
+     */
+    @Scheduled(initialDelayString = "${app.outbox.delai-demarrage-ms:10000}", fixedDelayString = "${app.outbox.intervalle-ms:500}")
+    public void distribuer() {
+        int capacite = Math.min(tailleLot, executeur.getQueue().remainingCapacity());
+        if (capacite == 0) {
+            return;
+        }
+
+        List<Long> evenements = transactionTemplate.execute(statut -> reserverLot(capacite));
+        if (evenements == null || evenements.isEmpty()) {
+            return;
+        }
+
+        log.debug("Outbox : {} événements réservés", evenements.size());
+        for (Long evenementId : evenements) {
+            executeur.execute(() -> traiter(evenementId));
+        }
+    }
+
+    /**
+     * Passe un lot d'événements prêts à EN_COURS (doit être appelé dans une transaction)
+     */
+    List<Long> reserverLot(int taille) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        int liberes = evenementOutboxRepository.libererReservationsExpirees(maintenant.minusMinutes(expirationReservationMinutes));
+        if (liberes > 0) {
+            log.warn("Outbox : {} réservations expirées remises en attente", liberes);
+        }
+
+        List<EvenementOutbox> evenements = evenementOutboxRepository.findEvenementsPrets(maintenant, PageRequest.of(0, taille));
+        for (EvenementOutbox evenement : evenements) {
+            evenement.setStatut(EvenementOutbox.StatutEvenement.EN_COURS);
+            evenement.setDateReservation(maintenant);
+        }
+        return evenements.stream().map(EvenementOutbox::getId).toList();
+    }
+
+    /**
+     * Exécute un événement réservé ; en cas d'échec, programme la tentative suivante
+     */
+    void traiter(Long evenementId) {
+        try {
+            transactionTemplate.executeWithoutResult(statut -> {
+                EvenementOutbox evenement = evenementOutboxRepository.findById(evenementId)
+                        .orElseThrow(() -> new RuntimeException("Événement outbox non trouvé avec ID: " + evenementId));
+                if (evenement.getStatut() != EvenementOutbox.StatutEvenement.EN_COURS) {
+                    return;
+                }
+
+                executer(evenement);
+
+                evenement.setStatut(EvenementOutbox.StatutEvenement.TRAITE);
+                evenement.setTentatives(evenement.getTentatives() + 1);
+                evenement.setDateTraitement(LocalDateTime.now());
+                evenement.setDerniereErreur(null);
+            });
+            evenementsTraites.incrementAndGet();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Réservation expirée et reprise par une autre instance : c'est elle qui valide l'événement
+            log.warn("Outbox : événement {} repris par une autre instance, traitement annulé", evenementId);
+        } catch (RuntimeException e) {
+            tentativesEchouees.incrementAndGet();
+            transactionTemplate.executeWithoutResult(statut -> enregistrerEchec(evenementId, e));
+        }
+    }
+
+    public Map<String, Object> obtenirStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("threadsActifs", executeur.getActiveCount());
+        stats.put("evenementsEnFile", executeur.getQueue().size());
+        stats.put("evenementsTraites", evenementsTraites.get());
+        stats.put("tentativesEchouees", tentativesEchouees.get());
+        stats.put("evenementsEnEchec", evenementsEnEchec.get());
+        return stats;
+    }
+
+    // ===== MÉTHODES PRIVÉES =====
+
+    private void executer(EvenementOutbox evenement) {
+        Long commandeId = evenement.getAgregatId();
+        switch (evenement.getType()) {
+            case CREATION_PAIEMENT -> commandeService.creerPaiementInitial(commandeId);
+            case ATTRIBUTION_POINTS_FIDELITE -> commandeService.attribuerPointsFidelite(commandeId);
+            case CREATION_LIVRAISON -> {
+                if (livraisonService.obtenirLivraisonParCommande(commandeId).isEmpty()) {
+                    livraisonService.creerLivraison(lirePayload(evenement, CreateLivraisonDto.class), commandeId);
+                }
+            }
+        }
+    }
+
+    private <T> T lirePayload(EvenementOutbox evenement, Class<T> type) {
+        try {
+            return objectMapper.readValue(evenement.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Payload invalide pour l'événement " + evenement.getId() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void enregistrerEchec(Long evenementId, RuntimeException erreur) {
+        EvenementOutbox evenement = evenementOutboxRepository.findById(evenementId).orElse(null);
+        if (evenement == null) {
+            return;
+        }
+
+        int tentatives = evenement.getTentatives() + 1;
+        evenement.setTentatives(tentatives);
+        evenement.setDateReservation(null);
+        evenement.setDerniereErreur(tronquer(String.valueOf(erreur.getMessage())));
+
+        if (tentatives >= tentativesMax) {
+            evenement.setStatut(EvenementOutbox.StatutEvenement.ECHEC);
+            evenementsEnEchec.incrementAndGet();
+            log.error("Outbox : événement {} ({}, agrégat {}) en échec après {} tentatives",
+                    evenementId, evenement.getType(), evenement.getAgregatId(), tentatives, erreur);
+        } else {
+            long delai = calculerDelai(tentatives);
+            evenement.setStatut(EvenementOutbox.StatutEvenement.EN_ATTENTE);
+            evenement.setProchaineTentative(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delai)));
+            log.warn("Outbox : échec de l'événement {} ({}, tentative {}), nouvel essai dans {} ms: {}",
+                    evenementId, evenement.getType(), tentatives, delai, erreur.getMessage());
+        }
+    }
+
+    /**
+     * Délai exponentiel plafonné, avec gigue de ±20 % pour étaler les reprises
+     */
+    private long calculerDelai(int tentatives) {
+        long delai = delaiInitialMs << Math.min(tentatives - 1, 20);
+        delai = Math.min(delai, delaiMaxMs);
+        double gigue = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (delai * gigue);
+    }
+
+    private String tronquer(String message) {
+        return message.length() <= LONGUEUR_MAX_ERREUR ? message : message.substring(0, LONGUEUR_MAX_ERREUR);
+    }
+}
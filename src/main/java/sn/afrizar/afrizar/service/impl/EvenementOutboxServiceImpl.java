@@ -0,0 +1,58 @@
+package sn.afrizar.afrizar.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sn.afrizar.afrizar.model.EvenementOutbox;
+import sn.afrizar.afrizar.repository.EvenementOutboxRepository;
+import sn.afrizar.afrizar.service.EvenementOutboxService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class EvenementOutboxServiceImpl implements EvenementOutboxService {
+    
+    private final EvenementOutboxRepository evenementOutboxRepository;
+    private final ObjectMapper objectMapper;
+    
+    // Résolu à l'appel : le dispatcheur dépend lui-même des services qui publient des événements
+    private final ObjectProvider<DispatcheurOutbox> dispatcheurOutbox;
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publier(EvenementOutbox.TypeEvenement type, Long agregatId, Object donnees) {
+        EvenementOutbox evenement = new EvenementOutbox();
+        evenement.setType(type);
+        evenement.setAgregatId(agregatId);
+        if (donnees != null) {
+            try {
+                evenement.setPayload(objectMapper.writeValueAsString(donnees));
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Impossible de sérialiser l'événement " + type + ": " + e.getMessage(), e);
+            }
+        }
+        
+        evenementOutboxRepository.save(evenement);
+        log.debug("Événement {} publié pour l'agrégat {}", type, agregatId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenirStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        for (EvenementOutbox.StatutEvenement statut : EvenementOutbox.StatutEvenement.values()) {
+            stats.put(statut.name(), evenementOutboxRepository.countByStatut(statut));
+        }
+        dispatcheurOutbox.ifAvailable(dispatcheur -> stats.putAll(dispatcheur.obtenirStatistiques()));
+        return stats;
+    }
+}
@@ -0,0 +1,119 @@
+package sn.afrizar.afrizar.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+import sn.afrizar.afrizar.service.GenerateurNumeroService;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Générateur d'identifiants de type Snowflake, sans verrou.
+ *
+ * Disposition des 63 bits : 41 bits de millisecondes depuis le 01/01/2024, 10 bits de nœud, 12 bits de séquence.
+ * L'état (milliseconde logique + séquence) tient dans un seul AtomicLong mis à jour par CAS.
+ * Quand la séquence d'une milliseconde est épuisée, ou si l'horloge recule, la milliseconde logique
+ * avance d'une unité au lieu d'attendre : les identifiants restent strictement croissants sur le nœud.
+ *
+ * Les numéros sont encodés en base 32 de Crockford (sans I, L, O, U) sur une largeur fixe,
+ * ce qui les rend courts, lisibles et triables dans l'ordre de création.
+ */
+@Slf4j
+@Service
+public class GenerateurNumeroServiceImpl implements GenerateurNumeroService {
+
+    static final long EPOQUE_MS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int BITS_NOEUD = 10;
+    static final int BITS_SEQUENCE = 12;
+    static final long NOEUD_MAX = (1L << BITS_NOEUD) - 1;
+    static final long MASQUE_SEQUENCE = (1L << BITS_SEQUENCE) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LONGUEUR_CODE = 13;
+
+    private static final String PREFIXE_COMMANDE = "CMD-";
+    private static final String PREFIXE_SUIVI = "AFRIZAR-";
+
+    private final long noeud;
+    private final LongSupplier horloge;
+
+    // (milliseconde logique depuis l'époque << BITS_SEQUENCE) | séquence
+    private final AtomicLong etat = new AtomicLong();
+
+    @Autowired
+    public GenerateurNumeroServiceImpl(@Value("${app.identifiants.noeud:-1}") long noeudConfigure,
+                                       Environment environment) {
+        this(noeudConfigure >= 0 ? noeudConfigure : noeudParDefaut(noeudConfigure, environment), System::currentTimeMillis);
+        log.info("Générateur de numéros initialisé pour le nœud {}", noeud);
+    }
+
+    GenerateurNumeroServiceImpl(long noeud, LongSupplier horloge) {
+        if (noeud < 0 || noeud > NOEUD_MAX) {
+            throw new IllegalArgumentException("Le numéro de nœud doit être compris entre 0 et " + NOEUD_MAX);
+        }
+        this.noeud = noeud;
+        this.horloge = horloge;
+    }
+
+    @Override
+    public long prochainIdentifiant() {
+        while (true) {
+            long courant = etat.get();
+            long milliseconde = horloge.getAsLong() - EPOQUE_MS;
+            long suivant;
+            if (milliseconde > (courant >>> BITS_SEQUENCE)) {
+                suivant = milliseconde << BITS_SEQUENCE;
+            } else {
+                // Même milliseconde ou horloge en retard : séquence suivante, report sur la ms suivante si épuisée
+                suivant = courant + 1;
+            }
+            if (etat.compareAndSet(courant, suivant)) {
+                return ((suivant >>> BITS_SEQUENCE) << (BITS_NOEUD + BITS_SEQUENCE))
+                        | (noeud << BITS_SEQUENCE)
+                        | (suivant & MASQUE_SEQUENCE);
+            }
+        }
+    }
+
+    @Override
+    public String genererNumeroCommande() {
+        return PREFIXE_COMMANDE + encoder(prochainIdentifiant());
+    }
+
+    @Override
+    public String genererNumeroSuivi() {
+        return PREFIXE_SUIVI + encoder(prochainIdentifiant());
+    }
+
+    /**
+     * Encodage base 32 de Crockford sur une largeur fixe (13 caractères pour 63 bits)
+     */
+    static String encoder(long identifiant) {
+        char[] code = new char[LONGUEUR_CODE];
+        long reste = identifiant;
+        for (int i = LONGUEUR_CODE - 1; i >= 0; i--) {
+            code[i] = ALPHABET[(int) (reste & 31)];
+            reste >>>= 5;
+        }
+        return new String(code);
+    }
+
+    /**
+     * Sans configuration, seul le profil dev utilise le nœud 0 : ailleurs deux instances pourraient
+     * partager un nœud et générer les mêmes numéros, le démarrage est donc refusé
+     */
+    private static long noeudParDefaut(long noeudConfigure, Environment environment) {
+        if (noeudConfigure == -1 && environment.acceptsProfiles(Profiles.of("dev"))) {
+            log.warn("app.identifiants.noeud non défini, nœud 0 utilisé (profil dev)");
+            return 0;
+        }
+        throw new IllegalStateException("app.identifiants.noeud (AFRIZAR_NOEUD_ID) doit être défini entre 0 et "
+                + NOEUD_MAX + " pour chaque instance, valeur actuelle : " + noeudConfigure);
+    }
+}
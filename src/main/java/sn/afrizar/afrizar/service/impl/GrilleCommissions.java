@@ -0,0 +1,127 @@
+package sn.afrizar.afrizar.service.impl;
+
+import sn.afrizar.afrizar.model.Commission;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Index immuable des tranches de commission actives.
+ *
+ * L'axe des montants est découpé en segments contigus ; chaque segment connaît la tranche
+ * applicable (première tranche active par ordre, comme CommissionRepository.findCommissionApplicable).
+ * La recherche se fait par dichotomie sur des tableaux primitifs, sans accès à la base.
+ *
+ * Les bornes sont codées en centimes sur une clé paire/impaire : 2c pour « montant = c centimes »,
+ * 2c + 1 pour « strictement entre c et c + 1 centimes ». Un seuil min inclusif commence donc à 2c,
+ * et la sortie d'un seuil max inclusif commence à 2c + 1.
+ */
+final class GrilleCommissions {
+
+    static final GrilleCommissions VIDE = new GrilleCommissions(new long[0], new int[0], new Commission[0]);
+
+    // Au-delà, les montants sont ramenés à la borne (les seuils sont en DECIMAL(10,2))
+    private static final BigDecimal CENTIMES_MAX = BigDecimal.valueOf(Long.MAX_VALUE / 4);
+
+    // Début (clé) de chaque segment, trié par ordre croissant
+    private final long[] debutsSegments;
+
+    // Index dans tranches de la tranche applicable sur chaque segment (-1 si aucune)
+    private final int[] tranchesParSegment;
+
+    private final Commission[] tranches;
+
+    private GrilleCommissions(long[] debutsSegments, int[] tranchesParSegment, Commission[] tranches) {
+        this.debutsSegments = debutsSegments;
+        this.tranchesParSegment = tranchesParSegment;
+        this.tranches = tranches;
+    }
+
+    /**
+     * Construit la grille à partir des tranches actives triées par ordre
+     */
+    static GrilleCommissions construire(List<Commission> tranchesActives) {
+        if (tranchesActives.isEmpty()) {
+            return VIDE;
+        }
+
+        // Copies détachées : la grille est partagée entre les threads et ne doit pas être modifiée.
+        // Tranches sans ordre en dernier, comme le ORDER BY ordre de PostgreSQL
+        Commission[] tranches = tranchesActives.stream()
+                .sorted(Comparator.comparing(Commission::getOrdre, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(GrilleCommissions::copier)
+                .toArray(Commission[]::new);
+
+        long[] minimums = new long[tranches.length];
+        long[] maximums = new long[tranches.length];
+        TreeSet<Long> bornes = new TreeSet<>();
+        for (int i = 0; i < tranches.length; i++) {
+            minimums[i] = cle(tranches[i].getSeuilMin());
+            maximums[i] = tranches[i].getSeuilMax() != null ? cle(tranches[i].getSeuilMax()) : Long.MAX_VALUE;
+            bornes.add(minimums[i]);
+            if (maximums[i] != Long.MAX_VALUE) {
+                bornes.add(maximums[i] + 1);
+            }
+        }
+
+        long[] debutsSegments = bornes.stream().mapToLong(Long::longValue).toArray();
+        int[] tranchesParSegment = new int[debutsSegments.length];
+        for (int s = 0; s < debutsSegments.length; s++) {
+            tranchesParSegment[s] = -1;
+            for (int i = 0; i < tranches.length; i++) {
+                if (minimums[i] <= debutsSegments[s] && debutsSegments[s] <= maximums[i]) {
+                    tranchesParSegment[s] = i;
+                    break;
+                }
+            }
+        }
+
+        return new GrilleCommissions(debutsSegments, tranchesParSegment, tranches);
+    }
+
+    /**
+     * Trouve la tranche applicable pour un montant (dichotomie sur les débuts de segments)
+     */
+    Optional<Commission> trouver(BigDecimal montant) {
+        if (montant == null || debutsSegments.length == 0) {
+            return Optional.empty();
+        }
+
+        int position = Arrays.binarySearch(debutsSegments, cle(montant));
+        int segment = position >= 0 ? position : -position - 2;
+        if (segment < 0 || tranchesParSegment[segment] < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(tranches[tranchesParSegment[segment]]);
+    }
+
+    int nombreTranches() {
+        return tranches.length;
+    }
+
+    /**
+     * Clé de recherche d'un montant : 2 × centimes, + 1 s'il reste une fraction de centime
+     */
+    private static long cle(BigDecimal montant) {
+        BigDecimal centimes = montant.movePointRight(2);
+        BigDecimal centimesEntiers = centimes.setScale(0, RoundingMode.FLOOR);
+        if (centimesEntiers.compareTo(CENTIMES_MAX) > 0) {
+            return Long.MAX_VALUE - 1;
+        }
+        if (centimesEntiers.compareTo(CENTIMES_MAX.negate()) < 0) {
+            return Long.MIN_VALUE;
+        }
+        long cle = centimesEntiers.longValueExact() * 2;
+        return centimes.compareTo(centimesEntiers) == 0 ? cle : cle + 1;
+    }
+
+    private static Commission copier(Commission commission) {
+        return new Commission(commission.getId(), commission.getSeuilMin(), commission.getSeuilMax(),
+                commission.getPourcentage(), commission.getDescription(), commission.isActive(), commission.getOrdre());
+    }
+}
@@ -0,0 +1,62 @@
+package sn.afrizar.afrizar.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Grille immuable construite depuis la base et gardée en mémoire, remplacée en bloc.
+ *
+ * Chargée au premier accès, rechargée après chaque modification validée sur cette instance et
+ * périodiquement par le service propriétaire : une modification faite sur une autre instance est
+ * prise en compte au plus tard un intervalle de rechargement après son commit.
+ */
+final class GrilleEnMemoire<T> {
+
+    private final Supplier<T> chargement;
+
+    private volatile T grille;
+
+    GrilleEnMemoire(Supplier<T> chargement) {
+        this.chargement = chargement;
+    }
+
+    /**
+     * Retourne la grille courante, chargée depuis la base au premier appel
+     */
+    T obtenir() {
+        T grilleCourante = grille;
+        if (grilleCourante == null) {
+            synchronized (this) {
+                grilleCourante = grille;
+                if (grilleCourante == null) {
+                    grilleCourante = recharger();
+                }
+            }
+        }
+        return grilleCourante;
+    }
+
+    synchronized T recharger() {
+        T nouvelleGrille = chargement.get();
+        grille = nouvelleGrille;
+        return nouvelleGrille;
+    }
+
+    /**
+     * Recharge la grille une fois la transaction validée (immédiatement s'il n'y en a pas)
+     */
+    void rechargerApresCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recharger();
+                }
+            });
+        } else {
+            recharger();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package sn.afrizar.afrizar.service.impl;
+
+import sn.afrizar.afrizar.model.ConfigurationLivraison;
+import sn.afrizar.afrizar.model.Livraison;
+import sn.afrizar.afrizar.model.Money;
+
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Matrice immuable des tarifs de livraison actifs, par pays normalisé et type de livraison.
+ *
+ * Le repli sur les configurations GENERAL est calculé à la construction : chaque pays configuré
+ * reçoit les tarifs GENERAL des types qu'il ne configure pas, et les pays absents de la matrice
+ * lisent directement les tarifs GENERAL. Une recherche coûte donc deux lectures de table de hachage.
+ *
+ * Les pays sont comparés sans accents, casse ni espaces autour : « Sénégal » et « SENEGAL »
+ * désignent la même destination.
+ */
+final class GrilleTarifsLivraison {
+
+    static final String PAYS_GENERAL = "GENERAL";
+
+    static final GrilleTarifsLivraison VIDE = new GrilleTarifsLivraison(Map.of(), Map.of(), 0);
+
+    // Réduction gros colis appliquée au-delà de 5 kg
+    private static final long SEUIL_GROS_COLIS_MILLIEMES = 5_000;
+
+    private final Map<String, Map<Livraison.TypeLivraison, Tarif>> tarifsParPays;
+
+    private final Map<Livraison.TypeLivraison, Tarif> tarifsGeneraux;
+
+    private final int nombreConfigurations;
+
+    private GrilleTarifsLivraison(Map<String, Map<Livraison.TypeLivraison, Tarif>> tarifsParPays,
+                                  Map<Livraison.TypeLivraison, Tarif> tarifsGeneraux, int nombreConfigurations) {
+        this.tarifsParPays = tarifsParPays;
+        this.tarifsGeneraux = tarifsGeneraux;
+        this.nombreConfigurations = nombreConfigurations;
+    }
+
+    /**
+     * Construit la matrice à partir des configurations actives
+     */
+    static GrilleTarifsLivraison construire(List<ConfigurationLivraison> configurationsActives) {
+        if (configurationsActives.isEmpty()) {
+            return VIDE;
+        }
+
+        // Deux configurations de même pays normalisé et même type : la plus ancienne (plus petit ID) est retenue
+        Map<String, Map<Livraison.TypeLivraison, Tarif>> configures = new HashMap<>();
+        configurationsActives.stream()
+                .sorted(Comparator.comparing(ConfigurationLivraison::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .forEach(configuration -> configures
+                        .computeIfAbsent(normaliserPays(configuration.getPays()), pays -> new EnumMap<>(Livraison.TypeLivraison.class))
+                        .putIfAbsent(configuration.getType(), Tarif.depuis(configuration)));
+
+        Map<Livraison.TypeLivraison, Tarif> generaux = configures.getOrDefault(PAYS_GENERAL, Map.of());
+
+        Map<String, Map<Livraison.TypeLivraison, Tarif>> tarifsParPays = new HashMap<>();
+        configures.forEach((pays, tarifs) -> {
+            EnumMap<Livraison.TypeLivraison, Tarif> complets = new EnumMap<>(Livraison.TypeLivraison.class);
+            complets.putAll(generaux);
+            complets.putAll(tarifs);
+            tarifsParPays.put(pays, Collections.unmodifiableMap(complets));
+        });
+
+        return new GrilleTarifsLivraison(Map.copyOf(tarifsParPays),
+                tarifsParPays.getOrDefault(PAYS_GENERAL, Map.of()), configurationsActives.size());
+    }
+
+    /**
+     * Tarif applicable à un pays et un type (configuration du pays, sinon GENERAL), null si aucun
+     */
+    Tarif trouver(String pays, Livraison.TypeLivraison type) {
+        Map<Livraison.TypeLivraison, Tarif> tarifs = tarifsParPays.getOrDefault(normaliserPays(pays), tarifsGeneraux);
+        return tarifs.get(type);
+    }
+
+    int nombreConfigurations() {
+        return nombreConfigurations;
+    }
+
+    /**
+     * Pays sans accents, en majuscules et sans espaces autour (chaîne vide si absent)
+     */
+    static String normaliserPays(String pays) {
+        if (pays == null) {
+            return "";
+        }
+        String sansAccents = Normalizer.normalize(pays.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sansAccents.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Tarif d'une configuration, montants déjà convertis pour le calcul (minimum et réduction absents : zéro)
+     */
+    record Tarif(Money tarifBase, Money tarifParKg, Money minimumFacturation, long reductionGrosColis, int delaiJours) {
+
+        static Tarif depuis(ConfigurationLivraison configuration) {
+            return new Tarif(
+                    Money.de(configuration.getTarifBase()),
+                    Money.de(configuration.getTarifParKg()),
+                    Money.de(configuration.getMinimumFacturation()),
+                    Money.pointsDeBase(configuration.getReductionGrosColis()),
+                    configuration.getDelaiJours());
+        }
+
+        /**
+         * Tarif de base + (poids × tarif par kg), réduction gros colis, puis minimum de facturation
+         */
+        Money calculer(long poidsMilliemes) {
+            Money coutBase = tarifBase.plus(tarifParKg.foisMilliemes(poidsMilliemes));
+
+            Money coutFinal = coutBase;
+            if (poidsMilliemes > SEUIL_GROS_COLIS_MILLIEMES) {
+                coutFinal = coutFinal.moins(coutBase.pourcentage(reductionGrosColis));
+            }
+            return coutFinal.max(minimumFacturation);
+        }
+    }
+}
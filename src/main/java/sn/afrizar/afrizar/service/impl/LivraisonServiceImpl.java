@@ -7,11 +7,13 @@ import org.springframework.transaction.annotation.Transactional;
 import sn.afrizar.afrizar.dto.CreateLivraisonDto;
 import sn.afrizar.afrizar.dto.LivraisonDto;
 import sn.afrizar.afrizar.model.Commande;
+import sn.afrizar.afrizar.model.LigneCommande;
 import sn.afrizar.afrizar.model.Livraison;
 import sn.afrizar.afrizar.repository.CommandeRepository;
 import sn.afrizar.afrizar.repository.LivraisonRepository;
 import sn.afrizar.afrizar.service.LivraisonService;
 import sn.afrizar.afrizar.service.ConfigurationLivraisonService;
+import sn.afrizar.afrizar.service.GenerateurNumeroService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -30,6 +32,7 @@ public class LivraisonServiceImpl implements LivraisonService {
     private final LivraisonRepository livraisonRepository;
     private final CommandeRepository commandeRepository;
     private final ConfigurationLivraisonService configurationLivraisonService;
+    private final GenerateurNumeroService generateurNumeroService;
     
     // Tarifs de base par kg selon la destination et le type
     private static final Map<String, Map<Livraison.TypeLivraison, BigDecimal>> TARIFS_BASE = new HashMap<>();
@@ -308,17 +311,13 @@ public class LivraisonServiceImpl implements LivraisonService {
     
     private BigDecimal calculerPoidsTotal(Commande commande) {
         return commande.getLignesCommande().stream()
-                .map(ligne -> {
-                    BigDecimal poidsProduit = ligne.getProduit().getPoids() != null ? 
-                        ligne.getProduit().getPoids() : BigDecimal.valueOf(0.5); // Poids par défaut: 0.5 kg
-                    return poidsProduit.multiply(BigDecimal.valueOf(ligne.getQuantite()));
-                })
+                .map(LigneCommande::calculerPoids)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
     
     @Override
     public String genererNumeroSuivi() {
-        return "AFRIZAR-" + System.currentTimeMillis() + "-" + (int)(Math.random() * 1000);
+        return generateurNumeroService.genererNumeroSuivi();
     }
     
     // Autres méthodes de base...
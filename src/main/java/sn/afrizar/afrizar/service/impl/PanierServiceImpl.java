@@ -1,314 +1,865 @@
 package sn.afrizar.afrizar.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import sn.afrizar.afrizar.dto.AjouterAuPanierDto;
+import sn.afrizar.afrizar.dto.DemandePrixDto;
 import sn.afrizar.afrizar.dto.PanierDto;
 import sn.afrizar.afrizar.dto.PanierItemDto;
 import sn.afrizar.afrizar.dto.DetailPrixDto;
+import sn.afrizar.afrizar.dto.SynchronisationPanierDto;
 import sn.afrizar.afrizar.model.*;
 import sn.afrizar.afrizar.repository.*;
 import sn.afrizar.afrizar.service.PanierService;
 import sn.afrizar.afrizar.service.CalculPrixService;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Panier servi depuis un agrégat mémoire par client (lignes tarifées, totaux, nombre d'articles).
+ *
+ * Lectures et modifications de quantité / retraits ne touchent que l'agrégat ; les paniers modifiés
+ * sont écrits en base en différé par lots, une écriture par panier quel que soit le nombre de
+ * modifications. Un nouvel item est inséré immédiatement : son ID est renvoyé au client.
+ * En cas d'absence du cache (éviction, redémarrage), le panier est rechargé depuis la base.
+ *
+ * Le cache est propre à chaque instance de l'application. Toute écriture de la ligne paniers exige
+ * la version sur laquelle l'agrégat est fondé et l'incrémente : un panier modifié entre-temps par une
+ * autre instance, vidé par un checkout ou supprimé par la purge refuse l'écriture (0 ligne), l'agrégat
+ * périmé est retiré et le panier rechargé depuis la base. Le checkout écrit les modifications en mémoire
+ * sous cette garde avant de lire le panier. Une lecture seule peut rester périmée au plus
+ * app.panier.expiration-cache-minutes après le chargement de l'agrégat.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class PanierServiceImpl implements PanierService {
-    
+
+    private static final String REQUETE_MAJ_ITEM =
+            "UPDATE panier_items SET quantite = ?, prix_unitaire = ? WHERE id = ?";
+    // Garde optimiste : la ligne n'est écrite que si sa version est celle connue de l'agrégat
+    private static final String REQUETE_MAJ_PANIER =
+            "UPDATE paniers SET date_modification = ?, nombre_articles = ?, version = version + 1 " +
+            "WHERE id = ? AND version = ?";
+    // Lot suivant de paniers inactifs (keyset sur l'ID), les paniers verrouillés par un client sont sautés
+    private static final String REQUETE_PANIERS_ABANDONNES =
+            "SELECT id, client_id FROM paniers WHERE id > ? AND COALESCE(date_modification, date_creation) < ? " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String REQUETE_SUPPRIMER_ITEMS = "DELETE FROM panier_items WHERE panier_id = ?";
+    private static final String REQUETE_SUPPRIMER_PANIER = "DELETE FROM paniers WHERE id = ?";
+    // Rechargements successifs d'un panier modifié ailleurs avant d'abandonner l'opération
+    private static final int TENTATIVES_MAX = 3;
+
     private final PanierRepository panierRepository;
     private final PanierItemRepository panierItemRepository;
     private final ClientRepository clientRepository;
     private final ProduitRepository produitRepository;
     private final CalculPrixService calculPrixService;
-    
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.panier.taille-cache:10000}")
+    private int tailleCache;
+
+    @Value("${app.panier.expiration-cache-minutes:10}")
+    private long expirationCacheMinutes;
+
+    @Value("${app.panier.jours-inactivite-purge:30}")
+    private long joursInactivitePurge;
+
+    @Value("${app.panier.taille-lot-purge:500}")
+    private int tailleLotPurge;
+
+    @Value("${app.panier.pause-purge-ms:200}")
+    private long pausePurgeMs;
+
+    private Cache<Long, AgregatPanier> paniers;
+
+    // Paniers modifiés en mémoire et pas encore écrits : jamais perdus par une éviction du cache
+    private final ConcurrentHashMap<Long, AgregatPanier> enAttente = new ConcurrentHashMap<>();
+
+    private final AtomicLong paniersEcrits = new AtomicLong();
+    private final AtomicLong nombreEchecs = new AtomicLong();
+    private final AtomicLong nombreConflits = new AtomicLong();
+    private volatile LocalDateTime dateDerniereEcriture;
+
+    private final AtomicLong paniersPurges = new AtomicLong();
+    private final AtomicLong itemsPurges = new AtomicLong();
+    private final AtomicLong dureeTotalePurgeMs = new AtomicLong();
+    private volatile long dureeDernierePurgeMs;
+    private volatile LocalDateTime dateDernierePurge;
+
+    @PostConstruct
+    void creerCache() {
+        paniers = Caffeine.newBuilder()
+                .maximumSize(tailleCache)
+                .expireAfterWrite(Duration.ofMinutes(expirationCacheMinutes))
+                .evictionListener((Long clientId, AgregatPanier agregat, RemovalCause cause) -> {
+                    if (agregat != null) {
+                        detacher(agregat);
+                    }
+                })
+                .recordStats()
+                .build();
+        log.info("Cache des paniers : {} paniers au plus, rechargés depuis la base au plus tard {} min après leur chargement",
+                tailleCache, expirationCacheMinutes);
+    }
+
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PanierDto obtenirPanierClient(Long clientId) {
         log.info("Récupération du panier pour le client ID: {}", clientId);
-        
-        // Vérifier que le client existe
-        Client client = clientRepository.findById(clientId)
-                .orElseThrow(() -> new RuntimeException("Client non trouvé avec ID: " + clientId));
-        
-        // Chercher ou créer le panier
-        Panier panier = panierRepository.findByClientIdAndActifTrue(clientId)
-                .orElseGet(() -> creerNouveauPanier(client));
-        
-        return convertirPanierVersDto(panier);
+        return modifier(clientId, this::convertirAgregatVersDto);
     }
-    
+
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PanierDto ajouterAuPanier(Long clientId, AjouterAuPanierDto dto) {
-        log.info("Ajout au panier - Client: {}, Produit: {}, Quantité: {}", 
+        log.info("Ajout au panier - Client: {}, Produit: {}, Quantité: {}",
                 clientId, dto.getProduitId(), dto.getQuantite());
-        
-        // Récupérer le panier
-        Client client = clientRepository.findById(clientId)
-                .orElseThrow(() -> new RuntimeException("Client non trouvé"));
-        
-        Panier panier = panierRepository.findByClientIdAndActifTrue(clientId)
-                .orElseGet(() -> creerNouveauPanier(client));
-        
-        // Récupérer le produit
-        Produit produit = produitRepository.findById(dto.getProduitId())
-                .orElseThrow(() -> new RuntimeException("Produit non trouvé avec ID: " + dto.getProduitId()));
-        
-        // Vérifier le stock
-        if (produit.getStock() < dto.getQuantite()) {
-            throw new RuntimeException("Stock insuffisant. Stock disponible: " + produit.getStock());
-        }
-        
-        // Chercher si l'item existe déjà avec les mêmes options
-        Optional<PanierItem> itemExistant = panierItemRepository
-                .findByPanierIdAndProduitIdAndOptions(
-                        panier.getId(), 
-                        dto.getProduitId(), 
-                        dto.getTaille(), 
-                        dto.getCouleur()
-                );
-        
-        if (itemExistant.isPresent()) {
-            // Incrémenter la quantité
-            PanierItem item = itemExistant.get();
-            int nouvelleQuantite = item.getQuantite() + dto.getQuantite();
-            
-            // Vérifier le stock pour la nouvelle quantité
-            if (produit.getStock() < nouvelleQuantite) {
-                throw new RuntimeException("Stock insuffisant. Stock disponible: " + produit.getStock());
+
+        return modifier(clientId, agregat -> {
+            // Chercher si l'item existe déjà avec les mêmes options
+            AgregatPanier.Ligne ligneExistante = agregat.trouverLigne(dto.getProduitId(), dto.getTaille(), dto.getCouleur());
+
+            if (ligneExistante != null) {
+                // Incrémenter la quantité (stock connu au chargement de la ligne, vérifié à nouveau au checkout)
+                int nouvelleQuantite = ligneExistante.quantite + dto.getQuantite();
+                verifierStock(ligneExistante.stockDisponible, nouvelleQuantite);
+
+                agregat.modifierQuantite(ligneExistante, nouvelleQuantite);
+                log.info("Quantité incrémentée - Item ID: {}, Nouvelle quantité: {}", ligneExistante.itemId, nouvelleQuantite);
+            } else {
+                // Récupérer le produit (avec vendeur et photos)
+                Produit produit = produitRepository.findAllByIdInAvecVendeur(List.of(dto.getProduitId()))
+                        .stream()
+                        .findFirst()
+                        .orElseThrow(() -> new RuntimeException("Produit non trouvé avec ID: " + dto.getProduitId()));
+                verifierStock(produit.getStock(), dto.getQuantite());
+
+                // Créer un nouvel item, inséré immédiatement
+                PanierItem nouvelItem = transactionTemplate.execute(statut -> {
+                    PanierItem item = new PanierItem();
+                    item.setPanier(panierRepository.getReferenceById(agregat.panierId));
+                    item.setProduit(produit);
+                    item.setQuantite(dto.getQuantite());
+                    item.setPrixUnitaire(produit.getPrix());
+                    item.setTaille(dto.getTaille());
+                    item.setCouleur(dto.getCouleur());
+                    item.setOptionsPersonnalisation(dto.getOptionsPersonnalisation());
+                    item.setDateAjout(LocalDateTime.now());
+                    if (panierRepository.ajouterArticles(agregat.panierId, agregat.version, dto.getQuantite()) == 0) {
+                        throw new OptimisticLockingFailureException("Panier modifié ailleurs, ID: " + agregat.panierId);
+                    }
+                    return panierItemRepository.save(item);
+                });
+                agregat.version++;
+
+                AgregatPanier.Ligne ligne = creerLigne(nouvelItem, produit);
+                tarifer(List.of(ligne), Map.of(produit.getId(), produit));
+                agregat.ajouterLigne(ligne);
+                log.info("Nouvel item ajouté au panier - Produit: {}", produit.getNom());
             }
-            
-            item.setQuantite(nouvelleQuantite);
-            panierItemRepository.save(item);
-            log.info("Quantité incrémentée - Item ID: {}, Nouvelle quantité: {}", item.getId(), nouvelleQuantite);
-        } else {
-            // Créer un nouvel item
-            PanierItem nouvelItem = new PanierItem();
-            nouvelItem.setPanier(panier);
-            nouvelItem.setProduit(produit);
-            nouvelItem.setQuantite(dto.getQuantite());
-            nouvelItem.setPrixUnitaire(produit.getPrix());
-            nouvelItem.setTaille(dto.getTaille());
-            nouvelItem.setCouleur(dto.getCouleur());
-            nouvelItem.setOptionsPersonnalisation(dto.getOptionsPersonnalisation());
-            nouvelItem.setDateAjout(LocalDateTime.now());
-            
-            panier.ajouterItem(nouvelItem);
-            panierItemRepository.save(nouvelItem);
-            log.info("Nouvel item ajouté au panier - Produit: {}", produit.getNom());
-        }
-        
-        panier.setDateModification(LocalDateTime.now());
-        panierRepository.save(panier);
-        
-        return convertirPanierVersDto(panier);
+
+            return convertirAgregatVersDto(agregat);
+        });
     }
-    
+
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PanierDto modifierQuantite(Long clientId, Long itemId, Integer nouvelleQuantite) {
-        log.info("Modification quantité - Client: {}, Item: {}, Nouvelle quantité: {}", 
+        log.info("Modification quantité - Client: {}, Item: {}, Nouvelle quantité: {}",
                 clientId, itemId, nouvelleQuantite);
-        
-        Panier panier = panierRepository.findByClientIdAndActifTrue(clientId)
-                .orElseThrow(() -> new RuntimeException("Panier non trouvé"));
-        
-        PanierItem item = panierItemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item non trouvé"));
-        
-        // Vérifier que l'item appartient au bon panier
-        if (!item.getPanier().getId().equals(panier.getId())) {
-            throw new RuntimeException("Cet item n'appartient pas à votre panier");
-        }
-        
-        // Vérifier le stock
-        if (item.getProduit().getStock() < nouvelleQuantite) {
-            throw new RuntimeException("Stock insuffisant. Stock disponible: " + item.getProduit().getStock());
-        }
-        
-        if (nouvelleQuantite <= 0) {
-            // Retirer l'item si quantité = 0
-            return retirerDuPanier(clientId, itemId);
-        }
-        
-        item.setQuantite(nouvelleQuantite);
-        panierItemRepository.save(item);
-        
-        panier.setDateModification(LocalDateTime.now());
-        panierRepository.save(panier);
-        
-        return convertirPanierVersDto(panier);
+
+        return modifier(clientId, agregat -> {
+            AgregatPanier.Ligne ligne = obtenirLigne(agregat, itemId);
+
+            // Vérifier le stock
+            verifierStock(ligne.stockDisponible, nouvelleQuantite);
+
+            if (nouvelleQuantite <= 0) {
+                // Retirer l'item si quantité = 0
+                agregat.retirerLigne(itemId);
+            } else {
+                agregat.modifierQuantite(ligne, nouvelleQuantite);
+            }
+
+            return convertirAgregatVersDto(agregat);
+        });
     }
-    
+
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PanierDto retirerDuPanier(Long clientId, Long itemId) {
         log.info("Retrait du panier - Client: {}, Item: {}", clientId, itemId);
-        
-        Panier panier = panierRepository.findByClientIdAndActifTrue(clientId)
-                .orElseThrow(() -> new RuntimeException("Panier non trouvé"));
-        
-        PanierItem item = panierItemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item non trouvé"));
-        
-        // Vérifier que l'item appartient au bon panier
-        if (!item.getPanier().getId().equals(panier.getId())) {
-            throw new RuntimeException("Cet item n'appartient pas à votre panier");
-        }
-        
-        panier.retirerItem(item);
-        panierItemRepository.delete(item);
-        
-        panier.setDateModification(LocalDateTime.now());
-        panierRepository.save(panier);
-        
-        return convertirPanierVersDto(panier);
+
+        return modifier(clientId, agregat -> {
+            obtenirLigne(agregat, itemId);
+            agregat.retirerLigne(itemId);
+            return convertirAgregatVersDto(agregat);
+        });
     }
-    
+
     @Override
     public void viderPanier(Long clientId) {
         log.info("Vidage du panier - Client: {}", clientId);
-        
+
         Panier panier = panierRepository.findByClientIdAndActifTrue(clientId)
                 .orElseThrow(() -> new RuntimeException("Panier non trouvé"));
-        
+
         panier.vider();
         panierItemRepository.deleteByPanierId(panier.getId());
-        
+
         panier.setDateModification(LocalDateTime.now());
-        panierRepository.save(panier);
+        // Version incrémentée : une écriture en attente fondée sur l'ancien panier sera refusée
+        panierRepository.saveAndFlush(panier);
+
+        // Le panier en mémoire est retiré à la fin de la transaction (validée ou non) et sera rechargé
+        oublierApresTransaction(clientId);
     }
-    
+
+    /**
+     * Prix et stock de tous les produits du panier lus en une requête, écarts calculés en mémoire ;
+     * seules les lignes modifiées sont écrites, en un lot, avant de répondre
+     */
     @Override
-    public PanierDto synchroniserPanier(Long clientId) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SynchronisationPanierDto synchroniserPanier(Long clientId) {
         log.info("Synchronisation du panier - Client: {}", clientId);
-        
-        Panier panier = panierRepository.findByClientIdAndActifTrue(clientId)
-                .orElseThrow(() -> new RuntimeException("Panier non trouvé"));
-        
-        boolean modifie = false;
-        
-        for (PanierItem item : panier.getItems()) {
-            Produit produit = item.getProduit();
-            
-            // Vérifier et mettre à jour le prix
-            if (!item.getPrixUnitaire().equals(produit.getPrix())) {
-                log.info("Mise à jour du prix - Produit: {}, Ancien: {}, Nouveau: {}", 
-                        produit.getNom(), item.getPrixUnitaire(), produit.getPrix());
-                item.setPrixUnitaire(produit.getPrix());
-                modifie = true;
+
+        SynchronisationPanierDto synchronisation = new SynchronisationPanierDto();
+        AgregatPanier synchronise = modifier(clientId, agregat -> {
+            List<AgregatPanier.Ligne> lignes = new ArrayList<>(agregat.lignes.values());
+            Map<Long, Produit> produits = chargerProduits(lignes);
+            List<AgregatPanier.Ligne> conservees = new ArrayList<>();
+
+            for (AgregatPanier.Ligne ligne : lignes) {
+                Produit produit = produits.get(ligne.produitId);
+                int stock = produit != null && produit.getStock() != null ? produit.getStock() : 0;
+
+                // Produit supprimé ou épuisé : la ligne est retirée (une quantité nulle n'est pas permise en base)
+                if (stock <= 0) {
+                    log.warn("Article retiré du panier - Produit: {}, Stock: {}", ligne.produitId, stock);
+                    synchronisation.getChangements().add(changement(ligne, produit,
+                            SynchronisationPanierDto.TypeChangement.ARTICLE_RETIRE,
+                            null, null, ligne.quantite, 0));
+                    agregat.retirerLigne(ligne.itemId);
+                    continue;
+                }
+
+                // Vérifier et mettre à jour le prix
+                if (ligne.prixUnitaire.compareTo(produit.getPrix()) != 0) {
+                    log.info("Mise à jour du prix - Produit: {}, Ancien: {}, Nouveau: {}",
+                            produit.getNom(), ligne.prixUnitaire, produit.getPrix());
+                    synchronisation.getChangements().add(changement(ligne, produit,
+                            SynchronisationPanierDto.TypeChangement.PRIX_MODIFIE,
+                            ligne.prixUnitaire, produit.getPrix(), null, null));
+                    ligne.prixUnitaire = produit.getPrix();
+                    agregat.marquerModifie();
+                }
+
+                // Vérifier le stock et ajuster la quantité si nécessaire
+                if (ligne.quantite > stock) {
+                    log.warn("Stock insuffisant - Produit: {}, Demandé: {}, Disponible: {}",
+                            produit.getNom(), ligne.quantite, stock);
+                    synchronisation.getChangements().add(changement(ligne, produit,
+                            SynchronisationPanierDto.TypeChangement.QUANTITE_AJUSTEE,
+                            null, null, ligne.quantite, stock));
+                    agregat.modifierQuantite(ligne, stock);
+                }
+                conservees.add(ligne);
             }
-            
-            // Vérifier le stock et ajuster la quantité si nécessaire
-            if (item.getQuantite() > produit.getStock()) {
-                log.warn("Stock insuffisant - Produit: {}, Demandé: {}, Disponible: {}", 
-                        produit.getNom(), item.getQuantite(), produit.getStock());
-                item.setQuantite(produit.getStock());
-                modifie = true;
+
+            // Informations produit, stock et prix finaux (commission courante) rafraîchis pour les lignes restantes
+            tarifer(conservees, produits);
+            synchronisation.setPanier(convertirAgregatVersDto(agregat));
+            return agregat;
+        });
+
+        // Les corrections sont écrites tout de suite : le panier en base est à jour pour le checkout
+        if (!synchronisation.getChangements().isEmpty()) {
+            synchronise.verrouEcriture.lock();
+            try {
+                ecrirePanier(synchronise);
+            } finally {
+                synchronise.verrouEcriture.unlock();
             }
-            
-            panierItemRepository.save(item);
-        }
-        
-        if (modifie) {
-            panier.setDateModification(LocalDateTime.now());
-            panierRepository.save(panier);
         }
-        
-        return convertirPanierVersDto(panier);
+        log.info("Panier synchronisé - Client: {}, {} changement(s)", clientId, synchronisation.getChangements().size());
+        return synchronisation;
     }
-    
+
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int obtenirNombreArticles(Long clientId) {
-        Optional<Panier> panier = panierRepository.findByClientIdAndActifTrue(clientId);
-        return panier.map(Panier::getNombreTotalArticles).orElse(0);
+        // Panier en mémoire (y compris modifications pas encore écrites), sinon colonne du panier en base :
+        // ni les items ni les produits ne sont chargés, et aucun panier n'est créé
+        AgregatPanier agregat = paniers.getIfPresent(clientId);
+        if (agregat == null) {
+            agregat = enAttente.get(clientId);
+        }
+        if (agregat != null) {
+            synchronized (agregat) {
+                return agregat.getNombreTotalArticles();
+            }
+        }
+        return panierRepository.findNombreArticlesByClientId(clientId).orElse(0);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void persisterPanier(Long clientId) {
+        AgregatPanier agregat = enAttente.get(clientId);
+        if (agregat == null) {
+            return;
+        }
+
+        // Aucune autre écriture du panier jusqu'à la fin de la transaction de l'appelant
+        agregat.verrouEcriture.lock();
+        AgregatPanier.Ecriture ecriture;
+        try {
+            synchronized (agregat) {
+                ecriture = agregat.preparerEcriture();
+            }
+            ecrire(ecriture);
+        } catch (OptimisticLockingFailureException e) {
+            // Panier modifié ailleurs : le checkout est refusé et le panier sera rechargé depuis la base
+            agregat.verrouEcriture.unlock();
+            signalerConflit(agregat);
+            throw e;
+        } catch (RuntimeException e) {
+            agregat.verrouEcriture.unlock();
+            throw e;
+        }
+
+        // Les valeurs ne sont considérées comme persistées qu'une fois la transaction de l'appelant validée
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int statut) {
+                try {
+                    if (statut == STATUS_COMMITTED) {
+                        confirmerEcriture(agregat, ecriture);
+                    }
+                } finally {
+                    agregat.verrouEcriture.unlock();
+                }
+            }
+        });
     }
-    
+
+    /**
+     * Écriture périodique des paniers modifiés, chacun dans sa propre transaction
+     */
+    @Override
+    @Scheduled(initialDelayString = "${app.panier.delai-demarrage-ms:5000}",
+               fixedDelayString = "${app.panier.intervalle-ecriture-ms:2000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int ecrireModificationsEnAttente() {
+        if (enAttente.isEmpty()) {
+            return 0;
+        }
+
+        int ecrits = 0;
+        for (AgregatPanier agregat : new ArrayList<>(enAttente.values())) {
+            // Panier en cours d'écriture (checkout, ajout d'un item) : repris au passage suivant
+            if (!agregat.verrouEcriture.tryLock()) {
+                continue;
+            }
+            try {
+                if (ecrirePanier(agregat)) {
+                    ecrits++;
+                }
+            } finally {
+                agregat.verrouEcriture.unlock();
+            }
+        }
+        dateDerniereEcriture = LocalDateTime.now();
+        log.debug("Écriture différée des paniers : {} paniers écrits, {} en attente", ecrits, enAttente.size());
+        return ecrits;
+    }
+
+    @PreDestroy
+    public void ecrireAvantArret() {
+        log.info("Arrêt : écriture des paniers en attente ({} paniers)", enAttente.size());
+        ecrireModificationsEnAttente();
+    }
+
+    /**
+     * Purge périodique des paniers sans modification depuis plus de app.panier.jours-inactivite-purge jours.
+     *
+     * Les paniers sont parcourus par lots (keyset sur l'ID), chaque lot supprimé dans sa propre transaction
+     * courte avec une pause entre les lots : la purge ne retient jamais longtemps de verrous sur les tables
+     * lues par les paniers des clients. Les paniers en mémoire (utilisés récemment ou en attente d'écriture)
+     * sont conservés.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(cron = "${app.panier.cron-purge:0 0 4 * * *}")
+    public int purgerPaniersAbandonnes() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(joursInactivitePurge);
+        long debut = System.nanoTime();
+        long dernierId = 0;
+        int paniersSupprimes = 0;
+        int itemsSupprimes = 0;
+
+        while (true) {
+            long depuisId = dernierId;
+            LotPurge lot = transactionTemplate.execute(statut -> purgerLot(limite, depuisId));
+            if (lot == null) {
+                break;
+            }
+            // Un panier rechargé pendant la purge ne doit pas survivre en mémoire à sa suppression
+            lot.clientIds().forEach(this::oublier);
+            paniersSupprimes += lot.clientIds().size();
+            itemsSupprimes += lot.items();
+            dernierId = lot.dernierId();
+
+            if (lot.parcourus() < tailleLotPurge || !pause()) {
+                break;
+            }
+        }
+
+        long dureeMs = Duration.ofNanos(System.nanoTime() - debut).toMillis();
+        paniersPurges.addAndGet(paniersSupprimes);
+        itemsPurges.addAndGet(itemsSupprimes);
+        dureeTotalePurgeMs.addAndGet(dureeMs);
+        dureeDernierePurgeMs = dureeMs;
+        dateDernierePurge = LocalDateTime.now();
+        log.info("Purge des paniers inactifs depuis le {} : {} panier(s) et {} item(s) supprimés en {} ms",
+                limite.toLocalDate(), paniersSupprimes, itemsSupprimes, dureeMs);
+        return paniersSupprimes;
+    }
+
+    @Override
+    public Map<String, Object> obtenirStatistiques() {
+        CacheStats stats = paniers.stats();
+
+        Map<String, Object> statistiques = new HashMap<>();
+        statistiques.put("taille", paniers.estimatedSize());
+        statistiques.put("tailleMaximale", tailleCache);
+        statistiques.put("succes", stats.hitCount());
+        statistiques.put("echecs", stats.missCount());
+        statistiques.put("tauxSucces", stats.hitRate());
+        statistiques.put("evictions", stats.evictionCount());
+        statistiques.put("paniersEnAttente", enAttente.size());
+        statistiques.put("paniersEcrits", paniersEcrits.get());
+        statistiques.put("echecsEcriture", nombreEchecs.get());
+        statistiques.put("conflitsEcriture", nombreConflits.get());
+        statistiques.put("dateDerniereEcriture", dateDerniereEcriture);
+        statistiques.put("paniersPurges", paniersPurges.get());
+        statistiques.put("itemsPurges", itemsPurges.get());
+        statistiques.put("dureeTotalePurgeMs", dureeTotalePurgeMs.get());
+        statistiques.put("dureeDernierePurgeMs", dureeDernierePurgeMs);
+        statistiques.put("dateDernierePurge", dateDernierePurge);
+        statistiques.put("joursInactivitePurge", joursInactivitePurge);
+        return statistiques;
+    }
+
     // ===================== MÉTHODES PRIVÉES =====================
-    
+
+    /**
+     * Applique une opération au panier du client sous le verrou de son agrégat ; le panier est
+     * mis en attente d'écriture si l'opération l'a modifié. Si l'opération écrit en base un panier
+     * modifié ailleurs, l'agrégat périmé est retiré et l'opération rejouée sur le panier rechargé.
+     */
+    private <T> T modifier(Long clientId, Function<AgregatPanier, T> operation) {
+        int tentatives = 0;
+        while (true) {
+            AgregatPanier agregat = paniers.get(clientId, this::chargerAgregat);
+            // Verrou d'écriture avant le verrou de l'agrégat, comme les écritures différées
+            agregat.verrouEcriture.lock();
+            try {
+                synchronized (agregat) {
+                    // Évincé entre la lecture du cache et le verrou : l'agrégat courant est obtenu à nouveau
+                    if (agregat.detache) {
+                        continue;
+                    }
+                    T resultat = operation.apply(agregat);
+                    if (agregat.aEcrire()) {
+                        enAttente.put(clientId, agregat);
+                    }
+                    return resultat;
+                }
+            } catch (OptimisticLockingFailureException e) {
+                signalerConflit(agregat);
+                if (++tentatives >= TENTATIVES_MAX) {
+                    throw e;
+                }
+            } finally {
+                agregat.verrouEcriture.unlock();
+            }
+        }
+    }
+
+    /**
+     * Absence du cache : un panier en attente d'écriture est repris tel quel, sinon il est chargé depuis la base
+     */
+    private AgregatPanier chargerAgregat(Long clientId) {
+        AgregatPanier agregat = enAttente.get(clientId);
+        if (agregat != null) {
+            synchronized (agregat) {
+                agregat.detache = false;
+            }
+            return agregat;
+        }
+        return transactionTemplate.execute(statut -> chargerDepuisBase(clientId));
+    }
+
+    private AgregatPanier chargerDepuisBase(Long clientId) {
+        // Chercher ou créer le panier (le client est chargé avec le panier)
+        Panier panier = panierRepository.findByClientIdAndActifTrue(clientId)
+                .orElseGet(() -> creerNouveauPanier(clientRepository.findById(clientId)
+                        .orElseThrow(() -> new RuntimeException("Client non trouvé avec ID: " + clientId))));
+
+        Map<Long, Produit> produits = Map.of();
+        if (!panier.getItems().isEmpty()) {
+            // Produits (avec vendeurs et photos) en une requête : les proxys des items sont initialisés
+            produits = produitRepository.findAllByIdInAvecVendeur(panier.getItems().stream()
+                            .map(item -> item.getProduit().getId())
+                            .collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Produit::getId, Function.identity()));
+        }
+        AgregatPanier agregat = creerAgregat(panier, produits);
+
+        log.debug("Panier du client {} chargé depuis la base ({} lignes)", clientId, agregat.lignes.size());
+        return agregat;
+    }
+
+    /**
+     * Agrégat d'un panier dont les produits sont chargés : lignes dans l'ordre d'ajout, tarifées en une passe
+     */
+    private AgregatPanier creerAgregat(Panier panier, Map<Long, Produit> produits) {
+        Client client = panier.getClient();
+        AgregatPanier agregat = new AgregatPanier(client.getId(), panier.getId(),
+                client.getNom() + " " + client.getPrenom(), panier.getDateCreation(), panier.getDateModification(),
+                panier.getVersion());
+
+        List<PanierItem> items = new ArrayList<>(panier.getItems());
+        items.sort(Comparator.comparing(PanierItem::getId));
+        List<AgregatPanier.Ligne> lignes = new ArrayList<>(items.size());
+        for (PanierItem item : items) {
+            lignes.add(creerLigne(item, produits.get(item.getProduit().getId())));
+        }
+        tarifer(lignes, produits);
+        lignes.forEach(agregat::chargerLigne);
+        return agregat;
+    }
+
     private Panier creerNouveauPanier(Client client) {
         log.info("Création d'un nouveau panier pour le client: {}", client.getEmail());
-        
+
         Panier panier = new Panier();
         panier.setClient(client);
         panier.setDateCreation(LocalDateTime.now());
         panier.setActif(true);
-        
+
         return panierRepository.save(panier);
     }
-    
-    private PanierDto convertirPanierVersDto(Panier panier) {
-        PanierDto dto = new PanierDto();
-        dto.setId(panier.getId());
-        dto.setClientId(panier.getClient().getId());
-        dto.setClientNom(panier.getClient().getNom() + " " + panier.getClient().getPrenom());
-        dto.setDateCreation(panier.getDateCreation());
-        dto.setDateModification(panier.getDateModification());
-        dto.setActif(panier.isActif());
-        
-        // Convertir les items
-        dto.setItems(panier.getItems().stream()
-                .map(this::convertirItemVersDto)
+
+    private Map<Long, Produit> chargerProduits(List<AgregatPanier.Ligne> lignes) {
+        if (lignes.isEmpty()) {
+            return Map.of();
+        }
+        return produitRepository.findAllByIdInAvecVendeur(lignes.stream()
+                        .map(ligne -> ligne.produitId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Produit::getId, Function.identity()));
+    }
+
+    private AgregatPanier.Ligne creerLigne(PanierItem item, Produit produit) {
+        return new AgregatPanier.Ligne(item.getId(), item.getProduit().getId(), item.getTaille(), item.getCouleur(),
+                item.getOptionsPersonnalisation(), item.getDateAjout(), item.getQuantite(), item.getPrixUnitaire());
+    }
+
+    /**
+     * Recopie les informations produit dans les lignes et calcule leurs prix finaux (avec commission) en une passe
+     */
+    private void tarifer(List<AgregatPanier.Ligne> lignes, Map<Long, Produit> produits) {
+        List<AgregatPanier.Ligne> lignesTarifees = lignes.stream()
+                .filter(ligne -> produits.containsKey(ligne.produitId))
+                .collect(Collectors.toList());
+
+        for (AgregatPanier.Ligne ligne : lignesTarifees) {
+            Produit produit = produits.get(ligne.produitId);
+            ligne.produitNom = produit.getNom();
+            ligne.produitDescription = produit.getDescription();
+            ligne.produitPhotos = produit.getPhotos() != null ? List.copyOf(produit.getPhotos()) : List.of();
+            ligne.stockDisponible = produit.getStock();
+            if (produit.getVendeur() != null) {
+                ligne.vendeurNom = produit.getVendeur().getNom() + " " + produit.getVendeur().getPrenom();
+                ligne.nomBoutique = produit.getVendeur().getNomBoutique();
+            }
+        }
+
+        List<DetailPrixDto> detailsPrix = calculPrixService.calculerPrixFinaux(lignesTarifees.stream()
+                .map(ligne -> {
+                    Produit produit = produits.get(ligne.produitId);
+                    return new DemandePrixDto(ligne.prixUnitaire,
+                            produit.getVendeur() != null ? produit.getVendeur().getId() : null);
+                })
                 .collect(Collectors.toList()));
-        
-        // Calculer les totaux avec les prix avec commission
-        BigDecimal montantTotalAvecCommission = dto.getItems().stream()
-                .map(PanierItemDto::getSousTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        dto.setMontantTotal(montantTotalAvecCommission);
-        dto.setNombreTotalArticles(panier.getNombreTotalArticles());
-        
+        for (int i = 0; i < lignesTarifees.size(); i++) {
+            lignesTarifees.get(i).prixFinal = detailsPrix.get(i).getPrixFinal();
+        }
+    }
+
+    private AgregatPanier.Ligne obtenirLigne(AgregatPanier agregat, Long itemId) {
+        AgregatPanier.Ligne ligne = agregat.lignes.get(itemId);
+        if (ligne == null) {
+            throw new RuntimeException("Item non trouvé dans votre panier avec ID: " + itemId);
+        }
+        return ligne;
+    }
+
+    private SynchronisationPanierDto.Changement changement(AgregatPanier.Ligne ligne, Produit produit,
+                                                          SynchronisationPanierDto.TypeChangement type,
+                                                          BigDecimal ancienPrix, BigDecimal nouveauPrix,
+                                                          Integer ancienneQuantite, Integer nouvelleQuantite) {
+        return new SynchronisationPanierDto.Changement(ligne.itemId, ligne.produitId,
+                produit != null ? produit.getNom() : ligne.produitNom, type,
+                ancienPrix, nouveauPrix, ancienneQuantite, nouvelleQuantite);
+    }
+
+    private void verifierStock(Integer stock, int quantite) {
+        int disponible = stock != null ? stock : 0;
+        if (disponible < quantite) {
+            throw new RuntimeException("Stock insuffisant. Stock disponible: " + disponible);
+        }
+    }
+
+    /**
+     * Écrit un panier en attente dans sa propre transaction, sous son verrou d'écriture ; en cas d'échec
+     * il reste en attente, en cas de conflit il est retiré de la mémoire
+     */
+    private boolean ecrirePanier(AgregatPanier agregat) {
+        AgregatPanier.Ecriture ecriture;
+        synchronized (agregat) {
+            if (!agregat.aEcrire()) {
+                enAttente.remove(agregat.clientId, agregat);
+                return false;
+            }
+            ecriture = agregat.preparerEcriture();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(statut -> ecrire(ecriture));
+        } catch (OptimisticLockingFailureException e) {
+            signalerConflit(agregat);
+            return false;
+        } catch (RuntimeException e) {
+            nombreEchecs.incrementAndGet();
+            log.error("Erreur lors de l'écriture du panier du client {} (reste en attente)", agregat.clientId, e);
+            return false;
+        }
+
+        confirmerEcriture(agregat, ecriture);
+        return true;
+    }
+
+    /**
+     * Une instruction par nature de modification : date de modification, nombre d'articles et version
+     * du panier (garde optimiste, en premier), mises à jour des items en un lot JDBC, suppression des
+     * items retirés
+     */
+    private void ecrire(AgregatPanier.Ecriture ecriture) {
+        Timestamp dateModification = ecriture.dateModification() != null
+                ? Timestamp.valueOf(ecriture.dateModification()) : null;
+        if (jdbcTemplate.update(REQUETE_MAJ_PANIER, dateModification, ecriture.nombreArticles(),
+                ecriture.panierId(), ecriture.version()) == 0) {
+            throw new OptimisticLockingFailureException("Panier modifié ou supprimé ailleurs, ID: " + ecriture.panierId());
+        }
+        if (!ecriture.lignes().isEmpty()) {
+            jdbcTemplate.batchUpdate(REQUETE_MAJ_ITEM, ecriture.lignes().stream()
+                    .map(ligne -> new Object[]{ligne.quantite(), ligne.prixUnitaire(), ligne.itemId()})
+                    .collect(Collectors.toList()));
+        }
+        if (!ecriture.retraits().isEmpty()) {
+            panierItemRepository.deleteAllByIdInBatch(ecriture.retraits());
+        }
+    }
+
+    /**
+     * Panier écrit ailleurs depuis le chargement de l'agrégat : ses modifications en mémoire sont abandonnées
+     */
+    private void signalerConflit(AgregatPanier agregat) {
+        nombreConflits.incrementAndGet();
+        log.warn("Panier du client {} modifié ailleurs : modifications en mémoire abandonnées, rechargement depuis la base",
+                agregat.clientId);
+        oublier(agregat.clientId);
+    }
+
+    private void confirmerEcriture(AgregatPanier agregat, AgregatPanier.Ecriture ecriture) {
+        synchronized (agregat) {
+            agregat.confirmerEcriture(ecriture);
+            if (!agregat.aEcrire()) {
+                enAttente.remove(agregat.clientId, agregat);
+            }
+        }
+        paniersEcrits.incrementAndGet();
+    }
+
+    /**
+     * Supprime un lot de paniers inactifs ; renvoie le dernier ID parcouru pour le lot suivant
+     */
+    private LotPurge purgerLot(LocalDateTime limite, long depuisId) {
+        List<long[]> candidats = jdbcTemplate.query(REQUETE_PANIERS_ABANDONNES,
+                (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                depuisId, Timestamp.valueOf(limite), tailleLotPurge);
+        if (candidats.isEmpty()) {
+            return new LotPurge(depuisId, 0, List.of(), 0);
+        }
+
+        List<Object[]> panierIds = new ArrayList<>();
+        List<Long> clientIds = new ArrayList<>();
+        for (long[] candidat : candidats) {
+            // Panier en mémoire : utilisé depuis, ou modifications pas encore écrites
+            if (paniers.asMap().containsKey(candidat[1]) || enAttente.containsKey(candidat[1])) {
+                continue;
+            }
+            panierIds.add(new Object[]{candidat[0]});
+            clientIds.add(candidat[1]);
+        }
+
+        int items = 0;
+        if (!panierIds.isEmpty()) {
+            items = somme(jdbcTemplate.batchUpdate(REQUETE_SUPPRIMER_ITEMS, panierIds));
+            jdbcTemplate.batchUpdate(REQUETE_SUPPRIMER_PANIER, panierIds);
+        }
+        return new LotPurge(candidats.get(candidats.size() - 1)[0], candidats.size(), clientIds, items);
+    }
+
+    private static int somme(int[] lignesModifiees) {
+        int total = 0;
+        for (int lignes : lignesModifiees) {
+            // Certains pilotes ne renvoient pas le nombre de lignes d'une instruction du lot
+            total += Math.max(lignes, 0);
+        }
+        return total;
+    }
+
+    /**
+     * Pause entre deux lots de purge ; false si le thread est interrompu (arrêt de l'application)
+     */
+    private boolean pause() {
+        if (pausePurgeMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausePurgeMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void oublier(Long clientId) {
+        enAttente.remove(clientId);
+        paniers.asMap().computeIfPresent(clientId, (id, agregat) -> {
+            detacher(agregat);
+            return null;
+        });
+    }
+
+    private record LotPurge(long dernierId, int parcourus, List<Long> clientIds, int items) {
+    }
+
+    private void detacher(AgregatPanier agregat) {
+        synchronized (agregat) {
+            agregat.detache = true;
+        }
+    }
+
+    /**
+     * Fin de la transaction de l'appelant : le panier en mémoire est retiré et sera rechargé depuis la base
+     */
+    private void oublierApresTransaction(Long clientId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            oublier(clientId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int statut) {
+                oublier(clientId);
+            }
+        });
+    }
+
+    private PanierDto convertirAgregatVersDto(AgregatPanier agregat) {
+        PanierDto dto = new PanierDto();
+        dto.setId(agregat.panierId);
+        dto.setClientId(agregat.clientId);
+        dto.setClientNom(agregat.clientNom);
+        dto.setDateCreation(agregat.dateCreation);
+        dto.setDateModification(agregat.dateModification);
+        dto.setActif(true);
+
+        List<PanierItemDto> itemsDto = new ArrayList<>(agregat.lignes.size());
+        for (AgregatPanier.Ligne ligne : agregat.lignes.values()) {
+            itemsDto.add(convertirLigneVersDto(ligne));
+        }
+        dto.setItems(itemsDto);
+
+        // Totaux avec les prix avec commission
+        dto.setMontantTotal(agregat.getMontantTotal());
+        dto.setNombreTotalArticles(agregat.getNombreTotalArticles());
+
         return dto;
     }
-    
-    private PanierItemDto convertirItemVersDto(PanierItem item) {
+
+    private PanierItemDto convertirLigneVersDto(AgregatPanier.Ligne ligne) {
         PanierItemDto dto = new PanierItemDto();
-        dto.setId(item.getId());
-        dto.setProduitId(item.getProduit().getId());
-        dto.setProduitNom(item.getProduit().getNom());
-        dto.setProduitDescription(item.getProduit().getDescription());
-        dto.setProduitPhotos(item.getProduit().getPhotos());
-        
-        // Calculer le prix avec commission pour le client
-        BigDecimal prixVendeur = item.getPrixUnitaire();
-        Long vendeurId = item.getProduit().getVendeur() != null 
-            ? item.getProduit().getVendeur().getId() 
-            : null;
-        
-        DetailPrixDto detailPrix = vendeurId != null 
-            ? calculPrixService.calculerPrixFinal(prixVendeur, vendeurId)
-            : calculPrixService.calculerPrixFinal(prixVendeur);
-        
+        dto.setId(ligne.itemId);
+        dto.setProduitId(ligne.produitId);
+        dto.setProduitNom(ligne.produitNom);
+        dto.setProduitDescription(ligne.produitDescription);
+        dto.setProduitPhotos(ligne.produitPhotos);
+
         // Utiliser le prix final (avec commission) pour le client
-        dto.setPrixUnitaire(detailPrix.getPrixFinal());
-        
-        // Calculer le sous-total avec le prix final et la quantité
-        BigDecimal sousTotal = detailPrix.getPrixFinal().multiply(BigDecimal.valueOf(item.getQuantite()));
-        dto.setSousTotal(sousTotal);
-        
-        dto.setQuantite(item.getQuantite());
-        dto.setTaille(item.getTaille());
-        dto.setCouleur(item.getCouleur());
-        dto.setOptionsPersonnalisation(item.getOptionsPersonnalisation());
-        dto.setDateAjout(item.getDateAjout());
-        dto.setStockDisponible(item.getProduit().getStock());
-        
-        if (item.getProduit().getVendeur() != null) {
-            dto.setVendeurNom(item.getProduit().getVendeur().getNom() + " " + 
-                             item.getProduit().getVendeur().getPrenom());
-            dto.setNomBoutique(item.getProduit().getVendeur().getNomBoutique());
-        }
-        
+        dto.setPrixUnitaire(ligne.prixFinal);
+        dto.setSousTotal(ligne.getSousTotal().versBigDecimal());
+
+        dto.setQuantite(ligne.quantite);
+        dto.setTaille(ligne.taille);
+        dto.setCouleur(ligne.couleur);
+        dto.setOptionsPersonnalisation(ligne.optionsPersonnalisation);
+        dto.setDateAjout(ligne.dateAjout);
+        dto.setStockDisponible(ligne.stockDisponible);
+        dto.setVendeurNom(ligne.vendeurNom);
+        dto.setNomBoutique(ligne.nomBoutique);
+
         return dto;
     }
 }
-
-
-
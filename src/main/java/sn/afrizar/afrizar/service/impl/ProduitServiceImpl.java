@@ -6,6 +6,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import sn.afrizar.afrizar.dto.CreateProduitDto;
 import sn.afrizar.afrizar.dto.ProduitDto;
@@ -14,8 +15,11 @@ import sn.afrizar.afrizar.model.Produit;
 import sn.afrizar.afrizar.model.Vendeur;
 import sn.afrizar.afrizar.repository.CategorieRepository;
 import sn.afrizar.afrizar.repository.ProduitRepository;
+import sn.afrizar.afrizar.repository.ProduitSpecifications;
 import sn.afrizar.afrizar.repository.VendeurRepository;
+import sn.afrizar.afrizar.service.CompteurEngagementService;
 import sn.afrizar.afrizar.service.ProduitService;
+import sn.afrizar.afrizar.service.ReservationStockService;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -35,6 +39,8 @@ public class ProduitServiceImpl implements ProduitService {
     private final ProduitRepository produitRepository;
     private final VendeurRepository vendeurRepository;
     private final CategorieRepository categorieRepository;
+    private final CompteurEngagementService compteurEngagementService;
+    private final ReservationStockService reservationStockService;
     
     @Override
     public ProduitDto creerProduit(CreateProduitDto createProduitDto) {
@@ -216,7 +222,8 @@ public class ProduitServiceImpl implements ProduitService {
     public Page<ProduitDto> rechercherProduitsAvecFiltres(String nom, Long categorieId, Long vendeurId, 
                                                          BigDecimal prixMin, BigDecimal prixMax, 
                                                          Produit.Qualite qualite, Pageable pageable) {
-        return produitRepository.findProduitsAvecFiltres(nom, categorieId, vendeurId, prixMin, prixMax, qualite, pageable)
+        return produitRepository.findAll(
+                        ProduitSpecifications.actifsAvecFiltres(nom, categorieId, vendeurId, prixMin, prixMax, qualite), pageable)
                 .map(this::convertirEntityVersDto);
     }
     
@@ -262,16 +269,12 @@ public class ProduitServiceImpl implements ProduitService {
     }
     
     @Override
-    public ProduitDto incrementerVues(Long produitId) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void incrementerVues(Long produitId) {
         log.debug("Incrémentation du nombre de vues pour le produit ID: {}", produitId);
         
-        Produit produit = produitRepository.findById(produitId)
-                .orElseThrow(() -> new RuntimeException("Produit non trouvé avec ID: " + produitId));
-        
-        produit.setNombreVues(produit.getNombreVues() + 1);
-        Produit produitMisAJour = produitRepository.save(produit);
-        
-        return convertirEntityVersDto(produitMisAJour);
+        // Écrit en base par lots ; l'appelant a vérifié que le produit existe
+        compteurEngagementService.incrementer(CompteurEngagementService.Compteur.VUES_PRODUIT, produitId);
     }
     
     @Override
@@ -282,20 +285,17 @@ public class ProduitServiceImpl implements ProduitService {
             throw new RuntimeException("La note doit être comprise entre 0 et 5");
         }
         
+        // Mise à jour atomique en SQL : pas de lecture préalable, pas de mise à jour perdue
+        if (produitRepository.ajouterEvaluation(produitId, note.setScale(2, RoundingMode.HALF_UP)) == 0) {
+            throw new RuntimeException("Produit non trouvé avec ID: " + produitId);
+        }
+        
         Produit produit = produitRepository.findById(produitId)
                 .orElseThrow(() -> new RuntimeException("Produit non trouvé avec ID: " + produitId));
         
-        // Calculer la nouvelle moyenne
-        BigDecimal sommeTotale = produit.getNoteMoyenne().multiply(BigDecimal.valueOf(produit.getNombreEvaluations()));
-        sommeTotale = sommeTotale.add(note);
-        produit.setNombreEvaluations(produit.getNombreEvaluations() + 1);
-        produit.setNoteMoyenne(sommeTotale.divide(BigDecimal.valueOf(produit.getNombreEvaluations()), 1, RoundingMode.HALF_UP));
-        
-        Produit produitMisAJour = produitRepository.save(produit);
-        
         log.info("Évaluation ajoutée. Nouvelle moyenne: {} ({} évaluations)", 
-                produit.getNoteMoyenne(), produit.getNombreEvaluations());
-        return convertirEntityVersDto(produitMisAJour);
+                produit.calculerNoteMoyenne(), produit.getNombreEvaluations());
+        return convertirEntityVersDto(produit);
     }
     
     @Override
@@ -327,20 +327,18 @@ public class ProduitServiceImpl implements ProduitService {
     public ProduitDto reduireStock(Long produitId, Integer quantite) {
         log.info("Réduction du stock pour le produit ID: {} de {}", produitId, quantite);
         
+        // Décrément conditionnel : pas de lecture-modification-écriture, donc pas de survente concurrente
+        int lignesModifiees = produitRepository.decrementerStock(produitId, quantite);
+        
         Produit produit = produitRepository.findById(produitId)
                 .orElseThrow(() -> new RuntimeException("Produit non trouvé avec ID: " + produitId));
         
-        if (produit.getStock() == null || produit.getStock() < quantite) {
+        if (lignesModifiees == 0) {
             throw new RuntimeException("Stock insuffisant. Disponible: " + produit.getStock() + ", Demandé: " + quantite);
         }
         
-        produit.setStock(produit.getStock() - quantite);
-        mettreAJourDisponibilite(produit);
-        
-        Produit produitMisAJour = produitRepository.save(produit);
-        
         log.info("Stock réduit avec succès. Nouveau stock: {}", produit.getStock());
-        return convertirEntityVersDto(produitMisAJour);
+        return convertirEntityVersDto(produit);
     }
     
     @Override
@@ -355,6 +353,22 @@ public class ProduitServiceImpl implements ProduitService {
         return produitRepository.getMoyennePrix();
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenirStatistiquesCategorie(Long categorieId) {
+        Object[] sommes = produitRepository.calculerStatistiquesCategorie(categorieId).get(0);
+        long nombreProduits = ((Number) sommes[0]).longValue();
+        BigDecimal sommePrix = (BigDecimal) sommes[1];
+        
+        Map<String, Object> statistiques = new HashMap<>();
+        statistiques.put("nombreProduits", ((Number) sommes[3]).longValue());
+        statistiques.put("prixMoyen", nombreProduits > 0
+                ? sommePrix.divide(BigDecimal.valueOf(nombreProduits), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        statistiques.put("stockTotal", ((Number) sommes[2]).intValue());
+        return statistiques;
+    }
+    
     // ===================== MÉTHODES D'ADMINISTRATION =====================
     
     @Override
@@ -461,6 +475,7 @@ public class ProduitServiceImpl implements ProduitService {
         dto.setPhotos(produit.getPhotos());
         dto.setPrix(produit.getPrix());
         dto.setStock(produit.getStock());
+        dto.setQuantiteDisponible(reservationStockService.calculerQuantiteDisponible(produit));
         dto.setDelaiProduction(produit.getDelaiProduction());
         dto.setPoids(produit.getPoids());
         dto.setTaillesDisponibles(produit.getTaillesDisponibles());
@@ -475,8 +490,9 @@ public class ProduitServiceImpl implements ProduitService {
         dto.setOptionsPersonnalisation(produit.getOptionsPersonnalisation());
         dto.setStatut(produit.getStatut());
         dto.setDisponibilite(produit.getDisponibilite());
-        dto.setNombreVues(produit.getNombreVues());
-        dto.setNoteMoyenne(produit.getNoteMoyenne());
+        dto.setNombreVues((produit.getNombreVues() != null ? produit.getNombreVues() : 0L)
+                + compteurEngagementService.obtenirEnAttente(CompteurEngagementService.Compteur.VUES_PRODUIT, produit.getId()));
+        dto.setNoteMoyenne(produit.calculerNoteMoyenne());
         dto.setNombreEvaluations(produit.getNombreEvaluations());
         dto.setDateCreation(produit.getDateCreation());
         dto.setDateModification(produit.getDateModification());
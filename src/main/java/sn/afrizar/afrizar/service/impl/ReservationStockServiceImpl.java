@@ -0,0 +1,300 @@
+package sn.afrizar.afrizar.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.afrizar.afrizar.dto.ReservationPanierDto;
+import sn.afrizar.afrizar.model.Panier;
+import sn.afrizar.afrizar.model.PanierItem;
+import sn.afrizar.afrizar.model.Produit;
+import sn.afrizar.afrizar.model.ReservationStock;
+import sn.afrizar.afrizar.repository.PanierRepository;
+import sn.afrizar.afrizar.repository.ProduitRepository;
+import sn.afrizar.afrizar.repository.ReservationStockRepository;
+import sn.afrizar.afrizar.service.PanierService;
+import sn.afrizar.afrizar.service.ReservationStockService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Réservations de stock avec durée de vie.
+ *
+ * La décision de réserver se prend en base : les lignes produits sont verrouillées (FOR UPDATE, dans l'ordre
+ * des ID) puis le stock est comparé à la somme des réservations non expirées des autres clients.
+ * Deux checkouts concurrents sur les dernières unités sont ainsi sérialisés, y compris entre instances.
+ *
+ * L'affichage du disponible à la vente lit un index en mémoire (produit -> quantité retenue), mis à jour
+ * après commit et reconstruit depuis la base à chaque balayage : il peut avoir un balayage de retard sur
+ * les autres instances, ce qui est acceptable pour l'affichage mais jamais utilisé pour décider.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ReservationStockServiceImpl implements ReservationStockService {
+
+    private final ReservationStockRepository reservationStockRepository;
+    private final ProduitRepository produitRepository;
+    private final PanierRepository panierRepository;
+    private final PanierService panierService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.reservations.duree-minutes:15}")
+    private long dureeMinutes;
+
+    @Value("${app.reservations.taille-lot-balayage:500}")
+    private int tailleLotBalayage;
+
+    // Quantité retenue par produit ; les produits sans réservation active n'ont pas d'entrée
+    private volatile ConcurrentHashMap<Long, Integer> index = new ConcurrentHashMap<>();
+
+    private final AtomicLong reservationsCreees = new AtomicLong();
+    private final AtomicLong reservationsRefusees = new AtomicLong();
+    private final AtomicLong reservationsConfirmees = new AtomicLong();
+    private final AtomicLong reservationsExpirees = new AtomicLong();
+    private volatile LocalDateTime dateDernierBalayage;
+
+    @Override
+    public ReservationPanierDto reserverPanier(Long clientId) {
+        log.info("Réservation du stock du panier pour le client ID: {}", clientId);
+
+        // Les modifications du panier encore en mémoire sont écrites avant sa lecture
+        panierService.persisterPanier(clientId);
+        Panier panier = panierRepository.findByClientIdAndActifTrue(clientId)
+                .orElseThrow(() -> new RuntimeException("Panier non trouvé pour le client ID: " + clientId));
+        if (panier.getItems().isEmpty()) {
+            throw new RuntimeException("Impossible de réserver le stock d'un panier vide");
+        }
+
+        return reserverArticles(clientId, panier.getItems());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public ReservationPanierDto reserverArticles(Long clientId, Collection<PanierItem> items) {
+        // Quantité demandée par produit (un produit peut figurer sur plusieurs lignes, ex: tailles différentes)
+        Map<Long, Integer> demandes = new TreeMap<>();
+        for (PanierItem item : items) {
+            demandes.merge(item.getProduit().getId(), item.getQuantite(), Integer::sum);
+        }
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        Map<Long, Integer> variations = new HashMap<>();
+
+        // Renouvellement : les réservations précédentes du client sont remplacées
+        for (ReservationStock precedente : reservationStockRepository.findByClientIdAndStatut(clientId, ReservationStock.StatutReservation.ACTIVE)) {
+            precedente.setStatut(ReservationStock.StatutReservation.LIBEREE);
+            variations.merge(precedente.getProduitId(), -precedente.getQuantite(), Integer::sum);
+        }
+
+        List<Produit> produits = verrouillerEtVerifier(clientId, demandes, maintenant);
+
+        ReservationPanierDto dto = new ReservationPanierDto();
+        dto.setClientId(clientId);
+        dto.setDateExpiration(maintenant.plusMinutes(dureeMinutes));
+
+        List<ReservationStock> reservations = new ArrayList<>();
+        for (Produit produit : produits) {
+            int demandee = demandes.get(produit.getId());
+            ReservationStock reservation = new ReservationStock();
+            reservation.setProduitId(produit.getId());
+            reservation.setClientId(clientId);
+            reservation.setQuantite(demandee);
+            reservation.setDateCreation(maintenant);
+            reservation.setDateExpiration(dto.getDateExpiration());
+            reservations.add(reservation);
+
+            variations.merge(produit.getId(), demandee, Integer::sum);
+            dto.getQuantitesReservees().put(produit.getId(), demandee);
+        }
+
+        reservationStockRepository.saveAll(reservations);
+        reservationsCreees.addAndGet(reservations.size());
+        appliquerApresCommit(variations);
+
+        log.debug("{} réservation(s) de stock pour le client {} jusqu'au {}", reservations.size(), clientId, dto.getDateExpiration());
+        return dto;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void verifierDisponibilite(Long clientId, Map<Long, Integer> demandes) {
+        verrouillerEtVerifier(clientId, new TreeMap<>(demandes), LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void confirmerReservations(Long clientId, Long commandeId) {
+        Map<Long, Integer> variations = new HashMap<>();
+        List<ReservationStock> reservations = reservationStockRepository.findByClientIdAndStatut(clientId, ReservationStock.StatutReservation.ACTIVE);
+        for (ReservationStock reservation : reservations) {
+            reservation.setStatut(ReservationStock.StatutReservation.CONFIRMEE);
+            reservation.setCommandeId(commandeId);
+            variations.merge(reservation.getProduitId(), -reservation.getQuantite(), Integer::sum);
+        }
+        reservationsConfirmees.addAndGet(reservations.size());
+        appliquerApresCommit(variations);
+    }
+
+    @Override
+    public void libererReservations(Long clientId) {
+        log.info("Libération des réservations de stock du client ID: {}", clientId);
+
+        Map<Long, Integer> variations = new HashMap<>();
+        for (ReservationStock reservation : reservationStockRepository.findByClientIdAndStatut(clientId, ReservationStock.StatutReservation.ACTIVE)) {
+            reservation.setStatut(ReservationStock.StatutReservation.LIBEREE);
+            variations.merge(reservation.getProduitId(), -reservation.getQuantite(), Integer::sum);
+        }
+        appliquerApresCommit(variations);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int obtenirQuantiteReservee(Long produitId) {
+        return produitId != null ? index.getOrDefault(produitId, 0) : 0;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int calculerQuantiteDisponible(Produit produit) {
+        int stock = produit.getStock() != null ? produit.getStock() : 0;
+        return Math.max(stock - obtenirQuantiteReservee(produit.getId()), 0);
+    }
+
+    /**
+     * Balayage périodique : expire par lots les réservations échues, puis reconstruit l'index
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(initialDelayString = "${app.reservations.delai-demarrage-ms:5000}",
+               fixedDelayString = "${app.reservations.intervalle-balayage-ms:30000}")
+    public int expirerReservations() {
+        int total = 0;
+        while (true) {
+            // Un lot par transaction courte, verrouillé en SKIP LOCKED
+            Integer expirees = transactionTemplate.execute(statut -> {
+                List<ReservationStock> lot = reservationStockRepository.findReservationsExpirees(
+                        LocalDateTime.now(), PageRequest.of(0, tailleLotBalayage));
+                lot.forEach(reservation -> reservation.setStatut(ReservationStock.StatutReservation.EXPIREE));
+                return lot.size();
+            });
+            total += expirees != null ? expirees : 0;
+            if (expirees == null || expirees < tailleLotBalayage) {
+                break;
+            }
+        }
+
+        reconstruireIndex();
+        reservationsExpirees.addAndGet(total);
+        dateDernierBalayage = LocalDateTime.now();
+        if (total > 0) {
+            log.info("{} réservation(s) de stock expirée(s) libérée(s)", total);
+        }
+        return total;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> obtenirStatistiques() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("produitsAvecReservations", index.size());
+        stats.put("quantiteTotaleReservee", index.values().stream().mapToLong(Integer::longValue).sum());
+        stats.put("reservationsCreees", reservationsCreees.get());
+        stats.put("reservationsRefusees", reservationsRefusees.get());
+        stats.put("reservationsConfirmees", reservationsConfirmees.get());
+        stats.put("reservationsExpirees", reservationsExpirees.get());
+        stats.put("dureeMinutes", dureeMinutes);
+        stats.put("dateDernierBalayage", dateDernierBalayage);
+        return stats;
+    }
+
+    // ===== MÉTHODES PRIVÉES =====
+
+    /**
+     * Verrouille les produits demandés (FOR UPDATE, dans l'ordre des ID) et vérifie que le stock, diminué
+     * des réservations actives des autres clients, couvre chaque demande.
+     * Retourne les produits qui consomment du stock (les produits sur commande sont ignorés).
+     */
+    private List<Produit> verrouillerEtVerifier(Long clientId, Map<Long, Integer> demandes, LocalDateTime maintenant) {
+        // Verrou des produits : les réservations et commandes concurrentes des mêmes produits attendent ce commit
+        List<Produit> produits = produitRepository.findAllByIdInPourReservation(demandes.keySet());
+        Map<Long, Integer> reserveesParAutres = versMap(
+                reservationStockRepository.sommerReservationsActivesAutresClients(demandes.keySet(), clientId, maintenant));
+
+        List<Produit> avecStock = new ArrayList<>();
+        for (Produit produit : produits) {
+            // Les produits sur commande ne consomment pas de stock
+            if (produit.getDisponibilite() == Produit.Disponibilite.SUR_COMMANDE) {
+                continue;
+            }
+
+            int demandee = demandes.get(produit.getId());
+            int disponible = (produit.getStock() != null ? produit.getStock() : 0)
+                    - reserveesParAutres.getOrDefault(produit.getId(), 0);
+            if (disponible < demandee) {
+                reservationsRefusees.incrementAndGet();
+                throw new RuntimeException("Stock insuffisant pour le produit: " + produit.getNom() +
+                                         " (disponible: " + Math.max(disponible, 0) + ", demandé: " + demandee + ")");
+            }
+            avecStock.add(produit);
+        }
+        return avecStock;
+    }
+
+    private void reconstruireIndex() {
+        ConcurrentHashMap<Long, Integer> nouvelIndex = new ConcurrentHashMap<>(
+                versMap(reservationStockRepository.sommerReservationsActives(LocalDateTime.now())));
+        index = nouvelIndex;
+    }
+
+    /**
+     * Applique les variations à l'index une fois la transaction validée (rien en cas de rollback)
+     */
+    private void appliquerApresCommit(Map<Long, Integer> variations) {
+        if (variations.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appliquer(variations);
+                }
+            });
+        } else {
+            appliquer(variations);
+        }
+    }
+
+    private void appliquer(Map<Long, Integer> variations) {
+        ConcurrentHashMap<Long, Integer> courant = index;
+        variations.forEach((produitId, variation) -> courant.compute(produitId, (cle, quantite) -> {
+            int nouvelle = (quantite != null ? quantite : 0) + variation;
+            return nouvelle > 0 ? nouvelle : null;
+        }));
+    }
+
+    private static Map<Long, Integer> versMap(List<Object[]> sommes) {
+        Map<Long, Integer> resultat = new HashMap<>();
+        for (Object[] ligne : sommes) {
+            resultat.put((Long) ligne[0], ((Number) ligne[1]).intValue());
+        }
+        return resultat;
+    }
+}
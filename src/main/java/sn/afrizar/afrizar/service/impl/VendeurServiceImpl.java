@@ -11,6 +11,7 @@ import sn.afrizar.afrizar.model.Utilisateur;
 import sn.afrizar.afrizar.model.Vendeur;
 import sn.afrizar.afrizar.repository.ProduitRepository;
 import sn.afrizar.afrizar.repository.VendeurRepository;
+import sn.afrizar.afrizar.service.CalculPrixService;
 import sn.afrizar.afrizar.service.VendeurService;
 
 import java.math.BigDecimal;
@@ -28,6 +29,7 @@ public class VendeurServiceImpl implements VendeurService {
     
     private final VendeurRepository vendeurRepository;
     private final ProduitRepository produitRepository;
+    private final CalculPrixService calculPrixService;
     
     @Override
     public VendeurDto creerVendeur(VendeurDto vendeurDto) {
@@ -119,6 +121,7 @@ public class VendeurServiceImpl implements VendeurService {
         vendeur.setPublie(vendeurDto.isPublie());
         
         Vendeur vendeurMisAJour = vendeurRepository.save(vendeur);
+        calculPrixService.invaliderProfilVendeur(id);
         
         log.info("Vendeur mis à jour avec succès");
         return convertirEntityVersDto(vendeurMisAJour);
@@ -133,6 +136,7 @@ public class VendeurServiceImpl implements VendeurService {
         }
         
         vendeurRepository.deleteById(id);
+        calculPrixService.invaliderProfilVendeur(id);
         log.info("Vendeur supprimé avec succès");
     }
     
@@ -145,6 +149,7 @@ public class VendeurServiceImpl implements VendeurService {
         
         vendeur.setActif(false);
         vendeurRepository.save(vendeur);
+        calculPrixService.invaliderProfilVendeur(id);
         
         log.info("Vendeur désactivé avec succès");
     }
@@ -158,6 +163,7 @@ public class VendeurServiceImpl implements VendeurService {
         
         vendeur.setActif(true);
         Vendeur vendeurMisAJour = vendeurRepository.save(vendeur);
+        calculPrixService.invaliderProfilVendeur(id);
         
         log.info("Vendeur activé avec succès");
         return convertirEntityVersDto(vendeurMisAJour);
@@ -254,6 +260,7 @@ public class VendeurServiceImpl implements VendeurService {
         
         vendeur.setTauxCommissionPersonnalise(tauxCommission);
         Vendeur vendeurMisAJour = vendeurRepository.save(vendeur);
+        calculPrixService.invaliderProfilVendeur(vendeurId);
         
         log.info("Commission personnalisée définie avec succès");
         return convertirEntityVersDto(vendeurMisAJour);
@@ -267,20 +274,17 @@ public class VendeurServiceImpl implements VendeurService {
             throw new RuntimeException("La note doit être comprise entre 0 et 5");
         }
         
+        // Mise à jour atomique en SQL : pas de lecture préalable, pas de mise à jour perdue
+        if (vendeurRepository.ajouterEvaluation(vendeurId, note.setScale(2, RoundingMode.HALF_UP)) == 0) {
+            throw new RuntimeException("Vendeur non trouvé avec ID: " + vendeurId);
+        }
+        
         Vendeur vendeur = vendeurRepository.findById(vendeurId)
                 .orElseThrow(() -> new RuntimeException("Vendeur non trouvé avec ID: " + vendeurId));
         
-        // Calculer la nouvelle moyenne
-        BigDecimal sommeTotale = vendeur.getRating().multiply(BigDecimal.valueOf(vendeur.getNombreEvaluations()));
-        sommeTotale = sommeTotale.add(note);
-        vendeur.setNombreEvaluations(vendeur.getNombreEvaluations() + 1);
-        vendeur.setRating(sommeTotale.divide(BigDecimal.valueOf(vendeur.getNombreEvaluations()), 1, RoundingMode.HALF_UP));
-        
-        Vendeur vendeurMisAJour = vendeurRepository.save(vendeur);
-        
         log.info("Évaluation ajoutée. Nouveau rating: {} ({} évaluations)", 
-                vendeur.getRating(), vendeur.getNombreEvaluations());
-        return convertirEntityVersDto(vendeurMisAJour);
+                vendeur.calculerRating(), vendeur.getNombreEvaluations());
+        return convertirEntityVersDto(vendeur);
     }
     
     @Override
@@ -401,7 +405,7 @@ public class VendeurServiceImpl implements VendeurService {
         dto.setNomBoutique(vendeur.getNomBoutique());
         dto.setDescription(vendeur.getDescription());
         dto.setAdresseBoutique(vendeur.getAdresseBoutique());
-        dto.setRating(vendeur.getRating());
+        dto.setRating(vendeur.calculerRating());
         dto.setNombreEvaluations(vendeur.getNombreEvaluations());
         dto.setTauxCommissionPersonnalise(vendeur.getTauxCommissionPersonnalise());
         dto.setVerifie(vendeur.isVerifie());
@@ -0,0 +1,19 @@
+-- Migration V16: Somme exacte des notes pour les produits et les vendeurs
+-- La moyenne affichée est dérivée de somme_notes / nombre_evaluations ; les deux colonnes
+-- sont incrémentées ensemble par un seul UPDATE, sans lecture préalable de l'entité.
+
+ALTER TABLE produits
+ADD COLUMN IF NOT EXISTS somme_notes DECIMAL(14,2) DEFAULT 0;
+
+ALTER TABLE vendeur
+ADD COLUMN IF NOT EXISTS somme_notes DECIMAL(14,2) DEFAULT 0;
+
+-- Reprise des données existantes : meilleure approximation disponible à partir de la moyenne arrondie
+UPDATE produits
+SET somme_notes = COALESCE(note_moyenne, 0) * COALESCE(nombre_evaluations, 0);
+
+UPDATE vendeur
+SET somme_notes = COALESCE(rating, 0) * COALESCE(nombre_evaluations, 0);
+
+COMMENT ON COLUMN produits.somme_notes IS 'Somme exacte des notes reçues (moyenne = somme_notes / nombre_evaluations)';
+COMMENT ON COLUMN vendeur.somme_notes IS 'Somme exacte des notes reçues (rating = somme_notes / nombre_evaluations)';
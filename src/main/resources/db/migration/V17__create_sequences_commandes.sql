@@ -0,0 +1,24 @@
+-- Migration V17: Séquences pour les identifiants des commandes, lignes, paiements, livraisons et items de panier
+-- Les identifiants IDENTITY empêchaient le batch JDBC des insertions (chaque INSERT devait être exécuté
+-- immédiatement pour obtenir l'ID). Hibernate alloue désormais les IDs par blocs de 50 (optimiseur pooled).
+-- À exécuter avant le déploiement : chaque séquence démarre au-delà du plus grand ID existant.
+
+CREATE SEQUENCE IF NOT EXISTS commandes_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS lignes_commande_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS paiements_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS livraisons_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS panier_items_seq INCREMENT BY 50;
+
+-- Avec l'optimiseur pooled, la valeur renvoyée est la borne haute du bloc alloué :
+-- le premier bloc commence donc juste après le plus grand ID existant
+SELECT setval('commandes_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM commandes), false);
+SELECT setval('lignes_commande_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM lignes_commande), false);
+SELECT setval('paiements_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM paiements), false);
+SELECT setval('livraisons_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM livraisons), false);
+SELECT setval('panier_items_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM panier_items), false);
+
+COMMENT ON SEQUENCE commandes_seq IS 'Identifiants des commandes, alloués par blocs de 50';
+COMMENT ON SEQUENCE lignes_commande_seq IS 'Identifiants des lignes de commande, alloués par blocs de 50';
+COMMENT ON SEQUENCE paiements_seq IS 'Identifiants des paiements, alloués par blocs de 50';
+COMMENT ON SEQUENCE livraisons_seq IS 'Identifiants des livraisons, alloués par blocs de 50';
+COMMENT ON SEQUENCE panier_items_seq IS 'Identifiants des items de panier, alloués par blocs de 50';
@@ -0,0 +1,28 @@
+-- Migration V18: Outbox transactionnelle des traitements post-commande
+-- Les événements sont insérés dans la transaction de la commande, puis traités de façon
+-- asynchrone (paiement initial, livraison, points de fidélité) avec reprise en cas d'échec.
+CREATE SEQUENCE IF NOT EXISTS evenements_outbox_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS evenements_outbox (
+    id BIGINT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    agregat_id BIGINT NOT NULL,
+    payload TEXT,
+    statut VARCHAR(20) NOT NULL DEFAULT 'EN_ATTENTE',
+    tentatives INTEGER NOT NULL DEFAULT 0,
+    prochaine_tentative TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_reservation TIMESTAMP,
+    date_creation TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_traitement TIMESTAMP,
+    derniere_erreur VARCHAR(1000),
+    version BIGINT DEFAULT 0
+);
+
+-- Index partiel : le polling ne parcourt que les événements en attente
+CREATE INDEX IF NOT EXISTS idx_outbox_en_attente ON evenements_outbox(prochaine_tentative, id) WHERE statut = 'EN_ATTENTE';
+CREATE INDEX IF NOT EXISTS idx_outbox_en_cours ON evenements_outbox(date_reservation) WHERE statut = 'EN_COURS';
+CREATE INDEX IF NOT EXISTS idx_outbox_agregat ON evenements_outbox(agregat_id);
+
+COMMENT ON TABLE evenements_outbox IS 'Outbox transactionnelle : traitements post-commande exécutés de façon asynchrone';
+COMMENT ON COLUMN evenements_outbox.statut IS 'EN_ATTENTE, EN_COURS (réservé par un dispatcheur), TRAITE, ECHEC (tentatives épuisées)';
+COMMENT ON COLUMN evenements_outbox.prochaine_tentative IS 'Date avant laquelle l''événement ne doit pas être traité (backoff exponentiel)';
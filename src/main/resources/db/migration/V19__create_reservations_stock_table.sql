@@ -0,0 +1,27 @@
+-- Migration V19: Réservations de stock avec durée de vie
+-- Le stock du panier est retenu au début du checkout, confirmé à la création de la commande
+-- et libéré automatiquement à expiration : disponible à la vente = stock - réservations actives.
+CREATE SEQUENCE IF NOT EXISTS reservations_stock_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS reservations_stock (
+    id BIGINT PRIMARY KEY,
+    produit_id BIGINT NOT NULL,
+    client_id BIGINT NOT NULL,
+    quantite INTEGER NOT NULL CHECK (quantite > 0),
+    statut VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+    date_creation TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_expiration TIMESTAMP NOT NULL,
+    commande_id BIGINT,
+
+    CONSTRAINT fk_reservation_produit FOREIGN KEY (produit_id) REFERENCES produits(id) ON DELETE CASCADE,
+    CONSTRAINT fk_reservation_client FOREIGN KEY (client_id) REFERENCES utilisateur(id) ON DELETE CASCADE
+);
+
+-- Index partiels : seules les réservations actives sont lues (somme par produit, balayage, renouvellement)
+CREATE INDEX IF NOT EXISTS idx_reservation_active_produit ON reservations_stock(produit_id, date_expiration) WHERE statut = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_reservation_active_expiration ON reservations_stock(date_expiration, id) WHERE statut = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_reservation_client ON reservations_stock(client_id, statut);
+
+COMMENT ON TABLE reservations_stock IS 'Réservations temporaires de stock prises au checkout';
+COMMENT ON COLUMN reservations_stock.statut IS 'ACTIVE, CONFIRMEE (commande créée), LIBEREE (checkout abandonné ou renouvelé), EXPIREE';
+COMMENT ON COLUMN reservations_stock.date_expiration IS 'Au-delà de cette date la quantité n''est plus retenue, même avant le passage du balayeur';
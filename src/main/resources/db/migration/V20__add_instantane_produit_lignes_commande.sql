@@ -0,0 +1,29 @@
+-- Migration V20: Instantané du produit sur les lignes de commande
+-- Nom, première photo, vendeur, boutique et poids sont figés à l'achat : l'historique des commandes,
+-- les vues vendeur et le calcul du poids de livraison ne lisent plus la table produits.
+ALTER TABLE lignes_commande ADD COLUMN IF NOT EXISTS nom_produit VARCHAR(255);
+ALTER TABLE lignes_commande ADD COLUMN IF NOT EXISTS photo_produit VARCHAR(500);
+ALTER TABLE lignes_commande ADD COLUMN IF NOT EXISTS vendeur_id BIGINT;
+ALTER TABLE lignes_commande ADD COLUMN IF NOT EXISTS nom_boutique VARCHAR(255);
+ALTER TABLE lignes_commande ADD COLUMN IF NOT EXISTS poids_unitaire DECIMAL(8, 3);
+
+-- Reprise des lignes existantes à partir de l'état actuel des produits.
+-- produit_photos (créée par Hibernate) n'a ni colonne d'ordre ni ID : l'ordre de la liste n'est pas
+-- conservé en base, la photo reprise peut donc être n'importe laquelle des photos du produit
+UPDATE lignes_commande lc
+SET nom_produit = p.nom,
+    poids_unitaire = p.poids,
+    vendeur_id = p.vendeur_id,
+    nom_boutique = v.nom_boutique,
+    photo_produit = (SELECT pp.photo_url FROM produit_photos pp WHERE pp.produit_id = p.id LIMIT 1)
+FROM produits p
+LEFT JOIN vendeur v ON v.id = p.vendeur_id
+WHERE p.id = lc.produit_id AND lc.nom_produit IS NULL;
+
+-- Commandes d'un vendeur sans jointure sur produits
+CREATE INDEX IF NOT EXISTS idx_lignes_commande_vendeur ON lignes_commande(vendeur_id, commande_id);
+
+COMMENT ON COLUMN lignes_commande.nom_produit IS 'Nom du produit au moment de l''achat';
+COMMENT ON COLUMN lignes_commande.photo_produit IS 'Première photo du produit au moment de l''achat';
+COMMENT ON COLUMN lignes_commande.vendeur_id IS 'Vendeur du produit au moment de l''achat';
+COMMENT ON COLUMN lignes_commande.poids_unitaire IS 'Poids unitaire (kg) au moment de l''achat, utilisé pour les frais de livraison';
@@ -0,0 +1,4 @@
+-- Migration V21: Index de la pagination par curseur des commandes
+-- Tri (date_creation, id) décroissant : chaque page reprend l'index après le dernier élément, sans OFFSET.
+CREATE INDEX IF NOT EXISTS idx_commandes_client_date_id ON commandes(client_id, date_creation DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_commandes_date_id ON commandes(date_creation DESC, id DESC);
@@ -0,0 +1,49 @@
+-- Migration V22: Projection des commandes par vendeur
+-- Une ligne par (vendeur, commande) avec le sous-total et la commission des seuls articles du vendeur,
+-- écrite avec la commande et mise à jour à chaque changement de statut.
+CREATE SEQUENCE IF NOT EXISTS commandes_vendeurs_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS commandes_vendeurs (
+    id BIGINT PRIMARY KEY,
+    vendeur_id BIGINT NOT NULL,
+    commande_id BIGINT NOT NULL,
+    numero_commande VARCHAR(255) NOT NULL,
+    client_id BIGINT NOT NULL,
+    sous_total DECIMAL(12,2) NOT NULL DEFAULT 0,
+    commission DECIMAL(12,2) NOT NULL DEFAULT 0,
+    nombre_articles INTEGER NOT NULL DEFAULT 0,
+    statut VARCHAR(20) NOT NULL,
+    date_commande TIMESTAMP NOT NULL,
+    date_modification TIMESTAMP,
+
+    CONSTRAINT uk_commande_vendeur UNIQUE (vendeur_id, commande_id),
+    CONSTRAINT fk_commande_vendeur_vendeur FOREIGN KEY (vendeur_id) REFERENCES vendeur(id) ON DELETE CASCADE,
+    CONSTRAINT fk_commande_vendeur_commande FOREIGN KEY (commande_id) REFERENCES commandes(id) ON DELETE CASCADE
+);
+
+-- Liste des commandes d'un vendeur (plus récentes d'abord) et agrégats par statut
+CREATE INDEX IF NOT EXISTS idx_commandes_vendeurs_vendeur_date ON commandes_vendeurs(vendeur_id, date_commande DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_commandes_vendeurs_vendeur_statut ON commandes_vendeurs(vendeur_id, statut);
+-- Propagation du statut de la commande
+CREATE INDEX IF NOT EXISTS idx_commandes_vendeurs_commande ON commandes_vendeurs(commande_id);
+
+-- Reprise des commandes existantes depuis l'instantané des lignes (V20)
+INSERT INTO commandes_vendeurs (id, vendeur_id, commande_id, numero_commande, client_id, sous_total, commission,
+                                nombre_articles, statut, date_commande)
+SELECT nextval('commandes_vendeurs_seq'), p.vendeur_id, p.commande_id, c.numero_commande, c.client_id,
+       p.sous_total, p.commission, p.nombre_articles, c.statut, c.date_creation
+FROM (
+    SELECT lc.vendeur_id, lc.commande_id,
+           COALESCE(SUM(lc.sous_total), 0) AS sous_total,
+           COALESCE(SUM(lc.commission), 0) AS commission,
+           COALESCE(SUM(lc.quantite), 0) AS nombre_articles
+    FROM lignes_commande lc
+    WHERE lc.vendeur_id IS NOT NULL
+    GROUP BY lc.vendeur_id, lc.commande_id
+) p
+JOIN commandes c ON c.id = p.commande_id
+ON CONFLICT (vendeur_id, commande_id) DO NOTHING;
+
+COMMENT ON TABLE commandes_vendeurs IS 'Projection des commandes par vendeur (listes et chiffre d''affaires vendeur sans jointure)';
+COMMENT ON COLUMN commandes_vendeurs.sous_total IS 'Somme des lignes du vendeur, hors frais de livraison';
+COMMENT ON COLUMN commandes_vendeurs.statut IS 'Copie du statut de la commande';
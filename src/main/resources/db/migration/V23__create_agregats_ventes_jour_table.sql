@@ -0,0 +1,49 @@
+-- Migration V23: Agrégats journaliers des ventes pour les tableaux de bord
+-- Une ligne par (dimension, jour, clé, statut) : incrémentée avec les commandes et leurs changements
+-- de statut, recalculée par la réconciliation nocturne. Les tableaux de bord lisent O(jours) lignes.
+CREATE TABLE IF NOT EXISTS agregats_ventes_jour (
+    dimension VARCHAR(20) NOT NULL,
+    jour DATE NOT NULL,
+    cle BIGINT NOT NULL,
+    statut VARCHAR(20) NOT NULL,
+    nombre_commandes BIGINT NOT NULL DEFAULT 0,
+    nombre_articles BIGINT NOT NULL DEFAULT 0,
+    montant DECIMAL(14,2) NOT NULL DEFAULT 0,
+
+    CONSTRAINT pk_agregats_ventes_jour PRIMARY KEY (dimension, jour, cle, statut)
+);
+
+-- Réconciliation d'une journée (toutes dimensions)
+CREATE INDEX IF NOT EXISTS idx_agregats_ventes_jour ON agregats_ventes_jour(jour);
+
+-- Reprise des commandes existantes
+INSERT INTO agregats_ventes_jour (dimension, jour, cle, statut, nombre_commandes, nombre_articles, montant)
+SELECT 'GLOBAL', CAST(c.date_creation AS DATE), 0, c.statut, COUNT(*),
+       COALESCE(SUM(a.articles), 0), COALESCE(SUM(c.montant_total), 0)
+FROM commandes c
+LEFT JOIN (
+    SELECT commande_id, SUM(quantite) AS articles FROM lignes_commande GROUP BY commande_id
+) a ON a.commande_id = c.id
+GROUP BY CAST(c.date_creation AS DATE), c.statut
+ON CONFLICT DO NOTHING;
+
+INSERT INTO agregats_ventes_jour (dimension, jour, cle, statut, nombre_commandes, nombre_articles, montant)
+SELECT 'VENDEUR', CAST(c.date_creation AS DATE), COALESCE(lc.vendeur_id, 0), c.statut, COUNT(DISTINCT c.id),
+       COALESCE(SUM(lc.quantite), 0), COALESCE(SUM(lc.sous_total), 0)
+FROM lignes_commande lc
+JOIN commandes c ON c.id = lc.commande_id
+GROUP BY CAST(c.date_creation AS DATE), COALESCE(lc.vendeur_id, 0), c.statut
+ON CONFLICT DO NOTHING;
+
+INSERT INTO agregats_ventes_jour (dimension, jour, cle, statut, nombre_commandes, nombre_articles, montant)
+SELECT 'CATEGORIE', CAST(c.date_creation AS DATE), COALESCE(p.categorie_id, 0), c.statut, COUNT(DISTINCT c.id),
+       COALESCE(SUM(lc.quantite), 0), COALESCE(SUM(lc.sous_total), 0)
+FROM lignes_commande lc
+JOIN commandes c ON c.id = lc.commande_id
+JOIN produits p ON p.id = lc.produit_id
+GROUP BY CAST(c.date_creation AS DATE), COALESCE(p.categorie_id, 0), c.statut
+ON CONFLICT DO NOTHING;
+
+COMMENT ON TABLE agregats_ventes_jour IS 'Agrégats journaliers des ventes par statut : GLOBAL (clé 0), VENDEUR et CATEGORIE (clé = ID, 0 sans catégorie)';
+COMMENT ON COLUMN agregats_ventes_jour.jour IS 'Jour de création des commandes agrégées';
+COMMENT ON COLUMN agregats_ventes_jour.montant IS 'Montant total des commandes (GLOBAL) ou sous-total des lignes (VENDEUR, CATEGORIE)';
@@ -0,0 +1,16 @@
+-- Migration V24: Index de la recherche filtrée des produits et des commandes
+-- Les recherches n'émettent plus que les prédicats des filtres renseignés : chaque combinaison
+-- courante (statut + catégorie/vendeur + plage de prix, client/statut + période) dispose d'un index composite.
+CREATE INDEX IF NOT EXISTS idx_produits_statut_categorie_prix ON produits(statut, categorie_id, prix);
+CREATE INDEX IF NOT EXISTS idx_produits_statut_vendeur_prix ON produits(statut, vendeur_id, prix);
+CREATE INDEX IF NOT EXISTS idx_produits_statut_prix ON produits(statut, prix);
+
+-- Recherche par nom « contient » : index trigramme sur le nom en minuscules (LIKE '%...%')
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_produits_nom_trgm ON produits USING gin (LOWER(nom) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_commandes_client_statut_date ON commandes(client_id, statut, date_creation DESC);
+CREATE INDEX IF NOT EXISTS idx_commandes_statut_date ON commandes(statut, date_creation DESC);
+CREATE INDEX IF NOT EXISTS idx_commandes_montant ON commandes(montant_total);
+
+COMMENT ON INDEX idx_produits_nom_trgm IS 'Recherche insensible à la casse par fragment de nom (ProduitSpecifications)';
@@ -0,0 +1,13 @@
+-- Migration V25: Nombre d'articles tenu à jour sur le panier
+-- Le badge du panier (interrogé à chaque page) lit une colonne au lieu de charger les items
+ALTER TABLE paniers ADD COLUMN IF NOT EXISTS nombre_articles INTEGER NOT NULL DEFAULT 0;
+
+-- Reprise des paniers existants
+UPDATE paniers p
+SET nombre_articles = a.total
+FROM (
+    SELECT panier_id, SUM(quantite) AS total FROM panier_items GROUP BY panier_id
+) a
+WHERE a.panier_id = p.id;
+
+COMMENT ON COLUMN paniers.nombre_articles IS 'Somme des quantités des items du panier, mise à jour avec les items';
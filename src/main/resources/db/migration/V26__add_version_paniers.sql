@@ -0,0 +1,6 @@
+-- Migration V26: Version des paniers
+-- Chaque écriture de la ligne exige la version lue et l'incrémente : une instance dont le panier
+-- en mémoire est périmé voit son écriture refusée et recharge le panier depuis la base
+ALTER TABLE paniers ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN paniers.version IS 'Version du panier, incrémentée à chaque écriture (verrouillage optimiste)';
@@ -3,7 +3,7 @@ package sn.afrizar.afrizar;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "app.identifiants.noeud=0")
 class AfrizarApplicationTests {
 
 	@Test
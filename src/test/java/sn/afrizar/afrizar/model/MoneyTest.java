@@ -0,0 +1,116 @@
+package sn.afrizar.afrizar.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Money comparé aux calculs BigDecimal en HALF_UP qu'il remplace (prix, commissions, frais de livraison)
+ */
+class MoneyTest {
+
+    private static final BigDecimal CENT = BigDecimal.valueOf(100);
+
+    @Test
+    void conversionDepuisBigDecimalArrondieAuCentime() {
+        for (String montant : new String[]{"0", "1.005", "-1.005", "2.345", "-2.345", "0.004", "-0.004",
+                "0.005", "-0.005", "19999.995", "12.3", "7"}) {
+            BigDecimal valeur = new BigDecimal(montant);
+            assertEquals(valeur.setScale(2, RoundingMode.HALF_UP), Money.de(valeur).versBigDecimal(), montant);
+        }
+        assertEquals(Money.ZERO, Money.de(null));
+        assertEquals(Money.deCentimes(150_000), Money.deFcfa(1_500));
+    }
+
+    @Test
+    void conversionVersBigDecimalAEchelleDeux() {
+        assertEquals(new BigDecimal("1.23"), Money.deCentimes(123).versBigDecimal());
+        assertEquals(new BigDecimal("-0.05"), Money.deCentimes(-5).versBigDecimal());
+        assertEquals(new BigDecimal("0.00"), Money.ZERO.versBigDecimal());
+        assertEquals(new BigDecimal("92233720368547758.07"), Money.deCentimes(Long.MAX_VALUE).versBigDecimal());
+    }
+
+    @Test
+    void pourcentageCommeLeCalculBigDecimal() {
+        // Demi-centimes exacts : arrondis en s'éloignant de zéro
+        assertPourcentage("0.50", "1.00");
+        assertPourcentage("-0.50", "1.00");
+        assertPourcentage("0.05", "10.00");
+        assertPourcentage("-0.05", "10.00");
+        assertPourcentage("12.50", "10.00");
+        assertPourcentage("0.01", "49.99");
+        assertPourcentage("0.01", "50.00");
+        assertPourcentage("25000.00", "8.00");
+        assertPourcentage("99999.99", "12.34");
+
+        Random aleatoire = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal montant = BigDecimal.valueOf(aleatoire.nextLong(-1_000_000_000L, 1_000_000_000L), 2);
+            BigDecimal taux = BigDecimal.valueOf(aleatoire.nextLong(0, 10_001), 2);
+            assertPourcentage(montant.toPlainString(), taux.toPlainString());
+        }
+    }
+
+    @Test
+    void foisMilliemesCommeLeCalculBigDecimal() {
+        assertFoisMilliemes("0.01", "0.5");
+        assertFoisMilliemes("-0.01", "0.5");
+        assertFoisMilliemes("0.03", "0.5");
+        assertFoisMilliemes("-0.03", "0.5");
+        assertFoisMilliemes("1500.00", "2.345");
+        assertFoisMilliemes("0.10", "0.005");
+        assertFoisMilliemes("0.10", "0.015");
+
+        Random aleatoire = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal montant = BigDecimal.valueOf(aleatoire.nextLong(-1_000_000_000L, 1_000_000_000L), 2);
+            BigDecimal quantite = BigDecimal.valueOf(aleatoire.nextLong(0, 100_000), 3);
+            assertFoisMilliemes(montant.toPlainString(), quantite.toPlainString());
+        }
+    }
+
+    @Test
+    void diviserArrondiCommeHalfUp() {
+        long[] dividendes = {0, 4, 5, 6, 14, 15, 16, -4, -5, -6, -14, -15, -16, 4_999, 5_000, -4_999, -5_000,
+                Long.MAX_VALUE, Long.MAX_VALUE - 5, Long.MIN_VALUE, Long.MIN_VALUE + 5};
+        for (long diviseur : new long[]{10, 1_000, 10_000}) {
+            for (long dividende : dividendes) {
+                long attendu = BigDecimal.valueOf(dividende)
+                        .divide(BigDecimal.valueOf(diviseur), 0, RoundingMode.HALF_UP).longValueExact();
+                assertEquals(attendu, Money.diviserArrondi(dividende, diviseur), dividende + " / " + diviseur);
+            }
+        }
+    }
+
+    @Test
+    void debordementsSignalesAuLieuDEtreTronques() {
+        Money maximum = Money.deCentimes(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> maximum.plus(Money.deCentimes(1)));
+        assertThrows(ArithmeticException.class, () -> Money.deCentimes(Long.MIN_VALUE).moins(Money.deCentimes(1)));
+        assertThrows(ArithmeticException.class, () -> maximum.fois(2));
+        assertThrows(ArithmeticException.class, () -> maximum.pourcentage(800));
+        assertThrows(ArithmeticException.class, () -> maximum.foisMilliemes(1_500));
+        assertThrows(ArithmeticException.class, () -> Money.deFcfa(Long.MAX_VALUE));
+        assertThrows(ArithmeticException.class, () -> Money.de(new BigDecimal("1e30")));
+    }
+
+    private static void assertPourcentage(String montant, String taux) {
+        BigDecimal valeur = new BigDecimal(montant);
+        BigDecimal pourcentage = new BigDecimal(taux);
+        BigDecimal attendu = valeur.multiply(pourcentage).divide(CENT, 2, RoundingMode.HALF_UP);
+        assertEquals(attendu, Money.de(valeur).pourcentage(Money.pointsDeBase(pourcentage)).versBigDecimal(),
+                montant + " × " + taux + " %");
+    }
+
+    private static void assertFoisMilliemes(String montant, String quantite) {
+        BigDecimal valeur = new BigDecimal(montant);
+        BigDecimal facteur = new BigDecimal(quantite);
+        BigDecimal attendu = valeur.multiply(facteur).setScale(2, RoundingMode.HALF_UP);
+        assertEquals(attendu, Money.de(valeur).foisMilliemes(Money.milliemes(facteur)).versBigDecimal(),
+                montant + " × " + quantite);
+    }
+}
@@ -0,0 +1,199 @@
+package sn.afrizar.afrizar.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.afrizar.afrizar.dto.CommandeDto;
+import sn.afrizar.afrizar.dto.CreateCommandeDto;
+import sn.afrizar.afrizar.dto.CreateLigneCommandeDto;
+import sn.afrizar.afrizar.model.*;
+import sn.afrizar.afrizar.repository.*;
+import sn.afrizar.afrizar.service.AgregatVentesService;
+import sn.afrizar.afrizar.service.CommandeService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Agrégats journaliers des ventes : tenus à jour par les commandes et leurs changements de statut,
+ * lus sans toucher aux commandes, et remis d'aplomb par la réconciliation.
+ * Les transactions sont réellement validées (la réconciliation s'exécute hors de toute transaction appelante).
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.identifiants.noeud=0",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=sn.afrizar.afrizar.service.impl.CompteurRequetes",
+        "app.outbox.delai-demarrage-ms=3600000",
+        "app.reservations.delai-demarrage-ms=3600000"
+})
+@Import({
+        AgregatVentesServiceImpl.class,
+        CommandeServiceImpl.class,
+        CalculPrixServiceImpl.class,
+        CommissionServiceImpl.class,
+        LivraisonServiceImpl.class,
+        ConfigurationLivraisonServiceImpl.class,
+        PanierServiceImpl.class,
+        GenerateurNumeroServiceImpl.class,
+        ReservationStockServiceImpl.class,
+        CommandeVendeurServiceImpl.class,
+        EvenementOutboxServiceImpl.class,
+        JacksonAutoConfiguration.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AgregatVentesServiceTest {
+
+    @Autowired
+    private AgregatVentesService agregatVentesService;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private VendeurRepository vendeurRepository;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private AgregatVentesJourRepository agregatVentesJourRepository;
+
+    private final LocalDate aujourdhui = LocalDate.now();
+    private Client client;
+    private Vendeur vendeurA;
+    private Vendeur vendeurB;
+    private Categorie categorie;
+    private final List<Produit> produits = new ArrayList<>();
+
+    @BeforeEach
+    void preparerDonnees() {
+        String suffixe = UUID.randomUUID().toString();
+
+        client = clientRepository.save(DonneesTest.nouveauClient());
+
+        vendeurA = vendeurRepository.save(DonneesTest.nouveauVendeur("Boutique A"));
+        vendeurB = vendeurRepository.save(DonneesTest.nouveauVendeur("Boutique B"));
+
+        categorie = new Categorie();
+        categorie.setNom("Boubous " + suffixe);
+        categorie = categorieRepository.save(categorie);
+
+        // A : vendeur A dans la catégorie, B : vendeur B dans la catégorie, C : vendeur B sans catégorie
+        produits.add(creerProduit(vendeurA, categorie, 20_000));
+        produits.add(creerProduit(vendeurB, categorie, 15_000));
+        produits.add(creerProduit(vendeurB, null, 8_000));
+    }
+
+    @Test
+    void tableauDeBordSuitLesCommandesSansLireLesCommandes() {
+        Map<String, Object> avant = agregatVentesService.obtenirTableauDeBord();
+
+        CommandeDto confirmee = commandeService.creerCommande(commande(2, 1, 0));
+        CommandeDto annulee = commandeService.creerCommande(commande(0, 0, 1));
+        commandeService.changerStatutCommande(confirmee.getId(), Commande.StatutCommande.CONFIRMEE);
+        commandeService.changerStatutCommande(annulee.getId(), Commande.StatutCommande.CONFIRMEE);
+        commandeService.annulerCommande(annulee.getId(), "Test");
+
+        CompteurRequetes.reinitialiser();
+        Map<String, Object> apres = agregatVentesService.obtenirTableauDeBord();
+        List<Map<String, Object>> vendeurs = agregatVentesService.obtenirClassement(
+                AgregatVentesJour.Dimension.VENDEUR, aujourdhui, aujourdhui, 100);
+        List<Map<String, Object>> categories = agregatVentesService.obtenirClassement(
+                AgregatVentesJour.Dimension.CATEGORIE, aujourdhui, aujourdhui, 100);
+        assertEquals(0, CompteurRequetes.nombreSelectsSur("commandes"));
+        assertEquals(0, CompteurRequetes.nombreSelectsSur("lignes_commande"));
+
+        assertEquals(2L, difference(apres, avant, "nombreCommandesTotal"));
+        assertEquals(1L, difference(apres, avant, "nombreCommandesConfirmees"));
+        assertEquals(0L, difference(apres, avant, "nombreCommandesEnAttente"));
+        assertEquals(0, confirmee.getMontantTotal().compareTo(
+                ((BigDecimal) apres.get("chiffreAffairesTotal")).subtract((BigDecimal) avant.get("chiffreAffairesTotal"))));
+
+        // La commande annulée ne compte plus pour le vendeur B, seule sa ligne de la commande confirmée reste
+        Map<String, Object> ventesB = entree(vendeurs, vendeurB.getId());
+        assertEquals(1L, ventesB.get("nombreCommandes"));
+        assertEquals(1L, ventesB.get("nombreArticles"));
+        Map<String, Object> ventesCategorie = entree(categories, categorie.getId());
+        assertEquals(1L, ventesCategorie.get("nombreCommandes"));
+        assertEquals(3L, ventesCategorie.get("nombreArticles"));
+
+        // Les incréments correspondent exactement au recalcul depuis les commandes
+        assertEquals(0, agregatVentesService.reconcilier(aujourdhui, aujourdhui));
+    }
+
+    @Test
+    void reconciliationCorrigeLesEcarts() {
+        CommandeDto commande = commandeService.creerCommande(commande(1, 2, 0));
+        commandeService.changerStatutCommande(commande.getId(), Commande.StatutCommande.CONFIRMEE);
+        Map<String, Object> attendu = agregatVentesService.obtenirTableauDeBord();
+
+        // Un agrégat faussé et un agrégat perdu
+        transactionTemplate.executeWithoutResult(statut -> {
+            AgregatVentesJour global = agregatVentesJourRepository.findById(new AgregatVentesJour.Cle(
+                    AgregatVentesJour.Dimension.GLOBAL, aujourdhui, 0L, Commande.StatutCommande.CONFIRMEE)).orElseThrow();
+            global.setMontant(BigDecimal.ZERO);
+            agregatVentesJourRepository.deleteById(new AgregatVentesJour.Cle(
+                    AgregatVentesJour.Dimension.VENDEUR, aujourdhui, vendeurA.getId(), Commande.StatutCommande.CONFIRMEE));
+        });
+
+        assertEquals(2, agregatVentesService.reconcilier(aujourdhui, aujourdhui));
+        assertEquals(0, agregatVentesService.reconcilier(aujourdhui, aujourdhui));
+
+        Map<String, Object> corrige = agregatVentesService.obtenirTableauDeBord();
+        assertEquals(0, ((BigDecimal) attendu.get("chiffreAffairesTotal")).compareTo((BigDecimal) corrige.get("chiffreAffairesTotal")));
+        assertEquals(1L, entree(agregatVentesService.obtenirClassement(
+                AgregatVentesJour.Dimension.VENDEUR, aujourdhui, aujourdhui, 100), vendeurA.getId()).get("nombreCommandes"));
+    }
+
+    private CreateCommandeDto commande(int... quantites) {
+        List<CreateLigneCommandeDto> lignes = new ArrayList<>();
+        for (int i = 0; i < quantites.length; i++) {
+            if (quantites[i] > 0) {
+                CreateLigneCommandeDto ligne = new CreateLigneCommandeDto();
+                ligne.setProduitId(produits.get(i).getId());
+                ligne.setQuantite(quantites[i]);
+                lignes.add(ligne);
+            }
+        }
+
+        CreateCommandeDto dto = new CreateCommandeDto();
+        dto.setClientId(client.getId());
+        dto.setLignesCommande(lignes);
+        return dto;
+    }
+
+    private static long difference(Map<String, Object> apres, Map<String, Object> avant, String cle) {
+        return (Long) apres.get(cle) - (Long) avant.get(cle);
+    }
+
+    private static Map<String, Object> entree(List<Map<String, Object>> classement, Long id) {
+        return classement.stream().filter(e -> id.equals(e.get("id"))).findFirst().orElseThrow();
+    }
+
+    private Produit creerProduit(Vendeur vendeur, Categorie categorieProduit, int prix) {
+        Produit produit = DonneesTest.nouveauProduit("Produit " + prix, vendeur, prix, 50);
+        produit.setCategorie(categorieProduit);
+        return produitRepository.save(produit);
+    }
+}
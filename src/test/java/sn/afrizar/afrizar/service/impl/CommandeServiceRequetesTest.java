@@ -0,0 +1,363 @@
+package sn.afrizar.afrizar.service.impl;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import sn.afrizar.afrizar.dto.CommandeDto;
+import sn.afrizar.afrizar.dto.CommandeVendeurDto;
+import sn.afrizar.afrizar.dto.CreateCommandeDto;
+import sn.afrizar.afrizar.dto.CreateLigneCommandeDto;
+import sn.afrizar.afrizar.dto.CreateLivraisonDto;
+import sn.afrizar.afrizar.dto.LigneCommandeDto;
+import sn.afrizar.afrizar.dto.PageCurseurDto;
+import sn.afrizar.afrizar.model.*;
+import sn.afrizar.afrizar.service.CommandeService;
+import sn.afrizar.afrizar.service.CommandeVendeurService;
+import sn.afrizar.afrizar.service.CommissionService;
+import sn.afrizar.afrizar.service.LivraisonService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Vérifie que le nombre de requêtes SELECT de la création de commande
+ * ne dépend pas du nombre de lignes, que les lignes sont insérées en batch
+ * et que les lignes se lisent sur l'instantané du produit.
+ * Le détail d'une commande (lignes, paiement, livraison) se charge en une requête,
+ * et chaque page de la pagination par curseur en une requête.
+ * Les ventes d'un vendeur se lisent sur la projection commandes_vendeurs seule,
+ * et les statistiques de période ou de client sont agrégées en base en une requête.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.identifiants.noeud=0",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=sn.afrizar.afrizar.service.impl.CompteurRequetes",
+        // Les tâches planifiées ne démarrent pas : leurs requêtes fausseraient les comptages
+        "app.outbox.delai-demarrage-ms=3600000",
+        "app.reservations.delai-demarrage-ms=3600000"
+})
+@Import({
+        CommandeServiceImpl.class,
+        CalculPrixServiceImpl.class,
+        CommissionServiceImpl.class,
+        LivraisonServiceImpl.class,
+        ConfigurationLivraisonServiceImpl.class,
+        PanierServiceImpl.class,
+        GenerateurNumeroServiceImpl.class,
+        ReservationStockServiceImpl.class,
+        CommandeVendeurServiceImpl.class,
+        AgregatVentesServiceImpl.class,
+        EvenementOutboxServiceImpl.class,
+        JacksonAutoConfiguration.class
+})
+class CommandeServiceRequetesTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private CommandeVendeurService commandeVendeurService;
+
+    @Autowired
+    private CommissionService commissionService;
+
+    @Autowired
+    private LivraisonService livraisonService;
+
+    private Client client;
+    private final List<Produit> produits = new ArrayList<>();
+
+    @BeforeEach
+    void preparerDonnees() {
+        client = DonneesTest.nouveauClient();
+        entityManager.persist(client);
+
+        Commission commission = new Commission();
+        commission.setSeuilMin(BigDecimal.ZERO);
+        commission.setPourcentage(BigDecimal.TEN);
+        commission.setActive(true);
+        commission.setOrdre(1);
+        entityManager.persist(commission);
+
+        for (int i = 0; i < 30; i++) {
+            // Un vendeur différent par produit pour exercer le chargement des vendeurs
+            Vendeur vendeur = DonneesTest.nouveauVendeur("Boutique " + i);
+            if (i % 2 == 0) {
+                vendeur.setTauxCommissionPersonnalise(BigDecimal.valueOf(5));
+            }
+            entityManager.persist(vendeur);
+
+            Produit produit = DonneesTest.nouveauProduit("Produit " + i, vendeur, 10000 + i, 100);
+            entityManager.persist(produit);
+            produits.add(produit);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        // Charger la grille des commissions en mémoire avant les mesures
+        commissionService.trouverCommissionApplicable(BigDecimal.ONE);
+    }
+
+    @Test
+    void calculerTotauxCommande_nombreDeRequetesIndependantDuNombreDeLignes() {
+        int requetesUneLigne = compterSelects(() -> commandeService.calculerTotauxCommande(commandeAvecLignes(1)));
+        int requetesVingtLignes = compterSelects(() -> commandeService.calculerTotauxCommande(commandeAvecLignes(20)));
+
+        assertEquals(requetesUneLigne, requetesVingtLignes);
+    }
+
+    @Test
+    void creerCommande_nombreDeRequetesIndependantDuNombreDeLignes() {
+        int requetesUneLigne = compterSelects(() -> commandeService.creerCommande(commandeAvecLignes(1)));
+        int requetesVingtLignes = compterSelects(() -> commandeService.creerCommande(commandeAvecLignes(20)));
+
+        assertEquals(requetesUneLigne, requetesVingtLignes);
+    }
+
+    @Test
+    void creerCommandeDepuisPanier_lignesInsereesEnUnSeulBatch() {
+        Panier panier = new Panier();
+        panier.setClient(entityManager.find(Client.class, client.getId()));
+        for (Produit produit : produits) {
+            PanierItem item = new PanierItem();
+            item.setProduit(entityManager.find(Produit.class, produit.getId()));
+            item.setQuantite(1);
+            item.setPrixUnitaire(produit.getPrix());
+            panier.ajouterItem(item);
+        }
+        entityManager.persist(panier);
+        entityManager.flush();
+        entityManager.clear();
+
+        CompteurRequetes.reinitialiser();
+        CommandeDto commande = commandeService.creerCommandeDepuisPanier(client.getId(), new CreateCommandeDto());
+        entityManager.flush();
+
+        assertEquals(30, commande.getLignesCommande().size());
+        assertEquals(1, CompteurRequetes.nombreInserts("commandes"));
+        assertEquals(1, CompteurRequetes.nombreInserts("lignes_commande"));
+    }
+
+    @Test
+    void lignesCommande_instantaneProduitLuSansChargerLesProduits() {
+        CommandeDto commande = commandeService.creerCommande(commandeAvecLignes(5));
+        Long vendeurId = commande.getLignesCommande().get(0).getVendeurId();
+        entityManager.flush();
+
+        // Une modification ultérieure du produit ne change pas les lignes déjà commandées
+        Produit produit = entityManager.find(Produit.class, produits.get(0).getId());
+        produit.setNom("Nom modifié");
+        entityManager.flush();
+        entityManager.clear();
+
+        CompteurRequetes.reinitialiser();
+        List<CommandeDto> commandesVendeur = commandeService.obtenirCommandesParVendeur(vendeurId);
+        CreateLivraisonDto livraison = new CreateLivraisonDto();
+        livraison.setType(Livraison.TypeLivraison.STANDARD);
+        livraison.setAdresseLivraison("Rue 10");
+        livraison.setPays("Sénégal");
+        livraisonService.creerLivraison(livraison, commande.getId());
+        entityManager.flush();
+
+        assertEquals(1, commandesVendeur.size());
+        assertEquals(0, CompteurRequetes.nombreSelectsSur("produits"));
+        // La liste du vendeur est lue depuis la projection
+        assertEquals(1, CompteurRequetes.nombreSelectsSur("commandes_vendeurs"));
+        assertEquals(0, CompteurRequetes.nombreSelectsSur("vendeur"));
+
+        LigneCommande ligne = entityManager.find(LigneCommande.class, commande.getLignesCommande().get(0).getId());
+        assertEquals("Produit 0", ligne.getNomProduit());
+        assertEquals("Boutique 0", ligne.getNomBoutique());
+    }
+
+    @Test
+    void detailCommande_chargeEnUneSeuleRequete() {
+        CommandeDto uneLigne = creerCommandeComplete(1);
+        CommandeDto vingtLignes = creerCommandeComplete(20);
+
+        int requetesUneLigne = compterSelects(() -> commandeService.obtenirCommandeParId(uneLigne.getId()));
+        int requetesVingtLignes = compterSelects(() -> commandeService.obtenirCommandeParId(vingtLignes.getId()));
+        int requetesParNumero = compterSelects(() -> commandeService.obtenirCommandeParNumero(vingtLignes.getNumeroCommande()));
+
+        assertEquals(1, requetesVingtLignes);
+        assertEquals(requetesUneLigne, requetesVingtLignes);
+        assertEquals(1, requetesParNumero);
+
+        entityManager.clear();
+        CommandeDto detail = commandeService.obtenirCommandeParNumero(vingtLignes.getNumeroCommande()).orElseThrow();
+        assertEquals(20, detail.getLignesCommande().size());
+        assertNotNull(detail.getPaiement());
+        assertNotNull(detail.getLivraison());
+    }
+
+    @Test
+    void paginationParCurseur_parcourtSansDoublonNiComptage() {
+        // Deux lignes du même vendeur par commande, et des dates identiques pour exercer le départage par id
+        List<Long> creees = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            CreateCommandeDto dto = commandeAvecLignes(1);
+            CreateLigneCommandeDto deuxiemeLigne = new CreateLigneCommandeDto();
+            deuxiemeLigne.setProduitId(produits.get(0).getId());
+            deuxiemeLigne.setQuantite(2);
+            dto.getLignesCommande().add(deuxiemeLigne);
+            creees.add(commandeService.creerCommande(dto).getId());
+        }
+        entityManager.flush();
+        entityManager.createQuery("UPDATE Commande c SET c.dateCreation = :date")
+                .setParameter("date", LocalDateTime.of(2025, 3, 1, 10, 0))
+                .executeUpdate();
+        entityManager.clear();
+        Long vendeurId = entityManager.find(Produit.class, produits.get(0).getId()).getVendeur().getId();
+
+        List<Long> attendues = creees.stream().sorted(Comparator.reverseOrder()).toList();
+        assertEquals(attendues, parcourir(curseur -> commandeService.obtenirCommandesParClientParCurseur(client.getId(), curseur, 3, false)));
+        assertEquals(attendues, parcourir(curseur -> commandeService.obtenirCommandesParVendeurParCurseur(vendeurId, curseur, 3, false)));
+
+        // Une requête par page, le total n'est compté que sur demande
+        assertEquals(1, compterSelects(() -> commandeService.obtenirCommandesParVendeurParCurseur(vendeurId, null, 3, false)));
+        assertNull(commandeService.obtenirCommandesParClientParCurseur(client.getId(), null, 3, false).getTotal());
+        assertEquals(7L, commandeService.obtenirCommandesParVendeurParCurseur(vendeurId, null, 3, true).getTotal());
+        // Pagination par offset du vendeur, lue depuis la projection (le tri demandé par le contrôleur est sans effet)
+        Page<CommandeDto> pageVendeur = commandeService.obtenirCommandesParVendeurAvecPagination(vendeurId,
+                PageRequest.of(0, 3, Sort.by("dateCreation").descending()));
+        assertEquals(7L, pageVendeur.getTotalElements());
+        assertEquals(attendues.subList(0, 3), pageVendeur.getContent().stream().map(CommandeDto::getId).toList());
+        // Jeton altéré : erreur d'argument (400), pas d'erreur serveur
+        assertThrows(IllegalArgumentException.class,
+                () -> commandeService.obtenirCommandesParClientParCurseur(client.getId(), "jeton-invalide", 3, false));
+    }
+
+    @Test
+    void projectionVendeur_ecriteAvecLaCommandeEtLueSansJointure() {
+        // Deux lignes du vendeur 0 et une du vendeur 1
+        CreateCommandeDto dto = commandeAvecLignes(2);
+        CreateLigneCommandeDto deuxiemeLigne = new CreateLigneCommandeDto();
+        deuxiemeLigne.setProduitId(produits.get(0).getId());
+        deuxiemeLigne.setQuantite(2);
+        dto.getLignesCommande().add(deuxiemeLigne);
+        CommandeDto commande = commandeService.creerCommande(dto);
+        commandeService.changerStatutCommande(commande.getId(), Commande.StatutCommande.CONFIRMEE);
+        entityManager.flush();
+        Long vendeurId = entityManager.find(Produit.class, produits.get(0).getId()).getVendeur().getId();
+        BigDecimal sousTotalAttendu = commande.getLignesCommande().stream()
+                .filter(ligne -> ligne.getVendeurId().equals(vendeurId))
+                .map(LigneCommandeDto::getSousTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        entityManager.clear();
+        CompteurRequetes.reinitialiser();
+        Page<CommandeVendeurDto> ventes = commandeVendeurService.obtenirCommandesVendeur(vendeurId, null, PageRequest.of(0, 10));
+        Map<String, Object> stats = commandeVendeurService.obtenirStatistiquesVendeur(vendeurId);
+
+        assertEquals(0, CompteurRequetes.nombreSelectsSur("commandes"));
+        assertEquals(0, CompteurRequetes.nombreSelectsSur("lignes_commande"));
+        assertEquals(1, ventes.getTotalElements());
+        CommandeVendeurDto vente = ventes.getContent().get(0);
+        assertEquals(commande.getId(), vente.getCommandeId());
+        assertEquals(3, vente.getNombreArticles());
+        assertEquals(0, sousTotalAttendu.compareTo(vente.getSousTotal()));
+        assertEquals(Commande.StatutCommande.CONFIRMEE, vente.getStatut());
+        assertEquals(1L, stats.get("nombreCommandes"));
+        assertEquals(0, sousTotalAttendu.compareTo((BigDecimal) stats.get("chiffreAffaires")));
+
+        // Une commande annulée sort du chiffre d'affaires
+        commandeService.annulerCommande(commande.getId(), "Test");
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(0, BigDecimal.ZERO.compareTo((BigDecimal) commandeVendeurService.obtenirStatistiquesVendeur(vendeurId).get("chiffreAffaires")));
+    }
+
+    @Test
+    void statistiquesPeriodeEtClient_agregeesEnUneRequete() {
+        BigDecimal totalAttendu = BigDecimal.ZERO;
+        for (int nombreLignes = 1; nombreLignes <= 3; nombreLignes++) {
+            totalAttendu = totalAttendu.add(commandeService.creerCommande(commandeAvecLignes(nombreLignes * 5)).getMontantTotal());
+        }
+        entityManager.flush();
+        BigDecimal total = totalAttendu;
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        assertEquals(1, compterSelects(() -> {
+            Map<String, Object> periode = commandeService.obtenirStatistiquesPeriode(maintenant.minusDays(1), maintenant.plusDays(1));
+            assertEquals(3L, periode.get("nombreCommandes"));
+            assertEquals(0, total.compareTo((BigDecimal) periode.get("chiffreAffaires")));
+        }));
+        assertEquals(1, compterSelects(() -> {
+            Map<String, Object> statsClient = commandeService.obtenirStatistiquesClient(client.getId());
+            assertEquals(0, total.compareTo((BigDecimal) statsClient.get("montantTotalDepense")));
+            assertEquals(0, total.divide(BigDecimal.valueOf(3), 2, RoundingMode.HALF_UP)
+                    .compareTo((BigDecimal) statsClient.get("panierMoyen")));
+        }));
+        assertEquals(0L, commandeService.obtenirStatistiquesPeriode(maintenant.plusDays(1), maintenant.plusDays(2)).get("nombreCommandes"));
+    }
+
+    private List<Long> parcourir(Function<String, PageCurseurDto<CommandeDto>> lirePage) {
+        List<Long> ids = new ArrayList<>();
+        String curseur = null;
+        do {
+            entityManager.clear();
+            PageCurseurDto<CommandeDto> page = lirePage.apply(curseur);
+            page.getElements().forEach(commande -> ids.add(commande.getId()));
+            curseur = page.getCurseurSuivant();
+        } while (curseur != null);
+        return ids;
+    }
+
+    private CommandeDto creerCommandeComplete(int nombreLignes) {
+        CommandeDto commande = commandeService.creerCommande(commandeAvecLignes(nombreLignes));
+        commandeService.creerPaiementInitial(commande.getId());
+        CreateLivraisonDto livraison = new CreateLivraisonDto();
+        livraison.setType(Livraison.TypeLivraison.STANDARD);
+        livraison.setAdresseLivraison("Rue 10");
+        livraison.setPays("Sénégal");
+        livraisonService.creerLivraison(livraison, commande.getId());
+        entityManager.flush();
+        entityManager.clear();
+        return commande;
+    }
+
+    private int compterSelects(Runnable action) {
+        entityManager.clear();
+        CompteurRequetes.reinitialiser();
+        action.run();
+        entityManager.flush();
+        return CompteurRequetes.nombreSelects();
+    }
+
+    private CreateCommandeDto commandeAvecLignes(int nombreLignes) {
+        List<CreateLigneCommandeDto> lignes = new ArrayList<>();
+        for (int i = 0; i < nombreLignes; i++) {
+            CreateLigneCommandeDto ligne = new CreateLigneCommandeDto();
+            ligne.setProduitId(produits.get(i).getId());
+            ligne.setQuantite(1);
+            lignes.add(ligne);
+        }
+
+        CreateCommandeDto dto = new CreateCommandeDto();
+        dto.setClientId(client.getId());
+        dto.setLignesCommande(lignes);
+        return dto;
+    }
+}
@@ -0,0 +1,88 @@
+package sn.afrizar.afrizar.service.impl;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sn.afrizar.afrizar.model.Actualite;
+import sn.afrizar.afrizar.model.Produit;
+import sn.afrizar.afrizar.model.Vendeur;
+import sn.afrizar.afrizar.service.CompteurEngagementService;
+import sn.afrizar.afrizar.service.CompteurEngagementService.Compteur;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Vérifie que les incréments concurrents sont tous écrits en base par le flush
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        // Pas de flush planifié pendant le test : seul l'appel explicite à vider() écrit en base
+        "app.compteurs.intervalle-flush-ms=60000",
+        "app.compteurs.seuil-flush=1000000000"
+})
+@Import(CompteurEngagementServiceImpl.class)
+class CompteurEngagementServiceTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CompteurEngagementService compteurEngagementService;
+
+    @Test
+    void incrementsConcurrentsEcritsEnUnFlush() throws Exception {
+        Produit produit = creerProduit();
+        Actualite actualite = new Actualite();
+        actualite.setTitre("Nouvelle collection");
+        actualite.setAuteur("Rédaction");
+        entityManager.persist(actualite);
+        entityManager.flush();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> taches = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            taches.add(executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    compteurEngagementService.incrementer(Compteur.VUES_PRODUIT, produit.getId());
+                    compteurEngagementService.incrementer(Compteur.LIKES_ACTUALITE, actualite.getId());
+                }
+            }));
+        }
+        for (Future<?> tache : taches) {
+            tache.get();
+        }
+        executor.shutdown();
+
+        assertEquals(8_000, compteurEngagementService.obtenirEnAttente(Compteur.VUES_PRODUIT, produit.getId()));
+
+        assertEquals(2, compteurEngagementService.vider());
+
+        assertEquals(0, compteurEngagementService.obtenirEnAttente(Compteur.VUES_PRODUIT, produit.getId()));
+        assertEquals(8_000L, jdbcTemplate.queryForObject(
+                "SELECT nombre_vues FROM produits WHERE id = ?", Long.class, produit.getId()));
+        assertEquals(8_000L, jdbcTemplate.queryForObject(
+                "SELECT nombre_likes FROM actualites WHERE id = ?", Long.class, actualite.getId()));
+        assertEquals(0L, compteurEngagementService.obtenirStatistiques().get("totalEnAttente"));
+    }
+
+    private Produit creerProduit() {
+        Vendeur vendeur = DonneesTest.nouveauVendeur("Boutique Ndiaye");
+        entityManager.persist(vendeur);
+
+        Produit produit = DonneesTest.nouveauProduit("Boubou", vendeur, 25_000, 0);
+        entityManager.persist(produit);
+        return produit;
+    }
+}
@@ -0,0 +1,66 @@
+package sn.afrizar.afrizar.service.impl;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Inspecteur Hibernate qui compte les requêtes émises pendant les tests.
+ * Les appels de séquence ne sont pas comptés comme des SELECT.
+ * Une instruction en batch JDBC n'est préparée qu'une fois : chaque INSERT compté correspond à un aller-retour.
+ */
+public class CompteurRequetes implements StatementInspector {
+
+    private static final AtomicInteger SELECTS = new AtomicInteger();
+    private static final Map<String, AtomicInteger> INSERTS = new ConcurrentHashMap<>();
+    private static final Queue<String> REQUETES_SELECT = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public String inspect(String sql) {
+        String requete = sql.trim().toLowerCase();
+        if (requete.startsWith("select") && !requete.contains("next value for") && !requete.contains("nextval")) {
+            SELECTS.incrementAndGet();
+            REQUETES_SELECT.add(requete);
+        } else if (requete.startsWith("insert into ")) {
+            String table = requete.substring("insert into ".length()).split("[\\s(]", 2)[0];
+            INSERTS.computeIfAbsent(table, t -> new AtomicInteger()).incrementAndGet();
+        }
+        return sql;
+    }
+
+    public static void reinitialiser() {
+        SELECTS.set(0);
+        INSERTS.clear();
+        REQUETES_SELECT.clear();
+    }
+
+    public static int nombreSelects() {
+        return SELECTS.get();
+    }
+
+    /**
+     * Nombre de SELECT lisant la table (en FROM ou en JOIN)
+     */
+    public static int nombreSelectsSur(String table) {
+        Pattern lecture = Pattern.compile("\\b(from|join)\\s+" + Pattern.quote(table) + "\\b");
+        return (int) REQUETES_SELECT.stream().filter(requete -> lecture.matcher(requete).find()).count();
+    }
+
+    /**
+     * Texte des SELECT émis depuis la dernière réinitialisation, en minuscules
+     */
+    public static List<String> requetesSelect() {
+        return List.copyOf(REQUETES_SELECT);
+    }
+
+    public static int nombreInserts(String table) {
+        AtomicInteger inserts = INSERTS.get(table);
+        return inserts != null ? inserts.get() : 0;
+    }
+}
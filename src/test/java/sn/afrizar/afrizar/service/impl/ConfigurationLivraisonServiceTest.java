@@ -0,0 +1,125 @@
+package sn.afrizar.afrizar.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.afrizar.afrizar.dto.ConfigurationLivraisonDto;
+import sn.afrizar.afrizar.model.ConfigurationLivraison;
+import sn.afrizar.afrizar.model.Livraison;
+import sn.afrizar.afrizar.repository.ConfigurationLivraisonRepository;
+import sn.afrizar.afrizar.service.ConfigurationLivraisonService;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tarifs et délais de livraison lus dans la matrice en mémoire : aucune requête par devis,
+ * repli sur GENERAL, et matrice remplacée après chaque modification validée par l'admin.
+ * Les transactions sont réellement validées.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=sn.afrizar.afrizar.service.impl.CompteurRequetes"
+})
+@Import(ConfigurationLivraisonServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ConfigurationLivraisonServiceTest {
+
+    private static final Livraison.TypeLivraison EXPRESS = Livraison.TypeLivraison.EXPRESS;
+    private static final Livraison.TypeLivraison STANDARD = Livraison.TypeLivraison.STANDARD;
+
+    @Autowired
+    private ConfigurationLivraisonService configurationLivraisonService;
+
+    @Autowired
+    private ConfigurationLivraisonRepository configurationLivraisonRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void preparerDonnees() {
+        configurationLivraisonRepository.deleteAll();
+        configurationLivraisonService.initialiserConfigurationsParDefaut();
+    }
+
+    @Test
+    void devisSansRequeteAvecRepliGeneral() {
+        CompteurRequetes.reinitialiser();
+
+        // SENEGAL STANDARD : 1000 + 2 × 500, minimum 1000
+        assertTarif(2_000, "SENEGAL", STANDARD, 2);
+        // Pays normalisé : accents, casse et espaces ignorés
+        assertTarif(2_000, " Sénégal ", STANDARD, 2);
+        // Pays non configuré : GENERAL EXPRESS, 10000 + 6 × 3000 moins 10 % (gros colis)
+        assertTarif(25_200, "France", EXPRESS, 6);
+        // Minimum de facturation GENERAL
+        assertTarif(5_000, null, STANDARD, 0);
+        assertEquals(3, configurationLivraisonService.obtenirDelaiLivraison("sénégal", EXPRESS));
+        assertEquals(14, configurationLivraisonService.obtenirDelaiLivraison("Mali", STANDARD));
+
+        assertEquals(0, CompteurRequetes.nombreSelects());
+    }
+
+    @Test
+    void matriceRemplaceeApresChaqueModification() {
+        Long senegalExpress = idConfiguration("SENEGAL", EXPRESS);
+
+        // Désactivation : repli sur GENERAL pour ce type seulement
+        configurationLivraisonService.toggleActif(senegalExpress, "admin@afrizar.sn");
+        assertEquals(7, configurationLivraisonService.obtenirDelaiLivraison("Sénégal", EXPRESS));
+        assertEquals(7, configurationLivraisonService.obtenirDelaiLivraison("Sénégal", STANDARD));
+
+        configurationLivraisonService.toggleActif(senegalExpress, "admin@afrizar.sn");
+        assertEquals(3, configurationLivraisonService.obtenirDelaiLivraison("Sénégal", EXPRESS));
+
+        // Nouveau pays : ses types configurés, GENERAL pour les autres
+        ConfigurationLivraisonDto france = configurationLivraisonService.creerConfiguration(
+                configuration("France", EXPRESS, 8_000, 2_000, 5), "admin@afrizar.sn");
+        assertTarif(10_000, "FRANCE", EXPRESS, 1);
+        assertEquals(14, configurationLivraisonService.obtenirDelaiLivraison("france", STANDARD));
+
+        configurationLivraisonService.mettreAJourConfiguration(france.getId(),
+                configuration("France", EXPRESS, 9_000, 2_000, 4), "admin@afrizar.sn");
+        assertTarif(11_000, "France", EXPRESS, 1);
+
+        configurationLivraisonService.supprimerConfiguration(france.getId());
+        assertTarif(13_000, "France", EXPRESS, 1);
+
+        // Modification annulée : la matrice n'est pas remplacée
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(statut -> {
+            configurationLivraisonService.toggleActif(idConfiguration("GENERAL", EXPRESS), "admin@afrizar.sn");
+            throw new IllegalStateException("Rollback");
+        }));
+        assertTarif(13_000, "France", EXPRESS, 1);
+    }
+
+    private void assertTarif(long attendu, String pays, Livraison.TypeLivraison type, long poidsKg) {
+        BigDecimal tarif = configurationLivraisonService.obtenirTarifLivraison(pays, type, BigDecimal.valueOf(poidsKg));
+        assertEquals(0, BigDecimal.valueOf(attendu).compareTo(tarif), pays + " " + type + " : " + tarif);
+    }
+
+    private Long idConfiguration(String pays, Livraison.TypeLivraison type) {
+        return configurationLivraisonRepository.findByPaysAndTypeAndActifTrue(pays, type)
+                .map(ConfigurationLivraison::getId)
+                .orElseThrow();
+    }
+
+    private ConfigurationLivraisonDto configuration(String pays, Livraison.TypeLivraison type,
+                                                    long tarifBase, long tarifParKg, int delaiJours) {
+        return ConfigurationLivraisonDto.builder()
+                .pays(pays)
+                .type(type)
+                .tarifBase(BigDecimal.valueOf(tarifBase))
+                .tarifParKg(BigDecimal.valueOf(tarifParKg))
+                .delaiJours(delaiJours)
+                .actif(true)
+                .build();
+    }
+}
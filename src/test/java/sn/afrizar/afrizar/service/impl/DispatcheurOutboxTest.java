@@ -0,0 +1,170 @@
+package sn.afrizar.afrizar.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.afrizar.afrizar.dto.CommandeDto;
+import sn.afrizar.afrizar.dto.CreateCommandeDto;
+import sn.afrizar.afrizar.dto.CreateLigneCommandeDto;
+import sn.afrizar.afrizar.dto.CreateLivraisonDto;
+import sn.afrizar.afrizar.model.*;
+import sn.afrizar.afrizar.repository.*;
+import sn.afrizar.afrizar.service.CommandeService;
+import sn.afrizar.afrizar.service.EvenementOutboxService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checkout avec outbox : la commande n'écrit que des événements, le dispatcheur exécute
+ * paiement, livraison et points de fidélité, et reprogramme les échecs avec un délai.
+ * Les transactions sont réellement validées (pas de rollback de test) comme en production.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.identifiants.noeud=0",
+        // Le dispatcheur planifié ne démarre pas pendant le test : les lots sont traités explicitement
+        "app.outbox.delai-demarrage-ms=3600000"
+})
+@Import({
+        DispatcheurOutbox.class,
+        EvenementOutboxServiceImpl.class,
+        CommandeServiceImpl.class,
+        CalculPrixServiceImpl.class,
+        CommissionServiceImpl.class,
+        LivraisonServiceImpl.class,
+        ConfigurationLivraisonServiceImpl.class,
+        PanierServiceImpl.class,
+        GenerateurNumeroServiceImpl.class,
+        ReservationStockServiceImpl.class,
+        CommandeVendeurServiceImpl.class,
+        AgregatVentesServiceImpl.class,
+        JacksonAutoConfiguration.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DispatcheurOutboxTest {
+
+    @Autowired
+    private DispatcheurOutbox dispatcheurOutbox;
+
+    @Autowired
+    private EvenementOutboxService evenementOutboxService;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private VendeurRepository vendeurRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private PaiementRepository paiementRepository;
+
+    @Autowired
+    private LivraisonRepository livraisonRepository;
+
+    @Autowired
+    private EvenementOutboxRepository evenementOutboxRepository;
+
+    private Client client;
+    private Produit produit;
+
+    @BeforeEach
+    void preparerDonnees() {
+        client = clientRepository.save(DonneesTest.nouveauClient());
+        Vendeur vendeur = vendeurRepository.save(DonneesTest.nouveauVendeur("Boutique Fall"));
+
+        produit = DonneesTest.nouveauProduit("Grand boubou", vendeur, 50_000, 10);
+        produit.setPoids(BigDecimal.ONE);
+        produit = produitRepository.save(produit);
+    }
+
+    @Test
+    void checkoutPublieLesEvenementsEtLeDispatcheurLesExecute() {
+        CommandeDto commande = commandeService.creerCommande(commandeAvecLivraison());
+
+        // Rien n'est exécuté dans la transaction de la commande
+        assertTrue(paiementRepository.findByCommandeId(commande.getId()).isEmpty());
+        assertTrue(livraisonRepository.findByCommandeId(commande.getId()).isEmpty());
+        assertEquals(3, evenementOutboxRepository.findByAgregatIdOrderById(commande.getId()).size());
+
+        traiterLot();
+
+        assertTrue(paiementRepository.findByCommandeId(commande.getId()).isPresent());
+        assertTrue(livraisonRepository.findByCommandeId(commande.getId()).isPresent());
+        int pointsAttendus = commande.getMontantTotal().multiply(BigDecimal.valueOf(0.01)).intValue();
+        assertEquals(pointsAttendus, clientRepository.findById(client.getId()).orElseThrow().getPointsFidelite());
+        assertTrue(evenementOutboxRepository.findByAgregatIdOrderById(commande.getId()).stream()
+                .allMatch(e -> e.getStatut() == EvenementOutbox.StatutEvenement.TRAITE));
+
+        // Un nouveau passage ne retrouve aucun événement à traiter
+        assertTrue(transactionTemplate.execute(statut -> dispatcheurOutbox.reserverLot(50)).isEmpty());
+    }
+
+    @Test
+    void echecReprogrammeAvecDelai() {
+        Long commandeId = commandeService.creerCommande(commandeSansLivraison()).getId();
+        transactionTemplate.executeWithoutResult(statut ->
+                evenementOutboxService.publier(EvenementOutbox.TypeEvenement.CREATION_LIVRAISON, commandeId, "adresse invalide"));
+
+        traiterLot();
+
+        EvenementOutbox evenement = evenementOutboxRepository.findByAgregatIdOrderById(commandeId).stream()
+                .filter(e -> e.getType() == EvenementOutbox.TypeEvenement.CREATION_LIVRAISON)
+                .findFirst().orElseThrow();
+        assertEquals(EvenementOutbox.StatutEvenement.EN_ATTENTE, evenement.getStatut());
+        assertEquals(1, evenement.getTentatives());
+        assertNotNull(evenement.getDerniereErreur());
+        assertTrue(evenement.getProchaineTentative().isAfter(LocalDateTime.now()));
+
+        // Les autres traitements de la commande ne sont pas bloqués par l'échec
+        assertTrue(paiementRepository.findByCommandeId(commandeId).isPresent());
+        assertTrue(transactionTemplate.execute(statut -> dispatcheurOutbox.reserverLot(50)).isEmpty());
+    }
+
+    private void traiterLot() {
+        List<Long> evenements = transactionTemplate.execute(statut -> dispatcheurOutbox.reserverLot(50));
+        assertNotNull(evenements);
+        evenements.forEach(dispatcheurOutbox::traiter);
+    }
+
+    private CreateCommandeDto commandeSansLivraison() {
+        CreateLigneCommandeDto ligne = new CreateLigneCommandeDto();
+        ligne.setProduitId(produit.getId());
+        ligne.setQuantite(2);
+
+        CreateCommandeDto dto = new CreateCommandeDto();
+        dto.setClientId(client.getId());
+        dto.setLignesCommande(List.of(ligne));
+        return dto;
+    }
+
+    private CreateCommandeDto commandeAvecLivraison() {
+        CreateLivraisonDto livraison = new CreateLivraisonDto();
+        livraison.setType(Livraison.TypeLivraison.STANDARD);
+        livraison.setAdresseLivraison("Rue 12, Plateau");
+        livraison.setVille("Dakar");
+        livraison.setPays("Sénégal");
+
+        CreateCommandeDto dto = commandeSansLivraison();
+        dto.setLivraison(livraison);
+        return dto;
+    }
+}
@@ -0,0 +1,53 @@
+package sn.afrizar.afrizar.service.impl;
+
+import sn.afrizar.afrizar.model.Client;
+import sn.afrizar.afrizar.model.Produit;
+import sn.afrizar.afrizar.model.Utilisateur;
+import sn.afrizar.afrizar.model.Vendeur;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Entités de test non persistées, complètes pour les contraintes du schéma.
+ *
+ * Chaque utilisateur reçoit un e-mail unique : les tests d'un même contexte peuvent en créer
+ * autant que nécessaire sans collision. Les tests ajustent ensuite les champs qu'ils exercent.
+ */
+final class DonneesTest {
+
+    private DonneesTest() {
+    }
+
+    static Client nouveauClient() {
+        Client client = new Client();
+        client.setNom("Diop");
+        client.setPrenom("Awa");
+        client.setEmail("client." + UUID.randomUUID() + "@test.sn");
+        client.setMotDePasse("secret");
+        client.setRole(Utilisateur.Role.CLIENT);
+        client.setAdresse("Rue 10");
+        client.setPays("Sénégal");
+        return client;
+    }
+
+    static Vendeur nouveauVendeur(String nomBoutique) {
+        Vendeur vendeur = new Vendeur();
+        vendeur.setNom("Ndiaye");
+        vendeur.setPrenom("Modou");
+        vendeur.setEmail("vendeur." + UUID.randomUUID() + "@test.sn");
+        vendeur.setMotDePasse("secret");
+        vendeur.setRole(Utilisateur.Role.VENDEUR);
+        vendeur.setNomBoutique(nomBoutique);
+        return vendeur;
+    }
+
+    static Produit nouveauProduit(String nom, Vendeur vendeur, int prix, int stock) {
+        Produit produit = new Produit();
+        produit.setNom(nom);
+        produit.setPrix(BigDecimal.valueOf(prix));
+        produit.setStock(stock);
+        produit.setVendeur(vendeur);
+        return produit;
+    }
+}
@@ -0,0 +1,116 @@
+package sn.afrizar.afrizar.service.impl;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sn.afrizar.afrizar.model.Produit;
+import sn.afrizar.afrizar.model.Vendeur;
+import sn.afrizar.afrizar.repository.ProduitRepository;
+import sn.afrizar.afrizar.repository.VendeurRepository;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Vérifie les UPDATE atomiques d'évaluation (somme, nombre et moyenne calculés en SQL),
+ * y compris la reprise d'une ligne antérieure à somme_notes et l'UPDATE multi-tables de Vendeur
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class EvaluationsRepositoryTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private VendeurRepository vendeurRepository;
+
+    @Test
+    void evaluationsProduitCumuleesEnBase() {
+        Produit produit = creerProduit(creerVendeur());
+
+        for (int note : new int[]{4, 5, 5}) {
+            assertEquals(1, produitRepository.ajouterEvaluation(produit.getId(), BigDecimal.valueOf(note)));
+        }
+
+        assertEvaluations(lireProduit(produit.getId()), "note_moyenne", "14", 3, "4.7");
+    }
+
+    @Test
+    void evaluationProduitRepriseDepuisLaMoyenneSiSommeAbsente() {
+        Produit produit = creerProduit(creerVendeur());
+        jdbcTemplate.update("UPDATE produits SET somme_notes = NULL, note_moyenne = 4.0, nombre_evaluations = 2 WHERE id = ?",
+                produit.getId());
+
+        produitRepository.ajouterEvaluation(produit.getId(), BigDecimal.valueOf(5));
+        produitRepository.ajouterEvaluation(produit.getId(), BigDecimal.valueOf(3));
+
+        // Somme reconstituée : 4.0 × 2 = 8, puis 8 + 5 + 3
+        assertEvaluations(lireProduit(produit.getId()), "note_moyenne", "16", 4, "4.0");
+    }
+
+    @Test
+    void evaluationsVendeurCumuleesEnBase() {
+        Vendeur vendeur = creerVendeur();
+
+        for (int note : new int[]{3, 4, 4, 5}) {
+            assertEquals(1, vendeurRepository.ajouterEvaluation(vendeur.getId(), BigDecimal.valueOf(note)));
+        }
+
+        assertEvaluations(lireVendeur(vendeur.getId()), "rating", "16", 4, "4.0");
+    }
+
+    @Test
+    void evaluationVendeurRepriseDepuisLeRatingSiSommeAbsente() {
+        Vendeur vendeur = creerVendeur();
+        jdbcTemplate.update("UPDATE vendeur SET somme_notes = NULL, rating = 3.5, nombre_evaluations = 2 WHERE id = ?",
+                vendeur.getId());
+
+        vendeurRepository.ajouterEvaluation(vendeur.getId(), BigDecimal.valueOf(5));
+
+        // Somme reconstituée : 3.5 × 2 = 7, puis 7 + 5 ; moyenne 12 / 3
+        assertEvaluations(lireVendeur(vendeur.getId()), "rating", "12", 3, "4.0");
+    }
+
+    private Vendeur creerVendeur() {
+        Vendeur vendeur = DonneesTest.nouveauVendeur("Boutique Ndiaye");
+        entityManager.persist(vendeur);
+        entityManager.flush();
+        return vendeur;
+    }
+
+    private Produit creerProduit(Vendeur vendeur) {
+        Produit produit = DonneesTest.nouveauProduit("Boubou", vendeur, 25_000, 5);
+        entityManager.persist(produit);
+        entityManager.flush();
+        return produit;
+    }
+
+    private Map<String, Object> lireProduit(Long id) {
+        return jdbcTemplate.queryForMap(
+                "SELECT somme_notes, nombre_evaluations, note_moyenne FROM produits WHERE id = ?", id);
+    }
+
+    private Map<String, Object> lireVendeur(Long id) {
+        return jdbcTemplate.queryForMap(
+                "SELECT somme_notes, nombre_evaluations, rating FROM vendeur WHERE id = ?", id);
+    }
+
+    private static void assertEvaluations(Map<String, Object> ligne, String colonneMoyenne,
+                                          String somme, int nombre, String moyenne) {
+        assertEquals(0, new BigDecimal(somme).compareTo((BigDecimal) ligne.get("somme_notes")),
+                "somme_notes = " + ligne.get("somme_notes"));
+        assertEquals(nombre, ((Number) ligne.get("nombre_evaluations")).intValue());
+        assertEquals(0, new BigDecimal(moyenne).compareTo((BigDecimal) ligne.get(colonneMoyenne)),
+                colonneMoyenne + " = " + ligne.get(colonneMoyenne));
+    }
+}
@@ -0,0 +1,123 @@
+package sn.afrizar.afrizar.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unicité et monotonie des identifiants générés sous forte concurrence
+ */
+class GenerateurNumeroServiceTest {
+
+    private static final int NOMBRE_THREADS = 8;
+    private static final int IDENTIFIANTS_PAR_THREAD = 500_000;
+
+    @Test
+    void identifiantsUniquesEtCroissantsSurPlusieursThreads() throws Exception {
+        GenerateurNumeroServiceImpl generateur = new GenerateurNumeroServiceImpl(7, System::currentTimeMillis);
+
+        ExecutorService executor = Executors.newFixedThreadPool(NOMBRE_THREADS);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<long[]>> taches = new ArrayList<>();
+        for (int t = 0; t < NOMBRE_THREADS; t++) {
+            taches.add(executor.submit(() -> {
+                long[] identifiants = new long[IDENTIFIANTS_PAR_THREAD];
+                depart.await();
+                for (int i = 0; i < identifiants.length; i++) {
+                    identifiants[i] = generateur.prochainIdentifiant();
+                }
+                return identifiants;
+            }));
+        }
+        depart.countDown();
+
+        long[] tous = new long[NOMBRE_THREADS * IDENTIFIANTS_PAR_THREAD];
+        int position = 0;
+        for (Future<long[]> tache : taches) {
+            long[] identifiants = tache.get();
+            for (int i = 1; i < identifiants.length; i++) {
+                assertTrue(identifiants[i] > identifiants[i - 1], "Identifiants non croissants dans un thread");
+            }
+            System.arraycopy(identifiants, 0, tous, position, identifiants.length);
+            position += identifiants.length;
+        }
+        executor.shutdown();
+
+        Arrays.sort(tous);
+        for (int i = 1; i < tous.length; i++) {
+            assertNotEquals(tous[i - 1], tous[i], "Identifiant en double");
+        }
+        for (long identifiant : tous) {
+            assertTrue(identifiant > 0);
+            assertEquals(7, (identifiant >>> GenerateurNumeroServiceImpl.BITS_SEQUENCE) & GenerateurNumeroServiceImpl.NOEUD_MAX);
+        }
+    }
+
+    @Test
+    void horlogeFigeeOuEnRetardResteStrictementCroissante() {
+        AtomicLong horloge = new AtomicLong(GenerateurNumeroServiceImpl.EPOQUE_MS + 1_000);
+        GenerateurNumeroServiceImpl generateur = new GenerateurNumeroServiceImpl(1, horloge::get);
+
+        // Plus d'identifiants que la séquence d'une milliseconde, horloge figée puis en retard
+        long precedent = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                horloge.addAndGet(-500);
+            }
+            long identifiant = generateur.prochainIdentifiant();
+            assertTrue(identifiant > precedent);
+            precedent = identifiant;
+        }
+    }
+
+    @Test
+    void numerosDeNoeudsDifferentsNeSeChevauchentPas() {
+        AtomicLong horloge = new AtomicLong(GenerateurNumeroServiceImpl.EPOQUE_MS + 42);
+        GenerateurNumeroServiceImpl noeud1 = new GenerateurNumeroServiceImpl(1, horloge::get);
+        GenerateurNumeroServiceImpl noeud2 = new GenerateurNumeroServiceImpl(2, horloge::get);
+
+        Set<String> numeros = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(numeros.add(noeud1.genererNumeroCommande()));
+            assertTrue(numeros.add(noeud2.genererNumeroCommande()));
+        }
+    }
+
+    @Test
+    void numeroLisibleDeLargeurFixeEtTriable() {
+        GenerateurNumeroServiceImpl generateur = new GenerateurNumeroServiceImpl(3, System::currentTimeMillis);
+
+        String premier = generateur.genererNumeroCommande();
+        String second = generateur.genererNumeroCommande();
+
+        assertTrue(premier.matches("CMD-[0-9A-HJKMNP-TV-Z]{13}"), premier);
+        assertTrue(generateur.genererNumeroSuivi().matches("AFRIZAR-[0-9A-HJKMNP-TV-Z]{13}"));
+        assertTrue(premier.compareTo(second) < 0);
+    }
+
+    @Test
+    void noeudObligatoireHorsProfilDev() {
+        MockEnvironment production = new MockEnvironment();
+        assertThrows(IllegalStateException.class, () -> new GenerateurNumeroServiceImpl(-1, production));
+        assertThrows(IllegalArgumentException.class, () -> new GenerateurNumeroServiceImpl(1024, production));
+
+        MockEnvironment dev = new MockEnvironment();
+        dev.setActiveProfiles("dev");
+        assertTrue(new GenerateurNumeroServiceImpl(-1, dev).genererNumeroCommande().startsWith("CMD-"));
+    }
+}
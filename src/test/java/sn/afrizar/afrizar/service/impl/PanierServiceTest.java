@@ -0,0 +1,346 @@
+package sn.afrizar.afrizar.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sn.afrizar.afrizar.dto.AjouterAuPanierDto;
+import sn.afrizar.afrizar.dto.CommandeDto;
+import sn.afrizar.afrizar.dto.CreateCommandeDto;
+import sn.afrizar.afrizar.dto.PanierDto;
+import sn.afrizar.afrizar.dto.SynchronisationPanierDto;
+import sn.afrizar.afrizar.model.*;
+import sn.afrizar.afrizar.repository.*;
+import sn.afrizar.afrizar.service.CommandeService;
+import sn.afrizar.afrizar.service.PanierService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Panier en cache avec écriture différée : les lectures et modifications ne touchent pas la base,
+ * une écriture regroupe toutes les modifications d'un panier, et le checkout lit l'état courant.
+ * La synchronisation n'écrit que les lignes dont le prix ou la quantité a changé ; la purge ne supprime
+ * que les paniers inactifs absents de la mémoire.
+ * Les transactions sont réellement validées.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.identifiants.noeud=0",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=sn.afrizar.afrizar.service.impl.CompteurRequetes",
+        // L'écriture planifiée ne démarre pas pendant le test : elle est appelée explicitement
+        "app.panier.delai-demarrage-ms=3600000",
+        // Purge en lots de deux paniers, sans pause
+        "app.panier.taille-lot-purge=2",
+        "app.panier.pause-purge-ms=0",
+        "app.outbox.delai-demarrage-ms=3600000",
+        "app.reservations.delai-demarrage-ms=3600000"
+})
+@Import({
+        PanierServiceImpl.class,
+        CommandeServiceImpl.class,
+        CalculPrixServiceImpl.class,
+        CommissionServiceImpl.class,
+        LivraisonServiceImpl.class,
+        ConfigurationLivraisonServiceImpl.class,
+        GenerateurNumeroServiceImpl.class,
+        ReservationStockServiceImpl.class,
+        CommandeVendeurServiceImpl.class,
+        AgregatVentesServiceImpl.class,
+        EvenementOutboxServiceImpl.class,
+        JacksonAutoConfiguration.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PanierServiceTest {
+
+    @Autowired
+    private PanierService panierService;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private VendeurRepository vendeurRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private PanierItemRepository panierItemRepository;
+
+    @Autowired
+    private PanierRepository panierRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Client client;
+    private Produit boubou;
+    private Produit pagne;
+
+    @BeforeEach
+    void preparerDonnees() {
+        // Paniers laissés en attente par les autres tests du contexte
+        panierService.ecrireModificationsEnAttente();
+        client = clientRepository.save(DonneesTest.nouveauClient());
+        Vendeur vendeur = vendeurRepository.save(DonneesTest.nouveauVendeur("Boutique Kane"));
+
+        boubou = creerProduit("Boubou", vendeur, 30_000);
+        pagne = creerProduit("Pagne", vendeur, 6_000);
+    }
+
+    @Test
+    void lecturesEtModificationsSansAccesBasePuisEcritureGroupee() {
+        PanierDto panier = panierService.ajouterAuPanier(client.getId(), ajout(boubou, 1));
+        Long itemBoubou = panier.getItems().get(0).getId();
+        Long itemPagne = panierService.ajouterAuPanier(client.getId(), ajout(pagne, 2)).getItems().get(1).getId();
+
+        CompteurRequetes.reinitialiser();
+        panierService.ajouterAuPanier(client.getId(), ajout(boubou, 1));
+        panierService.modifierQuantite(client.getId(), itemBoubou, 4);
+        panierService.retirerDuPanier(client.getId(), itemPagne);
+        PanierDto courant = panierService.obtenirPanierClient(client.getId());
+        assertEquals(4, panierService.obtenirNombreArticles(client.getId()));
+        assertEquals(0, CompteurRequetes.nombreSelects());
+
+        assertEquals(1, courant.getItems().size());
+        assertEquals(4, courant.getNombreTotalArticles());
+        assertEquals(0, courant.getItems().get(0).getPrixUnitaire().multiply(BigDecimal.valueOf(4))
+                .compareTo(courant.getMontantTotal()));
+
+        // Rien n'est encore écrit : la base a l'état du dernier ajout
+        assertEquals(1, panierItemRepository.findById(itemBoubou).orElseThrow().getQuantite());
+        assertTrue(panierItemRepository.findById(itemPagne).isPresent());
+
+        assertEquals(1, panierService.ecrireModificationsEnAttente());
+        assertEquals(0, panierService.ecrireModificationsEnAttente());
+        assertEquals(4, panierItemRepository.findById(itemBoubou).orElseThrow().getQuantite());
+        assertTrue(panierItemRepository.findById(itemPagne).isEmpty());
+        assertEquals(4, panierRepository.findNombreArticlesByClientId(client.getId()).orElseThrow());
+    }
+
+    @Test
+    void badgeLuSansChargerLesItems() {
+        // Panier écrit directement en base : absent du cache
+        Panier panier = new Panier();
+        panier.setClient(client);
+        for (Produit produit : new Produit[]{boubou, pagne}) {
+            PanierItem item = new PanierItem();
+            item.setProduit(produit);
+            item.setQuantite(3);
+            item.setPrixUnitaire(produit.getPrix());
+            panier.ajouterItem(item);
+        }
+        panierRepository.save(panier);
+
+        CompteurRequetes.reinitialiser();
+        assertEquals(6, panierService.obtenirNombreArticles(client.getId()));
+        assertEquals(1, CompteurRequetes.nombreSelects());
+        assertEquals(0, CompteurRequetes.nombreSelectsSur("panier_items"));
+        assertEquals(0, CompteurRequetes.nombreSelectsSur("produits"));
+
+        // Un client sans panier n'en obtient pas un pour le badge
+        Long autreClient = clientRepository.save(DonneesTest.nouveauClient()).getId();
+        assertEquals(0, panierService.obtenirNombreArticles(autreClient));
+        assertTrue(panierRepository.findByClientIdAndActifTrue(autreClient).isEmpty());
+
+        // Une fois le panier en mémoire, le badge suit les modifications pas encore écrites
+        Long item = panierService.obtenirPanierClient(client.getId()).getItems().get(0).getId();
+        panierService.modifierQuantite(client.getId(), item, 1);
+        CompteurRequetes.reinitialiser();
+        assertEquals(4, panierService.obtenirNombreArticles(client.getId()));
+        assertEquals(0, CompteurRequetes.nombreSelects());
+
+        // Le nouvel item est compté en base dès son insertion
+        panierService.ajouterAuPanier(autreClient, ajout(pagne, 2));
+        assertEquals(2, panierRepository.findNombreArticlesByClientId(autreClient).orElseThrow());
+
+        // L'écriture différée remet la colonne à jour
+        panierService.ecrireModificationsEnAttente();
+        assertEquals(4, panierRepository.findNombreArticlesByClientId(client.getId()).orElseThrow());
+    }
+
+    @Test
+    void checkoutUtiliseLesModificationsEncoreEnMemoire() {
+        Long item = panierService.ajouterAuPanier(client.getId(), ajout(boubou, 1)).getItems().get(0).getId();
+        panierService.ajouterAuPanier(client.getId(), ajout(pagne, 1));
+        panierService.modifierQuantite(client.getId(), item, 3);
+
+        CommandeDto commande = commandeService.creerCommandeDepuisPanier(client.getId(), new CreateCommandeDto());
+
+        assertEquals(2, commande.getLignesCommande().size());
+        assertEquals(0, BigDecimal.valueOf(3 * 30_000 + 6_000).compareTo(commande.getMontantHT()));
+        assertEquals(7, produitRepository.findById(boubou.getId()).orElseThrow().getStock());
+
+        // Le panier en mémoire est vidé avec la base, sans écriture restante
+        assertEquals(0, panierService.obtenirNombreArticles(client.getId()));
+        assertEquals(0, panierService.ecrireModificationsEnAttente());
+    }
+
+    @Test
+    void synchronisationNEcritQueLesLignesModifiees() {
+        Produit foulard = creerProduit("Foulard", boubou.getVendeur(), 4_000);
+        Long itemBoubou = panierService.ajouterAuPanier(client.getId(), ajout(boubou, 2)).getItems().get(0).getId();
+        Long itemPagne = panierService.ajouterAuPanier(client.getId(), ajout(pagne, 3)).getItems().get(1).getId();
+        Long itemFoulard = panierService.ajouterAuPanier(client.getId(), ajout(foulard, 1)).getItems().get(2).getId();
+        panierService.ecrireModificationsEnAttente();
+
+        // Le vendeur change le prix du boubou, le pagne n'a plus qu'une unité et le foulard est épuisé
+        boubou.setPrix(BigDecimal.valueOf(32_000));
+        produitRepository.save(boubou);
+        pagne.setStock(1);
+        produitRepository.save(pagne);
+        foulard.setStock(0);
+        produitRepository.save(foulard);
+
+        CompteurRequetes.reinitialiser();
+        SynchronisationPanierDto synchronisation = panierService.synchroniserPanier(client.getId());
+        assertEquals(1, CompteurRequetes.nombreSelectsSur("produits"));
+        assertEquals(0, CompteurRequetes.nombreSelectsSur("panier_items"));
+
+        Map<Long, SynchronisationPanierDto.Changement> changements = synchronisation.getChangements().stream()
+                .collect(Collectors.toMap(SynchronisationPanierDto.Changement::getItemId, Function.identity()));
+        assertEquals(3, changements.size());
+        assertEquals(SynchronisationPanierDto.TypeChangement.PRIX_MODIFIE, changements.get(itemBoubou).getType());
+        assertEquals(0, BigDecimal.valueOf(30_000).compareTo(changements.get(itemBoubou).getAncienPrix()));
+        assertEquals(0, BigDecimal.valueOf(32_000).compareTo(changements.get(itemBoubou).getNouveauPrix()));
+        assertEquals(SynchronisationPanierDto.TypeChangement.QUANTITE_AJUSTEE, changements.get(itemPagne).getType());
+        assertEquals(3, changements.get(itemPagne).getAncienneQuantite());
+        assertEquals(1, changements.get(itemPagne).getNouvelleQuantite());
+        assertEquals(SynchronisationPanierDto.TypeChangement.ARTICLE_RETIRE, changements.get(itemFoulard).getType());
+        assertEquals(2, synchronisation.getPanier().getItems().size());
+        assertEquals(3, synchronisation.getPanier().getNombreTotalArticles());
+
+        // Corrections déjà en base, sans attendre l'écriture différée
+        assertEquals(0, BigDecimal.valueOf(32_000).compareTo(
+                panierItemRepository.findById(itemBoubou).orElseThrow().getPrixUnitaire()));
+        assertEquals(1, panierItemRepository.findById(itemPagne).orElseThrow().getQuantite());
+        assertTrue(panierItemRepository.findById(itemFoulard).isEmpty());
+        assertEquals(3, panierRepository.findNombreArticlesByClientId(client.getId()).orElseThrow());
+
+        // Panier à jour : aucun changement, rien à écrire
+        Object ecritsAvant = panierService.obtenirStatistiques().get("paniersEcrits");
+        assertTrue(panierService.synchroniserPanier(client.getId()).getChangements().isEmpty());
+        assertEquals(ecritsAvant, panierService.obtenirStatistiques().get("paniersEcrits"));
+        assertEquals(0, panierService.ecrireModificationsEnAttente());
+    }
+
+    @Test
+    void purgeDesPaniersAbandonnesParLots() {
+        List<Long> abandonnes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Long clientId = clientRepository.save(DonneesTest.nouveauClient()).getId();
+            creerPanierEnBase(clientId, 60);
+            abandonnes.add(clientId);
+        }
+        Long recent = clientRepository.save(DonneesTest.nouveauClient()).getId();
+        creerPanierEnBase(recent, 2);
+        // Ancien en base mais rouvert par le client : conservé
+        Long rouvert = clientRepository.save(DonneesTest.nouveauClient()).getId();
+        creerPanierEnBase(rouvert, 60);
+        panierService.obtenirPanierClient(rouvert);
+
+        long itemsAvant = panierItemRepository.count();
+        assertEquals(3, panierService.purgerPaniersAbandonnes());
+
+        for (Long clientId : abandonnes) {
+            assertTrue(panierRepository.findByClientId(clientId).isEmpty());
+        }
+        assertEquals(itemsAvant - 6, panierItemRepository.count());
+        assertTrue(panierRepository.findByClientId(recent).isPresent());
+        assertTrue(panierRepository.findByClientId(rouvert).isPresent());
+
+        Map<String, Object> statistiques = panierService.obtenirStatistiques();
+        assertEquals(3L, statistiques.get("paniersPurges"));
+        assertEquals(6L, statistiques.get("itemsPurges"));
+        assertNotNull(statistiques.get("dateDernierePurge"));
+
+        // Le client revient : un nouveau panier est créé
+        assertEquals(0, panierService.obtenirNombreArticles(abandonnes.get(0)));
+        assertEquals(1, panierService.ajouterAuPanier(abandonnes.get(0), ajout(pagne, 1)).getNombreTotalArticles());
+        assertEquals(0, panierService.purgerPaniersAbandonnes());
+    }
+
+    @Test
+    void modificationsRefuseesAuDelaDuStock() {
+        Long item = panierService.ajouterAuPanier(client.getId(), ajout(pagne, 9)).getItems().get(0).getId();
+
+        RuntimeException erreur = assertThrows(RuntimeException.class,
+                () -> panierService.modifierQuantite(client.getId(), item, 11));
+        assertTrue(erreur.getMessage().startsWith("Stock insuffisant"));
+        assertThrows(RuntimeException.class, () -> panierService.ajouterAuPanier(client.getId(), ajout(pagne, 2)));
+        assertThrows(RuntimeException.class, () -> panierService.retirerDuPanier(client.getId(), item + 1_000));
+        assertEquals(9, panierService.obtenirNombreArticles(client.getId()));
+    }
+
+    @Test
+    void panierModifieAilleursRechargeDepuisLaBase() {
+        Long item = panierService.ajouterAuPanier(client.getId(), ajout(boubou, 1)).getItems().get(0).getId();
+        panierService.ecrireModificationsEnAttente();
+        panierService.modifierQuantite(client.getId(), item, 3);
+        long conflitsAvant = (Long) panierService.obtenirStatistiques().get("conflitsEcriture");
+
+        // Une autre instance écrit le panier entre-temps
+        modifierAilleurs(item, 2);
+
+        // L'écriture en attente est refusée : l'état écrit par l'autre instance est conservé
+        assertEquals(0, panierService.ecrireModificationsEnAttente());
+        assertEquals(conflitsAvant + 1, panierService.obtenirStatistiques().get("conflitsEcriture"));
+        assertEquals(2, panierItemRepository.findById(item).orElseThrow().getQuantite());
+        assertEquals(2, panierService.obtenirPanierClient(client.getId()).getNombreTotalArticles());
+
+        // Ajout d'un nouvel item à un panier périmé : rejoué sur le panier rechargé
+        modifierAilleurs(item, 5);
+        PanierDto panier = panierService.ajouterAuPanier(client.getId(), ajout(pagne, 1));
+        assertEquals(6, panier.getNombreTotalArticles());
+        assertEquals(6, panierRepository.findNombreArticlesByClientId(client.getId()).orElseThrow());
+        assertEquals(conflitsAvant + 2, panierService.obtenirStatistiques().get("conflitsEcriture"));
+    }
+
+    private void creerPanierEnBase(Long clientId, int joursInactivite) {
+        Panier panier = new Panier();
+        panier.setClient(clientRepository.findById(clientId).orElseThrow());
+        for (Produit produit : new Produit[]{boubou, pagne}) {
+            PanierItem item = new PanierItem();
+            item.setProduit(produit);
+            item.setQuantite(1);
+            item.setPrixUnitaire(produit.getPrix());
+            panier.ajouterItem(item);
+        }
+        panier.setDateCreation(LocalDateTime.now().minusDays(joursInactivite));
+        panier.setDateModification(panier.getDateCreation());
+        panierRepository.save(panier);
+    }
+
+    private void modifierAilleurs(Long itemId, int quantite) {
+        jdbcTemplate.update("UPDATE panier_items SET quantite = ? WHERE id = ?", quantite, itemId);
+        jdbcTemplate.update("UPDATE paniers SET nombre_articles = ?, version = version + 1 WHERE client_id = ?",
+                quantite, client.getId());
+    }
+
+    private AjouterAuPanierDto ajout(Produit produit, int quantite) {
+        AjouterAuPanierDto dto = new AjouterAuPanierDto();
+        dto.setProduitId(produit.getId());
+        dto.setQuantite(quantite);
+        return dto;
+    }
+
+    private Produit creerProduit(String nom, Vendeur vendeur, int prix) {
+        return produitRepository.save(DonneesTest.nouveauProduit(nom, vendeur, prix, 10));
+    }
+}
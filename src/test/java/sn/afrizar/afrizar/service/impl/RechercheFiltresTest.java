@@ -0,0 +1,204 @@
+package sn.afrizar.afrizar.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import sn.afrizar.afrizar.model.*;
+import sn.afrizar.afrizar.repository.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recherche filtrée des produits et des commandes : toutes les combinaisons de filtres sont parcourues,
+ * le SQL émis ne contient que les prédicats des filtres renseignés et les résultats correspondent
+ * au filtrage attendu des données de test.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=sn.afrizar.afrizar.service.impl.CompteurRequetes"
+})
+class RechercheFiltresTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 100, Sort.by("id"));
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private VendeurRepository vendeurRepository;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    private final List<Produit> produits = new ArrayList<>();
+    private final List<Commande> commandes = new ArrayList<>();
+    private Vendeur vendeur;
+    private Categorie categorie;
+    private Client client;
+    private final LocalDateTime maintenant = LocalDateTime.now();
+
+    @BeforeEach
+    void preparerDonnees() {
+        String suffixe = UUID.randomUUID().toString();
+
+        vendeur = vendeurRepository.save(DonneesTest.nouveauVendeur("Boutique A"));
+        Vendeur autreVendeur = vendeurRepository.save(DonneesTest.nouveauVendeur("Boutique B"));
+        categorie = new Categorie();
+        categorie.setNom("Tissus " + suffixe);
+        categorie = categorieRepository.save(categorie);
+
+        produits.add(creerProduit("Boubou Bazin", vendeur, categorie, 30_000, Produit.Qualite.PREMIUM, Produit.StatutProduit.ACTIF));
+        produits.add(creerProduit("Pagne wax", vendeur, null, 8_000, Produit.Qualite.STANDARD, Produit.StatutProduit.ACTIF));
+        produits.add(creerProduit("Boubou brodé", autreVendeur, categorie, 15_000, Produit.Qualite.STANDARD, Produit.StatutProduit.ACTIF));
+        produits.add(creerProduit("Boubou 100%_coton", autreVendeur, null, 12_000, Produit.Qualite.ECONOMIQUE, Produit.StatutProduit.ACTIF));
+        produits.add(creerProduit("Boubou retiré", vendeur, categorie, 20_000, Produit.Qualite.PREMIUM, Produit.StatutProduit.INACTIF));
+
+        client = clientRepository.save(DonneesTest.nouveauClient());
+        Client autreClient = clientRepository.save(DonneesTest.nouveauClient());
+        commandes.add(creerCommande(client, Commande.StatutCommande.CONFIRMEE, 40_000, 5));
+        commandes.add(creerCommande(client, Commande.StatutCommande.EN_ATTENTE, 10_000, 1));
+        commandes.add(creerCommande(autreClient, Commande.StatutCommande.CONFIRMEE, 25_000, 2));
+        commandes.add(creerCommande(autreClient, Commande.StatutCommande.LIVREE, 60_000, 20));
+    }
+
+    @Test
+    void rechercheProduits_matriceDesFiltres() {
+        // Chaque bit active un filtre : nom, catégorie, vendeur, prix min, prix max, qualité
+        for (int combinaison = 0; combinaison < 64; combinaison++) {
+            String nom = actif(combinaison, 0) ? "BOUBOU" : null;
+            Long categorieId = actif(combinaison, 1) ? categorie.getId() : null;
+            Long vendeurId = actif(combinaison, 2) ? vendeur.getId() : null;
+            BigDecimal prixMin = actif(combinaison, 3) ? BigDecimal.valueOf(10_000) : null;
+            BigDecimal prixMax = actif(combinaison, 4) ? BigDecimal.valueOf(25_000) : null;
+            Produit.Qualite qualite = actif(combinaison, 5) ? Produit.Qualite.STANDARD : null;
+
+            CompteurRequetes.reinitialiser();
+            List<Long> trouves = produitRepository.findAll(ProduitSpecifications.actifsAvecFiltres(
+                    nom, categorieId, vendeurId, prixMin, prixMax, qualite), PAGE).map(Produit::getId).getContent();
+
+            String where = clauseWhere(CompteurRequetes.requetesSelect().get(0));
+            String contexte = "combinaison " + combinaison + " : " + where;
+            assertFalse(where.contains("is null"), contexte);
+            assertTrue(contient(where, "\\.statut\\s*=\\s*\\?"), contexte);
+            assertEquals(nom != null, where.contains(" like "), contexte);
+            assertEquals(categorieId != null, contient(where, "\\.categorie_id\\s*=\\s*\\?"), contexte);
+            assertEquals(vendeurId != null, contient(where, "\\.vendeur_id\\s*=\\s*\\?"), contexte);
+            assertEquals(prixMin != null, contient(where, "\\.prix\\s*>=\\s*\\?"), contexte);
+            assertEquals(prixMax != null, contient(where, "\\.prix\\s*<=\\s*\\?"), contexte);
+            assertEquals(qualite != null, contient(where, "\\.qualite\\s*=\\s*\\?"), contexte);
+            // Le filtre par catégorie ou vendeur lit la clé étrangère, sans jointure
+            assertEquals(0, CompteurRequetes.nombreSelectsSur("categories"), contexte);
+
+            Predicate<Produit> attendu = p -> p.getStatut() == Produit.StatutProduit.ACTIF
+                    && (nom == null || p.getNom().toLowerCase().contains(nom.toLowerCase()))
+                    && (categorieId == null || (p.getCategorie() != null && categorieId.equals(p.getCategorie().getId())))
+                    && (vendeurId == null || vendeurId.equals(p.getVendeur().getId()))
+                    && (prixMin == null || p.getPrix().compareTo(prixMin) >= 0)
+                    && (prixMax == null || p.getPrix().compareTo(prixMax) <= 0)
+                    && (qualite == null || p.getQualite() == qualite);
+            assertEquals(produits.stream().filter(attendu).map(Produit::getId).toList(), trouves, contexte);
+        }
+    }
+
+    @Test
+    void rechercheProduits_jokersRecherchesLitteralement() {
+        assertEquals(List.of(produits.get(3).getId()), produitRepository.findAll(ProduitSpecifications.actifsAvecFiltres(
+                "100%_c", null, null, null, null, null), PAGE).map(Produit::getId).getContent());
+        assertTrue(produitRepository.findAll(ProduitSpecifications.actifsAvecFiltres(
+                "bou_ou", null, null, null, null, null), PAGE).isEmpty());
+    }
+
+    @Test
+    void rechercheCommandes_matriceDesFiltres() {
+        // Chaque bit active un filtre : client, statut, montant min, montant max, date début, date fin
+        for (int combinaison = 0; combinaison < 64; combinaison++) {
+            Long clientId = actif(combinaison, 0) ? client.getId() : null;
+            Commande.StatutCommande statut = actif(combinaison, 1) ? Commande.StatutCommande.CONFIRMEE : null;
+            BigDecimal montantMin = actif(combinaison, 2) ? BigDecimal.valueOf(20_000) : null;
+            BigDecimal montantMax = actif(combinaison, 3) ? BigDecimal.valueOf(50_000) : null;
+            LocalDateTime dateDebut = actif(combinaison, 4) ? maintenant.minusDays(10) : null;
+            // Bornes décalées des dates des commandes : la précision des horodatages en base diffère de Java
+            LocalDateTime dateFin = actif(combinaison, 5) ? maintenant.minusDays(2).plusHours(1) : null;
+
+            CompteurRequetes.reinitialiser();
+            List<Long> trouves = commandeRepository.findAll(CommandeSpecifications.avecFiltres(
+                    clientId, statut, montantMin, montantMax, dateDebut, dateFin), PAGE).map(Commande::getId).getContent();
+
+            String requete = CompteurRequetes.requetesSelect().get(0);
+            String where = clauseWhere(requete);
+            String contexte = "combinaison " + combinaison + " : " + where;
+            assertEquals(combinaison != 0, requete.contains(" where "), contexte);
+            assertFalse(where.contains("is null"), contexte);
+            assertEquals(clientId != null, contient(where, "\\.client_id\\s*=\\s*\\?"), contexte);
+            assertEquals(statut != null, contient(where, "\\.statut\\s*=\\s*\\?"), contexte);
+            assertEquals(montantMin != null, contient(where, "\\.montant_total\\s*>=\\s*\\?"), contexte);
+            assertEquals(montantMax != null, contient(where, "\\.montant_total\\s*<=\\s*\\?"), contexte);
+            assertEquals(dateDebut != null, contient(where, "\\.date_creation\\s*>=\\s*\\?"), contexte);
+            assertEquals(dateFin != null, contient(where, "\\.date_creation\\s*<=\\s*\\?"), contexte);
+            assertEquals(0, CompteurRequetes.nombreSelectsSur("utilisateur"), contexte);
+
+            Predicate<Commande> attendu = c -> commandes.contains(c)
+                    && (clientId == null || clientId.equals(c.getClient().getId()))
+                    && (statut == null || c.getStatut() == statut)
+                    && (montantMin == null || c.getMontantTotal().compareTo(montantMin) >= 0)
+                    && (montantMax == null || c.getMontantTotal().compareTo(montantMax) <= 0)
+                    && (dateDebut == null || !c.getDateCreation().isBefore(dateDebut))
+                    && (dateFin == null || !c.getDateCreation().isAfter(dateFin));
+            List<Long> idsTest = commandes.stream().map(Commande::getId).toList();
+            assertEquals(commandes.stream().filter(attendu).map(Commande::getId).toList(),
+                    trouves.stream().filter(idsTest::contains).toList(), contexte);
+        }
+    }
+
+    private static boolean actif(int combinaison, int filtre) {
+        return (combinaison & (1 << filtre)) != 0;
+    }
+
+    private static String clauseWhere(String requete) {
+        int debut = requete.indexOf(" where ");
+        if (debut < 0) {
+            return "";
+        }
+        int fin = requete.indexOf(" order by ", debut);
+        return requete.substring(debut, fin < 0 ? requete.length() : fin);
+    }
+
+    private static boolean contient(String sql, String motif) {
+        return Pattern.compile(motif).matcher(sql).find();
+    }
+
+    private Produit creerProduit(String nom, Vendeur vendeurProduit, Categorie categorieProduit, int prix,
+                                 Produit.Qualite qualite, Produit.StatutProduit statut) {
+        Produit produit = DonneesTest.nouveauProduit(nom, vendeurProduit, prix, 5);
+        produit.setQualite(qualite);
+        produit.setStatut(statut);
+        produit.setCategorie(categorieProduit);
+        return produitRepository.save(produit);
+    }
+
+    private Commande creerCommande(Client clientCommande, Commande.StatutCommande statut, int montant, int joursEcoules) {
+        Commande commande = new Commande();
+        commande.setClient(clientCommande);
+        commande.setStatut(statut);
+        commande.setMontantTotal(BigDecimal.valueOf(montant));
+        commande.setDateCreation(maintenant.minusDays(joursEcoules));
+        return commandeRepository.save(commande);
+    }
+}
@@ -0,0 +1,223 @@
+package sn.afrizar.afrizar.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.afrizar.afrizar.dto.CommandeDto;
+import sn.afrizar.afrizar.dto.CreateCommandeDto;
+import sn.afrizar.afrizar.dto.CreateLigneCommandeDto;
+import sn.afrizar.afrizar.model.*;
+import sn.afrizar.afrizar.repository.*;
+import sn.afrizar.afrizar.service.CommandeService;
+import sn.afrizar.afrizar.service.ReservationStockService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Réservations de stock du checkout : le stock retenu par un client n'est plus disponible pour les autres
+ * jusqu'à la commande ou l'expiration. Les transactions sont réellement validées.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.identifiants.noeud=0",
+        // Le balayeur planifié ne démarre pas pendant le test : il est appelé explicitement
+        "app.reservations.delai-demarrage-ms=3600000",
+        "app.outbox.delai-demarrage-ms=3600000"
+})
+@Import({
+        ReservationStockServiceImpl.class,
+        CommandeVendeurServiceImpl.class,
+        AgregatVentesServiceImpl.class,
+        CommandeServiceImpl.class,
+        CalculPrixServiceImpl.class,
+        CommissionServiceImpl.class,
+        LivraisonServiceImpl.class,
+        ConfigurationLivraisonServiceImpl.class,
+        PanierServiceImpl.class,
+        GenerateurNumeroServiceImpl.class,
+        EvenementOutboxServiceImpl.class,
+        JacksonAutoConfiguration.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationStockServiceTest {
+
+    @Autowired
+    private ReservationStockService reservationStockService;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private VendeurRepository vendeurRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private PanierRepository panierRepository;
+
+    @Autowired
+    private ReservationStockRepository reservationStockRepository;
+
+    private Vendeur vendeur;
+    private Produit produit;
+
+    @BeforeEach
+    void preparerDonnees() {
+        vendeur = vendeurRepository.save(DonneesTest.nouveauVendeur("Boutique Ndiaye"));
+        produit = produitRepository.save(DonneesTest.nouveauProduit("Taille basse wax", vendeur, 25_000, 3));
+    }
+
+    @Test
+    void stockReserveIndisponiblePourLesAutresClients() {
+        Long clientA = creerClientAvecPanier(2);
+        Long clientB = creerClientAvecPanier(2);
+
+        reservationStockService.reserverPanier(clientA);
+
+        assertEquals(2, reservationStockService.obtenirQuantiteReservee(produit.getId()));
+        assertEquals(1, reservationStockService.calculerQuantiteDisponible(produitRepository.findById(produit.getId()).orElseThrow()));
+        RuntimeException erreur = assertThrows(RuntimeException.class, () -> reservationStockService.reserverPanier(clientB));
+        assertTrue(erreur.getMessage().startsWith("Stock insuffisant"));
+
+        // Le renouvellement par le même client remplace sa réservation au lieu de l'additionner
+        reservationStockService.reserverPanier(clientA);
+        assertEquals(2, reservationStockService.obtenirQuantiteReservee(produit.getId()));
+        assertEquals(1, reservationStockRepository.findByClientIdAndStatut(clientA, ReservationStock.StatutReservation.ACTIVE).size());
+
+        reservationStockService.libererReservations(clientA);
+        assertEquals(0, reservationStockService.obtenirQuantiteReservee(produit.getId()));
+        reservationStockService.reserverPanier(clientB);
+    }
+
+    @Test
+    void reservationsExpireesLibereesParLeBalayeur() {
+        Long clientA = creerClientAvecPanier(3);
+        Long clientB = creerClientAvecPanier(1);
+        reservationStockService.reserverPanier(clientA);
+
+        // Échéance dépassée : le stock est rendu dès l'expiration, même avant le balayage
+        transactionTemplate.executeWithoutResult(statut -> reservationStockRepository
+                .findByClientIdAndStatut(clientA, ReservationStock.StatutReservation.ACTIVE)
+                .forEach(reservation -> reservation.setDateExpiration(LocalDateTime.now().minusMinutes(1))));
+        reservationStockService.reserverPanier(clientB);
+
+        assertEquals(1, reservationStockService.expirerReservations());
+        assertEquals(1, reservationStockService.obtenirQuantiteReservee(produit.getId()));
+        assertEquals(ReservationStock.StatutReservation.EXPIREE, reservationStockRepository
+                .findByClientIdAndStatut(clientA, ReservationStock.StatutReservation.EXPIREE).get(0).getStatut());
+    }
+
+    @Test
+    void commandeConsommeLaReservation() {
+        Long client = creerClientAvecPanier(2);
+        reservationStockService.reserverPanier(client);
+
+        CommandeDto commande = commandeService.creerCommandeDepuisPanier(client, new CreateCommandeDto());
+
+        List<ReservationStock> confirmees = reservationStockRepository.findByClientIdAndStatut(client, ReservationStock.StatutReservation.CONFIRMEE);
+        assertEquals(1, confirmees.size());
+        assertEquals(commande.getId(), confirmees.get(0).getCommandeId());
+        assertEquals(1, produitRepository.findById(produit.getId()).orElseThrow().getStock());
+        assertEquals(0, reservationStockService.obtenirQuantiteReservee(produit.getId()));
+    }
+
+    @Test
+    void commandeDirecteRespecteLesReservationsDesAutresClients() {
+        Long clientA = creerClientAvecPanier(2);
+        Long clientB = creerClientAvecPanier(1);
+        reservationStockService.reserverPanier(clientA);
+
+        RuntimeException erreur = assertThrows(RuntimeException.class,
+                () -> commandeService.creerCommande(commandeDirecte(clientB, 2)));
+        assertTrue(erreur.getMessage().startsWith("Stock insuffisant"));
+        assertEquals(3, produitRepository.findById(produit.getId()).orElseThrow().getStock());
+
+        // La seule unité non retenue reste vendable
+        commandeService.creerCommande(commandeDirecte(clientB, 1));
+        assertEquals(2, produitRepository.findById(produit.getId()).orElseThrow().getStock());
+        commandeService.creerCommandeDepuisPanier(clientA, new CreateCommandeDto());
+        assertEquals(0, produitRepository.findById(produit.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void checkoutsConcurrentsNeDepassentPasLeStock() throws Exception {
+        List<Long> clients = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            clients.add(creerClientAvecPanier(1));
+        }
+
+        ExecutorService executeur = Executors.newFixedThreadPool(clients.size());
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<Boolean>> resultats = new ArrayList<>();
+        for (Long client : clients) {
+            resultats.add(executeur.submit(() -> {
+                depart.await();
+                try {
+                    reservationStockService.reserverPanier(client);
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+        depart.countDown();
+
+        int reussites = 0;
+        for (Future<Boolean> resultat : resultats) {
+            if (resultat.get()) {
+                reussites++;
+            }
+        }
+        executeur.shutdown();
+
+        assertEquals(3, reussites);
+        assertEquals(3, reservationStockService.obtenirQuantiteReservee(produit.getId()));
+    }
+
+    private CreateCommandeDto commandeDirecte(Long clientId, int quantite) {
+        CreateLigneCommandeDto ligne = new CreateLigneCommandeDto();
+        ligne.setProduitId(produit.getId());
+        ligne.setQuantite(quantite);
+        CreateCommandeDto dto = new CreateCommandeDto();
+        dto.setClientId(clientId);
+        dto.setLignesCommande(List.of(ligne));
+        return dto;
+    }
+
+    private Long creerClientAvecPanier(int quantite) {
+        return transactionTemplate.execute(statut -> {
+            Client client = clientRepository.save(DonneesTest.nouveauClient());
+
+            Panier panier = new Panier();
+            panier.setClient(client);
+            PanierItem item = new PanierItem();
+            item.setProduit(produitRepository.getReferenceById(produit.getId()));
+            item.setQuantite(quantite);
+            item.setPrixUnitaire(produit.getPrix());
+            panier.ajouterItem(item);
+            panierRepository.save(panier);
+            return client.getId();
+        });
+    }
+}